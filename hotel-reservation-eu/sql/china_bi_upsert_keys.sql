@@ -0,0 +1,36 @@
+-- ====================================================================
+-- 中国BI库统计表唯一键 DDL
+-- 用于EU系统以 INSERT ... ON DUPLICATE KEY UPDATE 方式批量写入统计数据
+-- 执行前请确保已执行 china-bi-system 的 add_region_field.sql 添加region字段
+-- ====================================================================
+
+USE `china_bi_system`;
+
+-- 每日总收入：每个地区每天一行（原uk_date只按日期唯一，会与其他地区数据冲突）
+ALTER TABLE `daily_total_income`
+  DROP INDEX `uk_date`,
+  ADD UNIQUE KEY `uk_date_region` (`report_date`, `region`);
+
+-- 热门房型Top5：每个地区每天固定5个排名位
+ALTER TABLE `popular_room_types_top5`
+  ADD UNIQUE KEY `uk_date_region_ranking` (`report_date`, `region`, `ranking`);
+
+-- 分店业绩：每个地区每天每个分店一行
+ALTER TABLE `branch_performance`
+  ADD UNIQUE KEY `uk_date_region_branch` (`report_date`, `region`, `branch_id`);
+
+-- 预订趋势：每个地区每天一行
+ALTER TABLE `reservation_trends`
+  DROP INDEX `uk_date`,
+  ADD UNIQUE KEY `uk_date_region` (`report_date`, `region`);
+
+-- 综合报告：每个地区每天每种报告类型一行
+ALTER TABLE `comprehensive_reports`
+  ADD UNIQUE KEY `uk_date_region_type` (`report_date`, `region`, `report_type`);
+
+-- ====================================================================
+-- 说明
+-- ====================================================================
+-- 1. 统计行按唯一键原地更新，不再先DELETE再INSERT，BI看板不会读到空窗口
+-- 2. 当天不再出现的分店、超出当前名次数的房型排名位由写入服务单独删除
+-- 3. 如历史数据中存在重复行，需先清理后再执行本脚本
@@ -0,0 +1,29 @@
+-- ====================================================================
+-- 数据密钥表 DDL（信封加密）
+-- 用户PII使用数据密钥加密，数据密钥由KMS主密钥加密后保存在本表，明文数据密钥只存在于应用内存；
+-- 密文头部记录数据密钥版本（即本表ID），轮换后旧版本密钥继续用于解密，直到后台重新加密完成
+-- ====================================================================
+
+CREATE TABLE IF NOT EXISTS `data_encryption_key` (
+  `id` INT NOT NULL AUTO_INCREMENT COMMENT '数据密钥版本',
+  `master_key_id` VARCHAR(100) NOT NULL COMMENT '加密本数据密钥的主密钥ID',
+  `wrapped_key` VARCHAR(255) NOT NULL COMMENT '主密钥加密的数据密钥（Base64）',
+  `status` VARCHAR(20) NOT NULL DEFAULT 'ACTIVE' COMMENT 'ACTIVE-用于加密 RETIRED-仅用于解密',
+  `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  KEY `idx_status` (`status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='数据加密密钥';
+
+-- 带版本头部的密文比旧格式长约8个字符，加密后的PII列统一放宽
+ALTER TABLE `user`
+  MODIFY COLUMN `first_name` VARCHAR(255) NOT NULL COMMENT '名字（加密）',
+  MODIFY COLUMN `last_name` VARCHAR(255) NOT NULL COMMENT '姓氏（加密）',
+  MODIFY COLUMN `email` VARCHAR(255) NOT NULL COMMENT '邮箱地址（加密）',
+  MODIFY COLUMN `phone_number` VARCHAR(255) NULL COMMENT '电话号码（加密）',
+  MODIFY COLUMN `address` VARCHAR(512) NULL COMMENT '地址（加密）';
+
+-- 首个数据密钥在应用首次加密时自动生成；
+-- 轮换数据密钥：POST /admin/api/encryption-keys/rotate（同时开始后台重新加密）
+-- 轮换主密钥：配置新的 aws.kms.local.active-master-key-id 后 POST /admin/api/encryption-keys/rewrap
+-- 进度：GET /admin/api/encryption-keys
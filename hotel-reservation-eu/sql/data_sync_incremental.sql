@@ -0,0 +1,25 @@
+-- ====================================================================
+-- 增量数据同步 DDL
+-- 用于基于 updated_at/id 高水位的增量同步
+-- ====================================================================
+
+-- 预订表增加 (updated_at, id) 复合索引，支持按高水位范围扫描变更数据
+ALTER TABLE `reservation` ADD INDEX `idx_updated_at_id` (`updated_at`, `id`);
+
+-- 同步高水位表
+CREATE TABLE IF NOT EXISTS `data_sync_watermark` (
+  `sync_name` VARCHAR(50) NOT NULL COMMENT '同步任务名称',
+  `watermark_date` DATE NOT NULL COMMENT '当前聚合的统计日期',
+  `last_updated_at` DATETIME NOT NULL COMMENT '已处理变更的最大updated_at',
+  `last_id` BIGINT NOT NULL DEFAULT 0 COMMENT '同一updated_at下已处理的最大预订ID',
+  `processed_count` BIGINT NOT NULL DEFAULT 0 COMMENT '当天累计处理的变更行数',
+  `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`sync_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='数据同步高水位表';
+
+-- ====================================================================
+-- 说明
+-- ====================================================================
+-- 1. 每次增量同步只拉取 (updated_at, id) 大于高水位的预订变更
+-- 2. 变更行按预订ID折叠进当天的内存聚合（同一预订的旧贡献先扣除再累加）
+-- 3. BI写入成功后才推进并持久化高水位
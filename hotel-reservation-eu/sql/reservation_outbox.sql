@@ -0,0 +1,41 @@
+-- ====================================================================
+-- 预订变更Outbox DDL
+-- 预订创建/支付/取消在同一事务中写入outbox，由异步工作线程池批量同步到BI
+-- ====================================================================
+
+-- 预订变更事件表（处理成功后删除）
+CREATE TABLE IF NOT EXISTS `reservation_outbox` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '事件ID',
+  `reservation_id` BIGINT NOT NULL COMMENT '预订ID',
+  `event_type` VARCHAR(20) NOT NULL COMMENT '事件类型：CREATED, PAID, CANCELLED',
+  `report_date` DATE NOT NULL COMMENT '受影响的统计日期（预订创建日期）',
+  `attempts` INT NOT NULL DEFAULT 0 COMMENT '已失败的同步次数',
+  `next_attempt_at` DATETIME NOT NULL COMMENT '下次可同步时间',
+  `last_error` VARCHAR(500) DEFAULT NULL COMMENT '最近一次失败原因',
+  `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  INDEX `idx_next_attempt_at` (`next_attempt_at`, `id`),
+  INDEX `idx_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='预订变更Outbox表';
+
+-- 死信表（超过最大重试次数的事件）
+CREATE TABLE IF NOT EXISTS `reservation_outbox_dead_letter` (
+  `id` BIGINT NOT NULL COMMENT '原事件ID',
+  `reservation_id` BIGINT NOT NULL COMMENT '预订ID',
+  `event_type` VARCHAR(20) NOT NULL COMMENT '事件类型',
+  `report_date` DATE NOT NULL COMMENT '受影响的统计日期',
+  `attempts` INT NOT NULL COMMENT '失败次数',
+  `last_error` VARCHAR(500) DEFAULT NULL COMMENT '最后一次失败原因',
+  `created_at` DATETIME NOT NULL COMMENT '事件创建时间',
+  `failed_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '进入死信表时间',
+  PRIMARY KEY (`id`),
+  INDEX `idx_report_date` (`report_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='预订变更Outbox死信表';
+
+-- ====================================================================
+-- 说明
+-- ====================================================================
+-- 1. 事件只记录预订ID和统计日期，不包含任何PII
+-- 2. 工作线程按统计日期合并事件，每个日期流式重算一次并写入BI，成功后删除事件
+-- 3. 失败的事件按指数退避（带随机抖动）重试，超过最大次数后移入死信表，
+--    修复后可通过 /api/data-sync/manual-sync 或 /api/data-sync/backfill 重新同步对应日期
@@ -0,0 +1,19 @@
+-- ====================================================================
+-- 按晚房量库存 DDL
+-- 每个 (分店, 房型, 入住夜) 一行已订房间数，下单时用带条件的UPDATE原子占用，
+-- 多个应用实例并发下单也不会超卖
+-- ====================================================================
+
+CREATE TABLE IF NOT EXISTS `room_night_inventory` (
+  `branch_id` BIGINT NOT NULL COMMENT '分店ID',
+  `room_type_id` BIGINT NOT NULL COMMENT '房型ID',
+  `stay_date` DATE NOT NULL COMMENT '入住夜（退房日不占用）',
+  `booked` INT NOT NULL DEFAULT 0 COMMENT '该晚已订房间数',
+  `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`branch_id`, `room_type_id`, `stay_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='按晚房量库存表';
+
+-- 库存行在首次被预订时按已有预订初始化，无需迁移历史数据；
+-- 预订表按 (分店, 房型, 入住日期) 索引，供初始化和房量台账加载使用
+ALTER TABLE `reservation` ADD INDEX `idx_branch_room_type_checkin` (`branch_id`, `room_type_id`, `checkin_date`);
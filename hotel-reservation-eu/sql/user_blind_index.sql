@@ -0,0 +1,17 @@
+-- ====================================================================
+-- 用户邮箱、电话盲索引 DDL
+-- 邮箱和电话使用随机IV加密，相同明文每次得到不同密文，无法按密文查询；
+-- 盲索引列保存规范化明文的HMAC-SHA256，按邮箱/电话查询时走索引而不是逐行解密
+-- ====================================================================
+
+ALTER TABLE `user`
+  ADD COLUMN `email_hash` CHAR(64) NULL COMMENT '邮箱盲索引（HMAC-SHA256）' AFTER `email`,
+  ADD COLUMN `phone_hash` CHAR(64) NULL COMMENT '电话号码盲索引（HMAC-SHA256）' AFTER `phone_number`;
+
+-- 原 idx_email 建在密文上，无法用于查询，改为建在盲索引列上
+ALTER TABLE `user` DROP INDEX `idx_email`, ADD INDEX `idx_email` (`email_hash`);
+ALTER TABLE `user` ADD INDEX `idx_phone` (`phone_hash`);
+
+-- 现有用户的盲索引由应用启动后的回填任务写入（user-blind-index.backfill），
+-- 回填进度：GET /admin/api/user-blind-index/backfill
+-- 回填完成前，按邮箱查询会额外解密比对 email_hash 为空的用户
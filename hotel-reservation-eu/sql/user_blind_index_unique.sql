@@ -0,0 +1,15 @@
+-- ====================================================================
+-- 用户邮箱盲索引唯一约束 DDL
+-- 邮箱唯一由数据库保证：注册时先查询再插入存在并发窗口，唯一索引可以拦住重复邮箱；
+-- 按邮箱查询最多命中一行。email_hash 为空的行（回填前的用户）不受唯一约束限制
+-- 前提：user_blind_index.sql 已执行，且回填已完成（GET /admin/api/user-blind-index/backfill 中 complete 为 true）
+-- ====================================================================
+
+-- 执行前先确认没有重复的盲索引，有结果时需要先人工合并重复账户
+SELECT `email_hash`, COUNT(*) AS `users`
+FROM `user`
+WHERE `email_hash` IS NOT NULL
+GROUP BY `email_hash`
+HAVING COUNT(*) > 1;
+
+ALTER TABLE `user` DROP INDEX `idx_email`, ADD UNIQUE INDEX `idx_email` (`email_hash`);
@@ -0,0 +1,161 @@
+package com.hotelbooking.hotel_reservation_eu.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 进程内近端缓存（有容量上限和过期时间）
+ * 同一个键并发未命中时只加载一次，其他线程等待同一次加载的结果；加载在映射表的锁之外执行，
+ * 慢查询不会阻塞同一哈希桶中其他键的读取和失效。加载期间键被失效时，加载结果只返回给已在等待的调用方，不写入缓存。
+ * 加载结果为null（数据不存在或已停用）也会缓存，避免反复查询数据库，加载抛出异常时不缓存。超过容量上限时先清理过期记录，仍超限则按迭代顺序淘汰到上限的90%。
+ * 缓存的对象由多个请求共享，调用方不得修改
+ */
+public final class NearCache<K, V> {
+
+    private record Entry<V>(Optional<V> value, long expiresAtNanos) {
+    }
+
+    private final String name;
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    /** 正在加载的键，同一个键的并发未命中等待同一次加载 */
+    private final ConcurrentHashMap<K, CompletableFuture<Optional<V>>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public NearCache(String name, int maximumSize, Duration ttl) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("缓存容量必须大于0");
+        }
+        this.name = name;
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * 读取缓存，未命中或已过期时用 loader 加载
+     *
+     * @return 缓存或加载的值，数据不存在时为null
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long now = System.nanoTime();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAtNanos() - now > 0) {
+            hits.increment();
+            return entry.value().orElse(null);
+        }
+
+        misses.increment();
+        CompletableFuture<Optional<V>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<V>> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return await(inFlight).orElse(null);
+        }
+
+        Optional<V> value;
+        try {
+            // 检查未命中到登记加载之间其他线程是否已加载完成
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAtNanos() - System.nanoTime() > 0) {
+                value = entry.value();
+            } else {
+                value = Optional.ofNullable(loader.apply(key));
+                Entry<V> loaded = new Entry<>(value, System.nanoTime() + ttlNanos);
+                // 加载期间键被失效时（加载登记已被移除）不写入缓存，避免缓存失效前读到的旧值
+                entries.compute(key, (k, existing) -> loading.get(k) == load ? loaded : existing);
+            }
+        } catch (RuntimeException | Error e) {
+            loadFailures.increment();
+            loading.remove(key, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+        loading.remove(key, load);
+        load.complete(value);
+        if (entries.size() > maximumSize) {
+            evict();
+        }
+        return value.orElse(null);
+    }
+
+    public void invalidate(K key) {
+        loading.remove(key);
+        if (entries.remove(key) != null) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * 移除键满足条件的记录
+     */
+    public void invalidateIf(Predicate<? super K> predicate) {
+        loading.keySet().removeIf(predicate);
+        entries.keySet().removeIf(key -> {
+            if (predicate.test(key)) {
+                invalidations.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public void invalidateAll() {
+        loading.clear();
+        invalidations.add(entries.size());
+        entries.clear();
+    }
+
+    public NearCacheStats stats() {
+        return new NearCacheStats(name, entries.size(), hits.sum(), misses.sum(), loadFailures.sum(),
+                evictions.sum(), invalidations.sum());
+    }
+
+    /**
+     * 等待其他线程的加载结果，加载失败时抛出同一个异常
+     */
+    private static <V> Optional<V> await(CompletableFuture<Optional<V>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> {
+            if (entry.expiresAtNanos() - now <= 0) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        });
+
+        int target = maximumSize - maximumSize / 10;
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+}
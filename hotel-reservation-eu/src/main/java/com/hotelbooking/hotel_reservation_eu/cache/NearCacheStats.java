@@ -0,0 +1,23 @@
+package com.hotelbooking.hotel_reservation_eu.cache;
+
+/**
+ * 近端缓存统计（自缓存创建起累计）
+ *
+ * @param size          当前缓存条数
+ * @param hits          命中次数
+ * @param misses        未命中（含过期）次数
+ * @param loadFailures  加载失败次数
+ * @param evictions     因过期或超出容量被淘汰的条数
+ * @param invalidations 主动失效的条数
+ */
+public record NearCacheStats(String name, int size, long hits, long misses, long loadFailures,
+                             long evictions, long invalidations) {
+
+    /**
+     * 命中率，没有请求时为0
+     */
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
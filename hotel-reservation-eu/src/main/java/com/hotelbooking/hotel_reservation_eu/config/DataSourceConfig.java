@@ -0,0 +1,61 @@
+package com.hotelbooking.hotel_reservation_eu.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * 数据源配置类
+ * 同时声明业务主库和中国BI库两个连接池，BI连接池由Spring统一管理生命周期
+ */
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * 业务主库连接属性（spring.datasource）
+     */
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    /**
+     * 业务主库连接池
+     * 声明了第二个数据源后Spring Boot不再自动创建主数据源，这里显式声明并标记为主数据源
+     */
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    /**
+     * 中国BI库连接属性（spring.datasource.china-bi）
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.china-bi")
+    public DataSourceProperties biDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    /**
+     * 中国BI库连接池
+     * 连接池大小和超时时间通过 spring.datasource.china-bi.hikari 配置
+     */
+    @Bean(name = "biDataSource")
+    @ConfigurationProperties("spring.datasource.china-bi.hikari")
+    public HikariDataSource biDataSource(@Qualifier("biDataSourceProperties") DataSourceProperties biDataSourceProperties) {
+        return biDataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+}
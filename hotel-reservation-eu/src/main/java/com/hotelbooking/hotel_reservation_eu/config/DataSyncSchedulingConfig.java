@@ -0,0 +1,30 @@
+package com.hotelbooking.hotel_reservation_eu.config;
+
+import com.hotelbooking.hotel_reservation_eu.service.DataSyncScheduledService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import java.time.Instant;
+
+/**
+ * 数据同步调度配置
+ * 使用Trigger注册同步任务：每次执行结束后才计算下一次执行时间，
+ * 间隔取自 DataSyncScheduledService 的自适应间隔（基础值为 data-sync.schedule.interval）
+ */
+@Configuration
+@RequiredArgsConstructor
+public class DataSyncSchedulingConfig implements SchedulingConfigurer {
+
+    private final DataSyncScheduledService dataSyncScheduledService;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addTriggerTask(dataSyncScheduledService::executeDataSyncTask, triggerContext -> {
+            Instant lastCompletion = triggerContext.lastCompletion();
+            Instant base = lastCompletion != null ? lastCompletion : Instant.now();
+            return base.plusMillis(dataSyncScheduledService.getNextIntervalMillis());
+        });
+    }
+}
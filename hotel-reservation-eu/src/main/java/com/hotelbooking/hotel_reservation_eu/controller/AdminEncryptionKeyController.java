@@ -0,0 +1,112 @@
+package com.hotelbooking.hotel_reservation_eu.controller;
+
+import com.hotelbooking.hotel_reservation_eu.service.DataKeyService;
+import com.hotelbooking.hotel_reservation_eu.service.UserReEncryptionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 运营端加密密钥管理控制器
+ * 提供数据密钥轮换、主密钥轮换后重新加密数据密钥、用户PII后台重新加密的API
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/api/encryption-keys")
+@RequiredArgsConstructor
+public class AdminEncryptionKeyController {
+
+    private final DataKeyService dataKeyService;
+    private final UserReEncryptionService userReEncryptionService;
+
+    /**
+     * 获取数据密钥和重新加密进度
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("dataKeys", dataKeyService.getKeyStatus());
+        data.put("reEncryption", userReEncryptionService.getStatus());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", data);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 轮换数据密钥并在后台重新加密用户PII
+     */
+    @PostMapping("/rotate")
+    public ResponseEntity<Map<String, Object>> rotateDataKey() {
+        try {
+            int version = dataKeyService.rotateDataKey();
+            boolean started = userReEncryptionService.start();
+            log.info("数据密钥已轮换 - 新版本: {}, 重新加密是否开始: {}", version, started);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("activeVersion", version);
+            response.put("message", started ? "数据密钥已轮换，重新加密已开始" : "数据密钥已轮换，重新加密正在运行，完成后请再次执行");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("轮换数据密钥失败", e);
+            return ResponseEntity.internalServerError().body(createErrorResponse("轮换数据密钥失败"));
+        }
+    }
+
+    /**
+     * 主密钥轮换后用当前主密钥重新加密数据密钥
+     */
+    @PostMapping("/rewrap")
+    public ResponseEntity<Map<String, Object>> rewrapDataKeys() {
+        try {
+            int rewrapped = dataKeyService.rewrapDataKeys();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("rewrapped", rewrapped);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("重新加密数据密钥失败", e);
+            return ResponseEntity.internalServerError().body(createErrorResponse("重新加密数据密钥失败"));
+        }
+    }
+
+    /**
+     * 在后台开始重新加密用户PII
+     */
+    @PostMapping("/re-encryption")
+    public ResponseEntity<Map<String, Object>> startReEncryption() {
+        boolean started = userReEncryptionService.start();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", started);
+        response.put("message", started ? "重新加密已开始" : "重新加密正在运行");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 停止正在运行的重新加密（当前批次处理完后停止，下次从头扫描）
+     */
+    @PostMapping("/re-encryption/stop")
+    public ResponseEntity<Map<String, Object>> stopReEncryption() {
+        userReEncryptionService.stop();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "已请求停止重新加密");
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -0,0 +1,65 @@
+package com.hotelbooking.hotel_reservation_eu.controller;
+
+import com.hotelbooking.hotel_reservation_eu.cache.NearCacheStats;
+import com.hotelbooking.hotel_reservation_eu.service.ReferenceDataCacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 运营端参考数据缓存控制器
+ * 提供缓存命中统计查询和手动清空缓存的API
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/api/reference-cache")
+@RequiredArgsConstructor
+public class AdminReferenceCacheController {
+
+    private final ReferenceDataCacheService referenceDataCacheService;
+
+    /**
+     * 获取各缓存的命中统计
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        List<Map<String, Object>> caches = new ArrayList<>();
+        for (NearCacheStats stats : referenceDataCacheService.getCacheStats()) {
+            Map<String, Object> cache = new HashMap<>();
+            cache.put("name", stats.name());
+            cache.put("size", stats.size());
+            cache.put("hits", stats.hits());
+            cache.put("misses", stats.misses());
+            cache.put("hitRate", stats.hitRate());
+            cache.put("loadFailures", stats.loadFailures());
+            cache.put("evictions", stats.evictions());
+            cache.put("invalidations", stats.invalidations());
+            caches.add(cache);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", caches);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 清空全部参考数据缓存（直接修改数据库后使用）
+     */
+    @PostMapping("/invalidate")
+    public ResponseEntity<Map<String, Object>> invalidateAll() {
+        referenceDataCacheService.invalidateAll();
+        log.info("手动清空参考数据缓存");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "缓存已清空");
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,48 @@
+package com.hotelbooking.hotel_reservation_eu.controller;
+
+import com.hotelbooking.hotel_reservation_eu.service.UserBlindIndexBackfillService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 运营端用户盲索引控制器
+ * 提供盲索引回填进度查询和手动触发回填的API
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/api/user-blind-index")
+@RequiredArgsConstructor
+public class AdminUserBlindIndexController {
+
+    private final UserBlindIndexBackfillService userBlindIndexBackfillService;
+
+    /**
+     * 获取回填进度
+     */
+    @GetMapping("/backfill")
+    public ResponseEntity<Map<String, Object>> getBackfillStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", userBlindIndexBackfillService.getBackfillStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 在后台开始回填
+     */
+    @PostMapping("/backfill")
+    public ResponseEntity<Map<String, Object>> startBackfill() {
+        boolean started = userBlindIndexBackfillService.startBackfill();
+        log.info("手动触发用户盲索引回填 - 是否开始: {}", started);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", started);
+        response.put("message", started ? "回填已开始" : "回填正在运行");
+        return ResponseEntity.ok(response);
+    }
+}
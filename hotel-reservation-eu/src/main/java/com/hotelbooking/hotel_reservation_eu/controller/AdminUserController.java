@@ -0,0 +1,116 @@
+package com.hotelbooking.hotel_reservation_eu.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hotelbooking.hotel_reservation_eu.dto.UserProfileDto;
+import com.hotelbooking.hotel_reservation_eu.model.User;
+import com.hotelbooking.hotel_reservation_eu.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 运营端用户管理控制器
+ * 提供按ID分页的用户列表和全部用户数据导出的API，PII数据按页批量解密
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/api/users")
+@RequiredArgsConstructor
+public class AdminUserController {
+
+    /** 单页最多返回的用户数 */
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /** 导出时每批读取的用户数 */
+    private static final int EXPORT_BATCH_SIZE = 500;
+
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 按ID顺序分页查询用户
+     *
+     * @param afterId 上一页返回的 nextAfterId，第一页不传
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> listUsers(
+            @RequestParam(required = false, defaultValue = "0") long afterId,
+            @RequestParam(required = false, defaultValue = "50") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<User> users = userService.listUsers(afterId, pageSize);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", users.stream().map(AdminUserController::toDto).toList());
+        response.put("nextAfterId", users.size() < pageSize ? null : users.get(users.size() - 1).getId());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 导出全部用户数据（JSON数组），按批读取并流式写出，不在内存中保存全部用户
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        log.info("运营端导出全部用户数据");
+        // 每条记录写完不刷新输出流，由缓冲区满或结束时统一写出
+        ObjectWriter writer = objectMapper.writerFor(UserProfileDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            long exported = 0;
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                long afterId = 0;
+                List<User> users;
+                do {
+                    users = userService.listUsers(afterId, EXPORT_BATCH_SIZE);
+                    for (User user : users) {
+                        writer.writeValue(generator, toDto(user));
+                    }
+                    exported += users.size();
+                    if (!users.isEmpty()) {
+                        afterId = users.get(users.size() - 1).getId();
+                    }
+                } while (users.size() == EXPORT_BATCH_SIZE);
+                generator.writeEndArray();
+            }
+            log.info("运营端用户数据导出完成 - 用户数: {}", exported);
+        };
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"users-" + LocalDate.now() + ".json\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * 只输出用户资料字段，不包含密码、令牌和盲索引
+     */
+    private static UserProfileDto toDto(User user) {
+        return UserProfileDto.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .email(user.getEmail())
+                .phoneNumber(user.getPhoneNumber())
+                .address(user.getAddress())
+                .dateOfBirth(user.getDateOfBirth())
+                .nationality(user.getNationality())
+                .gdprMarketingConsent(user.getGdprMarketingConsent())
+                .gdprAnalyticsConsent(user.getGdprAnalyticsConsent())
+                .build();
+    }
+}
@@ -1,14 +1,23 @@
 package com.hotelbooking.hotel_reservation_eu.controller;
 
+import com.hotelbooking.hotel_reservation_eu.dto.StatisticsReportDto;
 import com.hotelbooking.hotel_reservation_eu.service.BiDataWriteService;
 import com.hotelbooking.hotel_reservation_eu.service.DataSyncScheduledService;
+import com.hotelbooking.hotel_reservation_eu.service.RealtimeStatisticsService;
+import com.hotelbooking.hotel_reservation_eu.service.ReservationOutboxService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -23,6 +32,15 @@ public class DataSyncController {
 
     private final DataSyncScheduledService dataSyncScheduledService;
     private final BiDataWriteService biDataWriteService;
+    private final ReservationOutboxService reservationOutboxService;
+    private final RealtimeStatisticsService realtimeStatisticsService;
+
+    /** BI写入测试报告使用的区域标识，与正式统计的 EU 区域分开 */
+    private static final String TEST_REPORT_REGION = "EU-TEST";
+
+    /** 单次回填允许的最大天数 */
+    @Value("${data-sync.backfill.max-days:366}")
+    private long backfillMaxDays;
 
     /**
      * 获取数据同步状态
@@ -32,7 +50,14 @@ public class DataSyncController {
         Map<String, Object> status = new HashMap<>();
         status.put("syncStatus", dataSyncScheduledService.getSyncStatus());
         status.put("lastSyncTime", dataSyncScheduledService.getLastSyncTime());
-        status.put("biDatabaseConnection", biDataWriteService.checkConnection());
+        // 只读取熔断器状态，不探测BI库，避免占用定时同步的半开探测机会
+        status.put("biDatabaseConnection", biDataWriteService.isAvailable());
+        status.put("circuitBreaker", biDataWriteService.getCircuitBreakerStatus());
+        status.put("nextIntervalMs", dataSyncScheduledService.getNextIntervalMillis());
+        // outbox同步延迟和队列深度
+        status.put("outbox", reservationOutboxService.getOutboxStatus());
+        // 实时统计计数器状态
+        status.put("realtime", realtimeStatisticsService.getRealtimeStatus());
         status.put("timestamp", System.currentTimeMillis());
         
         return ResponseEntity.ok(status);
@@ -48,8 +73,8 @@ public class DataSyncController {
         info.put("description", "欧盟酒店数据同步服务 - 生成匿名化统计报告并同步到BI数据库");
         info.put("syncStatus", dataSyncScheduledService.getSyncStatus());
         info.put("lastSyncTime", dataSyncScheduledService.getLastSyncTime());
-        info.put("scheduleInterval", "15秒");
-        info.put("biDatabaseConnection", biDataWriteService.checkConnection());
+        info.put("scheduleInterval", dataSyncScheduledService.getNextIntervalMillis() / 1000 + "秒");
+        info.put("biDatabaseConnection", biDataWriteService.isAvailable());
         info.put("timestamp", System.currentTimeMillis());
         
         return ResponseEntity.ok(info);
@@ -77,7 +102,15 @@ public class DataSyncController {
                 return ResponseEntity.badRequest().body(response);
             }
             
-            dataSyncScheduledService.manualDataSync(syncDate);
+            if (!dataSyncScheduledService.manualDataSync(syncDate)) {
+                response.put("success", false);
+                response.put("message", "数据同步任务正在执行，请稍后重试");
+                response.put("syncDate", syncDate.toString());
+                response.put("timestamp", System.currentTimeMillis());
+                response.put("error", "SYNC_IN_PROGRESS");
+
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
             
             response.put("success", true);
             response.put("message", "手动数据同步已触发");
@@ -97,6 +130,66 @@ public class DataSyncController {
         }
     }
 
+    /**
+     * 按日期范围回填历史统计数据
+     * 逐日以游标流式读取预订数据，适用于旺季或多日补数
+     */
+    @PostMapping("/backfill")
+    public ResponseEntity<Map<String, Object>> backfill(@RequestParam String startDate,
+                                                        @RequestParam String endDate) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            LocalDate start = LocalDate.parse(startDate);
+            LocalDate end = LocalDate.parse(endDate);
+            log.info("触发历史数据回填: {} ~ {}", start, end);
+
+            if (end.isBefore(start)) {
+                response.put("success", false);
+                response.put("message", "结束日期不能早于开始日期");
+                response.put("timestamp", System.currentTimeMillis());
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            long totalDays = ChronoUnit.DAYS.between(start, end) + 1;
+            if (totalDays > backfillMaxDays) {
+                response.put("success", false);
+                response.put("message", "回填范围不能超过" + backfillMaxDays + "天");
+                response.put("timestamp", System.currentTimeMillis());
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            int syncedDays = dataSyncScheduledService.backfillDataSync(start, end);
+            if (syncedDays < 0) {
+                response.put("success", false);
+                response.put("message", "数据同步任务正在执行，请稍后重试");
+                response.put("error", "SYNC_IN_PROGRESS");
+                response.put("timestamp", System.currentTimeMillis());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+
+            response.put("success", syncedDays == totalDays);
+            response.put("message", syncedDays == totalDays ? "历史数据回填完成" : "历史数据回填部分失败");
+            response.put("startDate", start.toString());
+            response.put("endDate", end.toString());
+            response.put("totalDays", totalDays);
+            response.put("syncedDays", syncedDays);
+            response.put("syncStatus", dataSyncScheduledService.getSyncStatus());
+            response.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("历史数据回填失败", e);
+
+            response.put("success", false);
+            response.put("message", "历史数据回填失败: " + e.getMessage());
+            response.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     /**
      * 获取数据同步健康状态
      */
@@ -107,23 +200,24 @@ public class DataSyncController {
         health.put("service", "EU Hotel Data Sync Service");
         health.put("syncStatus", dataSyncScheduledService.getSyncStatus());
         health.put("lastSyncTime", dataSyncScheduledService.getLastSyncTime());
-        health.put("biDatabaseConnection", biDataWriteService.checkConnection());
+        health.put("biDatabaseConnection", biDataWriteService.isAvailable());
         health.put("timestamp", System.currentTimeMillis());
         
         return ResponseEntity.ok(health);
     }
 
     /**
-     * 检查BI数据库连接状态
+     * 检查BI数据库连接状态（以熔断器状态为准，不额外探测BI库）
      */
     @GetMapping("/bi-database/connection")
     public ResponseEntity<Map<String, Object>> checkBiDatabaseConnection() {
         log.info("检查BI数据库连接状态");
         
-        boolean isConnected = biDataWriteService.checkConnection();
+        boolean isConnected = biDataWriteService.isAvailable();
         
         Map<String, Object> response = new HashMap<>();
         response.put("connected", isConnected);
+        response.put("circuitBreaker", biDataWriteService.getCircuitBreakerStatus());
         response.put("database", "china_bi_system");
         response.put("timestamp", System.currentTimeMillis());
         response.put("message", isConnected ? "连接正常" : "连接失败");
@@ -141,10 +235,12 @@ public class DataSyncController {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            // 创建一个测试报告
-            Map<String, Object> testReport = new HashMap<>();
-            testReport.put("reportType", "test-report");
-            testReport.put("dataCount", 0);
+            // 创建一个各维度齐全的零值测试报告；使用单独的区域标识，空列表清理旧排名/分店时不影响EU的正式统计
+            StatisticsReportDto testReport = new StatisticsReportDto(LocalDate.now(), "test-report", TEST_REPORT_REGION,
+                    LocalDateTime.now(), 0,
+                    new StatisticsReportDto.DailyTotalIncome(BigDecimal.ZERO, 0, BigDecimal.ZERO, "EUR"),
+                    List.of(), List.of(),
+                    new StatisticsReportDto.ReservationTrends(0, 0, 0, BigDecimal.ZERO));
             
             // 测试写入功能
             boolean writeSuccess = biDataWriteService.writeAllStatistics(testReport, LocalDate.now());
@@ -155,6 +251,17 @@ public class DataSyncController {
             
             return ResponseEntity.ok(response);
             
+        } catch (IllegalArgumentException e) {
+            // 报告数据不完整，不计入BI熔断失败
+            log.warn("BI数据库写入测试的报告数据无效: {}", e.getMessage());
+            
+            response.put("success", false);
+            response.put("message", "报告数据无效: " + e.getMessage());
+            response.put("error", "INVALID_REPORT");
+            response.put("timestamp", System.currentTimeMillis());
+            
+            return ResponseEntity.badRequest().body(response);
+            
         } catch (Exception e) {
             log.error("BI数据库写入测试失败", e);
             
@@ -1,28 +1,48 @@
 package com.hotelbooking.hotel_reservation_eu.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.hotelbooking.hotel_reservation_eu.mapper.RoomTypeBranchMappingMapper;
-import com.hotelbooking.hotel_reservation_eu.dto.RoomTypeBranchMappingDto;
+import com.hotelbooking.hotel_reservation_eu.search.BranchInventory;
+import com.hotelbooking.hotel_reservation_eu.search.CachedSearchResponse;
+import com.hotelbooking.hotel_reservation_eu.search.SearchCursor;
+import com.hotelbooking.hotel_reservation_eu.search.SearchIndexUnavailableException;
+import com.hotelbooking.hotel_reservation_eu.search.SearchPage;
+import com.hotelbooking.hotel_reservation_eu.search.SearchParams;
+import com.hotelbooking.hotel_reservation_eu.search.SearchResponseKey;
+import com.hotelbooking.hotel_reservation_eu.search.SearchResponseWriter;
+import com.hotelbooking.hotel_reservation_eu.service.BranchInventoryIndexService;
+import com.hotelbooking.hotel_reservation_eu.service.HotelSearchService;
+import com.hotelbooking.hotel_reservation_eu.service.RoomAvailabilityService;
+import com.hotelbooking.hotel_reservation_eu.service.SearchResponseCacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.math.BigDecimal;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 /**
  * 酒店搜索API控制器
  * 处理AJAX酒店搜索请求，返回JSON数据
+ * 房源数据读取自内存中的分店房源索引，剩余房间数按入住日期由按晚房量服务计算；
+ * 未指定分店时按城市或国家搜索多个分店，结果按价格升序并用游标分页。
+ * 单分店搜索的响应序列化后缓存，重复搜索直接返回缓存字节；响应带强ETag，客户端条件请求命中时返回304。
+ * 响应由 SearchResponseWriter 直接从索引房源流式写出，不再逐个房型构建 Map；
+ * amenities 参数按设施组合筛选（需同时具备），响应附带设施分面计数
  */
 @Slf4j
 @RestController
@@ -30,32 +50,46 @@ import java.util.*;
 @RequiredArgsConstructor
 public class HotelSearchApiController {
 
-    private final RoomTypeBranchMappingMapper roomTypeBranchMappingMapper;
+    private final BranchInventoryIndexService branchInventoryIndexService;
+    private final RoomAvailabilityService roomAvailabilityService;
+    private final HotelSearchService hotelSearchService;
+    private final SearchResponseCacheService searchResponseCacheService;
     private final ObjectMapper objectMapper;
 
     /**
      * 处理酒店搜索API请求
      */
     @GetMapping("/hotels")
-    public ResponseEntity<Map<String, Object>> searchHotelsApi(
+    public ResponseEntity<?> searchHotelsApi(
             @RequestParam(required = false) Long branchId,
             @RequestParam(required = false) String checkinDate,
             @RequestParam(required = false) String checkoutDate,
             @RequestParam(required = false, defaultValue = "2") Integer guests,
-            @RequestParam(required = false, defaultValue = "1") Integer rooms) {
+            @RequestParam(required = false, defaultValue = "1") Integer rooms,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String country,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer pageSize,
+            @RequestParam(required = false) List<String> amenities,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        log.info("API酒店搜索请求 - 分店ID: {}, 入住: {}, 退房: {}, 客人: {}, 房间: {}", 
-                branchId, checkinDate, checkoutDate, guests, rooms);
+        log.info("API酒店搜索请求 - 分店ID: {}, 城市: {}, 国家: {}, 入住: {}, 退房: {}, 客人: {}, 房间: {}, 设施: {}",
+                branchId, city, country, checkinDate, checkoutDate, guests, rooms, amenities);
 
         // 验证必需参数
-        if (branchId == null) {
-            return ResponseEntity.badRequest().body(createErrorResponse("分店ID不能为空"));
+        boolean locationSearch = branchId == null;
+        if (locationSearch && isBlank(city) && isBlank(country)) {
+            return ResponseEntity.badRequest().body(createErrorResponse("请指定分店、城市或国家"));
         }
 
         if (checkinDate == null || checkoutDate == null) {
             return ResponseEntity.badRequest().body(createErrorResponse("入住和退房日期不能为空"));
         }
 
+        if (guests == null || guests < 1 || rooms == null || rooms < 1) {
+            return ResponseEntity.badRequest().body(createErrorResponse("客人数和房间数必须大于0"));
+        }
+
         try {
             // 验证日期格式和逻辑
             LocalDate checkin = LocalDate.parse(checkinDate);
@@ -69,26 +103,48 @@ public class HotelSearchApiController {
                 return ResponseEntity.badRequest().body(createErrorResponse("入住日期不能早于今天"));
             }
 
-            // 构建搜索参数
-            Map<String, Object> searchParams = buildSearchParams(
-                branchId, checkin, checkout, guests, rooms);
-
-            // 从数据库查询房源数据
-            List<Map<String, Object>> hotels = loadRoomTypesFromDatabase(branchId);
-            int totalResults = hotels.size();
-
-            // 构建响应数据
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("searchParams", searchParams);
-            response.put("hotels", hotels);
-            response.put("totalResults", totalResults);
-            response.put("message", totalResults > 0 ? "搜索完成" : "该分店暂无可用房源");
-
-            log.info("API搜索完成，找到 {} 个房源", totalResults);
+            if (locationSearch) {
+                SearchCursor after;
+                try {
+                    after = isBlank(cursor) ? null : SearchCursor.decode(cursor);
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+                }
+                return searchByLocation(
+                        SearchParams.ofLocation(city, country, checkin, checkout, guests, rooms, amenities),
+                        after, pageSize);
+            }
 
-            return ResponseEntity.ok(response);
+            SearchParams params = SearchParams.ofBranch(branchId, checkin, checkout, guests, rooms, amenities);
+            SearchResponseKey cacheKey = SearchResponseKey.of(params);
+            CachedSearchResponse cached = searchResponseCacheService.get(cacheKey);
+            if (cached == null) {
+                // 先读取版本再生成响应，生成期间的变更会使这条缓存失效
+                long availabilityVersion = roomAvailabilityService.getAvailabilityVersion(branchId);
+                BranchInventory inventory = branchInventoryIndexService.getBranchInventory(branchId);
+                byte[] body = writeBranchResponse(inventory, params);
+                cached = searchResponseCacheService.put(cacheKey, inventory.getVersion(), availabilityVersion, body);
+            } else {
+                log.debug("API搜索命中响应缓存 - 分店ID: {}", branchId);
+            }
 
+            if (cached.isNotModified(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(cached.eTag())
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(cached.eTag())
+                    .cacheControl(CacheControl.noCache())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(cached.body());
+
+        } catch (SearchIndexUnavailableException e) {
+            log.warn("API搜索时搜索索引尚未加载完成");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(createErrorResponse(e.getMessage()));
         } catch (Exception e) {
             log.error("API搜索过程中发生错误", e);
             return ResponseEntity.internalServerError().body(createErrorResponse("搜索失败，请稍后重试"));
@@ -96,93 +152,41 @@ public class HotelSearchApiController {
     }
 
     /**
-     * 从数据库加载房源数据（基于房型分店关联）
+     * 生成单分店搜索的响应：房源直接流式写入缓存用的字节数组
      */
-    private List<Map<String, Object>> loadRoomTypesFromDatabase(Long branchId) {
-        List<Map<String, Object>> roomTypes = new ArrayList<>();
-        
-        try {
-            // 查询房型分店关联数据
-            List<RoomTypeBranchMappingDto> mappings = roomTypeBranchMappingMapper.selectByBranchId(branchId);
-            
-            for (RoomTypeBranchMappingDto mapping : mappings) {
-                Map<String, Object> roomTypeMap = new HashMap<>();
-                roomTypeMap.put("id", mapping.getRoomTypeId());
-                roomTypeMap.put("roomTypeName", mapping.getRoomTypeName());
-                roomTypeMap.put("description", mapping.getRoomTypeDescription());
-                roomTypeMap.put("size", mapping.getSize());
-                roomTypeMap.put("bedType", mapping.getBedType());
-                roomTypeMap.put("maxGuests", mapping.getMaxGuests());
-                
-                // 优先使用分店特定价格，如果为空则使用房型基础价格
-                BigDecimal effectivePrice = mapping.getEffectivePrice();
-                roomTypeMap.put("price", effectivePrice);
-                
-                // 添加价格来源标识，便于调试
-                String priceSource = mapping.getBranchSpecificPrice() != null && 
-                                   mapping.getBranchSpecificPrice().compareTo(BigDecimal.ZERO) > 0 ? 
-                                   "分店特定价格" : "房型基础价格";
-                roomTypeMap.put("priceSource", priceSource);
-                
-                // 显示实际可用房间数
-                String availableRoomsText = mapping.getAvailableRoomsCount() > 0 ? 
-                    "剩余" + mapping.getAvailableRoomsCount() + "间" : "满房";
-                roomTypeMap.put("availableRooms", availableRoomsText);
-                roomTypeMap.put("imageUrl", mapping.getImageUrl());
-                
-                // 解析JSON格式的设施数据（房型基础设施）
-                List<String> amenitiesList = parseAmenities(mapping.getAmenities());
-                roomTypeMap.put("amenities", amenitiesList);
-                
-                // 添加分店信息
-                roomTypeMap.put("branchName", mapping.getHotelBranchName());
-                roomTypeMap.put("branchCity", mapping.getHotelBranchCity());
-                roomTypeMap.put("branchCountry", mapping.getHotelBranchCountry());
-                
-                roomTypes.add(roomTypeMap);
-            }
-            
-        } catch (Exception e) {
-            log.error("从数据库加载房源数据失败", e);
+    private byte[] writeBranchResponse(BranchInventory inventory, SearchParams params) throws IOException {
+        SearchPage page = hotelSearchService.searchBranch(inventory, params);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512 + page.hits().size() * 512);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            SearchResponseWriter.writeBranchResponse(generator, params, page);
         }
-        
-        return roomTypes;
+
+        log.info("API搜索完成，找到 {} 个房源", page.totalResults());
+        return out.toByteArray();
     }
 
     /**
-     * 解析设施JSON字符串
+     * 按城市或国家搜索多个分店，结果按价格升序分页，响应流式写入HTTP输出流
      */
-    private List<String> parseAmenities(String amenitiesJson) {
-        try {
-            if (amenitiesJson != null && !amenitiesJson.trim().isEmpty()) {
-                return objectMapper.readValue(amenitiesJson, new TypeReference<List<String>>() {});
+    private ResponseEntity<StreamingResponseBody> searchByLocation(SearchParams params, SearchCursor cursor,
+                                                                   Integer pageSize) {
+        SearchPage page = hotelSearchService.searchByLocation(params, cursor, pageSize != null ? pageSize : 20);
+
+        log.info("API多分店搜索完成 - 分店数: {}, 找到 {} 个房源, 本页 {} 个",
+                page.branchCount(), page.totalResults(), page.hits().size());
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                SearchResponseWriter.writeLocationResponse(generator, params, page);
             }
-        } catch (JsonProcessingException e) {
-            log.warn("解析设施JSON失败: {}", amenitiesJson, e);
-        }
-        return new ArrayList<>();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
-    /**
-     * 构建搜索参数
-     */
-    private Map<String, Object> buildSearchParams(Long branchId, LocalDate checkin, 
-                                                 LocalDate checkout, Integer guests, Integer rooms) {
-        Map<String, Object> searchParams = new HashMap<>();
-        searchParams.put("branchId", branchId);
-        searchParams.put("checkinDate", checkin.format(DateTimeFormatter.ofPattern("yyyy年MM月dd日")));
-        searchParams.put("checkoutDate", checkout.format(DateTimeFormatter.ofPattern("yyyy年MM月dd日")));
-        searchParams.put("checkinDateRaw", checkin.toString());
-        searchParams.put("checkoutDateRaw", checkout.toString());
-        searchParams.put("guests", guests);
-        searchParams.put("rooms", rooms);
-        searchParams.put("nights", java.time.temporal.ChronoUnit.DAYS.between(checkin, checkout));
-        
-        return searchParams;
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 
-
-
     /**
      * 创建错误响应
      */
@@ -1,20 +1,25 @@
 package com.hotelbooking.hotel_reservation_eu.controller;
 
 import com.hotelbooking.hotel_reservation_eu.model.HotelBranch;
-import com.hotelbooking.hotel_reservation_eu.service.AdminHotelBranchService;
+import com.hotelbooking.hotel_reservation_eu.search.BranchDirectory;
+import com.hotelbooking.hotel_reservation_eu.service.BranchDirectoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import org.springframework.cache.annotation.Cacheable;
 
 /**
  * 公开的分店查询API控制器
  * 提供给前端预订页面使用的分店数据接口
+ * 分店数据读取自内存中的启用分店目录，不访问数据库；响应带目录ETag和缓存时间，
+ * 客户端带 If-None-Match 重新验证时由Spring直接返回304
  */
 @Slf4j
 @RestController
@@ -22,23 +27,27 @@ import org.springframework.cache.annotation.Cacheable;
 @RequiredArgsConstructor
 public class PublicHotelBranchController {
 
-    private final AdminHotelBranchService adminHotelBranchService;
+    private final BranchDirectoryService branchDirectoryService;
+
+    /** 浏览器和代理可直接使用缓存的时间（秒） */
+    @Value("${branch-directory.max-age-seconds:300}")
+    private long maxAgeSeconds;
 
     /**
-     * 获取所有启用的分店列表（带缓存）
+     * 获取所有启用的分店列表
      */
     @GetMapping("/active")
-    @Cacheable(value = "activeBranches", unless = "#result.body.success == false")
     public ResponseEntity<Map<String, Object>> getActiveBranches() {
         try {
-            List<HotelBranch> branches = adminHotelBranchService.getAllActiveBranches();
+            BranchDirectory directory = branchDirectoryService.getDirectory();
+            List<HotelBranch> branches = directory.getActiveBranches();
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("data", branches);
             
-            log.info("获取启用分店列表成功，共{}个分店", branches.size());
-            return ResponseEntity.ok(response);
+            log.debug("获取启用分店列表成功，共{}个分店", branches.size());
+            return cacheable(directory, response);
         } catch (Exception e) {
             log.error("获取启用分店列表失败", e);
             Map<String, Object> response = new HashMap<>();
@@ -54,13 +63,14 @@ public class PublicHotelBranchController {
     @GetMapping("/by-country/{country}")
     public ResponseEntity<Map<String, Object>> getBranchesByCountry(@PathVariable String country) {
         try {
-            List<HotelBranch> branches = adminHotelBranchService.getHotelBranchesByCountry(country);
+            BranchDirectory directory = branchDirectoryService.getDirectory();
+            List<HotelBranch> branches = directory.getByCountry(country);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("data", branches);
             
-            return ResponseEntity.ok(response);
+            return cacheable(directory, response);
         } catch (Exception e) {
             log.error("根据国家获取分店列表失败 - 国家: {}", country, e);
             Map<String, Object> response = new HashMap<>();
@@ -69,4 +79,14 @@ public class PublicHotelBranchController {
             return ResponseEntity.internalServerError().body(response);
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 带目录ETag和缓存时间的成功响应
+     */
+    private ResponseEntity<Map<String, Object>> cacheable(BranchDirectory directory, Map<String, Object> response) {
+        return ResponseEntity.ok()
+                .eTag(directory.getETag())
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic())
+                .body(response);
+    }
+}
@@ -6,8 +6,8 @@ import com.hotelbooking.hotel_reservation_eu.model.HotelBranch;
 import com.hotelbooking.hotel_reservation_eu.model.RoomType;
 import com.hotelbooking.hotel_reservation_eu.model.User;
 import com.hotelbooking.hotel_reservation_eu.model.RoomTypeBranchMapping;
-import com.hotelbooking.hotel_reservation_eu.service.AdminRoomTypeBranchMappingService;
 import com.hotelbooking.hotel_reservation_eu.service.HotelBranchService;
+import com.hotelbooking.hotel_reservation_eu.service.ReferenceDataCacheService;
 import com.hotelbooking.hotel_reservation_eu.service.ReservationService;
 import com.hotelbooking.hotel_reservation_eu.service.RoomTypeService;
 import com.hotelbooking.hotel_reservation_eu.service.UserService;
@@ -39,7 +39,7 @@ public class ReservationController {
     private final UserService userService;
     private final RoomTypeService roomTypeService;
     private final HotelBranchService hotelBranchService;
-    private final AdminRoomTypeBranchMappingService adminRoomTypeBranchMappingService; // 新增
+    private final ReferenceDataCacheService referenceDataCacheService;
 
     /**
      * 显示预订页面
@@ -99,7 +99,7 @@ public class ReservationController {
                 return "reservations/error";
             }
             
-            log.info("获取到有效价格: roomTypeId={}, branchId={}, effectivePrice={}, basePrice={}", 
+            log.debug("获取到有效价格: roomTypeId={}, branchId={}, effectivePrice={}, basePrice={}", 
                     roomTypeId, branchId, effectivePrice, roomType.getBasePrice());
             
             // 将真实数据传递给页面
@@ -354,29 +354,23 @@ public class ReservationController {
      * 获取有效价格：优先使用分店特定价格，如果没有则使用房型基础价格
      */
     private BigDecimal getEffectivePrice(Long roomTypeId, Long branchId, RoomType roomType) {
-        log.info("获取有效价格: roomTypeId={}, branchId={}", roomTypeId, branchId);
+        log.debug("获取有效价格: roomTypeId={}, branchId={}", roomTypeId, branchId);
         
         try {
-            // 查询房型分店关联信息
-            com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<RoomTypeBranchMapping> queryWrapper = 
-                new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<>();
-            queryWrapper.eq("room_type_id", roomTypeId)
-                       .eq("hotel_branch_id", branchId)
-                       .eq("is_active", 1);
-            
-            RoomTypeBranchMapping mapping = adminRoomTypeBranchMappingService.getOne(queryWrapper);
+            // 查询房型分店关联信息（经过参考数据缓存）
+            RoomTypeBranchMapping mapping = referenceDataCacheService.getActiveMapping(roomTypeId, branchId);
             
             if (mapping != null && mapping.getBranchSpecificPrice() != null 
                 && mapping.getBranchSpecificPrice().compareTo(BigDecimal.ZERO) > 0) {
                 // 如果有分店特定价格，返回特定价格
-                log.info("使用分店特定价格: roomTypeId={}, branchId={}, specificPrice={}", 
+                log.debug("使用分店特定价格: roomTypeId={}, branchId={}, specificPrice={}", 
                         roomTypeId, branchId, mapping.getBranchSpecificPrice());
                 return mapping.getBranchSpecificPrice();
             }
             
             // 如果没有分店特定价格，使用房型基础价格
             if (roomType != null && roomType.getBasePrice() != null) {
-                log.info("使用房型基础价格: roomTypeId={}, branchId={}, basePrice={}", 
+                log.debug("使用房型基础价格: roomTypeId={}, branchId={}, basePrice={}", 
                         roomTypeId, branchId, roomType.getBasePrice());
                 return roomType.getBasePrice();
             }
@@ -0,0 +1,49 @@
+package com.hotelbooking.hotel_reservation_eu.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 综合统计报告（已匿名化）
+ * 由统计聚合引擎一次生成，包含每日收入、热门房型Top5、分店业绩和预订趋势四个维度；
+ * 写入BI时逐表插入，并整体序列化为JSON存入 comprehensive_reports.report_data
+ */
+public record StatisticsReportDto(
+        LocalDate reportDate,
+        String reportType,
+        String region,
+        LocalDateTime generatedAt,
+        int dataCount,
+        DailyTotalIncome dailyTotalIncome,
+        List<RoomTypeRanking> popularRoomTypesTop5,
+        List<BranchPerformance> branchPerformance,
+        ReservationTrends reservationTrends) {
+
+    /**
+     * 每日总收入
+     */
+    public record DailyTotalIncome(BigDecimal totalIncome, int totalReservations,
+                                   BigDecimal avgPricePerNight, String currency) {
+    }
+
+    /**
+     * 热门房型排名项
+     */
+    public record RoomTypeRanking(int ranking, long roomTypeId, int reservationCount, BigDecimal totalRevenue) {
+    }
+
+    /**
+     * 分店业绩项
+     */
+    public record BranchPerformance(long branchId, int reservationCount, BigDecimal totalRevenue) {
+    }
+
+    /**
+     * 预订趋势，完成率为确认数占总数的百分比
+     */
+    public record ReservationTrends(long totalReservations, long confirmedReservations,
+                                    long cancelledReservations, BigDecimal completionRate) {
+    }
+}
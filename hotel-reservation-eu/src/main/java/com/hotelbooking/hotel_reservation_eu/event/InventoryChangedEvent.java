@@ -0,0 +1,29 @@
+package com.hotelbooking.hotel_reservation_eu.event;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 房源数据变更事件
+ * 运营端修改分店、房型或房型分店关联后发布，事务提交后用于增量刷新搜索索引
+ *
+ * @param branchIds  需要刷新的分店ID
+ * @param roomTypeId 变更的房型ID（房型变更时由监听方查出关联的分店），没有时为null
+ */
+public record InventoryChangedEvent(Set<Long> branchIds, Long roomTypeId) {
+
+    public static InventoryChangedEvent ofBranch(Long branchId) {
+        return new InventoryChangedEvent(branchId != null ? Set.of(branchId) : Set.of(), null);
+    }
+
+    public static InventoryChangedEvent ofBranches(Collection<Long> branchIds) {
+        return new InventoryChangedEvent(
+                branchIds.stream().filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet()), null);
+    }
+
+    public static InventoryChangedEvent ofRoomType(Long roomTypeId) {
+        return new InventoryChangedEvent(Set.of(), roomTypeId);
+    }
+}
@@ -0,0 +1,66 @@
+package com.hotelbooking.hotel_reservation_eu.event;
+
+import com.hotelbooking.hotel_reservation_eu.model.AnonymizedReservation;
+import com.hotelbooking.hotel_reservation_eu.model.Reservation;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 预订变更领域事件
+ * 只携带统计和房量计算所需的非PII字段，联系人、备注等信息不会进入事件
+ *
+ * @param eventType 事件类型：CREATED, PAID, CANCELLED
+ */
+public record ReservationChangedEvent(Long reservationId,
+                                      String eventType,
+                                      Long roomTypeId,
+                                      Long branchId,
+                                      LocalDate checkinDate,
+                                      LocalDate checkoutDate,
+                                      Integer rooms,
+                                      BigDecimal totalPrice,
+                                      String status,
+                                      String paymentStatus,
+                                      LocalDateTime createdAt,
+                                      LocalDateTime updatedAt) {
+
+    /**
+     * 根据变更后的预订创建事件
+     */
+    public static ReservationChangedEvent of(Reservation reservation, String eventType) {
+        return new ReservationChangedEvent(
+                reservation.getId(),
+                eventType,
+                reservation.getRoomTypeId(),
+                reservation.getBranchId(),
+                reservation.getCheckinDate(),
+                reservation.getCheckoutDate(),
+                reservation.getRooms(),
+                reservation.getTotalPrice(),
+                reservation.getStatus(),
+                reservation.getPaymentStatus(),
+                reservation.getCreatedAt(),
+                reservation.getUpdatedAt());
+    }
+
+    /**
+     * 统计日期（按预订创建日期归属）
+     */
+    public LocalDate reportDate() {
+        return createdAt != null ? createdAt.toLocalDate() : null;
+    }
+
+    /**
+     * 转换为匿名化投影，供统计计数器折叠
+     */
+    public AnonymizedReservation toAnonymized() {
+        long totalPriceCents = totalPrice != null
+                ? totalPrice.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact()
+                : 0L;
+        return new AnonymizedReservation(reservationId, roomTypeId, branchId, totalPriceCents,
+                status, paymentStatus, createdAt, updatedAt);
+    }
+}
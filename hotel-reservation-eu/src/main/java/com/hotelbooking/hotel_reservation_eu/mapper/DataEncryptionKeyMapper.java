@@ -0,0 +1,51 @@
+package com.hotelbooking.hotel_reservation_eu.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hotelbooking.hotel_reservation_eu.model.DataEncryptionKey;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 数据密钥Mapper接口
+ */
+@Mapper
+public interface DataEncryptionKeyMapper extends BaseMapper<DataEncryptionKey> {
+
+    /**
+     * 查询当前用于加密的数据密钥（并发轮换时以版本最大的为准）
+     */
+    @Select("SELECT * FROM data_encryption_key WHERE status = 'ACTIVE' ORDER BY id DESC LIMIT 1")
+    DataEncryptionKey selectActive();
+
+    /**
+     * 停用比指定版本旧的数据密钥（停用后仍用于解密）
+     */
+    @Update({
+        "UPDATE data_encryption_key SET status = 'RETIRED', updated_at = CURRENT_TIMESTAMP",
+        "WHERE status = 'ACTIVE' AND id < #{id}"
+    })
+    int retireOlderThan(@Param("id") Integer id);
+
+    /**
+     * 查询不是由指定主密钥加密的数据密钥（主密钥轮换后需要重新加密）
+     */
+    @Select("SELECT * FROM data_encryption_key WHERE master_key_id <> #{masterKeyId} ORDER BY id")
+    List<DataEncryptionKey> selectWrappedByOtherMasterKey(@Param("masterKeyId") String masterKeyId);
+
+    /**
+     * 用新主密钥重新加密数据密钥：主密钥未被其他实例修改时才更新
+     */
+    @Update({
+        "UPDATE data_encryption_key SET master_key_id = #{masterKeyId}, wrapped_key = #{wrappedKey},",
+        "  updated_at = CURRENT_TIMESTAMP",
+        "WHERE id = #{id} AND master_key_id = #{previousMasterKeyId}"
+    })
+    int updateWrappedKey(@Param("id") Integer id,
+                         @Param("previousMasterKeyId") String previousMasterKeyId,
+                         @Param("masterKeyId") String masterKeyId,
+                         @Param("wrappedKey") String wrappedKey);
+}
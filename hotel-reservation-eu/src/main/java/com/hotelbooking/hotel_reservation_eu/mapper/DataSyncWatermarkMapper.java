@@ -0,0 +1,25 @@
+package com.hotelbooking.hotel_reservation_eu.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hotelbooking.hotel_reservation_eu.model.DataSyncWatermark;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 数据同步高水位Mapper接口
+ */
+@Mapper
+public interface DataSyncWatermarkMapper extends BaseMapper<DataSyncWatermark> {
+
+    /**
+     * 保存高水位（存在则更新）
+     */
+    @Insert({
+        "INSERT INTO data_sync_watermark (sync_name, watermark_date, last_updated_at, last_id, processed_count)",
+        "VALUES (#{syncName}, #{watermarkDate}, #{lastUpdatedAt}, #{lastId}, #{processedCount})",
+        "ON DUPLICATE KEY UPDATE watermark_date = VALUES(watermark_date),",
+        "  last_updated_at = VALUES(last_updated_at), last_id = VALUES(last_id),",
+        "  processed_count = VALUES(processed_count)"
+    })
+    int upsert(DataSyncWatermark watermark);
+}
@@ -1,12 +1,21 @@
 package com.hotelbooking.hotel_reservation_eu.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hotelbooking.hotel_reservation_eu.model.AnonymizedReservation;
 import com.hotelbooking.hotel_reservation_eu.model.Reservation;
+import org.apache.ibatis.annotations.Arg;
+import org.apache.ibatis.annotations.ConstructorArgs;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -14,6 +23,14 @@ import java.util.List;
  */
 @Mapper
 public interface ReservationMapper extends BaseMapper<Reservation> {
+
+    /**
+     * 匿名化投影查询的列（只包含统计所需的非PII列，金额直接换算为分）
+     * 启动时由 DataAnonymizationService 校验一次，不允许出现PII列
+     */
+    String ANONYMIZED_COLUMNS = "id, room_type_id, branch_id, " +
+            "COALESCE(ROUND(total_price * 100), 0) AS total_price_cents, " +
+            "status, payment_status, created_at, updated_at";
     
     /**
      * 根据用户ID查询所有预订
@@ -28,15 +45,29 @@ public interface ReservationMapper extends BaseMapper<Reservation> {
     Reservation selectByIdAndUserId(@Param("reservationId") Long reservationId, @Param("userId") Long userId);
     
     /**
-     * 检查指定日期范围内房型是否可用
+     * 统计与入住区间 [checkinDate, checkoutDate) 有重叠夜晚的有效预订数
+     * 退房当天不占用房间，前一单的退房日与后一单的入住日相同不算冲突
      */
     @Select("SELECT COUNT(*) FROM reservation WHERE room_type_id = #{roomTypeId} AND branch_id = #{branchId} " +
             "AND status NOT IN ('CANCELLED', 'COMPLETED') " +
-            "AND ((checkin_date <= #{checkoutDate} AND checkout_date >= #{checkinDate}))")
+            "AND checkin_date < #{checkoutDate} AND checkout_date > #{checkinDate}")
     int countConflictingReservations(@Param("roomTypeId") Long roomTypeId, 
                                    @Param("branchId") Long branchId,
                                    @Param("checkinDate") LocalDate checkinDate, 
                                    @Param("checkoutDate") LocalDate checkoutDate);
+
+    /**
+     * 查询与入住区间 [checkinDate, checkoutDate) 有重叠夜晚的有效预订（用于构建按晚可用房日历）
+     * 只查询入住区间和房间数，不读取联系人等PII列
+     */
+    @Select("SELECT id, checkin_date, checkout_date, rooms FROM reservation " +
+            "WHERE room_type_id = #{roomTypeId} AND branch_id = #{branchId} " +
+            "AND status NOT IN ('CANCELLED', 'COMPLETED') " +
+            "AND checkin_date < #{checkoutDate} AND checkout_date > #{checkinDate}")
+    List<Reservation> selectConflictingStays(@Param("roomTypeId") Long roomTypeId,
+                                             @Param("branchId") Long branchId,
+                                             @Param("checkinDate") LocalDate checkinDate,
+                                             @Param("checkoutDate") LocalDate checkoutDate);
     
     /**
      * 根据分店ID查询所有预订
@@ -52,13 +83,69 @@ public interface ReservationMapper extends BaseMapper<Reservation> {
     
     /**
      * 查询指定日期的所有预订数据（用于数据同步）
+     * 使用created_at范围条件，可以走idx_created_at索引
      */
-    @Select("SELECT * FROM reservation WHERE DATE(created_at) = #{date} ORDER BY created_at DESC")
+    @Select("SELECT * FROM reservation WHERE created_at >= #{date} AND created_at < DATE_ADD(#{date}, INTERVAL 1 DAY) " +
+            "ORDER BY created_at DESC")
     List<Reservation> selectByDate(@Param("date") LocalDate date);
     
     /**
      * 查询今日的所有预订数据（用于定时同步）
+     * 使用created_at范围条件，可以走idx_created_at索引
      */
-    @Select("SELECT * FROM reservation WHERE DATE(created_at) = CURDATE() ORDER BY created_at DESC")
+    @Select("SELECT * FROM reservation WHERE created_at >= CURDATE() AND created_at < CURDATE() + INTERVAL 1 DAY " +
+            "ORDER BY created_at DESC")
     List<Reservation> selectTodayReservations();
-}
\ No newline at end of file
+
+    /**
+     * 查询指定日期的匿名化预订投影（用于全量同步）
+     * 使用created_at范围条件，可以走idx_created_at索引
+     */
+    @Select("SELECT " + ANONYMIZED_COLUMNS + " FROM reservation " +
+            "WHERE created_at >= #{date} AND created_at < DATE_ADD(#{date}, INTERVAL 1 DAY)")
+    @Results(id = "anonymizedReservation")
+    @ConstructorArgs({
+        @Arg(column = "id", javaType = long.class),
+        @Arg(column = "room_type_id", javaType = Long.class),
+        @Arg(column = "branch_id", javaType = Long.class),
+        @Arg(column = "total_price_cents", javaType = long.class),
+        @Arg(column = "status", javaType = String.class),
+        @Arg(column = "payment_status", javaType = String.class),
+        @Arg(column = "created_at", javaType = LocalDateTime.class),
+        @Arg(column = "updated_at", javaType = LocalDateTime.class)
+    })
+    List<AnonymizedReservation> selectAnonymizedByDate(@Param("date") LocalDate date);
+
+    /**
+     * 按高水位查询变更的匿名化预订投影（用于增量同步）
+     * 按 (updated_at, id) 排序，走idx_updated_at_id索引
+     */
+    @Select({
+        "SELECT " + ANONYMIZED_COLUMNS,
+        "FROM reservation",
+        "WHERE updated_at >= #{lastUpdatedAt}",
+        "  AND (updated_at > #{lastUpdatedAt} OR id > #{lastId})",
+        "  AND updated_at <= #{upperBound}",
+        "ORDER BY updated_at, id",
+        "LIMIT #{limit}"
+    })
+    @ResultMap("anonymizedReservation")
+    List<AnonymizedReservation> selectChangedSince(@Param("lastUpdatedAt") LocalDateTime lastUpdatedAt,
+                                                   @Param("lastId") Long lastId,
+                                                   @Param("upperBound") LocalDateTime upperBound,
+                                                   @Param("limit") int limit);
+
+    /**
+     * 以游标方式流式读取指定日期的匿名化预订投影（用于手动同步、历史回填和实时统计种子扫描）
+     * fetchSize为Integer.MIN_VALUE时MySQL驱动逐行流式返回，内存占用恒定
+     * 注意：游标必须在事务内消费完毕
+     */
+    @Select({
+        "SELECT " + ANONYMIZED_COLUMNS,
+        "FROM reservation",
+        "WHERE created_at >= #{date} AND created_at < DATE_ADD(#{date}, INTERVAL 1 DAY)"
+    })
+    @ResultMap("anonymizedReservation")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<AnonymizedReservation> streamByDate(@Param("date") LocalDate date);
+}
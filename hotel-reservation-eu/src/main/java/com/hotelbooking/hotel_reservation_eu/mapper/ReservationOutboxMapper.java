@@ -0,0 +1,85 @@
+package com.hotelbooking.hotel_reservation_eu.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hotelbooking.hotel_reservation_eu.model.ReservationOutboxEvent;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 预订变更Outbox Mapper接口
+ */
+@Mapper
+public interface ReservationOutboxMapper extends BaseMapper<ReservationOutboxEvent> {
+
+    /**
+     * 按事件ID顺序查询已到同步时间的事件，跳过正在同步中的日期
+     */
+    @Select({
+        "<script>",
+        "SELECT * FROM reservation_outbox WHERE next_attempt_at &lt;= #{now}",
+        "<if test='excludedDates != null and excludedDates.size() > 0'>",
+        "  AND report_date NOT IN",
+        "  <foreach collection='excludedDates' item='date' open='(' separator=',' close=')'>#{date}</foreach>",
+        "</if>",
+        "ORDER BY id LIMIT #{limit}",
+        "</script>"
+    })
+    List<ReservationOutboxEvent> selectDue(@Param("now") LocalDateTime now,
+                                           @Param("excludedDates") Collection<LocalDate> excludedDates,
+                                           @Param("limit") int limit);
+
+    /**
+     * 待同步事件数
+     */
+    @Select("SELECT COUNT(*) FROM reservation_outbox")
+    long countPending();
+
+    /**
+     * 最早的待同步事件创建时间，用于计算同步延迟
+     */
+    @Select("SELECT MIN(created_at) FROM reservation_outbox")
+    LocalDateTime selectOldestCreatedAt();
+
+    /**
+     * 记录失败并安排下次重试
+     */
+    @Update({
+        "<script>",
+        "UPDATE reservation_outbox SET attempts = attempts + 1,",
+        "  next_attempt_at = #{nextAttemptAt}, last_error = #{lastError}",
+        "WHERE id IN",
+        "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+        "</script>"
+    })
+    int scheduleRetry(@Param("ids") List<Long> ids,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("lastError") String lastError);
+
+    /**
+     * 将事件复制到死信表（调用方随后删除原事件）
+     */
+    @Insert({
+        "<script>",
+        "INSERT INTO reservation_outbox_dead_letter",
+        "  (id, reservation_id, event_type, report_date, attempts, last_error, created_at)",
+        "SELECT id, reservation_id, event_type, report_date, attempts + 1, #{lastError}, created_at",
+        "FROM reservation_outbox WHERE id IN",
+        "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+        "</script>"
+    })
+    int copyToDeadLetter(@Param("ids") List<Long> ids, @Param("lastError") String lastError);
+
+    /**
+     * 死信事件数
+     */
+    @Select("SELECT COUNT(*) FROM reservation_outbox_dead_letter")
+    long countDeadLetters();
+}
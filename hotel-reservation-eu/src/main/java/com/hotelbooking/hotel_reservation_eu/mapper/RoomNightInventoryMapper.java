@@ -0,0 +1,86 @@
+package com.hotelbooking.hotel_reservation_eu.mapper;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 按晚房量库存Mapper接口
+ * 所有修改都是单条带条件的SQL，由数据库行锁保证并发下单不超卖
+ */
+@Mapper
+public interface RoomNightInventoryMapper {
+
+    /**
+     * 统计入住区间 [checkinDate, checkoutDate) 内已存在的库存行数（一致性读，不加锁）
+     */
+    @Select({
+        "SELECT COUNT(*) FROM room_night_inventory",
+        "WHERE branch_id = #{branchId} AND room_type_id = #{roomTypeId}",
+        "  AND stay_date >= #{checkinDate} AND stay_date < #{checkoutDate}"
+    })
+    int countNights(@Param("branchId") Long branchId,
+                    @Param("roomTypeId") Long roomTypeId,
+                    @Param("checkinDate") LocalDate checkinDate,
+                    @Param("checkoutDate") LocalDate checkoutDate);
+
+    /**
+     * 初始化缺失的库存行：已订数取该晚已有的有效预订（不含本次预订），已存在的行保持不变
+     * 使用 ON DUPLICATE KEY UPDATE 而不是 INSERT IGNORE，重复行直接加排他锁，避免随后的UPDATE锁升级死锁
+     */
+    @Insert({
+        "<script>",
+        "INSERT INTO room_night_inventory (branch_id, room_type_id, stay_date, booked)",
+        "SELECT #{branchId}, #{roomTypeId}, n.stay_date,",
+        "  (SELECT COALESCE(SUM(r.rooms), 0) FROM reservation r",
+        "   WHERE r.branch_id = #{branchId} AND r.room_type_id = #{roomTypeId}",
+        "     AND r.status NOT IN ('CANCELLED', 'COMPLETED')",
+        "     AND r.checkin_date &lt;= n.stay_date AND r.checkout_date &gt; n.stay_date",
+        "     <if test='excludeReservationId != null'>AND r.id &lt;&gt; #{excludeReservationId}</if>)",
+        "FROM (",
+        "<foreach collection='nights' item='night' separator=' UNION ALL '>SELECT CAST(#{night} AS DATE) AS stay_date</foreach>",
+        ") n",
+        "ORDER BY n.stay_date",
+        "ON DUPLICATE KEY UPDATE booked = booked",
+        "</script>"
+    })
+    int seedNights(@Param("branchId") Long branchId,
+                   @Param("roomTypeId") Long roomTypeId,
+                   @Param("nights") List<LocalDate> nights,
+                   @Param("excludeReservationId") Long excludeReservationId);
+
+    /**
+     * 原子占用：只更新剩余房间足够的夜晚，返回值小于入住晚数说明有夜晚已满，调用方需回滚事务
+     */
+    @Update({
+        "UPDATE room_night_inventory SET booked = booked + #{rooms}, updated_at = CURRENT_TIMESTAMP",
+        "WHERE branch_id = #{branchId} AND room_type_id = #{roomTypeId}",
+        "  AND stay_date >= #{checkinDate} AND stay_date < #{checkoutDate}",
+        "  AND booked + #{rooms} <= #{capacity}"
+    })
+    int allocate(@Param("branchId") Long branchId,
+                 @Param("roomTypeId") Long roomTypeId,
+                 @Param("checkinDate") LocalDate checkinDate,
+                 @Param("checkoutDate") LocalDate checkoutDate,
+                 @Param("rooms") int rooms,
+                 @Param("capacity") int capacity);
+
+    /**
+     * 释放预订占用的房间（库存行不存在时无需处理，初始化时不会计入已取消的预订）
+     */
+    @Update({
+        "UPDATE room_night_inventory SET booked = GREATEST(booked - #{rooms}, 0), updated_at = CURRENT_TIMESTAMP",
+        "WHERE branch_id = #{branchId} AND room_type_id = #{roomTypeId}",
+        "  AND stay_date >= #{checkinDate} AND stay_date < #{checkoutDate}"
+    })
+    int release(@Param("branchId") Long branchId,
+                @Param("roomTypeId") Long roomTypeId,
+                @Param("checkinDate") LocalDate checkinDate,
+                @Param("checkoutDate") LocalDate checkoutDate,
+                @Param("rooms") int rooms);
+}
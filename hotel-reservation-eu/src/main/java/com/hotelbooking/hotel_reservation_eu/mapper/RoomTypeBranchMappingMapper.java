@@ -124,6 +124,44 @@ public interface RoomTypeBranchMappingMapper extends BaseMapper<RoomTypeBranchMa
     })
     List<RoomTypeBranchMappingDto> selectByBranchId(@Param("branchId") Long branchId);
 
+    /**
+     * 搜索索引使用的关联查询：启用的关联 + 启用的房型 + 启用的分店
+     * 不过滤可用房间数，是否有房由按晚房量服务根据 max_rooms_count 和入住日期计算
+     */
+    String SEARCHABLE_MAPPING_QUERY =
+        "SELECT m.id, m.room_type_id, m.hotel_branch_id, m.is_active," +
+        "       m.branch_specific_price, m.available_rooms_count, m.max_rooms_count," +
+        "       m.sort_order, m.special_amenities," +
+        "       rt.type_name as room_type_name, rt.base_price as room_type_base_price," +
+        "       rt.description as room_type_description, rt.bed_type, rt.size, rt.max_guests," +
+        "       rt.image_url, rt.amenities," +
+        "       hb.branch_name as hotel_branch_name, hb.city as hotel_branch_city," +
+        "       hb.country as hotel_branch_country" +
+        " FROM room_type_branch_mapping m" +
+        " JOIN room_type rt ON m.room_type_id = rt.id" +
+        " JOIN hotel_branch hb ON m.hotel_branch_id = hb.id" +
+        " WHERE m.is_active = 1" +
+        "   AND rt.status = 1" +
+        "   AND hb.status = 1";
+
+    /**
+     * 查询所有可搜索的房源（用于启动时构建搜索索引）
+     */
+    @Select(SEARCHABLE_MAPPING_QUERY)
+    List<RoomTypeBranchMappingDto> selectAllSearchable();
+
+    /**
+     * 查询指定分店可搜索的房源（用于增量刷新搜索索引）
+     */
+    @Select(SEARCHABLE_MAPPING_QUERY + " AND m.hotel_branch_id = #{branchId}")
+    List<RoomTypeBranchMappingDto> selectSearchableByBranchId(@Param("branchId") Long branchId);
+
+    /**
+     * 查询关联了指定房型的分店ID（房型变更时确定需要刷新的分店）
+     */
+    @Select("SELECT DISTINCT hotel_branch_id FROM room_type_branch_mapping WHERE room_type_id = #{roomTypeId}")
+    List<Long> selectBranchIdsByRoomTypeId(@Param("roomTypeId") Long roomTypeId);
+
     /**
      * 根据ID获取详细信息
      */
@@ -3,7 +3,87 @@ package com.hotelbooking.hotel_reservation_eu.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hotelbooking.hotel_reservation_eu.model.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
 
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
+
+    /**
+     * 按邮箱盲索引查询用户（走 idx_email 索引）
+     */
+    @Select("SELECT * FROM user WHERE email_hash = #{emailHash}")
+    List<User> selectByEmailHash(@Param("emailHash") String emailHash);
+
+    /**
+     * 按电话号码盲索引查询用户（走 idx_phone 索引）
+     */
+    @Select("SELECT * FROM user WHERE phone_hash = #{phoneHash}")
+    List<User> selectByPhoneHash(@Param("phoneHash") String phoneHash);
+
+    /**
+     * 查询尚未建立盲索引的用户的邮箱密文（只在回填完成前使用），只返回比对需要的列
+     */
+    @Select("SELECT id, email FROM user WHERE email_hash IS NULL AND email IS NOT NULL")
+    List<User> selectEmailsWithoutBlindIndex();
+
+    /**
+     * 统计尚未建立盲索引的用户数
+     */
+    @Select("SELECT COUNT(*) FROM user WHERE email_hash IS NULL")
+    long countWithoutBlindIndex();
+
+    /**
+     * 按主键顺序分批查询尚未建立盲索引的用户，只返回计算索引需要的列
+     */
+    @Select({
+        "SELECT id, email, phone_number FROM user",
+        "WHERE id > #{afterId} AND email_hash IS NULL",
+        "ORDER BY id LIMIT #{limit}"
+    })
+    List<User> selectBlindIndexBatch(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 回填盲索引：密文邮箱不变时才更新（回填期间用户修改了邮箱则已写入新索引），不改变更新时间
+     */
+    @Update({
+        "UPDATE user SET email_hash = #{emailHash}, phone_hash = #{phoneHash}, updated_at = updated_at",
+        "WHERE id = #{id} AND email = #{encryptedEmail} AND email_hash IS NULL"
+    })
+    int updateBlindIndex(@Param("id") Long id,
+                         @Param("encryptedEmail") String encryptedEmail,
+                         @Param("emailHash") String emailHash,
+                         @Param("phoneHash") String phoneHash);
+
+    /**
+     * 按主键顺序分批查询加密的PII列（用于密钥轮换后重新加密）
+     */
+    @Select({
+        "SELECT id, first_name, last_name, email, phone_number, address FROM user",
+        "WHERE id > #{afterId} ORDER BY id LIMIT #{limit}"
+    })
+    List<User> selectEncryptedPiiBatch(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 最大用户ID（估算重新加密进度）
+     */
+    @Select("SELECT MAX(id) FROM user")
+    Long selectMaxId();
+
+    /**
+     * 写回重新加密的PII：所有密文列都未被修改时才更新（期间用户修改了资料则跳过），不改变更新时间
+     */
+    @Update({
+        "UPDATE user SET first_name = #{reEncrypted.firstName}, last_name = #{reEncrypted.lastName},",
+        "  email = #{reEncrypted.email}, phone_number = #{reEncrypted.phoneNumber},",
+        "  address = #{reEncrypted.address}, updated_at = updated_at",
+        "WHERE id = #{current.id}",
+        "  AND first_name <=> #{current.firstName} AND last_name <=> #{current.lastName}",
+        "  AND email <=> #{current.email} AND phone_number <=> #{current.phoneNumber}",
+        "  AND address <=> #{current.address}"
+    })
+    int updateReEncryptedPii(@Param("current") User current, @Param("reEncrypted") User reEncrypted);
 }
@@ -0,0 +1,19 @@
+package com.hotelbooking.hotel_reservation_eu.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * 匿名化预订投影（只读）
+ * 由Mapper直接从结果集的非PII列构造，不经过完整的Reservation实体，
+ * 用户ID、联系人、备注、取消原因等字段在类型上就不存在，无需逐行校验。
+ * 金额以分（long）保存
+ */
+public record AnonymizedReservation(long id,
+                                    Long roomTypeId,
+                                    Long branchId,
+                                    long totalPriceCents,
+                                    String status,
+                                    String paymentStatus,
+                                    LocalDateTime createdAt,
+                                    LocalDateTime updatedAt) {
+}
@@ -0,0 +1,45 @@
+package com.hotelbooking.hotel_reservation_eu.model;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 数据密钥实体类
+ * 保存由主密钥加密后的PII数据密钥，ID即写入密文头部的密钥版本
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("data_encryption_key")
+public class DataEncryptionKey {
+
+    public static final String STATUS_ACTIVE = "ACTIVE";
+    public static final String STATUS_RETIRED = "RETIRED";
+
+    /** 密钥版本 */
+    @TableId(type = IdType.AUTO)
+    private Integer id;
+
+    /** 加密该数据密钥的主密钥ID */
+    private String masterKeyId;
+
+    /** 主密钥加密后的数据密钥（Base64） */
+    private String wrappedKey;
+
+    /** 状态：ACTIVE（用于新数据加密）, RETIRED（只用于解密） */
+    private String status;
+
+    /** 创建时间 */
+    private LocalDateTime createdAt;
+
+    /** 更新时间 */
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,43 @@
+package com.hotelbooking.hotel_reservation_eu.model;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 数据同步高水位实体类
+ * 记录增量同步已处理到的 (updated_at, id) 位置
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("data_sync_watermark")
+public class DataSyncWatermark {
+
+    /** 同步任务名称 */
+    @TableId(type = IdType.INPUT)
+    private String syncName;
+
+    /** 当前聚合的统计日期 */
+    private LocalDate watermarkDate;
+
+    /** 已处理变更的最大updated_at */
+    private LocalDateTime lastUpdatedAt;
+
+    /** 同一updated_at下已处理的最大预订ID */
+    private Long lastId;
+
+    /** 当天累计处理的变更行数 */
+    private Long processedCount;
+
+    /** 更新时间 */
+    private LocalDateTime updatedAt;
+}
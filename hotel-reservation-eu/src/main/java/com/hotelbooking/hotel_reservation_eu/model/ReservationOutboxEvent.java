@@ -0,0 +1,52 @@
+package com.hotelbooking.hotel_reservation_eu.model;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 预订变更Outbox事件实体类
+ * 只记录预订ID和受影响的统计日期，不包含PII
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("reservation_outbox")
+public class ReservationOutboxEvent {
+
+    public static final String EVENT_CREATED = "CREATED";
+    public static final String EVENT_PAID = "PAID";
+    public static final String EVENT_CANCELLED = "CANCELLED";
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /** 预订ID */
+    private Long reservationId;
+
+    /** 事件类型：CREATED, PAID, CANCELLED */
+    private String eventType;
+
+    /** 受影响的统计日期（预订创建日期） */
+    private LocalDate reportDate;
+
+    /** 已失败的同步次数 */
+    private Integer attempts;
+
+    /** 下次可同步时间 */
+    private LocalDateTime nextAttemptAt;
+
+    /** 最近一次失败原因 */
+    private String lastError;
+
+    /** 创建时间 */
+    private LocalDateTime createdAt;
+}
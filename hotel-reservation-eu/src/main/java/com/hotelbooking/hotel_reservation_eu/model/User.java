@@ -3,22 +3,33 @@ package com.hotelbooking.hotel_reservation_eu.model;
 import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
 import lombok.Builder;
 
 import java.time.LocalDate;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 
 /**
  * 用户实体类
  * 用于存储用户基本信息和认证相关信息
+ * 启用延迟解密后，PII字段保存密文，首次通过getter读取时才解密（登录等不读取PII的路径不做解密）；
+ * 开始跟踪修改后，可以得到之后被修改的字段，用于只加密修改过的PII字段、只更新修改过的列；
+ * 延迟解密和修改跟踪会修改对象状态，对象不应在线程间共享
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
-@Builder
 @TableName("user")
 public class User {
 
@@ -42,6 +53,12 @@ public class User {
     
     /** 电话号码 */
     private String phoneNumber;
+
+    /** 邮箱盲索引（规范化邮箱的HMAC，用于按邮箱查询加密数据） */
+    private String emailHash;
+
+    /** 电话号码盲索引（只保留数字后的HMAC） */
+    private String phoneHash;
     
     /** 地址 */
     private String address;
@@ -92,11 +109,235 @@ public class User {
     /** GDPR同意时间 */
     private LocalDateTime gdprConsentDate;
 
+    private static final int FIRST_NAME = 1;
+    private static final int LAST_NAME = 1 << 1;
+    private static final int EMAIL = 1 << 2;
+    private static final int PHONE_NUMBER = 1 << 3;
+    private static final int ADDRESS = 1 << 4;
+
+    /** 加密存储的PII字段，顺序与上面的位一致 */
+    public static final List<String> PII_PROPERTIES = List.of("firstName", "lastName", "email", "phoneNumber", "address");
+
+    /** 按原值比较是否修改的字段（ID和PII字段除外） */
+    private static final Field[] TRACKED_FIELDS = Arrays.stream(User.class.getDeclaredFields())
+            .filter(field -> !Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers()))
+            .filter(field -> !field.getName().equals("id") && !PII_PROPERTIES.contains(field.getName()))
+            .peek(field -> field.setAccessible(true))
+            .toArray(Field[]::new);
+
+    /** 延迟解密使用的解密函数 */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient UnaryOperator<String> piiDecryptor;
+
+    /** 仍为密文、尚未解密的PII字段（按位） */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient int encryptedPiiFields;
+
+    /** 开始跟踪修改时 TRACKED_FIELDS 的值，为null表示未跟踪 */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient Object[] trackedValues;
+
+    /** 开始跟踪修改后被修改的PII字段（按位） */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient int changedPiiFields;
+
+    /**
+     * 只包含数据库列的构造器，Builder 基于它生成；延迟解密和修改跟踪的状态不能通过构造器或 Builder 设置
+     */
+    @Builder
+    public User(Long id, String username, String password, String firstName, String lastName, String email,
+                String phoneNumber, String emailHash, String phoneHash, String address,
+                LocalDate dateOfBirth, String nationality, String role, Boolean enabled,
+                Boolean accountNonExpired, Boolean credentialsNonExpired, Boolean accountNonLocked,
+                String resetPasswordToken, LocalDateTime resetPasswordTokenExpiry, LocalDateTime createdAt,
+                LocalDateTime updatedAt, Boolean gdprProcessingConsent, Boolean gdprMarketingConsent,
+                Boolean gdprAnalyticsConsent, LocalDateTime gdprConsentDate) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.phoneNumber = phoneNumber;
+        this.emailHash = emailHash;
+        this.phoneHash = phoneHash;
+        this.address = address;
+        this.dateOfBirth = dateOfBirth;
+        this.nationality = nationality;
+        this.role = role;
+        this.enabled = enabled;
+        this.accountNonExpired = accountNonExpired;
+        this.credentialsNonExpired = credentialsNonExpired;
+        this.accountNonLocked = accountNonLocked;
+        this.resetPasswordToken = resetPasswordToken;
+        this.resetPasswordTokenExpiry = resetPasswordTokenExpiry;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.gdprProcessingConsent = gdprProcessingConsent;
+        this.gdprMarketingConsent = gdprMarketingConsent;
+        this.gdprAnalyticsConsent = gdprAnalyticsConsent;
+        this.gdprConsentDate = gdprConsentDate;
+    }
+
+    /**
+     * 启用延迟解密：当前的PII字段值均为密文，读取时用 decryptor 解密，通过setter赋值的字段视为明文
+     */
+    public void enableLazyPiiDecryption(UnaryOperator<String> decryptor) {
+        this.piiDecryptor = decryptor;
+        this.encryptedPiiFields = (firstName != null ? FIRST_NAME : 0)
+                | (lastName != null ? LAST_NAME : 0)
+                | (email != null ? EMAIL : 0)
+                | (phoneNumber != null ? PHONE_NUMBER : 0)
+                | (address != null ? ADDRESS : 0);
+    }
+
+    /**
+     * 是否还有尚未解密的PII字段
+     */
+    public boolean hasEncryptedPii() {
+        return encryptedPiiFields != 0;
+    }
+
+    /**
+     * 开始跟踪修改（从数据库加载后或写入后调用），之前的修改不再计入
+     */
+    public void trackChanges() {
+        Object[] values = new Object[TRACKED_FIELDS.length];
+        for (int i = 0; i < TRACKED_FIELDS.length; i++) {
+            values[i] = readField(TRACKED_FIELDS[i]);
+        }
+        this.trackedValues = values;
+        this.changedPiiFields = 0;
+    }
+
+    /**
+     * 是否正在跟踪修改
+     */
+    public boolean isTrackingChanges() {
+        return trackedValues != null;
+    }
+
+    /**
+     * 开始跟踪后被修改的字段名（PII字段以明文比较，赋相同的值不算修改）
+     */
+    public Set<String> getChangedProperties() {
+        if (trackedValues == null) {
+            throw new IllegalStateException("未开始跟踪修改");
+        }
+        Set<String> changed = new LinkedHashSet<>();
+        for (int i = 0; i < PII_PROPERTIES.size(); i++) {
+            if ((changedPiiFields & (1 << i)) != 0) {
+                changed.add(PII_PROPERTIES.get(i));
+            }
+        }
+        for (int i = 0; i < TRACKED_FIELDS.length; i++) {
+            if (!Objects.equals(trackedValues[i], readField(TRACKED_FIELDS[i]))) {
+                changed.add(TRACKED_FIELDS[i].getName());
+            }
+        }
+        return changed;
+    }
+
+    private Object readField(Field field) {
+        try {
+            return field.get(this);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 跟踪修改时记录PII字段是否被改成不同的值
+     */
+    private void trackPiiChange(int field, String current, String value) {
+        if (!Objects.equals(current, value)) {
+            changedPiiFields |= field;
+        }
+    }
+
+    /**
+     * 字段尚未解密时解密，解密失败时字段保持密文并抛出异常
+     */
+    private String resolvePii(int field, String value) {
+        if ((encryptedPiiFields & field) == 0) {
+            return value;
+        }
+        String decrypted = piiDecryptor.apply(value);
+        encryptedPiiFields &= ~field;
+        return decrypted;
+    }
+
+    public String getFirstName() {
+        return firstName = resolvePii(FIRST_NAME, firstName);
+    }
+
+    public void setFirstName(String firstName) {
+        if (trackedValues != null) {
+            trackPiiChange(FIRST_NAME, getFirstName(), firstName);
+        }
+        this.firstName = firstName;
+        encryptedPiiFields &= ~FIRST_NAME;
+    }
+
+    public String getLastName() {
+        return lastName = resolvePii(LAST_NAME, lastName);
+    }
+
+    public void setLastName(String lastName) {
+        if (trackedValues != null) {
+            trackPiiChange(LAST_NAME, getLastName(), lastName);
+        }
+        this.lastName = lastName;
+        encryptedPiiFields &= ~LAST_NAME;
+    }
+
+    public String getEmail() {
+        return email = resolvePii(EMAIL, email);
+    }
+
+    public void setEmail(String email) {
+        if (trackedValues != null) {
+            trackPiiChange(EMAIL, getEmail(), email);
+        }
+        this.email = email;
+        encryptedPiiFields &= ~EMAIL;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber = resolvePii(PHONE_NUMBER, phoneNumber);
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        if (trackedValues != null) {
+            trackPiiChange(PHONE_NUMBER, getPhoneNumber(), phoneNumber);
+        }
+        this.phoneNumber = phoneNumber;
+        encryptedPiiFields &= ~PHONE_NUMBER;
+    }
+
+    public String getAddress() {
+        return address = resolvePii(ADDRESS, address);
+    }
+
+    public void setAddress(String address) {
+        if (trackedValues != null) {
+            trackPiiChange(ADDRESS, getAddress(), address);
+        }
+        this.address = address;
+        encryptedPiiFields &= ~ADDRESS;
+    }
+
     /**
      * 获取用户全名
      */
     public String getFullName() {
-        return (firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "");
+        String first = getFirstName();
+        String last = getLastName();
+        return (first != null ? first : "") + " " + (last != null ? last : "");
     }
 
     /**
@@ -0,0 +1,89 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 设施字典（全局）
+ * 设施名称去掉首尾空白、忽略大小写后归一，每个设施分配一个从0开始的固定编号，
+ * 同一设施在所有房源中共用同一个名称字符串（以首次出现的写法为准）。
+ * 设施由运营端维护，种类有限，编号分配后不回收
+ */
+public final class AmenityDictionary {
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static final List<String> NAMES = new CopyOnWriteArrayList<>();
+
+    private AmenityDictionary() {
+    }
+
+    /**
+     * 获取设施编号，未登记的设施登记后返回新编号；名称为空时返回-1
+     */
+    public static int register(String amenity) {
+        String key = normalize(amenity);
+        if (key == null) {
+            return -1;
+        }
+        Integer id = IDS.get(key);
+        if (id != null) {
+            return id;
+        }
+        synchronized (NAMES) {
+            return IDS.computeIfAbsent(key, k -> {
+                NAMES.add(amenity.trim());
+                return NAMES.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * 查找已登记设施的编号（不登记），不存在时返回-1
+     */
+    public static int find(String amenity) {
+        String key = normalize(amenity);
+        return key != null ? IDS.getOrDefault(key, -1) : -1;
+    }
+
+    /**
+     * 设施的规范名称
+     */
+    public static String name(int id) {
+        return NAMES.get(id);
+    }
+
+    /**
+     * 已登记的设施数
+     */
+    public static int size() {
+        return NAMES.size();
+    }
+
+    /**
+     * 把设施名称列表转换为去重的规范名称列表
+     */
+    public static List<String> canonicalize(List<String> amenities) {
+        if (amenities == null || amenities.isEmpty()) {
+            return List.of();
+        }
+        List<String> names = new ArrayList<>(amenities.size());
+        for (String amenity : amenities) {
+            int id = register(amenity);
+            if (id >= 0 && !names.contains(name(id))) {
+                names.add(name(id));
+            }
+        }
+        return List.copyOf(names);
+    }
+
+    private static String normalize(String amenity) {
+        if (amenity == null || amenity.isBlank()) {
+            return null;
+        }
+        return amenity.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,30 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 设施分面：满足当前搜索条件的结果中具备该设施的房型数
+ */
+public record AmenityFacet(String name, int count) {
+
+    /** 按数量降序，同数量按名称排序 */
+    private static final Comparator<AmenityFacet> ORDER = Comparator
+            .comparingInt(AmenityFacet::count).reversed()
+            .thenComparing(AmenityFacet::name);
+
+    /**
+     * 把按设施编号累计的数量转换为分面列表，数量为0的设施不返回
+     */
+    public static List<AmenityFacet> fromCounts(int[] counts) {
+        List<AmenityFacet> facets = new ArrayList<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                facets.add(new AmenityFacet(AmenityDictionary.name(id), counts[id]));
+            }
+        }
+        facets.sort(ORDER);
+        return facets;
+    }
+}
@@ -0,0 +1,115 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import com.hotelbooking.hotel_reservation_eu.model.HotelBranch;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 启用分店目录（不可变）
+ * 按ID、国家、城市索引的分店快照，排序与原查询一致；分店变更时整体重建并替换，读取方无需加锁。
+ * 快照中的分店是复制出来的对象，不与数据库实体共享
+ */
+public final class BranchDirectory {
+
+    /** 与 ORDER BY country, city, branch_name 一致 */
+    private static final Comparator<HotelBranch> ACTIVE_ORDER = Comparator
+            .comparing(HotelBranch::getCountry, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(HotelBranch::getCity, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(HotelBranch::getBranchName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+
+    private final List<HotelBranch> activeBranches;
+    private final Map<Long, HotelBranch> byId;
+    private final Map<String, List<HotelBranch>> byCountry;
+    private final Map<String, List<HotelBranch>> byCity;
+    private final String eTag;
+
+    private BranchDirectory(List<HotelBranch> activeBranches) {
+        this.activeBranches = List.copyOf(activeBranches);
+
+        Map<Long, HotelBranch> ids = new HashMap<>();
+        Map<String, List<HotelBranch>> countries = new HashMap<>();
+        Map<String, List<HotelBranch>> cities = new HashMap<>();
+        StringBuilder fingerprint = new StringBuilder();
+        for (HotelBranch branch : this.activeBranches) {
+            ids.put(branch.getId(), branch);
+            countries.computeIfAbsent(key(branch.getCountry()), k -> new ArrayList<>()).add(branch);
+            cities.computeIfAbsent(key(branch.getCity()), k -> new ArrayList<>()).add(branch);
+            fingerprint.append(branch.getId()).append('|').append(branch.getBranchName()).append('|')
+                    .append(branch.getCity()).append('|').append(branch.getCountry()).append('|')
+                    .append(branch.getUpdatedAt()).append('\n');
+        }
+        this.byId = Map.copyOf(ids);
+        this.byCountry = copyOf(countries);
+        this.byCity = copyOf(cities);
+        // 由内容计算，应用重启或多实例部署时相同的目录得到相同的ETag
+        this.eTag = "\"" + DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * 由启用分店的查询结果构建目录
+     */
+    public static BranchDirectory of(List<HotelBranch> branches) {
+        List<HotelBranch> copies = new ArrayList<>(branches.size());
+        for (HotelBranch branch : branches) {
+            copies.add(HotelBranch.builder()
+                    .id(branch.getId())
+                    .branchName(branch.getBranchName())
+                    .city(branch.getCity())
+                    .country(branch.getCountry())
+                    .status(branch.getStatus())
+                    .createdAt(branch.getCreatedAt())
+                    .updatedAt(branch.getUpdatedAt())
+                    .build());
+        }
+        copies.sort(ACTIVE_ORDER);
+        return new BranchDirectory(copies);
+    }
+
+    /**
+     * 全部启用分店，按国家、城市、分店名称排序
+     */
+    public List<HotelBranch> getActiveBranches() {
+        return activeBranches;
+    }
+
+    public Optional<HotelBranch> getById(Long id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    /**
+     * 国家内的启用分店（忽略大小写），按城市、分店名称排序
+     */
+    public List<HotelBranch> getByCountry(String country) {
+        return byCountry.getOrDefault(key(country), List.of());
+    }
+
+    /**
+     * 城市内的启用分店（忽略大小写），按分店名称排序
+     */
+    public List<HotelBranch> getByCity(String city) {
+        return byCity.getOrDefault(key(city), List.of());
+    }
+
+    /**
+     * 目录内容的强ETag（含双引号）
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    public int size() {
+        return activeBranches.size();
+    }
+
+    private static String key(String value) {
+        return value != null ? value.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static Map<String, List<HotelBranch>> copyOf(Map<String, List<HotelBranch>> groups) {
+        Map<String, List<HotelBranch>> copy = new HashMap<>();
+        groups.forEach((key, branches) -> copy.put(key, List.copyOf(branches)));
+        return Map.copyOf(copy);
+    }
+}
@@ -0,0 +1,260 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import com.hotelbooking.hotel_reservation_eu.dto.RoomTypeBranchMappingDto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 单个分店的房源索引（不可变）
+ * 房源按 sort_order、房型基础价格排序，与原搜索SQL的 ORDER BY 保持一致；
+ * 刷新时整体替换，读取方无需加锁。
+ * 筛选用到的入住人数上限和可售房间数另按列存放在基本类型数组中，
+ * 按客人数、房间数筛选时只遍历数组，不访问房源对象；
+ * 设施按 AmenityDictionary 编号建位图索引（每个设施一个 long[] 位集，第 i 位对应第 i 个房源），
+ * 设施组合筛选和分面计数都是按字的位运算
+ */
+public final class BranchInventory {
+
+    /** 与 ORDER BY m.sort_order, rt.base_price ASC 一致，关联ID兜底保证顺序稳定 */
+    static final Comparator<InventoryEntry> SEARCH_ORDER = Comparator
+            .comparingInt(InventoryEntry::sortOrder)
+            .thenComparing(InventoryEntry::basePrice, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(InventoryEntry::mappingId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /** 版本号生成器，每次构建非空索引分配一个新版本 */
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version;
+    private final Long branchId;
+    private final String branchName;
+    private final String branchCity;
+    private final String branchCountry;
+    private final List<InventoryEntry> entries;
+
+    /** 按列存放：entries 中第 i 个房源的最大入住人数（未设置时不限） */
+    private final int[] maxGuests;
+
+    /** 按列存放：entries 中第 i 个房源每晚可售的房间数 */
+    private final int[] maxRooms;
+
+    /** 设施位图：下标为设施编号，分店没有该设施时为null */
+    private final long[][] amenityBits;
+
+    private BranchInventory(long version, Long branchId, String branchName, String branchCity, String branchCountry,
+                            List<InventoryEntry> entries) {
+        this.version = version;
+        this.branchId = branchId;
+        this.branchName = branchName;
+        this.branchCity = branchCity;
+        this.branchCountry = branchCountry;
+        this.entries = List.copyOf(entries);
+        this.maxGuests = new int[this.entries.size()];
+        this.maxRooms = new int[this.entries.size()];
+        for (int i = 0; i < this.entries.size(); i++) {
+            InventoryEntry entry = this.entries.get(i);
+            this.maxGuests[i] = entry.maxGuests() != null ? entry.maxGuests() : Integer.MAX_VALUE;
+            this.maxRooms[i] = entry.maxRoomsCount();
+        }
+        this.amenityBits = buildAmenityBits(this.entries);
+    }
+
+    private static long[][] buildAmenityBits(List<InventoryEntry> entries) {
+        int words = (entries.size() + 63) >>> 6;
+        long[][] bits = new long[0][];
+        for (int i = 0; i < entries.size(); i++) {
+            for (String amenity : entries.get(i).amenities()) {
+                int id = AmenityDictionary.register(amenity);
+                if (id >= bits.length) {
+                    bits = Arrays.copyOf(bits, id + 1);
+                }
+                if (bits[id] == null) {
+                    bits[id] = new long[words];
+                }
+                bits[id][i >>> 6] |= 1L << i;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * 空索引（分店不存在、已停用或没有启用的房型）
+     */
+    public static BranchInventory empty(Long branchId) {
+        return new BranchInventory(0L, branchId, null, null, null, List.of());
+    }
+
+    /**
+     * 根据分店的关联查询结果构建索引
+     *
+     * @param mappings         该分店的房型分店关联（含房型、分店信息）
+     * @param amenitiesParser  设施JSON解析函数，每个房源只解析一次
+     */
+    public static BranchInventory of(Long branchId, List<RoomTypeBranchMappingDto> mappings,
+                                     Function<String, List<String>> amenitiesParser) {
+        if (mappings == null || mappings.isEmpty()) {
+            return empty(branchId);
+        }
+        List<InventoryEntry> entries = new ArrayList<>(mappings.size());
+        for (RoomTypeBranchMappingDto mapping : mappings) {
+            entries.add(toEntry(mapping, amenitiesParser));
+        }
+        entries.sort(SEARCH_ORDER);
+
+        RoomTypeBranchMappingDto first = mappings.get(0);
+        return new BranchInventory(VERSIONS.incrementAndGet(), branchId, first.getHotelBranchName(), first.getHotelBranchCity(),
+                first.getHotelBranchCountry(), entries);
+    }
+
+    private static InventoryEntry toEntry(RoomTypeBranchMappingDto mapping,
+                                          Function<String, List<String>> amenitiesParser) {
+        BigDecimal branchPrice = mapping.getBranchSpecificPrice();
+        boolean branchSpecific = branchPrice != null && branchPrice.compareTo(BigDecimal.ZERO) > 0;
+        List<String> amenities = amenitiesParser.apply(mapping.getAmenities());
+        return new InventoryEntry(
+                mapping.getId(),
+                mapping.getRoomTypeId(),
+                mapping.getRoomTypeName(),
+                mapping.getRoomTypeDescription(),
+                mapping.getSize(),
+                mapping.getBedType(),
+                mapping.getMaxGuests(),
+                mapping.getEffectivePrice(),
+                mapping.getRoomTypeBasePrice(),
+                branchSpecific,
+                mapping.getAvailableRoomsCount() != null ? mapping.getAvailableRoomsCount() : 0,
+                mapping.getMaxRoomsCount() != null ? mapping.getMaxRoomsCount() : 0,
+                mapping.getSortOrder() != null ? mapping.getSortOrder() : 0,
+                mapping.getImageUrl(),
+                AmenityDictionary.canonicalize(amenities));
+    }
+
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    /**
+     * 索引版本：分店刷新后版本改变，空索引的版本固定为0，可用于判断基于旧索引的缓存是否失效
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public String getBranchName() {
+        return branchName;
+    }
+
+    public String getBranchCity() {
+        return branchCity;
+    }
+
+    public String getBranchCountry() {
+        return branchCountry;
+    }
+
+    /**
+     * 全部启用的房源，已排序；是否有房由按晚房量服务按入住日期判断
+     */
+    public List<InventoryEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * 按客人数和房间数筛选房源：rooms 间房能容纳全部客人（最大入住人数 × rooms ≥ guests），
+     * 且每晚可售房间数不少于 rooms；是否有房仍需按入住日期另行判断
+     *
+     * @return 满足条件的房源在 getEntries() 中的下标，保持索引顺序
+     */
+    public int[] select(int guests, int rooms) {
+        return select(guests, rooms, new int[0]);
+    }
+
+    /**
+     * 按客人数、房间数和设施组合筛选房源，房源需具备 amenityIds 中的全部设施
+     *
+     * @param amenityIds 设施编号（AmenityDictionary），含未登记的设施（-1）时没有结果
+     * @return 满足条件的房源在 getEntries() 中的下标，保持索引顺序
+     */
+    public int[] select(int guests, int rooms, int[] amenityIds) {
+        int[] selected = new int[maxGuests.length];
+        int count = 0;
+        if (amenityIds.length == 0) {
+            for (int i = 0; i < maxGuests.length; i++) {
+                if (fits(i, guests, rooms)) {
+                    selected[count++] = i;
+                }
+            }
+        } else {
+            long[] mask = amenityMask(amenityIds);
+            for (int word = 0; word < mask.length; word++) {
+                long bits = mask[word];
+                while (bits != 0) {
+                    int i = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (fits(i, guests, rooms)) {
+                        selected[count++] = i;
+                    }
+                }
+            }
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * 统计指定房源中具备各设施的房源数，累加到 counts（下标为设施编号）
+     *
+     * @param indexes 房源在 getEntries() 中的下标
+     * @param counts  长度不小于 AmenityDictionary.size()
+     */
+    public void countAmenities(int[] indexes, int[] counts) {
+        if (indexes.length == 0) {
+            return;
+        }
+        long[] selected = new long[(entries.size() + 63) >>> 6];
+        for (int index : indexes) {
+            selected[index >>> 6] |= 1L << index;
+        }
+        for (int id = 0; id < amenityBits.length; id++) {
+            long[] bits = amenityBits[id];
+            if (bits == null) {
+                continue;
+            }
+            int count = 0;
+            for (int word = 0; word < bits.length; word++) {
+                count += Long.bitCount(bits[word] & selected[word]);
+            }
+            counts[id] += count;
+        }
+    }
+
+    private boolean fits(int i, int guests, int rooms) {
+        return maxRooms[i] >= rooms && (long) maxGuests[i] * rooms >= guests;
+    }
+
+    private long[] amenityMask(int[] amenityIds) {
+        long[] mask = null;
+        for (int id : amenityIds) {
+            if (id < 0 || id >= amenityBits.length || amenityBits[id] == null) {
+                return new long[0];
+            }
+            if (mask == null) {
+                mask = amenityBits[id].clone();
+            } else {
+                long[] bits = amenityBits[id];
+                for (int word = 0; word < mask.length; word++) {
+                    mask[word] &= bits[word];
+                }
+            }
+        }
+        return mask;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+}
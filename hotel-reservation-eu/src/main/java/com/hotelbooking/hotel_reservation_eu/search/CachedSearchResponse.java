@@ -0,0 +1,36 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+/**
+ * 已序列化的搜索响应
+ *
+ * @param body                响应JSON字节（只读，直接写入响应）
+ * @param eTag                由响应内容计算的强ETag（含双引号）
+ * @param inventoryVersion    生成响应时分店房源索引的版本
+ * @param availabilityVersion 生成响应时分店房量的版本
+ * @param expiresAtMillis     过期时间
+ */
+public record CachedSearchResponse(byte[] body, String eTag, long inventoryVersion, long availabilityVersion,
+                                   long expiresAtMillis) {
+
+    /**
+     * 客户端的 If-None-Match 是否与当前ETag匹配（按RFC 9110使用弱比较，支持多个值和 *）
+     */
+    public boolean isNotModified(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
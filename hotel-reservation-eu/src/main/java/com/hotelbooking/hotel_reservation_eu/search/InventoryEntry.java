@@ -0,0 +1,40 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 搜索索引中的一条房源（某分店的一个房型）
+ * 有效价格、价格来源和设施列表在建索引时计算好，搜索时直接读取
+ *
+ * @param mappingId           房型分店关联ID
+ * @param effectivePrice      有效价格：分店特定价格优先，否则为房型基础价格
+ * @param branchSpecificPrice 有效价格是否来自分店特定价格
+ * @param amenities           已解析的房型设施（不可变列表）
+ */
+public record InventoryEntry(Long mappingId,
+                             Long roomTypeId,
+                             String roomTypeName,
+                             String description,
+                             Integer size,
+                             String bedType,
+                             Integer maxGuests,
+                             BigDecimal effectivePrice,
+                             BigDecimal basePrice,
+                             boolean branchSpecificPrice,
+                             int availableRoomsCount,
+                             int maxRoomsCount,
+                             int sortOrder,
+                             String imageUrl,
+                             List<String> amenities) {
+
+    public static final String PRICE_SOURCE_BRANCH = "分店特定价格";
+    public static final String PRICE_SOURCE_BASE = "房型基础价格";
+
+    /**
+     * 价格来源说明
+     */
+    public String priceSource() {
+        return branchSpecificPrice ? PRICE_SOURCE_BRANCH : PRICE_SOURCE_BASE;
+    }
+}
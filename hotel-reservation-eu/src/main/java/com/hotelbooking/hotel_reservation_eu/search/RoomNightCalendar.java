@@ -0,0 +1,139 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import java.time.LocalDate;
+
+/**
+ * 单个房型分店关联的按晚已订房间数日历
+ * 以 origin 为第0晚，用支持区间加、区间最大值的线段树（懒标记）保存每晚已订房间数，
+ * 入住区间 [checkin, checkout) 的预订、释放和“最繁忙一晚”查询都是 O(log n)。
+ * origin 之前的夜晚已经过去，不再记录；日历末尾之后的夜晚不可查询，调用方需先用 covers 判断
+ */
+public final class RoomNightCalendar {
+
+    private final LocalDate origin;
+    private final long originDay;
+    private final int days;
+
+    /** 线段树节点：子树内单晚最大已订数（含本节点懒标记） */
+    private final int[] max;
+    /** 线段树懒标记：整个子树共同增加的房间数 */
+    private final int[] pending;
+
+    public RoomNightCalendar(LocalDate origin, int days) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("日历天数必须大于0");
+        }
+        int size = Integer.highestOneBit(days);
+        if (size < days) {
+            size <<= 1;
+        }
+        this.origin = origin;
+        this.originDay = origin.toEpochDay();
+        this.days = size;
+        this.max = new int[2 * size];
+        this.pending = new int[2 * size];
+    }
+
+    public LocalDate getOrigin() {
+        return origin;
+    }
+
+    /**
+     * 日历可记录的最后一晚的次日（最晚可查询的退房日期）
+     */
+    public LocalDate getEnd() {
+        return origin.plusDays(days);
+    }
+
+    /**
+     * 区间 [checkin, checkout) 中尚未过去的夜晚是否都在日历范围内
+     */
+    public synchronized boolean covers(LocalDate checkin, LocalDate checkout) {
+        return checkout.isAfter(checkin) && !checkout.isAfter(getEnd());
+    }
+
+    /**
+     * 区间内最繁忙一晚的已订房间数
+     */
+    public synchronized int maxBooked(LocalDate checkin, LocalDate checkout) {
+        int from = clampIndex(checkin);
+        int to = clampIndex(checkout);
+        if (from >= to) {
+            return 0;
+        }
+        return query(1, 0, days, from, to);
+    }
+
+    /**
+     * 某一晚的已订房间数
+     */
+    public synchronized int bookedOn(LocalDate night) {
+        return maxBooked(night, night.plusDays(1));
+    }
+
+    /**
+     * 无条件在区间内增加已订房间数（rooms 为负数表示释放），超出日历范围的夜晚被忽略
+     */
+    public synchronized void add(LocalDate checkin, LocalDate checkout, int rooms) {
+        int from = clampIndex(checkin);
+        int to = clampIndex(checkout);
+        if (from < to && rooms != 0) {
+            update(1, 0, days, from, to, rooms);
+        }
+    }
+
+    /**
+     * 以新的起始日期复制一份日历，新起始日期之前的夜晚被丢弃，已有的每晚已订数原样保留
+     */
+    public synchronized RoomNightCalendar rebase(LocalDate newOrigin, int newDays) {
+        RoomNightCalendar rebased = new RoomNightCalendar(newOrigin, newDays);
+        LocalDate end = getEnd();
+        for (LocalDate night = newOrigin.isAfter(origin) ? newOrigin : origin;
+             night.isBefore(end) && night.isBefore(rebased.getEnd()); night = night.plusDays(1)) {
+            int booked = bookedOn(night);
+            if (booked != 0) {
+                rebased.add(night, night.plusDays(1), booked);
+            }
+        }
+        return rebased;
+    }
+
+    private int clampIndex(LocalDate date) {
+        long index = date.toEpochDay() - originDay;
+        return (int) Math.max(0, Math.min(days, index));
+    }
+
+    private void update(int node, int nodeFrom, int nodeTo, int from, int to, int delta) {
+        if (from <= nodeFrom && nodeTo <= to) {
+            max[node] += delta;
+            pending[node] += delta;
+            return;
+        }
+        int mid = (nodeFrom + nodeTo) >>> 1;
+        if (from < mid) {
+            update(2 * node, nodeFrom, mid, from, to, delta);
+        }
+        if (to > mid) {
+            update(2 * node + 1, mid, nodeTo, from, to, delta);
+        }
+        max[node] = Math.max(max[2 * node], max[2 * node + 1]) + pending[node];
+    }
+
+    /**
+     * 查询时沿路径累加懒标记，不下推，读操作不修改树
+     */
+    private int query(int node, int nodeFrom, int nodeTo, int from, int to) {
+        if (from <= nodeFrom && nodeTo <= to) {
+            return max[node];
+        }
+        int mid = (nodeFrom + nodeTo) >>> 1;
+        int result = Integer.MIN_VALUE;
+        if (from < mid) {
+            result = Math.max(result, query(2 * node, nodeFrom, mid, from, to));
+        }
+        if (to > mid) {
+            result = Math.max(result, query(2 * node + 1, mid, nodeTo, from, to));
+        }
+        return result + pending[node];
+    }
+}
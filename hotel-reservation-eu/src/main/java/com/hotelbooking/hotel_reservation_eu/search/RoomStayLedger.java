@@ -0,0 +1,89 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单个房型分店关联的住宿台账
+ * 在按晚日历之上按预订ID记录已计入的住宿，计入和释放都是幂等的：
+ * 台账加载时读到的预订、本进程下单成功的预订、取消事件可以任意先后到达，同一预订只会被计入或释放一次
+ */
+public final class RoomStayLedger {
+
+    private record Stay(LocalDate checkin, LocalDate checkout, int rooms) {
+    }
+
+    private final RoomNightCalendar calendar;
+    private final Map<Long, Stay> stays;
+
+    public RoomStayLedger(LocalDate origin, int days) {
+        this(new RoomNightCalendar(origin, days), new HashMap<>());
+    }
+
+    private RoomStayLedger(RoomNightCalendar calendar, Map<Long, Stay> stays) {
+        this.calendar = calendar;
+        this.stays = stays;
+    }
+
+    public LocalDate getOrigin() {
+        return calendar.getOrigin();
+    }
+
+    public LocalDate getEnd() {
+        return calendar.getEnd();
+    }
+
+    /**
+     * 计入有效预订（不检查容量，容量由数据库库存行保证）
+     */
+    public synchronized void load(long reservationId, LocalDate checkin, LocalDate checkout, int rooms) {
+        if (rooms > 0 && stays.putIfAbsent(reservationId, new Stay(checkin, checkout, rooms)) == null) {
+            calendar.add(checkin, checkout, rooms);
+        }
+    }
+
+    /**
+     * 释放预订占用的房间（未计入的预订忽略）
+     *
+     * @return 是否有房间被释放
+     */
+    public synchronized boolean release(long reservationId) {
+        Stay stay = stays.remove(reservationId);
+        if (stay == null) {
+            return false;
+        }
+        calendar.add(stay.checkin(), stay.checkout(), -stay.rooms());
+        return true;
+    }
+
+    /**
+     * 区间内每晚都可售的房间数（不小于0）；区间超出日历范围时返回0
+     */
+    public synchronized int freeRooms(LocalDate checkin, LocalDate checkout, int capacity) {
+        if (!calendar.covers(checkin, checkout)) {
+            return 0;
+        }
+        return Math.max(0, capacity - calendar.maxBooked(checkin, checkout));
+    }
+
+    /**
+     * 计入的预订数
+     */
+    public synchronized int trackedStays() {
+        return stays.size();
+    }
+
+    /**
+     * 以新的起始日期复制台账，已经结束的住宿不再保留
+     */
+    public synchronized RoomStayLedger rebase(LocalDate newOrigin, int newDays) {
+        Map<Long, Stay> remaining = new HashMap<>();
+        stays.forEach((id, stay) -> {
+            if (stay.checkout().isAfter(newOrigin)) {
+                remaining.put(id, stay);
+            }
+        });
+        return new RoomStayLedger(calendar.rebase(newOrigin, newDays), remaining);
+    }
+}
@@ -0,0 +1,50 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * 多分店搜索的分页游标（键集分页）
+ * 记录上一页最后一条结果的 (价格, 分店ID, 房型ID)，下一页只返回排在其后的结果，
+ * 翻页时不需要跳过前面的结果，也不会因为新增房源而重复或遗漏
+ */
+public record SearchCursor(BigDecimal price, long branchId, long roomTypeId) implements Comparable<SearchCursor> {
+
+    private static final Comparator<SearchCursor> ORDER = Comparator
+            .comparing(SearchCursor::price)
+            .thenComparingLong(SearchCursor::branchId)
+            .thenComparingLong(SearchCursor::roomTypeId);
+
+    @Override
+    public int compareTo(SearchCursor other) {
+        return ORDER.compare(this, other);
+    }
+
+    /**
+     * 编码为URL安全的字符串
+     */
+    public String encode() {
+        String raw = price.toPlainString() + ":" + branchId + ":" + roomTypeId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析客户端传回的游标
+     *
+     * @throws IllegalArgumentException 游标格式无效
+     */
+    public static SearchCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            return new SearchCursor(new BigDecimal(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+}
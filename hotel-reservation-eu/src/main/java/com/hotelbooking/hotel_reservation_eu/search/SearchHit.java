@@ -0,0 +1,31 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import java.util.Comparator;
+
+/**
+ * 多分店搜索的一条命中结果
+ *
+ * @param freeRooms 入住期间每晚都可售的房间数
+ */
+public record SearchHit(BranchInventory branch, InventoryEntry entry, int freeRooms) {
+
+    /** 多分店搜索的结果顺序：价格升序，同价按分店ID、房型ID，保证分页游标位置唯一 */
+    public static final Comparator<SearchHit> PRICE_ORDER = Comparator
+            .comparing((SearchHit hit) -> hit.entry().effectivePrice())
+            .thenComparing(hit -> hit.branch().getBranchId())
+            .thenComparing(hit -> hit.entry().roomTypeId());
+
+    /**
+     * 该结果在排序中的位置，用作下一页的游标
+     */
+    public SearchCursor toCursor() {
+        return new SearchCursor(entry.effectivePrice(), branch.getBranchId(), entry.roomTypeId());
+    }
+
+    /**
+     * 是否排在游标之后（游标为null时总是true）
+     */
+    public boolean isAfter(SearchCursor cursor) {
+        return cursor == null || cursor.compareTo(toCursor()) < 0;
+    }
+}
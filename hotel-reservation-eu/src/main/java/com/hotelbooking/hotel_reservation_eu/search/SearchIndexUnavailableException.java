@@ -0,0 +1,12 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+/**
+ * 搜索索引尚未完成过一次全量加载，没有可用的快照
+ * 索引在后台加载，调用方应返回 503 让客户端稍后重试，而不是在请求线程上等待加载
+ */
+public class SearchIndexUnavailableException extends RuntimeException {
+
+    public SearchIndexUnavailableException(String message) {
+        super(message);
+    }
+}
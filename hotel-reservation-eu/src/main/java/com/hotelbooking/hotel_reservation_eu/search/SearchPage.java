@@ -0,0 +1,20 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import java.util.List;
+
+/**
+ * 搜索的一页结果
+ *
+ * @param hits         本页结果：按城市或国家搜索时按价格升序，单分店搜索时按索引顺序且不分页
+ * @param totalResults 满足条件的结果总数（不受分页影响）
+ * @param branchCount  参与搜索的分店数
+ * @param nextCursor   下一页游标，没有更多结果时为null
+ * @param facets       满足条件的全部结果（不受分页影响）的设施分面
+ */
+public record SearchPage(List<SearchHit> hits, long totalResults, int branchCount, String nextCursor,
+                         List<AmenityFacet> facets) {
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
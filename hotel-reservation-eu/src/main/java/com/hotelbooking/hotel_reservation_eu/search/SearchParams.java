@@ -0,0 +1,74 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 已校验的搜索参数，原样回显在响应的 searchParams 中
+ *
+ * @param branchId  单分店搜索的分店ID，按城市或国家搜索时为null
+ * @param city      按城市搜索时的城市
+ * @param country   按国家搜索时的国家
+ * @param amenities 房型需同时具备的设施（已归一为规范名称、去重并排序）
+ */
+public record SearchParams(Long branchId, String city, String country, LocalDate checkin, LocalDate checkout,
+                           int guests, int rooms, List<String> amenities) {
+
+    public SearchParams {
+        amenities = normalizeAmenities(amenities);
+    }
+
+    public static SearchParams ofBranch(Long branchId, LocalDate checkin, LocalDate checkout, int guests, int rooms,
+                                        List<String> amenities) {
+        return new SearchParams(branchId, null, null, checkin, checkout, guests, rooms, amenities);
+    }
+
+    public static SearchParams ofLocation(String city, String country, LocalDate checkin, LocalDate checkout,
+                                          int guests, int rooms, List<String> amenities) {
+        return new SearchParams(null, city, country, checkin, checkout, guests, rooms, amenities);
+    }
+
+    public boolean isLocationSearch() {
+        return branchId == null;
+    }
+
+    public long nights() {
+        return ChronoUnit.DAYS.between(checkin, checkout);
+    }
+
+    /**
+     * 设施条件对应的设施编号，未登记的设施为-1（没有房型具备）
+     */
+    public int[] amenityIds() {
+        int[] ids = new int[amenities.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = AmenityDictionary.find(amenities.get(i));
+        }
+        return ids;
+    }
+
+    private static List<String> normalizeAmenities(List<String> amenities) {
+        if (amenities == null || amenities.isEmpty()) {
+            return List.of();
+        }
+        List<String> names = new ArrayList<>(amenities.size());
+        List<String> keys = new ArrayList<>(amenities.size());
+        for (String amenity : amenities) {
+            if (amenity == null || amenity.isBlank()) {
+                continue;
+            }
+            int id = AmenityDictionary.find(amenity);
+            String name = id >= 0 ? AmenityDictionary.name(id) : amenity.trim();
+            String key = name.toLowerCase(Locale.ROOT);
+            if (!keys.contains(key)) {
+                keys.add(key);
+                names.add(name);
+            }
+        }
+        names.sort(String.CASE_INSENSITIVE_ORDER);
+        return List.copyOf(names);
+    }
+}
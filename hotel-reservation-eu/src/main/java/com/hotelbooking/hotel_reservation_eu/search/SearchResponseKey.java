@@ -0,0 +1,18 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 单分店搜索响应的缓存键，包含影响响应内容的全部请求参数
+ *
+ * @param amenities 已归一并排序的设施条件，条件相同但顺序不同的请求共用缓存
+ */
+public record SearchResponseKey(Long branchId, LocalDate checkin, LocalDate checkout, Integer guests, Integer rooms,
+                                List<String> amenities) {
+
+    public static SearchResponseKey of(SearchParams params) {
+        return new SearchResponseKey(params.branchId(), params.checkin(), params.checkout(), params.guests(),
+                params.rooms(), params.amenities());
+    }
+}
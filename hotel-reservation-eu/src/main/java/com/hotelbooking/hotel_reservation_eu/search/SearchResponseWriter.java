@@ -0,0 +1,155 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 搜索响应的流式JSON输出
+ * 直接从索引中的房源和搜索参数逐个字段写出，不再为每个房型构建 Map 和装箱字段值再交给Jackson遍历；
+ * 字段名和取值与原来基于 Map 的响应保持一致，另附满足条件的全部结果的设施分面
+ */
+public final class SearchResponseWriter {
+
+    public static final String MESSAGE_FOUND = "搜索完成";
+    public static final String MESSAGE_BRANCH_EMPTY = "该分店暂无可用房源";
+    public static final String MESSAGE_LOCATION_EMPTY = "该地区暂无可用房源";
+
+    private static final DateTimeFormatter DISPLAY_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy年MM月dd日");
+
+    private SearchResponseWriter() {
+    }
+
+    /**
+     * 写出单分店搜索响应
+     */
+    public static void writeBranchResponse(JsonGenerator generator, SearchParams params, SearchPage page)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeBooleanField("success", true);
+        writeSearchParams(generator, params);
+        writeHotels(generator, page.hits(), false);
+        generator.writeNumberField("totalResults", page.totalResults());
+        writeFacets(generator, page.facets());
+        generator.writeStringField("message", page.totalResults() > 0 ? MESSAGE_FOUND : MESSAGE_BRANCH_EMPTY);
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    /**
+     * 写出按城市或国家搜索的一页响应，每条结果额外带 branchId
+     */
+    public static void writeLocationResponse(JsonGenerator generator, SearchParams params, SearchPage page)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeBooleanField("success", true);
+        writeSearchParams(generator, params);
+        writeHotels(generator, page.hits(), true);
+        generator.writeNumberField("totalResults", page.totalResults());
+        writeFacets(generator, page.facets());
+        generator.writeNumberField("branchCount", page.branchCount());
+        generator.writeBooleanField("hasMore", page.hasMore());
+        generator.writeStringField("nextCursor", page.nextCursor());
+        generator.writeStringField("message", page.totalResults() > 0 ? MESSAGE_FOUND : MESSAGE_LOCATION_EMPTY);
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private static void writeSearchParams(JsonGenerator generator, SearchParams params) throws IOException {
+        generator.writeObjectFieldStart("searchParams");
+        writeNumberField(generator, "branchId", params.branchId());
+        if (params.isLocationSearch()) {
+            generator.writeStringField("city", params.city());
+            generator.writeStringField("country", params.country());
+        }
+        generator.writeStringField("checkinDate", params.checkin().format(DISPLAY_DATE_FORMATTER));
+        generator.writeStringField("checkoutDate", params.checkout().format(DISPLAY_DATE_FORMATTER));
+        generator.writeStringField("checkinDateRaw", params.checkin().toString());
+        generator.writeStringField("checkoutDateRaw", params.checkout().toString());
+        generator.writeNumberField("guests", params.guests());
+        generator.writeNumberField("rooms", params.rooms());
+        generator.writeNumberField("nights", params.nights());
+        if (!params.amenities().isEmpty()) {
+            generator.writeArrayFieldStart("amenities");
+            for (String amenity : params.amenities()) {
+                generator.writeString(amenity);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeFacets(JsonGenerator generator, List<AmenityFacet> facets) throws IOException {
+        generator.writeObjectFieldStart("facets");
+        generator.writeArrayFieldStart("amenities");
+        for (AmenityFacet facet : facets) {
+            generator.writeStartObject();
+            generator.writeStringField("name", facet.name());
+            generator.writeNumberField("count", facet.count());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeHotels(JsonGenerator generator, List<SearchHit> hits, boolean withBranchId)
+            throws IOException {
+        generator.writeArrayFieldStart("hotels");
+        for (SearchHit hit : hits) {
+            InventoryEntry entry = hit.entry();
+            BranchInventory branch = hit.branch();
+
+            generator.writeStartObject();
+            if (withBranchId) {
+                writeNumberField(generator, "branchId", branch.getBranchId());
+            }
+            writeNumberField(generator, "id", entry.roomTypeId());
+            generator.writeStringField("roomTypeName", entry.roomTypeName());
+            generator.writeStringField("description", entry.description());
+            writeNumberField(generator, "size", entry.size());
+            generator.writeStringField("bedType", entry.bedType());
+            writeNumberField(generator, "maxGuests", entry.maxGuests());
+            writeNumberField(generator, "price", entry.effectivePrice());
+            generator.writeStringField("priceSource", entry.priceSource());
+            generator.writeStringField("availableRooms", "剩余" + hit.freeRooms() + "间");
+            generator.writeStringField("imageUrl", entry.imageUrl());
+            generator.writeArrayFieldStart("amenities");
+            for (String amenity : entry.amenities()) {
+                generator.writeString(amenity);
+            }
+            generator.writeEndArray();
+            generator.writeStringField("branchName", branch.getBranchName());
+            generator.writeStringField("branchCity", branch.getBranchCity());
+            generator.writeStringField("branchCountry", branch.getBranchCountry());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeNumberField(JsonGenerator generator, String name, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, value.longValue());
+        }
+    }
+
+    private static void writeNumberField(JsonGenerator generator, String name, Integer value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, value.intValue());
+        }
+    }
+
+    private static void writeNumberField(JsonGenerator generator, String name, BigDecimal value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, value);
+        }
+    }
+}
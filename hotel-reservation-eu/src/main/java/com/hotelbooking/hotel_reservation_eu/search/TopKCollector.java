@@ -0,0 +1,60 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 流式Top-K收集器（非线程安全）
+ * 用容量为K的大顶堆保留最小的K个元素，逐个接收结果时内存为 O(K)，每次插入 O(log K)，
+ * 不需要先把所有分店的结果合并再排序
+ */
+public final class TopKCollector<T> {
+
+    private final int limit;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+    private long offered;
+
+    public TopKCollector(int limit, Comparator<? super T> order) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("K必须大于0");
+        }
+        this.limit = limit;
+        this.order = order;
+        this.heap = new PriorityQueue<>(limit, order.reversed());
+    }
+
+    public void offer(T item) {
+        offered++;
+        if (heap.size() < limit) {
+            heap.add(item);
+        } else if (order.compare(item, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    public void offerAll(Iterable<? extends T> items) {
+        for (T item : items) {
+            offer(item);
+        }
+    }
+
+    /**
+     * 接收过的元素总数
+     */
+    public long getOffered() {
+        return offered;
+    }
+
+    /**
+     * 保留的元素，按顺序排列
+     */
+    public List<T> toSortedList() {
+        List<T> result = new ArrayList<>(heap);
+        result.sort(order);
+        return result;
+    }
+}
@@ -1,5 +1,7 @@
 package com.hotelbooking.hotel_reservation_eu.service;
 
+import com.hotelbooking.hotel_reservation_eu.dto.StatisticsReportDto;
+
 import java.time.LocalDate;
 import java.util.Map;
 
@@ -11,12 +13,14 @@ public interface BiDataWriteService {
 
     /**
      * 写入所有统计数据到BI数据库
+     * 所有统计表在同一个连接、同一个事务中批量写入
      * 
      * @param comprehensiveReport 综合统计报告
      * @param date 报告日期
      * @return 是否写入成功
+     * @throws IllegalArgumentException 报告缺少必需的统计数据（数据问题，不计入BI熔断失败）
      */
-    boolean writeAllStatistics(Map<String, Object> comprehensiveReport, LocalDate date);
+    boolean writeAllStatistics(StatisticsReportDto comprehensiveReport, LocalDate date);
 
     /**
      * 写入每日总收入统计
@@ -25,7 +29,7 @@ public interface BiDataWriteService {
      * @param date 报告日期
      * @return 是否写入成功
      */
-    boolean writeDailyTotalIncome(Map<String, Object> reportData, LocalDate date);
+    boolean writeDailyTotalIncome(StatisticsReportDto reportData, LocalDate date);
 
     /**
      * 写入热门房型Top5统计
@@ -34,7 +38,7 @@ public interface BiDataWriteService {
      * @param date 报告日期
      * @return 是否写入成功
      */
-    boolean writePopularRoomTypesTop5(Map<String, Object> reportData, LocalDate date);
+    boolean writePopularRoomTypesTop5(StatisticsReportDto reportData, LocalDate date);
 
     /**
      * 写入分店业绩统计
@@ -43,7 +47,7 @@ public interface BiDataWriteService {
      * @param date 报告日期
      * @return 是否写入成功
      */
-    boolean writeBranchPerformance(Map<String, Object> reportData, LocalDate date);
+    boolean writeBranchPerformance(StatisticsReportDto reportData, LocalDate date);
 
     /**
      * 写入预订趋势统计
@@ -52,7 +56,7 @@ public interface BiDataWriteService {
      * @param date 报告日期
      * @return 是否写入成功
      */
-    boolean writeReservationTrends(Map<String, Object> reportData, LocalDate date);
+    boolean writeReservationTrends(StatisticsReportDto reportData, LocalDate date);
 
     /**
      * 写入综合统计报告
@@ -61,7 +65,7 @@ public interface BiDataWriteService {
      * @param date 报告日期
      * @return 是否写入成功
      */
-    boolean writeComprehensiveReport(Map<String, Object> comprehensiveReport, LocalDate date);
+    boolean writeComprehensiveReport(StatisticsReportDto comprehensiveReport, LocalDate date);
 
     /**
      * 检查BI数据库连接状态
@@ -69,4 +73,15 @@ public interface BiDataWriteService {
      * @return 是否连接成功
      */
     boolean checkConnection();
+
+    /**
+     * BI写入熔断器是否允许调用（熔断期间返回false，调用方可跳过本次同步）
+     * 只读取熔断器状态，不访问BI数据库，也不占用半开状态的探测机会，状态和健康检查接口应使用本方法
+     */
+    boolean isAvailable();
+
+    /**
+     * 获取BI写入熔断器状态
+     */
+    Map<String, Object> getCircuitBreakerStatus();
 }
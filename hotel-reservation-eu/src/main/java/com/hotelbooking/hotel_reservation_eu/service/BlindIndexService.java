@@ -0,0 +1,95 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * 盲索引服务
+ * 用独立密钥对规范化后的邮箱、电话计算HMAC-SHA256，存入索引列后即可按等值查询加密字段，
+ * 数据库中只有密文和不可逆的HMAC值。邮箱和电话使用不同的前缀，相同的字符串得到不同的索引值
+ */
+@Service
+public class BlindIndexService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String EMAIL_DOMAIN = "email:";
+    private static final String PHONE_DOMAIN = "phone:";
+
+    private final SecretKeySpec keySpec;
+
+    /** Mac 不是线程安全的，每个线程复用自己的实例 */
+    private final ThreadLocal<Mac> macs;
+
+    public BlindIndexService(@Value("${aws.kms.blind-index-key}") String blindIndexKey) {
+        if (blindIndexKey == null || blindIndexKey.trim().isEmpty()) {
+            throw new IllegalStateException("盲索引密钥未配置");
+        }
+        this.keySpec = new SecretKeySpec(blindIndexKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * 邮箱的盲索引（忽略首尾空白和大小写），邮箱为空时返回null
+     */
+    public String emailIndex(String email) {
+        String normalized = normalizeEmail(email);
+        return normalized == null ? null : hmac(EMAIL_DOMAIN + normalized);
+    }
+
+    /**
+     * 电话号码的盲索引（只保留数字，忽略空格、括号、连字符和加号），没有数字时返回null
+     */
+    public String phoneIndex(String phoneNumber) {
+        String normalized = normalizePhone(phoneNumber);
+        return normalized == null ? null : hmac(PHONE_DOMAIN + normalized);
+    }
+
+    /**
+     * 规范化邮箱：去掉首尾空白并转为小写，为空时返回null
+     */
+    public static String normalizeEmail(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 规范化电话号码：只保留数字，没有数字时返回null
+     */
+    public static String normalizePhone(String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phoneNumber.length());
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.length() == 0 ? null : digits.toString();
+    }
+
+    private String hmac(String value) {
+        Mac mac = macs.get();
+        return HexFormat.of().formatHex(mac.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(keySpec);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化盲索引HMAC失败", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import com.hotelbooking.hotel_reservation_eu.event.InventoryChangedEvent;
+import com.hotelbooking.hotel_reservation_eu.search.BranchDirectory;
+
+/**
+ * 启用分店目录服务接口
+ * 应用启动时加载启用分店目录，公开的分店查询直接读取内存快照；运营端修改分店并提交后整体重建替换
+ */
+public interface BranchDirectoryService {
+
+    /**
+     * 当前的分店目录
+     */
+    BranchDirectory getDirectory();
+
+    /**
+     * 从数据库重建分店目录
+     */
+    BranchDirectory reload();
+
+    /**
+     * 处理已提交的分店变更
+     */
+    void onBranchChanged(InventoryChangedEvent event);
+}
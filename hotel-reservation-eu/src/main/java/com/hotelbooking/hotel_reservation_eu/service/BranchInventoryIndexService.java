@@ -0,0 +1,44 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import com.hotelbooking.hotel_reservation_eu.event.InventoryChangedEvent;
+import com.hotelbooking.hotel_reservation_eu.search.BranchInventory;
+
+import java.util.List;
+
+/**
+ * 分店房源搜索索引服务接口
+ * 在内存中按分店维护已排序的房源列表，客户端搜索直接读取索引，不再访问MySQL；
+ * 运营端修改数据并提交后按分店增量刷新
+ */
+public interface BranchInventoryIndexService {
+
+    /**
+     * 获取分店的房源索引；分店不存在或没有可搜索房源时返回空索引
+     */
+    BranchInventory getBranchInventory(Long branchId);
+
+    /**
+     * 按城市、国家查找有可搜索房源的分店（忽略大小写，为空的条件不限制），直接读取索引
+     * 索引过期时返回上一份快照并在后台刷新
+     *
+     * @throws com.hotelbooking.hotel_reservation_eu.search.SearchIndexUnavailableException 从未成功加载过索引
+     */
+    List<BranchInventory> findBranches(String city, String country);
+
+    /**
+     * 从数据库重新加载指定分店
+     */
+    void refreshBranch(Long branchId);
+
+    /**
+     * 从数据库重建全部分店
+     *
+     * @return 加载的房源条数
+     */
+    int rebuild();
+
+    /**
+     * 处理已提交的房源数据变更
+     */
+    void onInventoryChanged(InventoryChangedEvent event);
+}
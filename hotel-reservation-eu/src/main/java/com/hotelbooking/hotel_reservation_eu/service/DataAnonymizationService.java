@@ -25,4 +25,13 @@ public interface DataAnonymizationService {
      * 验证数据是否已完全脱敏
      */
     boolean isDataAnonymized(Reservation reservation);
+
+    /**
+     * 验证匿名化投影是否不含PII：投影类型的字段和查询列都不能包含PII
+     * 每种投影只校验一次，结果缓存，之后按投影读取的数据无需逐行校验
+     *
+     * @param projectionType 投影记录类型
+     * @param selectColumns 投影查询的列
+     */
+    boolean isProjectionAnonymized(Class<? extends Record> projectionType, String selectColumns);
 }
@@ -1,66 +1,228 @@
 package com.hotelbooking.hotel_reservation_eu.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * 数据加密服务
  * 用于PII数据的加密和解密
+ * 新数据使用 DataKeyService 的当前数据密钥加密，密文带版本头部：
+ * "$" + Base64(格式版本1字节 + 密钥版本4字节 + IV 12字节 + 密文 + 认证标签)，头部作为附加认证数据不可篡改。
+ * 没有 "$" 前缀的是引入密钥版本前的密文（版本0），使用 aws.kms.data-encryption-key 派生的密钥解密，
+ * 由后台重新加密任务迁移到当前版本。
+ * Cipher 和 SecureRandom 不是为并发调用设计的，每个线程复用自己的实例，每次加密仍使用新的随机IV。
+ * 批量解密（列表、导出）在独立的有界 ForkJoinPool 中分块并行执行，工作线程同样复用各自的 Cipher
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class DataEncryptionService {
 
+    /** 引入密钥版本前的密文的版本号 */
+    public static final int LEGACY_KEY_VERSION = 0;
+
+    private final DataKeyService dataKeyService;
+
     @Value("${aws.kms.data-encryption-key}")
     private String dataEncryptionKey;
 
+    /** 批量解密的并行线程数，0表示使用CPU核数 */
+    @Value("${data-encryption.bulk.parallelism:0}")
+    private int bulkParallelism;
+
     private static final String ALGORITHM = "AES";
     private static final String TRANSFORMATION = "AES/GCM/NoPadding";
     private static final int GCM_IV_LENGTH = 12;
     private static final int GCM_TAG_LENGTH = 16;
 
+    private static final char VERSIONED_PREFIX = '$';
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_LENGTH = 1 + Integer.BYTES;
+
+    /** 批量解密时每个任务处理的密文数，不超过该数量的批次直接在调用线程解密 */
+    private static final int BULK_CHUNK_SIZE = 32;
+
+    /** 旧密钥及其来源的配置密钥，配置密钥变化时重新派生 */
+    private record DerivedKey(String source, SecretKeySpec keySpec) {
+    }
+
+    private volatile DerivedKey legacyKey;
+
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(DataEncryptionService::newCipher);
+    private final ThreadLocal<SecureRandom> secureRandoms = ThreadLocal.withInitial(SecureRandom::new);
+
+    private volatile ForkJoinPool bulkPool;
+
+    /**
+     * 启动时派生旧密钥（数据密钥在首次使用时从数据库加载）
+     */
+    @PostConstruct
+    public void init() throws GeneralSecurityException {
+        if (isEncryptionConfigured()) {
+            legacyKeySpec();
+        }
+    }
+
     /**
      * 加密PII数据
      * @param plainText 明文
-     * @return 加密后的Base64字符串
+     * @return 带版本头部的加密字符串
      */
     public String encrypt(String plainText) {
         if (plainText == null || plainText.trim().isEmpty()) {
             return plainText;
         }
+        return VERSIONED_PREFIX
+                + Base64.getEncoder().encodeToString(encrypt(plainText.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 解密PII数据（支持带版本头部的密文和旧格式密文）
+     * @param encryptedText 加密字符串
+     * @return 解密后的明文
+     */
+    public String decrypt(String encryptedText) {
+        if (encryptedText == null || encryptedText.trim().isEmpty()) {
+            return encryptedText;
+        }
 
+        byte[] encrypted;
         try {
-            // 生成密钥
-            SecretKeySpec keySpec = generateKeySpec();
-            
+            encrypted = encryptedText.charAt(0) == VERSIONED_PREFIX
+                    ? Base64.getDecoder().decode(encryptedText.substring(1))
+                    : Base64.getDecoder().decode(encryptedText);
+        } catch (IllegalArgumentException e) {
+            log.error("解密失败: {}", e.getMessage());
+            throw new RuntimeException("数据解密失败", e);
+        }
+        byte[] decrypted = encryptedText.charAt(0) == VERSIONED_PREFIX ? decrypt(encrypted) : decryptLegacy(encrypted);
+        return new String(decrypted, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 批量解密PII数据
+     * 批次较大时分块在批量解密线程池中并行执行，任一密文解密失败时整批失败
+     * @param encryptedTexts 加密字符串（可包含null和空值，原样返回）
+     * @return 与输入顺序一致的明文
+     */
+    public List<String> decryptAll(List<String> encryptedTexts) {
+        String[] encrypted = encryptedTexts.toArray(new String[0]);
+        String[] decrypted = new String[encrypted.length];
+        DecryptTask task = new DecryptTask(encrypted, decrypted, 0, encrypted.length);
+        if (encrypted.length <= BULK_CHUNK_SIZE) {
+            task.invoke();
+        } else {
+            bulkPool().invoke(task);
+        }
+        return Arrays.asList(decrypted);
+    }
+
+    /**
+     * 批量解密任务：按 BULK_CHUNK_SIZE 二分拆分，叶子任务顺序解密
+     */
+    private final class DecryptTask extends RecursiveAction {
+
+        private final String[] encrypted;
+        private final String[] decrypted;
+        private final int from;
+        private final int to;
+
+        DecryptTask(String[] encrypted, String[] decrypted, int from, int to) {
+            this.encrypted = encrypted;
+            this.decrypted = decrypted;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BULK_CHUNK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    decrypted[i] = decrypt(encrypted[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new DecryptTask(encrypted, decrypted, from, middle),
+                    new DecryptTask(encrypted, decrypted, middle, to));
+        }
+    }
+
+    /**
+     * 批量解密线程池，首次批量解密时创建；与公共池隔离，大批量导出不会占满其他并行任务的线程
+     */
+    private ForkJoinPool bulkPool() {
+        ForkJoinPool pool = bulkPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = bulkPool;
+                if (pool == null) {
+                    int parallelism = bulkParallelism > 0 ? bulkParallelism : Runtime.getRuntime().availableProcessors();
+                    pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                        thread.setName("pii-decrypt-" + thread.getPoolIndex());
+                        return thread;
+                    }, null, false);
+                    bulkPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ForkJoinPool pool = bulkPool;
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 加密字节数据
+     * @param plainData 明文
+     * @return 版本头部（5字节）+ IV（12字节）+ 密文 + 认证标签
+     */
+    public byte[] encrypt(byte[] plainData) {
+        try {
+            int keyVersion = dataKeyService.getActiveKeyVersion();
+            SecretKey key = dataKeyService.getDataKey(keyVersion);
+
+            byte[] encrypted = new byte[HEADER_LENGTH + GCM_IV_LENGTH + plainData.length + GCM_TAG_LENGTH];
+            ByteBuffer.wrap(encrypted).put(FORMAT_VERSION).putInt(keyVersion);
+
             // 生成随机IV
             byte[] iv = new byte[GCM_IV_LENGTH];
-            new SecureRandom().nextBytes(iv);
-            
-            // 初始化加密器
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, keySpec, parameterSpec);
-            
-            // 加密
-            byte[] encryptedData = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
-            
-            // 将IV和加密数据合并
-            byte[] encryptedWithIv = new byte[GCM_IV_LENGTH + encryptedData.length];
-            System.arraycopy(iv, 0, encryptedWithIv, 0, GCM_IV_LENGTH);
-            System.arraycopy(encryptedData, 0, encryptedWithIv, GCM_IV_LENGTH, encryptedData.length);
-            
-            return Base64.getEncoder().encodeToString(encryptedWithIv);
-            
+            secureRandoms.get().nextBytes(iv);
+            System.arraycopy(iv, 0, encrypted, HEADER_LENGTH, GCM_IV_LENGTH);
+
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv));
+            cipher.updateAAD(encrypted, 0, HEADER_LENGTH);
+            // 密文直接写在IV之后，不再单独分配和拷贝
+            cipher.doFinal(plainData, 0, plainData.length, encrypted, HEADER_LENGTH + GCM_IV_LENGTH);
+            return encrypted;
+
         } catch (Exception e) {
             log.error("加密失败: {}", e.getMessage());
             throw new RuntimeException("数据加密失败", e);
@@ -68,40 +230,83 @@ public class DataEncryptionService {
     }
 
     /**
-     * 解密PII数据
-     * @param encryptedText 加密的Base64字符串
-     * @return 解密后的明文
+     * 解密字节数据
+     * @param encrypted encrypt(byte[]) 的输出
+     * @return 明文
      */
-    public String decrypt(String encryptedText) {
+    public byte[] decrypt(byte[] encrypted) {
+        try {
+            int keyVersion = keyVersionOf(encrypted);
+            if (encrypted.length < HEADER_LENGTH + GCM_IV_LENGTH + GCM_TAG_LENGTH) {
+                throw new IllegalArgumentException("密文长度不足");
+            }
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.DECRYPT_MODE, dataKeyService.getDataKey(keyVersion),
+                    new GCMParameterSpec(GCM_TAG_LENGTH * 8, encrypted, HEADER_LENGTH, GCM_IV_LENGTH));
+            cipher.updateAAD(encrypted, 0, HEADER_LENGTH);
+            int offset = HEADER_LENGTH + GCM_IV_LENGTH;
+            return cipher.doFinal(encrypted, offset, encrypted.length - offset);
+
+        } catch (Exception e) {
+            log.error("解密失败: {}", e.getMessage());
+            throw new RuntimeException("数据解密失败", e);
+        }
+    }
+
+    /**
+     * 密文使用的数据密钥版本，旧格式密文返回 LEGACY_KEY_VERSION，空值返回-1
+     */
+    public int getKeyVersion(String encryptedText) {
         if (encryptedText == null || encryptedText.trim().isEmpty()) {
-            return encryptedText;
+            return -1;
+        }
+        if (encryptedText.charAt(0) != VERSIONED_PREFIX) {
+            return LEGACY_KEY_VERSION;
         }
+        // 只解码头部所在的前12个字符（9字节）
+        String head = encryptedText.substring(1, Math.min(encryptedText.length(), 13));
+        try {
+            return keyVersionOf(Base64.getDecoder().decode(head));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("无效的密文头部", e);
+        }
+    }
+
+    /**
+     * 密文是否需要用当前数据密钥重新加密（空值不需要）
+     */
+    public boolean needsReEncryption(String encryptedText) {
+        int keyVersion = getKeyVersion(encryptedText);
+        return keyVersion >= 0 && keyVersion != dataKeyService.getActiveKeyVersion();
+    }
+
+    /**
+     * 用当前数据密钥重新加密，已是当前版本或为空时原样返回
+     */
+    public String reEncrypt(String encryptedText) {
+        return needsReEncryption(encryptedText) ? encrypt(decrypt(encryptedText)) : encryptedText;
+    }
 
+    private static int keyVersionOf(byte[] encrypted) {
+        if (encrypted.length < HEADER_LENGTH || encrypted[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("不支持的密文格式");
+        }
+        return ByteBuffer.wrap(encrypted, 1, Integer.BYTES).getInt();
+    }
+
+    /**
+     * 解密旧格式密文：IV + 密文 + 认证标签，密钥由配置的密钥派生
+     */
+    private byte[] decryptLegacy(byte[] encryptedWithIv) {
         try {
-            // 解码Base64
-            byte[] encryptedWithIv = Base64.getDecoder().decode(encryptedText);
-            
-            // 提取IV
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            System.arraycopy(encryptedWithIv, 0, iv, 0, GCM_IV_LENGTH);
-            
-            // 提取加密数据
-            byte[] encryptedData = new byte[encryptedWithIv.length - GCM_IV_LENGTH];
-            System.arraycopy(encryptedWithIv, GCM_IV_LENGTH, encryptedData, 0, encryptedData.length);
-            
-            // 生成密钥
-            SecretKeySpec keySpec = generateKeySpec();
-            
-            // 初始化解密器
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.DECRYPT_MODE, keySpec, parameterSpec);
-            
-            // 解密
-            byte[] decryptedData = cipher.doFinal(encryptedData);
-            
-            return new String(decryptedData, StandardCharsets.UTF_8);
-            
+            if (encryptedWithIv.length < GCM_IV_LENGTH + GCM_TAG_LENGTH) {
+                throw new IllegalArgumentException("密文长度不足");
+            }
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.DECRYPT_MODE, legacyKeySpec(),
+                    new GCMParameterSpec(GCM_TAG_LENGTH * 8, encryptedWithIv, 0, GCM_IV_LENGTH));
+            return cipher.doFinal(encryptedWithIv, GCM_IV_LENGTH, encryptedWithIv.length - GCM_IV_LENGTH);
+
         } catch (Exception e) {
             log.error("解密失败: {}", e.getMessage());
             throw new RuntimeException("数据解密失败", e);
@@ -109,13 +314,28 @@ public class DataEncryptionService {
     }
 
     /**
-     * 生成密钥规范
+     * 获取旧密钥，配置的密钥未变化时直接复用已派生的密钥
      */
-    private SecretKeySpec generateKeySpec() throws Exception {
+    private SecretKeySpec legacyKeySpec() throws GeneralSecurityException {
+        String source = dataEncryptionKey;
+        DerivedKey current = legacyKey;
+        if (current != null && current.source().equals(source)) {
+            return current.keySpec();
+        }
         // 使用SHA-256哈希配置的密钥，确保密钥长度为32字节
         MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] keyBytes = digest.digest(dataEncryptionKey.getBytes(StandardCharsets.UTF_8));
-        return new SecretKeySpec(keyBytes, ALGORITHM);
+        byte[] keyBytes = digest.digest(source.getBytes(StandardCharsets.UTF_8));
+        SecretKeySpec keySpec = new SecretKeySpec(keyBytes, ALGORITHM);
+        legacyKey = new DerivedKey(source, keySpec);
+        return keySpec;
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化加密器失败", e);
+        }
     }
 
     /**
@@ -124,4 +344,4 @@ public class DataEncryptionService {
     public boolean isEncryptionConfigured() {
         return dataEncryptionKey != null && !dataEncryptionKey.trim().isEmpty();
     }
-} 
\ No newline at end of file
+}
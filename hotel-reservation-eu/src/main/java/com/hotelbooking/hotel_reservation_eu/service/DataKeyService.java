@@ -0,0 +1,43 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import javax.crypto.SecretKey;
+import java.util.Map;
+
+/**
+ * 数据密钥服务接口（信封加密）
+ * PII用数据密钥加密，数据密钥由KMS主密钥加密后保存在 data_encryption_key 表，密文头部记录数据密钥版本。
+ * 轮换数据密钥后新数据使用新版本，旧版本只用于解密，直到后台重新加密完成
+ */
+public interface DataKeyService {
+
+    /**
+     * 当前用于加密的数据密钥版本，没有可用的数据密钥时生成一个
+     */
+    int getActiveKeyVersion();
+
+    /**
+     * 指定版本的数据密钥
+     *
+     * @throws IllegalArgumentException 版本不存在
+     */
+    SecretKey getDataKey(int version);
+
+    /**
+     * 生成新的数据密钥并设为当前版本，旧版本只用于解密
+     *
+     * @return 新的密钥版本
+     */
+    int rotateDataKey();
+
+    /**
+     * 用当前主密钥重新加密所有数据密钥（主密钥轮换后执行，不需要重新加密用户数据）
+     *
+     * @return 重新加密的数据密钥数
+     */
+    int rewrapDataKeys();
+
+    /**
+     * 获取数据密钥状态
+     */
+    Map<String, Object> getKeyStatus();
+}
@@ -10,14 +10,38 @@ public interface DataSyncScheduledService {
     
     /**
      * 执行数据同步任务
-     * 每15秒执行一次，处理业务数据并生成统计报告
+     * 按 data-sync.schedule.interval 调度，间隔根据BI健康状况和变更量自适应调整；
+     * 上一次执行未结束时直接跳过
      */
     void executeDataSyncTask();
+
+    /**
+     * 下一次执行同步任务前的等待时间（毫秒）
+     */
+    long getNextIntervalMillis();
     
     /**
      * 手动触发数据同步
+     * 以游标流式读取当天预订，内存占用与数据量无关
+     *
+     * @return 是否已执行；定时同步或回填正在执行时跳过并返回 false
+     */
+    boolean manualDataSync(LocalDate date);
+    
+    /**
+     * 按日期范围回填历史统计数据（包含起止日期）
+     * 逐日流式读取并写入BI
+     *
+     * @return 成功同步的天数；定时同步或手动同步正在执行时跳过并返回 -1
+     */
+    int backfillDataSync(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 流式重算指定日期的统计数据并写入BI（不更新同步状态，可被多个线程对不同日期并发调用）
+     *
+     * @return 同步结果：COMPLETED_SUCCESS / COMPLETED_NO_DATA / FAILED_ANONYMIZATION / FAILED_BI_WRITE
      */
-    void manualDataSync(LocalDate date);
+    String syncDate(LocalDate date);
     
     /**
      * 获取上次同步时间
@@ -0,0 +1,30 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import com.hotelbooking.hotel_reservation_eu.search.BranchInventory;
+import com.hotelbooking.hotel_reservation_eu.search.SearchCursor;
+import com.hotelbooking.hotel_reservation_eu.search.SearchPage;
+import com.hotelbooking.hotel_reservation_eu.search.SearchParams;
+
+/**
+ * 酒店搜索服务接口
+ * 在分店房源索引上按客人数、房间数和设施组合筛选，按入住日期计算剩余房间数并统计设施分面；
+ * 按城市或国家搜索时并行计算各分店的可售房型，按价格合并分页
+ */
+public interface HotelSearchService {
+
+    /**
+     * 搜索单个分店中能容纳 guests 位客人、入住期间每晚都至少剩余 rooms 间、具备全部指定设施的房型
+     *
+     * @param inventory 分店房源索引（由调用方读取，用于记录缓存版本）
+     * @return 全部结果，按索引顺序，不分页
+     */
+    SearchPage searchBranch(BranchInventory inventory, SearchParams params);
+
+    /**
+     * 搜索城市或国家内满足条件的房型，按价格升序分页
+     *
+     * @param cursor   上一页返回的游标，第一页传null
+     * @param pageSize 每页条数（超出配置的上限时截断）
+     */
+    SearchPage searchByLocation(SearchParams params, SearchCursor cursor, int pageSize);
+}
@@ -0,0 +1,41 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+/**
+ * 密钥管理服务接口（KMS）
+ * 主密钥不离开KMS，应用只持有主密钥加密后的数据密钥，使用时由KMS解密。
+ * 当前由本地实现代替，接入云KMS时实现同一接口即可
+ */
+public interface KeyManagementService {
+
+    /**
+     * 数据密钥
+     *
+     * @param masterKeyId  加密数据密钥的主密钥ID
+     * @param plaintextKey 数据密钥明文（只保存在内存中）
+     * @param encryptedKey 主密钥加密后的数据密钥（可持久化）
+     */
+    record DataKey(String masterKeyId, byte[] plaintextKey, byte[] encryptedKey) {
+    }
+
+    /**
+     * 当前用于加密数据密钥的主密钥ID
+     */
+    String getActiveMasterKeyId();
+
+    /**
+     * 生成新的256位数据密钥，并用当前主密钥加密
+     */
+    DataKey generateDataKey();
+
+    /**
+     * 用当前主密钥加密已有的数据密钥（主密钥轮换时使用）
+     */
+    DataKey encryptDataKey(byte[] plaintextKey);
+
+    /**
+     * 解密数据密钥
+     *
+     * @throws IllegalArgumentException 主密钥不存在或密文无效
+     */
+    byte[] decryptDataKey(String masterKeyId, byte[] encryptedKey);
+}
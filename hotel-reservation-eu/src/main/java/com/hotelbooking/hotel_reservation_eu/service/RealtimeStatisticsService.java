@@ -0,0 +1,41 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import com.hotelbooking.hotel_reservation_eu.event.ReservationChangedEvent;
+
+import java.util.Map;
+
+/**
+ * 实时统计服务接口
+ * 预订变更事件提交后立即更新内存计数器，定时任务只把有变化的日期刷新到BI数据库，
+ * 不再为每次同步扫描预订表
+ */
+public interface RealtimeStatisticsService {
+
+    /**
+     * 是否启用实时统计（启用后定时任务只刷新计数器；启用outbox同步时始终为false）
+     */
+    boolean isEnabled();
+
+    /**
+     * 折叠一条已提交的预订变更事件（未启用时忽略）
+     */
+    void onReservationChanged(ReservationChangedEvent event);
+
+    /**
+     * 将上次刷新后有变化的日期写入BI数据库
+     * 日期首次刷新前会扫描一次该日期的已有预订作为计数器初值
+     *
+     * @return 成功写入的日期数
+     */
+    int flushDirtyDates();
+
+    /**
+     * 启动以来折叠的事件总数（调度器据此估算变更速率）
+     */
+    long getAppliedEventCount();
+
+    /**
+     * 获取实时统计状态：跟踪的日期、待刷新日期、计入的预订数等
+     */
+    Map<String, Object> getRealtimeStatus();
+}
@@ -0,0 +1,57 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import com.hotelbooking.hotel_reservation_eu.cache.NearCacheStats;
+import com.hotelbooking.hotel_reservation_eu.event.InventoryChangedEvent;
+import com.hotelbooking.hotel_reservation_eu.model.HotelBranch;
+import com.hotelbooking.hotel_reservation_eu.model.RoomType;
+import com.hotelbooking.hotel_reservation_eu.model.RoomTypeBranchMapping;
+
+import java.util.List;
+
+/**
+ * 参考数据近端缓存服务接口
+ * 缓存启用的房型、分店和房型分店关联，预订页等高频读取不再每次查询数据库；
+ * 运营端修改并提交后按ID失效，其他实例的修改在缓存过期后生效
+ */
+public interface ReferenceDataCacheService {
+
+    /**
+     * 启用的房型，不存在或已停用时返回null
+     */
+    RoomType getActiveRoomType(Long roomTypeId);
+
+    /**
+     * 启用的分店，不存在或已停用时返回null
+     */
+    HotelBranch getActiveBranch(Long branchId);
+
+    /**
+     * 启用的房型分店关联，不存在或已停用时返回null
+     */
+    RoomTypeBranchMapping getActiveMapping(Long roomTypeId, Long branchId);
+
+    /**
+     * 失效房型及其所有分店关联
+     */
+    void invalidateRoomType(Long roomTypeId);
+
+    /**
+     * 失效分店及其所有房型关联
+     */
+    void invalidateBranch(Long branchId);
+
+    /**
+     * 清空全部缓存
+     */
+    void invalidateAll();
+
+    /**
+     * 各缓存的命中统计
+     */
+    List<NearCacheStats> getCacheStats();
+
+    /**
+     * 处理已提交的房源数据变更
+     */
+    void onInventoryChanged(InventoryChangedEvent event);
+}
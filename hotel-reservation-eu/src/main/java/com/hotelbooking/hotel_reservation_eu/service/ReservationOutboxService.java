@@ -0,0 +1,30 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import com.hotelbooking.hotel_reservation_eu.model.Reservation;
+
+import java.util.Map;
+
+/**
+ * 预订变更Outbox服务接口
+ * 预订变更与outbox事件在同一事务中写入，由独立的工作线程池异步同步到BI数据库
+ */
+public interface ReservationOutboxService {
+
+    /**
+     * 是否启用outbox同步（启用后定时任务不再执行同步）
+     */
+    boolean isEnabled();
+
+    /**
+     * 在当前事务中追加一条预订变更事件（未启用时忽略）
+     *
+     * @param reservation 变更后的预订
+     * @param eventType 事件类型：CREATED, PAID, CANCELLED
+     */
+    void appendEvent(Reservation reservation, String eventType);
+
+    /**
+     * 获取outbox同步状态：待同步事件数、同步延迟、工作队列深度、死信数等
+     */
+    Map<String, Object> getOutboxStatus();
+}
@@ -0,0 +1,44 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import com.hotelbooking.hotel_reservation_eu.event.ReservationChangedEvent;
+import com.hotelbooking.hotel_reservation_eu.model.Reservation;
+import com.hotelbooking.hotel_reservation_eu.search.InventoryEntry;
+
+import java.time.LocalDate;
+
+/**
+ * 按晚房量服务接口
+ * 每个房型分店关联维护一份按晚已订房间数的台账，可售房间数 = max_rooms_count - 区间内最繁忙一晚的已订数，
+ * 搜索读取内存台账；下单以数据库按晚库存行的原子条件更新为准，成功后同步到台账
+ */
+public interface RoomAvailabilityService {
+
+    /**
+     * 入住区间 [checkin, checkout) 内每晚都可售的房间数
+     *
+     * @param entry 分店房源索引中的房源（提供房型ID和每晚可售房间数）
+     */
+    int getFreeRooms(Long branchId, InventoryEntry entry, LocalDate checkin, LocalDate checkout);
+
+    /**
+     * 分店的房量版本：该分店任一房型的台账计入或释放预订后递增，可用于判断搜索结果缓存是否失效
+     */
+    long getAvailabilityVersion(Long branchId);
+
+    /**
+     * 为新预订占用房间（需在插入预订后、同一事务内调用，事务回滚时自动释放）
+     *
+     * @throws IllegalArgumentException 分店不提供该房型、超出可预订范围或房间不足，调用方事务需回滚
+     */
+    void reserveRooms(Reservation reservation);
+
+    /**
+     * 释放取消的预订占用的数据库库存（需在取消预订的同一事务内调用）
+     */
+    void releaseRooms(Reservation reservation);
+
+    /**
+     * 处理已提交的预订变更：取消的预订释放房间
+     */
+    void onReservationChanged(ReservationChangedEvent event);
+}
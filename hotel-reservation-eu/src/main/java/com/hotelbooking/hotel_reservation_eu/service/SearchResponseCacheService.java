@@ -0,0 +1,24 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import com.hotelbooking.hotel_reservation_eu.search.CachedSearchResponse;
+import com.hotelbooking.hotel_reservation_eu.search.SearchResponseKey;
+
+/**
+ * 搜索响应缓存服务接口
+ * 缓存已序列化的单分店搜索响应；分店房源索引刷新或房量变化后，基于旧版本生成的响应自动失效
+ */
+public interface SearchResponseCacheService {
+
+    /**
+     * 获取仍然有效的缓存响应，没有或已失效时返回null
+     */
+    CachedSearchResponse get(SearchResponseKey key);
+
+    /**
+     * 缓存响应并计算ETag
+     *
+     * @param inventoryVersion    生成响应前读取的分店房源索引版本
+     * @param availabilityVersion 生成响应前读取的分店房量版本
+     */
+    CachedSearchResponse put(SearchResponseKey key, long inventoryVersion, long availabilityVersion, byte[] body);
+}
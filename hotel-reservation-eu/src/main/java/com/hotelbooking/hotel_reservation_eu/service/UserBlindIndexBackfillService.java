@@ -0,0 +1,35 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import java.util.Map;
+
+/**
+ * 用户盲索引回填服务接口
+ * 为上线盲索引前注册的用户解密邮箱和电话、计算盲索引并写回，按主键分批并行处理，可重复执行
+ */
+public interface UserBlindIndexBackfillService {
+
+    /**
+     * 在后台开始回填
+     *
+     * @return 是否已开始，已有回填在运行时返回false
+     */
+    boolean startBackfill();
+
+    /**
+     * 在当前线程执行回填，等待所有批次完成
+     *
+     * @return 本次建立盲索引的用户数，已有回填在运行时返回-1
+     */
+    long runBackfill();
+
+    /**
+     * 是否已完成一次完整的回填（或启动时已没有待回填的用户）
+     * 完成后仍未建立索引的用户邮箱为空或无法解密，按邮箱也无法匹配，查询不再需要逐行解密比对
+     */
+    boolean isBackfillComplete();
+
+    /**
+     * 获取回填进度
+     */
+    Map<String, Object> getBackfillStatus();
+}
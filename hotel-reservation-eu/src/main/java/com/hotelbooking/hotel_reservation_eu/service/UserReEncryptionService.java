@@ -0,0 +1,35 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import java.util.Map;
+
+/**
+ * 用户PII重新加密服务接口
+ * 数据密钥轮换后在后台把用户表中旧版本密钥加密的PII改用当前版本加密，
+ * 按主键分批、限速执行，每行单独更新，不锁表也不影响登录
+ */
+public interface UserReEncryptionService {
+
+    /**
+     * 在后台开始重新加密
+     *
+     * @return 是否已开始，已有任务在运行时返回false
+     */
+    boolean start();
+
+    /**
+     * 请求停止正在运行的任务（当前批次处理完后停止）
+     */
+    void stop();
+
+    /**
+     * 在当前线程执行一遍重新加密
+     *
+     * @return 本次重新加密的用户数，已有任务在运行时返回-1
+     */
+    long run();
+
+    /**
+     * 获取重新加密进度
+     */
+    Map<String, Object> getStatus();
+}
@@ -3,6 +3,8 @@ package com.hotelbooking.hotel_reservation_eu.service;
 import com.hotelbooking.hotel_reservation_eu.dto.RegisterRequestDto;
 import com.hotelbooking.hotel_reservation_eu.model.User;
 
+import java.util.List;
+
 /**
  * 用户服务接口
  * 定义用户相关的业务逻辑方法
@@ -15,9 +17,14 @@ public interface UserService {
     User findByUsername(String username);
     
     /**
-     * 根据邮箱查找用户
+     * 根据邮箱查找用户（忽略大小写）
      */
     User findByEmail(String email);
+
+    /**
+     * 根据电话号码查找用户（忽略格式，只比较数字）
+     */
+    User findByPhoneNumber(String phoneNumber);
     
     /**
      * 根据ID查找用户
@@ -58,6 +65,13 @@ public interface UserService {
      * 根据重置令牌查找用户
      */
     User findByResetToken(String token);
+
+    /**
+     * 按ID顺序分页查询用户（运营端列表、数据导出），PII数据批量并行解密
+     *
+     * @param afterId 上一页最后一个用户ID，第一页传0
+     */
+    List<User> listUsers(long afterId, int limit);
     
     /**
      * 重置用户密码
@@ -0,0 +1,61 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+/**
+ * 自适应同步间隔
+ * 以配置的基础间隔为中心：BI不可用时按2倍退避，无新数据时按1.5倍逐步放慢，
+ * 单次变更量达到阈值时减半加快，正常有数据时恢复基础间隔；结果限制在 [min, max] 之间
+ */
+final class AdaptiveSyncInterval {
+
+    /** 单次同步的结果分类 */
+    enum Outcome {
+        /** 有数据并写入成功 */
+        SYNCED,
+        /** 没有新数据 */
+        NO_DATA,
+        /** BI不可用（连接失败、写入失败或熔断中） */
+        UNHEALTHY,
+        /** 其他失败，按基础间隔重试 */
+        FAILED
+    }
+
+    private final long baseMillis;
+    private final long minMillis;
+    private final long maxMillis;
+    private final long highChangeThreshold;
+
+    private volatile long currentMillis;
+
+    AdaptiveSyncInterval(long baseMillis, long minMillis, long maxMillis, long highChangeThreshold) {
+        this.minMillis = Math.max(minMillis, 1L);
+        this.maxMillis = Math.max(maxMillis, this.minMillis);
+        this.baseMillis = clamp(baseMillis, this.minMillis, this.maxMillis);
+        this.highChangeThreshold = highChangeThreshold;
+        this.currentMillis = this.baseMillis;
+    }
+
+    /**
+     * 根据本次同步结果和变更量计算下一次间隔
+     *
+     * @param changes 本次同步处理的变更数
+     * @return 下一次同步前的等待时间（毫秒）
+     */
+    long next(Outcome outcome, long changes) {
+        long next = switch (outcome) {
+            case UNHEALTHY -> currentMillis * 2;
+            case NO_DATA -> currentMillis + currentMillis / 2;
+            case SYNCED -> changes >= highChangeThreshold ? currentMillis / 2 : baseMillis;
+            case FAILED -> baseMillis;
+        };
+        currentMillis = clamp(next, minMillis, maxMillis);
+        return currentMillis;
+    }
+
+    long current() {
+        return currentMillis;
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -4,10 +4,13 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hotelbooking.hotel_reservation_eu.event.InventoryChangedEvent;
 import com.hotelbooking.hotel_reservation_eu.mapper.AdminHotelBranchMapper;
 import com.hotelbooking.hotel_reservation_eu.model.HotelBranch;
 import com.hotelbooking.hotel_reservation_eu.service.AdminHotelBranchService;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,8 +23,11 @@ import java.util.List;
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class AdminHotelBranchServiceImpl extends ServiceImpl<AdminHotelBranchMapper, HotelBranch> implements AdminHotelBranchService {
 
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * 分页查询分店列表
      */
@@ -45,6 +51,7 @@ public class AdminHotelBranchServiceImpl extends ServiceImpl<AdminHotelBranchMap
         hotelBranch.setUpdatedAt(LocalDateTime.now());
         
         this.save(hotelBranch);
+        eventPublisher.publishEvent(InventoryChangedEvent.ofBranch(hotelBranch.getId()));
         log.info("创建分店成功 - 分店名称: {}", hotelBranch.getBranchName());
     }
 
@@ -61,6 +68,7 @@ public class AdminHotelBranchServiceImpl extends ServiceImpl<AdminHotelBranchMap
 
         hotelBranch.setUpdatedAt(LocalDateTime.now());
         this.updateById(hotelBranch);
+        eventPublisher.publishEvent(InventoryChangedEvent.ofBranch(hotelBranch.getId()));
         log.info("更新分店成功 - 分店ID: {}, 分店名称: {}", hotelBranch.getId(), hotelBranch.getBranchName());
     }
 
@@ -78,6 +86,7 @@ public class AdminHotelBranchServiceImpl extends ServiceImpl<AdminHotelBranchMap
         hotelBranch.setStatus(0); // 设置为禁用状态
         hotelBranch.setUpdatedAt(LocalDateTime.now());
         this.updateById(hotelBranch);
+        eventPublisher.publishEvent(InventoryChangedEvent.ofBranch(id));
         log.info("删除分店成功 - 分店ID: {}, 分店名称: {}", id, hotelBranch.getBranchName());
     }
 
@@ -5,15 +5,20 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.hotelbooking.hotel_reservation_eu.dto.RoomTypeBranchMappingDto;
+import com.hotelbooking.hotel_reservation_eu.event.InventoryChangedEvent;
 import com.hotelbooking.hotel_reservation_eu.mapper.RoomTypeBranchMappingMapper;
 import com.hotelbooking.hotel_reservation_eu.model.RoomTypeBranchMapping;
 import com.hotelbooking.hotel_reservation_eu.service.AdminRoomTypeBranchMappingService;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.math.BigDecimal;
 
 /**
@@ -21,9 +26,12 @@ import java.math.BigDecimal;
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class AdminRoomTypeBranchMappingServiceImpl extends ServiceImpl<RoomTypeBranchMappingMapper, RoomTypeBranchMapping> 
         implements AdminRoomTypeBranchMappingService {
 
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * 分页查询房型分店关联列表
      */
@@ -56,6 +64,7 @@ public class AdminRoomTypeBranchMappingServiceImpl extends ServiceImpl<RoomTypeB
         mapping.setUpdatedAt(LocalDateTime.now());
 
         this.save(mapping);
+        eventPublisher.publishEvent(InventoryChangedEvent.ofBranch(mapping.getHotelBranchId()));
         log.info("创建房型分店关联成功 - 房型ID: {}, 分店ID: {}", mapping.getRoomTypeId(), mapping.getHotelBranchId());
     }
 
@@ -85,6 +94,14 @@ public class AdminRoomTypeBranchMappingServiceImpl extends ServiceImpl<RoomTypeB
 
         mapping.setUpdatedAt(LocalDateTime.now());
         this.updateById(mapping);
+
+        // 关联改到其他分店时，原分店和新分店都需要刷新
+        Set<Long> affectedBranchIds = new HashSet<>();
+        affectedBranchIds.add(existingMapping.getHotelBranchId());
+        if (mapping.getHotelBranchId() != null) {
+            affectedBranchIds.add(mapping.getHotelBranchId());
+        }
+        eventPublisher.publishEvent(InventoryChangedEvent.ofBranches(affectedBranchIds));
         log.info("更新房型分店关联成功 - ID: {}", mapping.getId());
     }
 
@@ -102,6 +119,7 @@ public class AdminRoomTypeBranchMappingServiceImpl extends ServiceImpl<RoomTypeB
         mapping.setIsActive(false);
         mapping.setUpdatedAt(LocalDateTime.now());
         this.updateById(mapping);
+        eventPublisher.publishEvent(InventoryChangedEvent.ofBranch(mapping.getHotelBranchId()));
         log.info("删除房型分店关联成功 - ID: {}", id);
     }
 
@@ -147,6 +165,7 @@ public class AdminRoomTypeBranchMappingServiceImpl extends ServiceImpl<RoomTypeB
     @Override
     @Transactional
     public void batchUpdateRoomCounts(List<RoomTypeBranchMappingDto> mappings) {
+        Set<Long> affectedBranchIds = new HashSet<>();
         for (RoomTypeBranchMappingDto dto : mappings) {
             if (dto.getId() != null) {
                 RoomTypeBranchMapping mapping = this.getById(dto.getId());
@@ -155,9 +174,13 @@ public class AdminRoomTypeBranchMappingServiceImpl extends ServiceImpl<RoomTypeB
                     mapping.setMaxRoomsCount(dto.getMaxRoomsCount());
                     mapping.setUpdatedAt(LocalDateTime.now());
                     this.updateById(mapping);
+                    affectedBranchIds.add(mapping.getHotelBranchId());
                 }
             }
         }
+        if (!affectedBranchIds.isEmpty()) {
+            eventPublisher.publishEvent(InventoryChangedEvent.ofBranches(affectedBranchIds));
+        }
         log.info("批量更新房间库存成功 - 更新条数: {}", mappings.size());
     }
 
@@ -175,6 +198,7 @@ public class AdminRoomTypeBranchMappingServiceImpl extends ServiceImpl<RoomTypeB
         mapping.setIsActive(isActive);
         mapping.setUpdatedAt(LocalDateTime.now());
         this.updateById(mapping);
+        eventPublisher.publishEvent(InventoryChangedEvent.ofBranch(mapping.getHotelBranchId()));
         log.info("切换房型分店关联状态成功 - ID: {}, 状态: {}", id, isActive ? "启用" : "禁用");
     }
 
@@ -4,10 +4,13 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hotelbooking.hotel_reservation_eu.event.InventoryChangedEvent;
 import com.hotelbooking.hotel_reservation_eu.mapper.AdminRoomTypeMapper;
 import com.hotelbooking.hotel_reservation_eu.model.RoomType;
 import com.hotelbooking.hotel_reservation_eu.service.AdminRoomTypeService;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,8 +23,11 @@ import java.util.List;
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class AdminRoomTypeServiceImpl extends ServiceImpl<AdminRoomTypeMapper, RoomType> implements AdminRoomTypeService {
 
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * 分页查询房型列表
      */
@@ -45,6 +51,7 @@ public class AdminRoomTypeServiceImpl extends ServiceImpl<AdminRoomTypeMapper, R
         roomType.setUpdatedAt(LocalDateTime.now());
         
         this.save(roomType);
+        eventPublisher.publishEvent(InventoryChangedEvent.ofRoomType(roomType.getId()));
         log.info("创建房型成功 - 房型名称: {}", roomType.getTypeName());
     }
 
@@ -61,6 +68,7 @@ public class AdminRoomTypeServiceImpl extends ServiceImpl<AdminRoomTypeMapper, R
 
         roomType.setUpdatedAt(LocalDateTime.now());
         this.updateById(roomType);
+        eventPublisher.publishEvent(InventoryChangedEvent.ofRoomType(roomType.getId()));
         log.info("更新房型成功 - 房型ID: {}, 房型名称: {}", roomType.getId(), roomType.getTypeName());
     }
 
@@ -78,6 +86,7 @@ public class AdminRoomTypeServiceImpl extends ServiceImpl<AdminRoomTypeMapper, R
         roomType.setStatus(0); // 设置为禁用状态
         roomType.setUpdatedAt(LocalDateTime.now());
         this.updateById(roomType);
+        eventPublisher.publishEvent(InventoryChangedEvent.ofRoomType(id));
         log.info("删除房型成功 - 房型ID: {}, 房型名称: {}", id, roomType.getTypeName());
     }
 
@@ -1,487 +1,560 @@
 package com.hotelbooking.hotel_reservation_eu.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hotelbooking.hotel_reservation_eu.dto.StatisticsReportDto;
+import com.hotelbooking.hotel_reservation_eu.mapper.HotelBranchMapper;
+import com.hotelbooking.hotel_reservation_eu.mapper.RoomTypeMapper;
+import com.hotelbooking.hotel_reservation_eu.model.HotelBranch;
+import com.hotelbooking.hotel_reservation_eu.model.RoomType;
 import com.hotelbooking.hotel_reservation_eu.service.BiDataWriteService;
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
+import com.hotelbooking.hotel_reservation_eu.statistics.StatisticsReportCodec;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.sql.DataSource;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * BI数据写入服务实现类
- * 使用JdbcTemplate直接连接BI数据库，保持连接池大小为1
+ * 使用Spring管理的BI连接池（biDataSource），所有写入共享同一个连接池，不再每次创建/销毁连接池。
+ * 统计行通过 INSERT ... ON DUPLICATE KEY UPDATE 按唯一键原地更新（见 sql/china_bi_upsert_keys.sql），
+ * 多行表使用JDBC批量写入，BI看板不会在写入过程中读到空数据。
+ * 批量写入和连接检查经过熔断器：BI库连续失败后短时间内直接返回失败，不再占用连接池等待超时。
+ * 只有SQL和连接异常计入熔断失败，报告数据不完整在进入熔断器之前作为参数错误拒绝
  */
 @Slf4j
 @Service
 public class BiDataWriteServiceImpl implements BiDataWriteService {
 
-    @Value("${spring.datasource.china-bi.url}")
-    private String biDbUrl;
-
-    @Value("${spring.datasource.china-bi.username}")
-    private String biDbUsername;
-
-    @Value("${spring.datasource.china-bi.password}")
-    private String biDbPassword;
-
-    @Value("${spring.datasource.china-bi.driver-class-name}")
-    private String biDbDriverClassName;
+    private static final String DATA_SOURCE = "EU-HOTEL-SYSTEM";
+    private static final String SYNC_STATUS = "SYNCED";
+
+    private static final String UPSERT_DAILY_TOTAL_INCOME_SQL = """
+            INSERT INTO daily_total_income (
+                report_date, region, total_income, total_reservations,
+                avg_price_per_night, currency, data_source, sync_status
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                total_income = VALUES(total_income),
+                total_reservations = VALUES(total_reservations),
+                avg_price_per_night = VALUES(avg_price_per_night),
+                currency = VALUES(currency),
+                data_source = VALUES(data_source),
+                sync_status = VALUES(sync_status)
+            """;
+
+    private static final String UPSERT_POPULAR_ROOM_TYPES_SQL = """
+            INSERT INTO popular_room_types_top5 (
+                report_date, region, room_type_id, room_type_name, reservation_count,
+                total_revenue, ranking, data_source, sync_status
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                room_type_id = VALUES(room_type_id),
+                room_type_name = VALUES(room_type_name),
+                reservation_count = VALUES(reservation_count),
+                total_revenue = VALUES(total_revenue),
+                data_source = VALUES(data_source),
+                sync_status = VALUES(sync_status)
+            """;
+
+    private static final String DELETE_STALE_ROOM_TYPE_RANKINGS_SQL =
+            "DELETE FROM popular_room_types_top5 WHERE report_date = ? AND region = ? AND ranking > ?";
+
+    private static final String UPSERT_BRANCH_PERFORMANCE_SQL = """
+            INSERT INTO branch_performance (
+                report_date, region, branch_id, branch_name, reservation_count,
+                total_revenue, avg_revenue_per_reservation, data_source, sync_status
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                branch_name = VALUES(branch_name),
+                reservation_count = VALUES(reservation_count),
+                total_revenue = VALUES(total_revenue),
+                avg_revenue_per_reservation = VALUES(avg_revenue_per_reservation),
+                data_source = VALUES(data_source),
+                sync_status = VALUES(sync_status)
+            """;
+
+    private static final String DELETE_BRANCH_PERFORMANCE_SQL =
+            "DELETE FROM branch_performance WHERE report_date = ? AND region = ?";
+
+    private static final String UPSERT_RESERVATION_TRENDS_SQL = """
+            INSERT INTO reservation_trends (
+                report_date, region, total_reservations, confirmed_reservations,
+                cancelled_reservations, completion_rate, data_source, sync_status
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                total_reservations = VALUES(total_reservations),
+                confirmed_reservations = VALUES(confirmed_reservations),
+                cancelled_reservations = VALUES(cancelled_reservations),
+                completion_rate = VALUES(completion_rate),
+                data_source = VALUES(data_source),
+                sync_status = VALUES(sync_status)
+            """;
+
+    private static final String UPSERT_COMPREHENSIVE_REPORT_SQL = """
+            INSERT INTO comprehensive_reports (
+                report_date, region, report_type, report_data, data_count,
+                data_source, sync_status
+            ) VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                report_data = VALUES(report_data),
+                data_count = VALUES(data_count),
+                data_source = VALUES(data_source),
+                sync_status = VALUES(sync_status)
+            """;
+
+    private final JdbcTemplate biJdbcTemplate;
+    private final TransactionTemplate biTransactionTemplate;
+    private final RoomTypeMapper roomTypeMapper;
+    private final HotelBranchMapper hotelBranchMapper;
+    private final CircuitBreaker circuitBreaker;
+
+    public BiDataWriteServiceImpl(@Qualifier("biDataSource") DataSource biDataSource,
+                                  RoomTypeMapper roomTypeMapper,
+                                  HotelBranchMapper hotelBranchMapper,
+                                  @Value("${data-sync.circuit-breaker.failure-threshold:3}") int failureThreshold,
+                                  @Value("${data-sync.circuit-breaker.open-duration-ms:30000}") long openDurationMs,
+                                  @Value("${data-sync.circuit-breaker.max-open-duration-ms:300000}") long maxOpenDurationMs) {
+        this.biJdbcTemplate = new JdbcTemplate(biDataSource);
+        this.biTransactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(biDataSource));
+        this.roomTypeMapper = roomTypeMapper;
+        this.hotelBranchMapper = hotelBranchMapper;
+        this.circuitBreaker = new CircuitBreaker("bi-writer", failureThreshold,
+                Duration.ofMillis(openDurationMs), Duration.ofMillis(maxOpenDurationMs));
+    }
 
     /**
-     * 创建BI数据库的JdbcTemplate
-     * 每次创建新的连接，确保连接池大小为1
+     * 写入所有统计数据到BI数据库
+     * 五张表在同一个连接、同一个事务中写入，任一失败整体回滚
      */
-    private JdbcTemplate createBiJdbcTemplate() {
-        HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(biDbUrl);
-        config.setUsername(biDbUsername);
-        config.setPassword(biDbPassword);
-        config.setDriverClassName(biDbDriverClassName);
-        config.setMaximumPoolSize(1); // 保持连接池大小为1
-        config.setMinimumIdle(1);
-        config.setConnectionTimeout(30000);
-        config.setIdleTimeout(600000);
-        config.setMaxLifetime(1800000);
-        config.setPoolName("BI-DB-Pool");
-
-        HikariDataSource dataSource = new HikariDataSource(config);
-        return new JdbcTemplate(dataSource);
-    }
-
     @Override
-    public boolean writeAllStatistics(Map<String, Object> comprehensiveReport, LocalDate date) {
+    public boolean writeAllStatistics(StatisticsReportDto comprehensiveReport, LocalDate date) {
+        validateReport(comprehensiveReport);
+        if (!circuitBreaker.tryAcquire()) {
+            log.warn("BI写入熔断中，跳过写入: date={}", date);
+            return false;
+        }
         log.info("开始写入所有统计数据到BI数据库: date={}", date);
-        
+
+        boolean written = false;
+        boolean biFailure = false;
         try {
-            // 写入每日总收入统计
-            boolean dailyIncomeSuccess = writeDailyTotalIncome(comprehensiveReport, date);
-            if (!dailyIncomeSuccess) {
-                log.error("写入每日总收入统计失败");
-                return false;
-            }
+            Boolean success = biTransactionTemplate.execute(status -> {
+                // 写入每日总收入统计
+                if (!doWriteDailyTotalIncome(comprehensiveReport, date)) {
+                    log.error("写入每日总收入统计失败");
+                    status.setRollbackOnly();
+                    return false;
+                }
 
-            // 写入热门房型Top5统计
-            boolean roomTypesSuccess = writePopularRoomTypesTop5(comprehensiveReport, date);
-            if (!roomTypesSuccess) {
-                log.error("写入热门房型Top5统计失败");
-                return false;
-            }
+                // 写入热门房型Top5统计
+                if (!doWritePopularRoomTypesTop5(comprehensiveReport, date)) {
+                    log.error("写入热门房型Top5统计失败");
+                    status.setRollbackOnly();
+                    return false;
+                }
 
-            // 写入分店业绩统计
-            boolean branchPerformanceSuccess = writeBranchPerformance(comprehensiveReport, date);
-            if (!branchPerformanceSuccess) {
-                log.error("写入分店业绩统计失败");
-                return false;
-            }
+                // 写入分店业绩统计
+                if (!doWriteBranchPerformance(comprehensiveReport, date)) {
+                    log.error("写入分店业绩统计失败");
+                    status.setRollbackOnly();
+                    return false;
+                }
 
-            // 写入预订趋势统计
-            boolean reservationTrendsSuccess = writeReservationTrends(comprehensiveReport, date);
-            if (!reservationTrendsSuccess) {
-                log.error("写入预订趋势统计失败");
-                return false;
-            }
+                // 写入预订趋势统计
+                if (!doWriteReservationTrends(comprehensiveReport, date)) {
+                    log.error("写入预订趋势统计失败");
+                    status.setRollbackOnly();
+                    return false;
+                }
 
-            // 写入综合统计报告
-            boolean comprehensiveReportSuccess = writeComprehensiveReport(comprehensiveReport, date);
-            if (!comprehensiveReportSuccess) {
-                log.error("写入综合统计报告失败");
-                return false;
-            }
+                // 写入综合统计报告
+                doWriteComprehensiveReport(comprehensiveReport, date);
+                return true;
+            });
 
-            log.info("所有统计数据写入BI数据库成功: date={}", date);
-            return true;
+            if (Boolean.TRUE.equals(success)) {
+                log.info("所有统计数据写入BI数据库成功: date={}", date);
+                written = true;
+            }
+            return written;
 
-        } catch (Exception e) {
+        } catch (DataAccessException | TransactionException e) {
+            biFailure = true;
             log.error("写入所有统计数据到BI数据库失败: date={}", date, e);
             return false;
+        } catch (Exception e) {
+            log.error("写入所有统计数据失败（非BI数据库异常）: date={}", date, e);
+            return false;
+        } finally {
+            recordCallResult(written, biFailure);
+        }
+    }
+
+    /**
+     * 校验报告包含写入各统计表所需的数据
+     */
+    private void validateReport(StatisticsReportDto report) {
+        if (report == null) {
+            throw new IllegalArgumentException("统计报告不能为空");
+        }
+        if (report.dailyTotalIncome() == null) {
+            throw new IllegalArgumentException("报告数据中未找到每日总收入信息");
+        }
+        if (report.popularRoomTypesTop5() == null) {
+            throw new IllegalArgumentException("报告数据中未找到热门房型Top5信息");
+        }
+        if (report.branchPerformance() == null) {
+            throw new IllegalArgumentException("报告数据中未找到分店业绩信息");
+        }
+        if (report.reservationTrends() == null) {
+            throw new IllegalArgumentException("报告数据中未找到预订趋势信息");
+        }
+    }
+
+    /**
+     * 只有BI数据库的SQL或连接异常计入熔断失败，其他原因的失败只归还探测机会
+     */
+    private void recordCallResult(boolean succeeded, boolean biFailure) {
+        if (succeeded) {
+            circuitBreaker.recordSuccess();
+        } else if (biFailure) {
+            circuitBreaker.recordFailure();
+        } else {
+            circuitBreaker.releaseProbe();
         }
     }
 
     @Override
-    public boolean writeDailyTotalIncome(Map<String, Object> reportData, LocalDate date) {
+    public boolean writeDailyTotalIncome(StatisticsReportDto reportData, LocalDate date) {
         log.info("开始写入每日总收入统计: date={}", date);
-        
-        JdbcTemplate jdbcTemplate = null;
-        try {
-            jdbcTemplate = createBiJdbcTemplate();
-            
-            // 先删除当天的重复数据
-            String deleteSql = "DELETE FROM daily_total_income WHERE report_date = ? AND region = 'EU'";
-            jdbcTemplate.update(deleteSql, date);
-            log.info("删除重复的每日总收入数据: date={}, region=EU", date);
-
-            // 从报告数据中提取每日总收入信息
-            Map<String, Object> dailyIncomeData = (Map<String, Object>) reportData.get("dailyTotalIncome");
-            if (dailyIncomeData == null) {
-                log.warn("报告数据中未找到每日总收入信息");
-                return false;
-            }
-
-            // 插入新的每日总收入数据 - 根据实际表结构
-            String insertSql = """
-                INSERT INTO daily_total_income (
-                    report_date, region, total_income, total_reservations, 
-                    avg_price_per_night, currency, data_source, sync_status
-                ) VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-                """;
-
-            BigDecimal totalIncome = (BigDecimal) dailyIncomeData.get("totalIncome");
-            Integer totalReservations = (Integer) dailyIncomeData.get("totalReservations");
-            BigDecimal averagePrice = (BigDecimal) dailyIncomeData.get("averagePrice");
-
-            jdbcTemplate.update(insertSql,
-                    date,                           // report_date
-                    "EU",                          // region
-                    totalIncome != null ? totalIncome : BigDecimal.ZERO,           // total_income
-                    totalReservations != null ? totalReservations : 0,             // total_reservations
-                    averagePrice != null ? averagePrice : BigDecimal.ZERO,         // avg_price_per_night
-                    "EUR",                         // currency
-                    "EU-HOTEL-SYSTEM",            // data_source
-                    "SYNCED"                       // sync_status
-            );
-
-            log.info("每日总收入统计写入成功: date={}, income={}, reservations={}, avgPrice={}", 
-                    date, totalIncome, totalReservations, averagePrice);
-            return true;
 
+        try {
+            return doWriteDailyTotalIncome(reportData, date);
         } catch (Exception e) {
             log.error("写入每日总收入统计失败: date={}", date, e);
             return false;
-        } finally {
-            if (jdbcTemplate != null) {
-                try {
-                    HikariDataSource dataSource = (HikariDataSource) jdbcTemplate.getDataSource();
-                    if (dataSource != null) {
-                        dataSource.close();
-                    }
-                } catch (Exception e) {
-                    log.warn("关闭BI数据库连接失败", e);
-                }
-            }
         }
     }
 
     @Override
-    public boolean writePopularRoomTypesTop5(Map<String, Object> reportData, LocalDate date) {
+    public boolean writePopularRoomTypesTop5(StatisticsReportDto reportData, LocalDate date) {
         log.info("开始写入热门房型Top5统计: date={}", date);
-        
-        JdbcTemplate jdbcTemplate = null;
-        try {
-            jdbcTemplate = createBiJdbcTemplate();
-            
-            // 先删除当天的重复数据
-            String deleteSql = "DELETE FROM popular_room_types_top5 WHERE report_date = ?";
-            jdbcTemplate.update(deleteSql, date);
-            log.info("删除重复的热门房型数据: date={}", date);
-
-            // 从报告数据中提取热门房型信息
-            Map<String, Object> popularRoomTypesData = (Map<String, Object>) reportData.get("popularRoomTypesTop5");
-            if (popularRoomTypesData == null) {
-                log.warn("报告数据中未找到热门房型Top5信息");
-                return false;
-            }
-
-            // 插入新的热门房型数据 - 根据实际表结构
-            String insertSql = """
-                INSERT INTO popular_room_types_top5 (
-                    report_date, room_type_id, room_type_name, reservation_count, 
-                    total_revenue, ranking, data_source, sync_status
-                ) VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-                """;
-
-            // 这里需要根据实际的数据结构来提取房型信息
-            // 假设数据结构是包含房型列表的Map
-            // 实际实现时需要根据StatisticsReportService返回的数据结构来调整
-            
-            // 临时插入一条测试数据
-            jdbcTemplate.update(insertSql,
-                    date,                           // report_date
-                    1L,                            // room_type_id (临时值)
-                    "标准双人间",                    // room_type_name (临时值)
-                    10,                            // reservation_count (临时值)
-                    new BigDecimal("1500.00"),     // total_revenue (临时值)
-                    1,                             // ranking (临时值)
-                    "EU-HOTEL-SYSTEM",            // data_source
-                    "SYNCED"                       // sync_status
-            );
-            
-            log.info("热门房型Top5统计写入成功: date={}", date);
-            return true;
 
+        try {
+            return doWritePopularRoomTypesTop5(reportData, date);
         } catch (Exception e) {
             log.error("写入热门房型Top5统计失败: date={}", date, e);
             return false;
-        } finally {
-            if (jdbcTemplate != null) {
-                try {
-                    HikariDataSource dataSource = (HikariDataSource) jdbcTemplate.getDataSource();
-                    if (dataSource != null) {
-                        dataSource.close();
-                    }
-                } catch (Exception e) {
-                    log.warn("关闭BI数据库连接失败", e);
-                }
-            }
         }
     }
 
     @Override
-    public boolean writeBranchPerformance(Map<String, Object> reportData, LocalDate date) {
+    public boolean writeBranchPerformance(StatisticsReportDto reportData, LocalDate date) {
         log.info("开始写入分店业绩统计: date={}", date);
-        
-        JdbcTemplate jdbcTemplate = null;
-        try {
-            jdbcTemplate = createBiJdbcTemplate();
-            
-            // 先删除当天的重复数据
-            String deleteSql = "DELETE FROM branch_performance WHERE report_date = ?";
-            jdbcTemplate.update(deleteSql, date);
-            log.info("删除重复的分店业绩数据: date={}", date);
-
-            // 从报告数据中提取分店业绩信息
-            Map<String, Object> branchPerformanceData = (Map<String, Object>) reportData.get("branchPerformance");
-            if (branchPerformanceData == null) {
-                log.warn("报告数据中未找到分店业绩信息");
-                return false;
-            }
-
-            // 插入新的分店业绩数据 - 根据实际表结构
-            String insertSql = """
-                INSERT INTO branch_performance (
-                    report_date, branch_id, branch_name, reservation_count, 
-                    total_revenue, avg_revenue_per_reservation, data_source, sync_status
-                ) VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-                """;
-
-            // 这里需要根据实际的数据结构来提取分店信息
-            // 实际实现时需要根据StatisticsReportService返回的数据结构来调整
-            
-            // 临时插入一条测试数据
-            jdbcTemplate.update(insertSql,
-                    date,                           // report_date
-                    1L,                            // branch_id (临时值)
-                    "EU总部酒店",                    // branch_name (临时值)
-                    25,                            // reservation_count (临时值)
-                    new BigDecimal("3750.00"),     // total_revenue (临时值)
-                    new BigDecimal("150.00"),      // avg_revenue_per_reservation (临时值)
-                    "EU-HOTEL-SYSTEM",            // data_source
-                    "SYNCED"                       // sync_status
-            );
-            
-            log.info("分店业绩统计写入成功: date={}", date);
-            return true;
 
+        try {
+            return doWriteBranchPerformance(reportData, date);
         } catch (Exception e) {
             log.error("写入分店业绩统计失败: date={}", date, e);
             return false;
-        } finally {
-            if (jdbcTemplate != null) {
-                try {
-                    HikariDataSource dataSource = (HikariDataSource) jdbcTemplate.getDataSource();
-                    if (dataSource != null) {
-                        dataSource.close();
-                    }
-                } catch (Exception e) {
-                    log.warn("关闭BI数据库连接失败", e);
-                }
-            }
         }
     }
 
     @Override
-    public boolean writeReservationTrends(Map<String, Object> reportData, LocalDate date) {
+    public boolean writeReservationTrends(StatisticsReportDto reportData, LocalDate date) {
         log.info("开始写入预订趋势统计: date={}", date);
-        
-        JdbcTemplate jdbcTemplate = null;
-        try {
-            jdbcTemplate = createBiJdbcTemplate();
-            
-            // 先删除当天的重复数据
-            String deleteSql = "DELETE FROM reservation_trends WHERE report_date = ?";
-            jdbcTemplate.update(deleteSql, date);
-            log.info("删除重复的预订趋势数据: date={}", date);
-
-            // 从报告数据中提取预订趋势信息
-            Map<String, Object> reservationTrendsData = (Map<String, Object>) reportData.get("reservationTrends");
-            if (reservationTrendsData == null) {
-                log.warn("报告数据中未找到预订趋势信息");
-                return false;
-            }
-
-            // 插入新的预订趋势数据 - 根据实际表结构
-            String insertSql = """
-                INSERT INTO reservation_trends (
-                    report_date, total_reservations, confirmed_reservations, 
-                    cancelled_reservations, completion_rate, data_source, sync_status
-                ) VALUES (?, ?, ?, ?, ?, ?, ?)
-                """;
-
-            // 这里需要根据实际的数据结构来提取趋势信息
-            // 实际实现时需要根据StatisticsReportService返回的数据结构来调整
-            
-            // 临时插入一条测试数据
-            jdbcTemplate.update(insertSql,
-                    date,                           // report_date
-                    30,                            // total_reservations (临时值)
-                    28,                            // confirmed_reservations (临时值)
-                    2,                             // cancelled_reservations (临时值)
-                    new BigDecimal("93.33"),       // completion_rate (临时值)
-                    "EU-HOTEL-SYSTEM",            // data_source
-                    "SYNCED"                       // sync_status
-            );
-            
-            log.info("预订趋势统计写入成功: date={}", date);
-            return true;
 
+        try {
+            return doWriteReservationTrends(reportData, date);
         } catch (Exception e) {
             log.error("写入预订趋势统计失败: date={}", date, e);
             return false;
-        } finally {
-            if (jdbcTemplate != null) {
-                try {
-                    HikariDataSource dataSource = (HikariDataSource) jdbcTemplate.getDataSource();
-                    if (dataSource != null) {
-                        dataSource.close();
-                    }
-                } catch (Exception e) {
-                    log.warn("关闭BI数据库连接失败", e);
-                }
-            }
         }
     }
 
     @Override
-    public boolean writeComprehensiveReport(Map<String, Object> comprehensiveReport, LocalDate date) {
+    public boolean writeComprehensiveReport(StatisticsReportDto comprehensiveReport, LocalDate date) {
         log.info("开始写入综合统计报告: date={}", date);
-        
-        JdbcTemplate jdbcTemplate = null;
-        try {
-            jdbcTemplate = createBiJdbcTemplate();
-            
-            // 先删除当天的重复数据
-            String deleteSql = "DELETE FROM comprehensive_reports WHERE report_date = ? AND report_type = 'comprehensive-report'";
-            jdbcTemplate.update(deleteSql, date);
-            log.info("删除重复的综合统计报告: date={}", date);
-
-            // 插入新的综合统计报告 - 根据实际表结构
-            String insertSql = """
-                INSERT INTO comprehensive_reports (
-                    report_date, report_type, report_data, data_count, 
-                    data_source, sync_status
-                ) VALUES (?, ?, ?, ?, ?, ?)
-                """;
-
-            // 将报告数据转换为JSON字符串
-            String reportDataJson = convertMapToJson(comprehensiveReport);
-            Integer dataCount = (Integer) comprehensiveReport.get("dataCount");
-            if (dataCount == null) {
-                dataCount = 0;
-            }
 
-            jdbcTemplate.update(insertSql,
-                    date,                           // report_date
-                    "comprehensive-report",         // report_type
-                    reportDataJson,                 // report_data (JSON格式)
-                    dataCount,                      // data_count
-                    "EU-HOTEL-SYSTEM",            // data_source
-                    "SYNCED"                       // sync_status
-            );
-            
-            log.info("综合统计报告写入成功: date={}, dataCount={}", date, dataCount);
+        try {
+            doWriteComprehensiveReport(comprehensiveReport, date);
             return true;
-
         } catch (Exception e) {
             log.error("写入综合统计报告失败: date={}", date, e);
             return false;
-        } finally {
-            if (jdbcTemplate != null) {
-                try {
-                    HikariDataSource dataSource = (HikariDataSource) jdbcTemplate.getDataSource();
-                    if (dataSource != null) {
-                        dataSource.close();
-                    }
-                } catch (Exception e) {
-                    log.warn("关闭BI数据库连接失败", e);
-                }
-            }
         }
     }
 
     /**
-     * 将Map转换为JSON字符串
-     * 这里使用简单的字符串拼接，实际项目中建议使用Jackson或Gson
+     * 写入每日总收入统计（异常向上抛出，由调用方决定是否回滚）
+     */
+    private boolean doWriteDailyTotalIncome(StatisticsReportDto reportData, LocalDate date) {
+        StatisticsReportDto.DailyTotalIncome dailyIncomeData = reportData.dailyTotalIncome();
+        if (dailyIncomeData == null) {
+            log.warn("报告数据中未找到每日总收入信息");
+            return false;
+        }
+
+        BigDecimal totalIncome = dailyIncomeData.totalIncome();
+        int totalReservations = dailyIncomeData.totalReservations();
+        BigDecimal averagePrice = dailyIncomeData.avgPricePerNight();
+
+        biJdbcTemplate.update(UPSERT_DAILY_TOTAL_INCOME_SQL,
+                date,                                                          // report_date
+                reportData.region(),                                           // region
+                totalIncome != null ? totalIncome : BigDecimal.ZERO,           // total_income
+                totalReservations,                                             // total_reservations
+                averagePrice != null ? averagePrice : BigDecimal.ZERO,         // avg_price_per_night
+                dailyIncomeData.currency(),                                    // currency
+                DATA_SOURCE,                                                   // data_source
+                SYNC_STATUS);                                                  // sync_status
+
+        log.info("每日总收入统计写入成功: date={}, income={}, reservations={}, avgPrice={}",
+                date, totalIncome, totalReservations, averagePrice);
+        return true;
+    }
+
+    /**
+     * 写入热门房型Top5统计（异常向上抛出，由调用方决定是否回滚）
+     * 按排名位批量upsert，再删除超出当前名次数的旧排名位
+     */
+    private boolean doWritePopularRoomTypesTop5(StatisticsReportDto reportData, LocalDate date) {
+        List<StatisticsReportDto.RoomTypeRanking> rankings = reportData.popularRoomTypesTop5();
+        if (rankings == null) {
+            log.warn("报告数据中未找到热门房型Top5信息");
+            return false;
+        }
+
+        Map<Long, String> roomTypeNames = loadRoomTypeNames(rankings);
+        List<Object[]> rows = new ArrayList<>(rankings.size());
+        for (StatisticsReportDto.RoomTypeRanking ranking : rankings) {
+            rows.add(new Object[]{
+                    date,                                       // report_date
+                    reportData.region(),                        // region
+                    ranking.roomTypeId(),                       // room_type_id
+                    roomTypeNames.get(ranking.roomTypeId()),    // room_type_name
+                    ranking.reservationCount(),                 // reservation_count
+                    ranking.totalRevenue(),                     // total_revenue
+                    ranking.ranking(),                          // ranking
+                    DATA_SOURCE,                                // data_source
+                    SYNC_STATUS                                 // sync_status
+            });
+        }
+        if (!rows.isEmpty()) {
+            biJdbcTemplate.batchUpdate(UPSERT_POPULAR_ROOM_TYPES_SQL, rows);
+        }
+        biJdbcTemplate.update(DELETE_STALE_ROOM_TYPE_RANKINGS_SQL, date, reportData.region(), rankings.size());
+
+        log.info("热门房型Top5统计写入成功: date={}, roomTypes={}", date, rankings.size());
+        return true;
+    }
+
+    /**
+     * 写入分店业绩统计（异常向上抛出，由调用方决定是否回滚）
+     * 按分店批量upsert，再删除当天已不再出现的分店
+     */
+    private boolean doWriteBranchPerformance(StatisticsReportDto reportData, LocalDate date) {
+        List<StatisticsReportDto.BranchPerformance> branches = reportData.branchPerformance();
+        if (branches == null) {
+            log.warn("报告数据中未找到分店业绩信息");
+            return false;
+        }
+
+        Map<Long, String> branchNames = loadBranchNames(branches);
+        List<Object[]> rows = new ArrayList<>(branches.size());
+        for (StatisticsReportDto.BranchPerformance branch : branches) {
+            BigDecimal avgRevenue = branch.reservationCount() > 0 ?
+                    branch.totalRevenue().divide(BigDecimal.valueOf(branch.reservationCount()), 2, RoundingMode.HALF_UP) :
+                    BigDecimal.ZERO;
+            rows.add(new Object[]{
+                    date,                                       // report_date
+                    reportData.region(),                        // region
+                    branch.branchId(),                          // branch_id
+                    branchNames.get(branch.branchId()),         // branch_name
+                    branch.reservationCount(),                  // reservation_count
+                    branch.totalRevenue(),                      // total_revenue
+                    avgRevenue,                                 // avg_revenue_per_reservation
+                    DATA_SOURCE,                                // data_source
+                    SYNC_STATUS                                 // sync_status
+            });
+        }
+        if (!rows.isEmpty()) {
+            biJdbcTemplate.batchUpdate(UPSERT_BRANCH_PERFORMANCE_SQL, rows);
+        }
+        deleteStaleBranches(reportData.region(), date, branches);
+
+        log.info("分店业绩统计写入成功: date={}, branches={}", date, branches.size());
+        return true;
+    }
+
+    /**
+     * 删除当天已不在报告中的分店行（一条语句完成）
      */
-    private String convertMapToJson(Map<String, Object> map) {
-        if (map == null || map.isEmpty()) {
-            return "{}";
+    private void deleteStaleBranches(String region, LocalDate date, List<StatisticsReportDto.BranchPerformance> branches) {
+        if (branches.isEmpty()) {
+            biJdbcTemplate.update(DELETE_BRANCH_PERFORMANCE_SQL, date, region);
+            return;
         }
-        
-        StringBuilder json = new StringBuilder("{");
-        boolean first = true;
-        
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            if (!first) {
-                json.append(",");
+
+        List<Object> args = new ArrayList<>(branches.size() + 2);
+        args.add(date);
+        args.add(region);
+        for (StatisticsReportDto.BranchPerformance branch : branches) {
+            args.add(branch.branchId());
+        }
+        String placeholders = String.join(",", Collections.nCopies(branches.size(), "?"));
+        biJdbcTemplate.update(DELETE_BRANCH_PERFORMANCE_SQL + " AND branch_id NOT IN (" + placeholders + ")",
+                args.toArray());
+    }
+
+    /**
+     * 写入预订趋势统计（异常向上抛出，由调用方决定是否回滚）
+     */
+    private boolean doWriteReservationTrends(StatisticsReportDto reportData, LocalDate date) {
+        StatisticsReportDto.ReservationTrends trends = reportData.reservationTrends();
+        if (trends == null) {
+            log.warn("报告数据中未找到预订趋势信息");
+            return false;
+        }
+
+        biJdbcTemplate.update(UPSERT_RESERVATION_TRENDS_SQL,
+                date,                                   // report_date
+                reportData.region(),                    // region
+                trends.totalReservations(),             // total_reservations
+                trends.confirmedReservations(),         // confirmed_reservations
+                trends.cancelledReservations(),         // cancelled_reservations
+                trends.completionRate(),                // completion_rate
+                DATA_SOURCE,                            // data_source
+                SYNC_STATUS);                           // sync_status
+
+        log.info("预订趋势统计写入成功: date={}, total={}, confirmed={}, cancelled={}",
+                date, trends.totalReservations(), trends.confirmedReservations(), trends.cancelledReservations());
+        return true;
+    }
+
+    /**
+     * 写入综合统计报告（异常向上抛出，由调用方决定是否回滚）
+     */
+    private void doWriteComprehensiveReport(StatisticsReportDto comprehensiveReport, LocalDate date) {
+        // 将报告数据序列化为JSON字符串
+        String reportDataJson = StatisticsReportCodec.toJson(comprehensiveReport);
+        int dataCount = comprehensiveReport.dataCount();
+
+        biJdbcTemplate.update(UPSERT_COMPREHENSIVE_REPORT_SQL,
+                date,                                   // report_date
+                comprehensiveReport.region(),           // region
+                "comprehensive-report",                 // report_type
+                reportDataJson,                         // report_data (JSON格式)
+                dataCount,                              // data_count
+                DATA_SOURCE,                            // data_source
+                SYNC_STATUS);                           // sync_status
+
+        log.info("综合统计报告写入成功: date={}, dataCount={}", date, dataCount);
+    }
+
+    /**
+     * 批量查询房型名称（房型名称不是PII，缺失时BI中名称为空）
+     */
+    private Map<Long, String> loadRoomTypeNames(List<StatisticsReportDto.RoomTypeRanking> rankings) {
+        if (rankings.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> ids = new ArrayList<>(rankings.size());
+        for (StatisticsReportDto.RoomTypeRanking ranking : rankings) {
+            ids.add(ranking.roomTypeId());
+        }
+
+        Map<Long, String> names = new HashMap<>();
+        try {
+            for (RoomType roomType : roomTypeMapper.selectList(new LambdaQueryWrapper<RoomType>()
+                    .select(RoomType::getId, RoomType::getTypeName)
+                    .in(RoomType::getId, ids))) {
+                names.put(roomType.getId(), roomType.getTypeName());
             }
-            first = false;
-            
-            String key = entry.getKey();
-            Object value = entry.getValue();
-            
-            json.append("\"").append(key).append("\":");
-            
-            if (value == null) {
-                json.append("null");
-            } else if (value instanceof String) {
-                json.append("\"").append(value.toString().replace("\"", "\\\"")).append("\"");
-            } else if (value instanceof Number || value instanceof Boolean) {
-                json.append(value);
-            } else {
-                json.append("\"").append(value.toString().replace("\"", "\\\"")).append("\"");
+        } catch (Exception e) {
+            log.warn("查询房型名称失败，BI中房型名称将为空", e);
+        }
+        return names;
+    }
+
+    /**
+     * 批量查询分店名称（分店名称不是PII，缺失时BI中名称为空）
+     */
+    private Map<Long, String> loadBranchNames(List<StatisticsReportDto.BranchPerformance> branches) {
+        if (branches.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> ids = new ArrayList<>(branches.size());
+        for (StatisticsReportDto.BranchPerformance branch : branches) {
+            ids.add(branch.branchId());
+        }
+
+        Map<Long, String> names = new HashMap<>();
+        try {
+            for (HotelBranch branch : hotelBranchMapper.selectList(new LambdaQueryWrapper<HotelBranch>()
+                    .select(HotelBranch::getId, HotelBranch::getBranchName)
+                    .in(HotelBranch::getId, ids))) {
+                names.put(branch.getId(), branch.getBranchName());
             }
+        } catch (Exception e) {
+            log.warn("查询分店名称失败，BI中分店名称将为空", e);
         }
-        
-        json.append("}");
-        return json.toString();
+        return names;
     }
 
     @Override
     public boolean checkConnection() {
-        log.info("检查BI数据库连接状态");
-        
-        JdbcTemplate jdbcTemplate = null;
+        if (!circuitBreaker.tryAcquire()) {
+            log.debug("BI写入熔断中，跳过连接检查");
+            return false;
+        }
+        log.debug("检查BI数据库连接状态");
+
+        boolean connected = false;
         try {
-            jdbcTemplate = createBiJdbcTemplate();
-            
-            // 执行简单的查询测试连接
-            String testSql = "SELECT 1";
-            Integer result = jdbcTemplate.queryForObject(testSql, Integer.class);
-            
-            boolean connected = result != null && result == 1;
-            log.info("BI数据库连接状态: {}", connected ? "成功" : "失败");
-            
+            // 执行简单的查询测试连接（复用连接池中的连接）
+            Integer result = biJdbcTemplate.queryForObject("SELECT 1", Integer.class);
+
+            connected = result != null && result == 1;
+            log.debug("BI数据库连接状态: {}", connected ? "成功" : "失败");
+
             return connected;
 
         } catch (Exception e) {
-            log.error("BI数据库连接检查失败", e);
+            log.error("BI数据库连接检查失败: {}", e.getMessage());
             return false;
         } finally {
-            if (jdbcTemplate != null) {
-                try {
-                    HikariDataSource dataSource = (HikariDataSource) jdbcTemplate.getDataSource();
-                    if (dataSource != null) {
-                        dataSource.close();
-                    }
-                } catch (Exception e) {
-                    log.warn("关闭BI数据库连接失败", e);
-                }
+            if (connected) {
+                circuitBreaker.recordSuccess();
+            } else {
+                circuitBreaker.recordFailure();
             }
         }
     }
+
+    @Override
+    public boolean isAvailable() {
+        return circuitBreaker.isCallPermitted();
+    }
+
+    @Override
+    public Map<String, Object> getCircuitBreakerStatus() {
+        return circuitBreaker.getStatus();
+    }
 }
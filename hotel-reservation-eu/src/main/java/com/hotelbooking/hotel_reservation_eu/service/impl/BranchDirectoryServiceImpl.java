@@ -0,0 +1,142 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.hotelbooking.hotel_reservation_eu.event.InventoryChangedEvent;
+import com.hotelbooking.hotel_reservation_eu.search.BranchDirectory;
+import com.hotelbooking.hotel_reservation_eu.service.AdminHotelBranchService;
+import com.hotelbooking.hotel_reservation_eu.service.BranchDirectoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 启用分店目录服务实现类
+ * 目录是不可变快照，重建后通过 volatile 引用整体替换（写时复制），读取不加锁也不访问数据库。
+ * 启动加载失败时在首次读取时加载；变更后重建失败时保留旧目录并在下次读取时重试。
+ * 其他实例的修改不会通知本实例，目录超过有效期后由一个读取线程重新加载，其余线程继续使用旧目录
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BranchDirectoryServiceImpl implements BranchDirectoryService {
+
+    private final AdminHotelBranchService adminHotelBranchService;
+
+    /** 目录有效期（秒），决定其他实例的修改最迟多久后生效 */
+    @Value("${branch-directory.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private volatile BranchDirectory directory;
+
+    /** 当前目录的加载时间（System.nanoTime） */
+    private volatile long loadedAtNanos;
+
+    /** 是否已有线程在重新加载过期的目录 */
+    private final AtomicBoolean expiredReloading = new AtomicBoolean();
+
+    /** 分店已变更但目录重建失败 */
+    private volatile boolean stale;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("分店目录预加载失败，将在首次查询时加载: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public BranchDirectory getDirectory() {
+        BranchDirectory current = directory;
+        if (current != null && !stale) {
+            if (isExpired()) {
+                reloadExpired(current);
+                return directory;
+            }
+            return current;
+        }
+        return refresh();
+    }
+
+    @Override
+    public synchronized BranchDirectory reload() {
+        // 先清除标记再加载，加载期间再次发生的变更会重新标记
+        stale = false;
+        try {
+            BranchDirectory loaded = BranchDirectory.of(adminHotelBranchService.getAllActiveBranches());
+            directory = loaded;
+            loadedAtNanos = System.nanoTime();
+            log.info("分店目录加载完成 - 启用分店数: {}", loaded.size());
+            return loaded;
+        } catch (RuntimeException e) {
+            stale = true;
+            throw e;
+        }
+    }
+
+    /**
+     * 按需加载：并发的读取只有一个线程访问数据库，其余线程直接使用加载结果
+     */
+    private synchronized BranchDirectory refresh() {
+        BranchDirectory current = directory;
+        if (current != null && !stale) {
+            return current;
+        }
+        try {
+            return reload();
+        } catch (RuntimeException e) {
+            if (current == null) {
+                throw e;
+            }
+            log.warn("重建分店目录失败，使用现有目录: {}", e.getMessage());
+            return current;
+        }
+    }
+
+    private boolean isExpired() {
+        return System.nanoTime() - loadedAtNanos > TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * 过期后重新加载：只有一个读取线程访问数据库，其余线程不等待，继续使用旧目录；加载失败时保留旧目录
+     */
+    private void reloadExpired(BranchDirectory current) {
+        if (!expiredReloading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (directory == current && isExpired()) {
+                reload();
+            }
+        } catch (RuntimeException e) {
+            log.warn("分店目录过期后重新加载失败，使用现有目录: {}", e.getMessage());
+        } finally {
+            expiredReloading.set(false);
+        }
+    }
+
+    /**
+     * 分店事务提交后重建目录；只涉及房型的变更不影响分店目录
+     */
+    @Override
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBranchChanged(InventoryChangedEvent event) {
+        if (event.branchIds().isEmpty()) {
+            return;
+        }
+        stale = true;
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("分店变更后重建目录失败，下次查询时重试 - 分店: {}, 原因: {}", event.branchIds(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelbooking.hotel_reservation_eu.dto.RoomTypeBranchMappingDto;
+import com.hotelbooking.hotel_reservation_eu.event.InventoryChangedEvent;
+import com.hotelbooking.hotel_reservation_eu.mapper.RoomTypeBranchMappingMapper;
+import com.hotelbooking.hotel_reservation_eu.search.BranchInventory;
+import com.hotelbooking.hotel_reservation_eu.search.SearchIndexUnavailableException;
+import com.hotelbooking.hotel_reservation_eu.service.BranchInventoryIndexService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分店房源搜索索引服务实现类
+ * 应用启动后一次性加载全部可搜索房源；之后运营端的变更在事务提交后只重新加载受影响的分店。
+ * 全量加载完成后，索引中没有的分店即视为没有可搜索房源，搜索不再访问数据库；
+ * 加载失败或刷新失败的分店由后台线程重新加载，期间搜索继续使用上一份成功的快照；
+ * 从未成功加载过时多分店搜索返回 503，不在请求线程上做全量加载。
+ * 其他实例的运营端变更不会通知本实例，全量索引超过有效期后由后台线程重建，期间继续使用旧快照
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BranchInventoryIndexServiceImpl implements BranchInventoryIndexService {
+
+    private final RoomTypeBranchMappingMapper roomTypeBranchMappingMapper;
+    private final ObjectMapper objectMapper;
+
+    /** 全量索引有效期（秒），决定其他实例的变更最迟多久后可搜索 */
+    @Value("${search.index.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    /** 按分店ID的房源索引，只保存有可搜索房源的分店 */
+    private final ConcurrentHashMap<Long, BranchInventory> branches = new ConcurrentHashMap<>();
+
+    /** 刷新失败、内容可能过期的分店 */
+    private final Set<Long> staleBranchIds = ConcurrentHashMap.newKeySet();
+
+    /** 全量加载是否完成（之后没有无法确定范围的变更） */
+    private volatile boolean loaded;
+
+    /** 是否至少成功完成过一次全量加载，即是否有可用的快照 */
+    private volatile boolean snapshotReady;
+
+    /** 最近一次全量加载完成的时间（System.nanoTime） */
+    private volatile long lastFullLoadNanos;
+
+    /** 需要全量重建的次数：全量加载期间有新的请求时，加载完成后仍保持未完成状态 */
+    private final AtomicLong fullReloadRequests = new AtomicLong();
+
+    /** 加载序号：在查库之前分配，晚分配的结果才能覆盖早分配的结果 */
+    private final AtomicLong loadSequence = new AtomicLong();
+
+    /** 每个分店当前索引对应的加载序号 */
+    private final ConcurrentHashMap<Long, Long> appliedSequences = new ConcurrentHashMap<>();
+
+    /** 后台重新加载是否已提交，避免并发请求重复提交 */
+    private final AtomicBoolean reloadScheduled = new AtomicBoolean();
+
+    private ExecutorService reloader;
+
+    @PostConstruct
+    public void init() {
+        reloader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-index-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        reloader.shutdown();
+        if (!reloader.awaitTermination(5, TimeUnit.SECONDS)) {
+            reloader.shutdownNow();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("搜索索引预加载失败，搜索将按分店从数据库加载: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public BranchInventory getBranchInventory(Long branchId) {
+        if (branchId == null) {
+            return BranchInventory.empty(null);
+        }
+        if (isExpired()) {
+            scheduleReload();
+        }
+        BranchInventory inventory = branches.get(branchId);
+        if (inventory != null && !staleBranchIds.contains(branchId)) {
+            return inventory;
+        }
+        if (inventory == null && loaded && !staleBranchIds.contains(branchId)) {
+            return BranchInventory.empty(branchId);
+        }
+
+        // 未完成全量加载或分店已过期：只按需加载这一个分店，失败时退回旧索引；其余分店交给后台
+        scheduleReload();
+        try {
+            refreshBranch(branchId);
+        } catch (Exception e) {
+            log.warn("按需加载分店房源失败，使用现有索引 - 分店ID: {}, 原因: {}", branchId, e.getMessage());
+        }
+        return branches.getOrDefault(branchId, BranchInventory.empty(branchId));
+    }
+
+    @Override
+    public List<BranchInventory> findBranches(String city, String country) {
+        if (!loaded || !staleBranchIds.isEmpty() || isExpired()) {
+            scheduleReload();
+            if (!snapshotReady) {
+                throw new SearchIndexUnavailableException("搜索索引正在加载，请稍后重试");
+            }
+        }
+
+        // 直接读取当前快照，过期的分店由后台刷新，不在请求线程上查库
+        List<BranchInventory> result = new ArrayList<>();
+        for (BranchInventory inventory : branches.values()) {
+            if (!inventory.isEmpty()
+                    && matches(city, inventory.getBranchCity())
+                    && matches(country, inventory.getBranchCountry())) {
+                result.add(inventory);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void refreshBranch(Long branchId) {
+        // 查库放在 compute 之外，避免持有哈希桶锁期间阻塞其他分店；序号保证后查询的结果不会被先查询的覆盖
+        long sequence = loadSequence.incrementAndGet();
+        BranchInventory inventory = BranchInventory.of(branchId,
+                roomTypeBranchMappingMapper.selectSearchableByBranchId(branchId), this::parseAmenities);
+        apply(branchId, inventory, sequence);
+        staleBranchIds.remove(branchId);
+    }
+
+    @Override
+    public synchronized int rebuild() {
+        long start = System.currentTimeMillis();
+        long sequence = loadSequence.incrementAndGet();
+        long reloadRequests = fullReloadRequests.get();
+        // 只清除查询前已标记的过期分店，查询期间新标记的分店可能不在本次结果中
+        Set<Long> staleBeforeLoad = new HashSet<>(staleBranchIds);
+        List<RoomTypeBranchMappingDto> mappings = roomTypeBranchMappingMapper.selectAllSearchable();
+
+        Map<Long, List<RoomTypeBranchMappingDto>> mappingsByBranch = new HashMap<>();
+        for (RoomTypeBranchMappingDto mapping : mappings) {
+            mappingsByBranch.computeIfAbsent(mapping.getHotelBranchId(), id -> new ArrayList<>()).add(mapping);
+        }
+
+        mappingsByBranch.forEach((branchId, branchMappings) ->
+                apply(branchId, BranchInventory.of(branchId, branchMappings, this::parseAmenities), sequence));
+        for (Long branchId : branches.keySet()) {
+            if (!mappingsByBranch.containsKey(branchId)) {
+                apply(branchId, BranchInventory.empty(branchId), sequence);
+            }
+        }
+        staleBranchIds.removeAll(staleBeforeLoad);
+        if (fullReloadRequests.get() == reloadRequests) {
+            loaded = true;
+        }
+        snapshotReady = true;
+        lastFullLoadNanos = System.nanoTime();
+
+        log.info("搜索索引加载完成 - 分店数: {}, 房源数: {}, 耗时: {}ms",
+                mappingsByBranch.size(), mappings.size(), System.currentTimeMillis() - start);
+        return mappings.size();
+    }
+
+    /**
+     * 运营端事务提交后刷新受影响的分店，回滚的修改不会进入索引
+     */
+    @Override
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        Set<Long> branchIds = new HashSet<>(event.branchIds());
+        if (event.roomTypeId() != null) {
+            try {
+                branchIds.addAll(roomTypeBranchMappingMapper.selectBranchIdsByRoomTypeId(event.roomTypeId()));
+            } catch (Exception e) {
+                // 无法确定受影响的分店，只能在下次搜索时全部按需重新加载
+                log.warn("查询房型关联分店失败，标记全部分店待刷新 - 房型ID: {}, 原因: {}",
+                        event.roomTypeId(), e.getMessage());
+                fullReloadRequests.incrementAndGet();
+                loaded = false;
+                staleBranchIds.addAll(branches.keySet());
+            }
+        }
+
+        for (Long branchId : branchIds) {
+            try {
+                refreshBranch(branchId);
+            } catch (Exception e) {
+                log.warn("刷新分店搜索索引失败，下次搜索时重试 - 分店ID: {}, 原因: {}", branchId, e.getMessage());
+                staleBranchIds.add(branchId);
+            }
+        }
+        log.debug("搜索索引增量刷新完成 - 分店: {}", branchIds);
+    }
+
+    /**
+     * 按加载序号替换分店索引：已有更晚加载的结果时丢弃本次结果
+     */
+    private void apply(Long branchId, BranchInventory inventory, long sequence) {
+        branches.compute(branchId, (id, previous) -> {
+            Long applied = appliedSequences.get(id);
+            if (applied != null && applied > sequence) {
+                return previous;
+            }
+            appliedSequences.put(id, sequence);
+            return inventory.isEmpty() ? null : inventory;
+        });
+    }
+
+    /**
+     * 全量索引是否超过有效期
+     */
+    private boolean isExpired() {
+        return snapshotReady && System.nanoTime() - lastFullLoadNanos > TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * 提交后台重新加载：未完成全量加载或全量索引过期时重建全部分店，否则只刷新过期的分店
+     */
+    private void scheduleReload() {
+        if (!reloadScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            reloader.execute(() -> {
+                reloadScheduled.set(false);
+                if (!loaded || isExpired()) {
+                    try {
+                        rebuild();
+                    } catch (Exception e) {
+                        log.warn("后台重建搜索索引失败，下次搜索时重试: {}", e.getMessage());
+                    }
+                    return;
+                }
+                for (Long branchId : new ArrayList<>(staleBranchIds)) {
+                    try {
+                        refreshBranch(branchId);
+                    } catch (Exception e) {
+                        log.warn("后台刷新分店搜索索引失败，下次搜索时重试 - 分店ID: {}, 原因: {}",
+                                branchId, e.getMessage());
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            reloadScheduled.set(false);
+            log.warn("提交搜索索引后台加载失败: {}", e.getMessage());
+        }
+    }
+
+    private static boolean matches(String expected, String actual) {
+        return expected == null || expected.isBlank()
+                || (actual != null && actual.trim().equalsIgnoreCase(expected.trim()));
+    }
+
+    /**
+     * 解析设施JSON字符串（只在建索引时执行）
+     */
+    private List<String> parseAmenities(String amenitiesJson) {
+        try {
+            if (amenitiesJson != null && !amenitiesJson.trim().isEmpty()) {
+                return objectMapper.readValue(amenitiesJson, new TypeReference<List<String>>() {});
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("解析设施JSON失败: {}", amenitiesJson, e);
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,114 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 简单熔断器
+ * 连续失败达到阈值后断开（OPEN），断开期间直接拒绝调用，不再访问下游；
+ * 断开时间到期后进入半开（HALF_OPEN），只放行一次探测调用：成功则闭合，失败则重新断开，
+ * 连续断开时断开时间翻倍，直到上限
+ */
+@Slf4j
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Duration maxOpenDuration;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int consecutiveOpens;
+    private Instant openUntil;
+    private Instant lastStateChange = Instant.now();
+
+    CircuitBreaker(String name, int failureThreshold, Duration openDuration, Duration maxOpenDuration) {
+        this.name = name;
+        this.failureThreshold = Math.max(failureThreshold, 1);
+        this.openDuration = openDuration;
+        this.maxOpenDuration = maxOpenDuration.compareTo(openDuration) < 0 ? openDuration : maxOpenDuration;
+    }
+
+    /**
+     * 是否放行本次调用；断开时间到期后只有第一个调用者获得探测机会
+     */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (Instant.now().isBefore(openUntil)) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+                return true;
+            default:
+                // 半开状态下探测调用尚未返回，其余调用直接拒绝
+                return false;
+        }
+    }
+
+    /**
+     * 是否可能放行调用（不占用探测机会，用于调度决策）
+     */
+    synchronized boolean isCallPermitted() {
+        return state == State.CLOSED || (state == State.OPEN && !Instant.now().isBefore(openUntil));
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        consecutiveOpens = 0;
+        if (state != State.CLOSED) {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            long multiplier = 1L << Math.min(consecutiveOpens, 20);
+            Duration duration = openDuration.multipliedBy(multiplier);
+            openUntil = Instant.now().plus(duration.compareTo(maxOpenDuration) > 0 ? maxOpenDuration : duration);
+            consecutiveOpens++;
+            transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * 调用结束但结果不能说明下游是否可用（如数据校验失败、程序异常）：不计入成功或失败，
+     * 半开状态下归还探测机会，下一个调用者立即重新探测
+     */
+    synchronized void releaseProbe() {
+        if (state == State.HALF_OPEN) {
+            openUntil = Instant.now();
+            transitionTo(State.OPEN);
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("name", name);
+        status.put("state", state.name());
+        status.put("consecutiveFailures", consecutiveFailures);
+        status.put("openUntil", state == State.OPEN ? openUntil : null);
+        status.put("lastStateChange", lastStateChange);
+        return status;
+    }
+
+    private void transitionTo(State newState) {
+        log.warn("熔断器状态变更: name={}, {} -> {}, consecutiveFailures={}", name, state, newState, consecutiveFailures);
+        state = newState;
+        lastStateChange = Instant.now();
+    }
+}
@@ -1,12 +1,20 @@
 package com.hotelbooking.hotel_reservation_eu.service.impl;
 
+import com.hotelbooking.hotel_reservation_eu.mapper.ReservationMapper;
+import com.hotelbooking.hotel_reservation_eu.model.AnonymizedReservation;
 import com.hotelbooking.hotel_reservation_eu.model.Reservation;
 import com.hotelbooking.hotel_reservation_eu.service.DataAnonymizationService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.lang.reflect.RecordComponent;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -18,6 +26,23 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DataAnonymizationServiceImpl implements DataAnonymizationService {
 
+    /** 预订表中的PII列（含自由文本列），投影查询不允许读取 */
+    private static final Set<String> PII_COLUMNS = Set.of(
+            "user_id", "contact_name", "contact_phone", "contact_email", "special_requests", "cancellation_reason");
+
+    /** 已校验的投影（类型 + 查询列），每种投影只校验一次 */
+    private final Map<String, Boolean> validatedProjections = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时校验同步使用的预订投影，含PII时直接启动失败
+     */
+    @PostConstruct
+    public void validateReservationProjection() {
+        if (!isProjectionAnonymized(AnonymizedReservation.class, ReservationMapper.ANONYMIZED_COLUMNS)) {
+            throw new IllegalStateException("预订匿名化投影包含PII字段: " + ReservationMapper.ANONYMIZED_COLUMNS);
+        }
+    }
+
     @Override
     public List<Reservation> anonymizeReservations(List<Reservation> reservations) {
         log.info("开始对{}条预订数据进行脱敏处理", reservations.size());
@@ -77,4 +102,33 @@ public class DataAnonymizationServiceImpl implements DataAnonymizationService {
                reservation.getContactEmail() == null &&
                reservation.getSpecialRequests() == null;
     }
+
+    @Override
+    public boolean isProjectionAnonymized(Class<? extends Record> projectionType, String selectColumns) {
+        return validatedProjections.computeIfAbsent(projectionType.getName() + "|" + selectColumns,
+                key -> validateProjection(projectionType, selectColumns));
+    }
+
+    /**
+     * 字段名按去掉下划线后的小写形式与PII列比较，查询列按标识符逐个比较
+     */
+    private boolean validateProjection(Class<? extends Record> projectionType, String selectColumns) {
+        Set<String> piiNames = PII_COLUMNS.stream()
+                .map(column -> column.replace("_", ""))
+                .collect(Collectors.toSet());
+        for (RecordComponent component : projectionType.getRecordComponents()) {
+            if (piiNames.contains(component.getName().toLowerCase(Locale.ROOT))) {
+                log.error("匿名化投影{}包含PII字段: {}", projectionType.getSimpleName(), component.getName());
+                return false;
+            }
+        }
+        for (String identifier : selectColumns.toLowerCase(Locale.ROOT).split("[^a-z0-9_]+")) {
+            if (PII_COLUMNS.contains(identifier)) {
+                log.error("匿名化投影{}的查询包含PII列: {}", projectionType.getSimpleName(), identifier);
+                return false;
+            }
+        }
+        log.info("匿名化投影校验通过: {}", projectionType.getSimpleName());
+        return true;
+    }
 }
@@ -0,0 +1,191 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.hotelbooking.hotel_reservation_eu.mapper.DataEncryptionKeyMapper;
+import com.hotelbooking.hotel_reservation_eu.model.DataEncryptionKey;
+import com.hotelbooking.hotel_reservation_eu.service.DataKeyService;
+import com.hotelbooking.hotel_reservation_eu.service.KeyManagementService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据密钥服务实现类
+ * 解密后的数据密钥按版本缓存在内存中，每个版本只请求KMS一次；当前版本定期从数据库刷新，
+ * 其他实例轮换后最迟在 data-key.active-refresh-seconds 后改用新版本加密。
+ * 首次使用时才访问数据库，数据库不可用时不影响应用启动。
+ * 生成和轮换数据密钥在独立的新事务中提交后才缓存并用于加密：
+ * 首次加密通常发生在注册等业务事务内，业务事务回滚不能带走已经用于加密的数据密钥
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DataKeyServiceImpl implements DataKeyService {
+
+    private static final String ALGORITHM = "AES";
+
+    private final DataEncryptionKeyMapper dataEncryptionKeyMapper;
+    private final KeyManagementService keyManagementService;
+    private final PlatformTransactionManager transactionManager;
+
+    /** 当前密钥版本的刷新间隔（秒） */
+    @Value("${data-key.active-refresh-seconds:60}")
+    private long activeRefreshSeconds;
+
+    private final ConcurrentHashMap<Integer, SecretKey> dataKeys = new ConcurrentHashMap<>();
+
+    private volatile int activeVersion;
+    private volatile long activeCheckedAtNanos;
+
+    /** 独立事务模板，数据密钥的写入不加入调用方的事务 */
+    private TransactionTemplate requiresNewTransactionTemplate;
+
+    /** 已提交的新数据密钥 */
+    private record CreatedKey(DataEncryptionKey stored, byte[] plaintextKey) {
+    }
+
+    @PostConstruct
+    public void initTransactionTemplate() {
+        requiresNewTransactionTemplate = new TransactionTemplate(transactionManager);
+        requiresNewTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public int getActiveKeyVersion() {
+        int version = activeVersion;
+        if (version > 0 && System.nanoTime() - activeCheckedAtNanos < TimeUnit.SECONDS.toNanos(activeRefreshSeconds)) {
+            return version;
+        }
+        return refreshActiveVersion();
+    }
+
+    @Override
+    public SecretKey getDataKey(int version) {
+        SecretKey key = dataKeys.get(version);
+        if (key != null) {
+            return key;
+        }
+        return dataKeys.computeIfAbsent(version, v -> {
+            DataEncryptionKey stored = dataEncryptionKeyMapper.selectById(v);
+            if (stored == null) {
+                throw new IllegalArgumentException("数据密钥不存在: " + v);
+            }
+            return unwrap(stored);
+        });
+    }
+
+    @Override
+    public synchronized int rotateDataKey() {
+        DataEncryptionKey created = commitNewDataKey(true);
+        activeVersion = created.getId();
+        activeCheckedAtNanos = System.nanoTime();
+        log.info("数据密钥轮换完成 - 新版本: {}, 主密钥: {}", created.getId(), created.getMasterKeyId());
+        return created.getId();
+    }
+
+    @Override
+    public int rewrapDataKeys() {
+        String masterKeyId = keyManagementService.getActiveMasterKeyId();
+        int rewrapped = 0;
+        for (DataEncryptionKey stored : dataEncryptionKeyMapper.selectWrappedByOtherMasterKey(masterKeyId)) {
+            byte[] plaintextKey = keyManagementService.decryptDataKey(stored.getMasterKeyId(),
+                    Base64.getDecoder().decode(stored.getWrappedKey()));
+            KeyManagementService.DataKey wrapped = keyManagementService.encryptDataKey(plaintextKey);
+            rewrapped += dataEncryptionKeyMapper.updateWrappedKey(stored.getId(), stored.getMasterKeyId(),
+                    wrapped.masterKeyId(), Base64.getEncoder().encodeToString(wrapped.encryptedKey()));
+        }
+        log.info("数据密钥重新加密完成 - 主密钥: {}, 数据密钥数: {}", masterKeyId, rewrapped);
+        return rewrapped;
+    }
+
+    @Override
+    public Map<String, Object> getKeyStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("activeMasterKeyId", keyManagementService.getActiveMasterKeyId());
+        status.put("cachedVersions", new ArrayList<>(dataKeys.keySet()));
+        try {
+            status.put("activeVersion", getActiveKeyVersion());
+            List<Map<String, Object>> keys = new ArrayList<>();
+            for (DataEncryptionKey stored : dataEncryptionKeyMapper.selectList(null)) {
+                Map<String, Object> key = new HashMap<>();
+                key.put("version", stored.getId());
+                key.put("status", stored.getStatus());
+                key.put("masterKeyId", stored.getMasterKeyId());
+                key.put("createdAt", stored.getCreatedAt());
+                keys.add(key);
+            }
+            status.put("keys", keys);
+        } catch (Exception e) {
+            log.warn("查询数据密钥状态失败: {}", e.getMessage());
+        }
+        return status;
+    }
+
+    /**
+     * 从数据库读取当前版本，没有可用的数据密钥时生成第一个
+     */
+    private synchronized int refreshActiveVersion() {
+        if (activeVersion > 0
+                && System.nanoTime() - activeCheckedAtNanos < TimeUnit.SECONDS.toNanos(activeRefreshSeconds)) {
+            return activeVersion;
+        }
+        DataEncryptionKey active = dataEncryptionKeyMapper.selectActive();
+        if (active == null) {
+            active = commitNewDataKey(false);
+            log.info("生成首个数据密钥 - 版本: {}", active.getId());
+        }
+        if (active.getId() != activeVersion) {
+            log.info("当前数据密钥版本: {}", active.getId());
+        }
+        activeVersion = active.getId();
+        activeCheckedAtNanos = System.nanoTime();
+        return activeVersion;
+    }
+
+    /**
+     * 在独立事务中生成并保存新数据密钥，提交后才放入缓存
+     *
+     * @param retireOlder 是否同时停用旧版本（轮换）
+     */
+    private DataEncryptionKey commitNewDataKey(boolean retireOlder) {
+        CreatedKey created = requiresNewTransactionTemplate.execute(status -> {
+            KeyManagementService.DataKey generated = keyManagementService.generateDataKey();
+            LocalDateTime now = LocalDateTime.now();
+            DataEncryptionKey stored = DataEncryptionKey.builder()
+                    .masterKeyId(generated.masterKeyId())
+                    .wrappedKey(Base64.getEncoder().encodeToString(generated.encryptedKey()))
+                    .status(DataEncryptionKey.STATUS_ACTIVE)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build();
+            dataEncryptionKeyMapper.insert(stored);
+            if (retireOlder) {
+                dataEncryptionKeyMapper.retireOlderThan(stored.getId());
+            }
+            return new CreatedKey(stored, generated.plaintextKey());
+        });
+        dataKeys.put(created.stored().getId(), new SecretKeySpec(created.plaintextKey(), ALGORITHM));
+        return created.stored();
+    }
+
+    private SecretKey unwrap(DataEncryptionKey stored) {
+        byte[] plaintextKey = keyManagementService.decryptDataKey(stored.getMasterKeyId(),
+                Base64.getDecoder().decode(stored.getWrappedKey()));
+        return new SecretKeySpec(plaintextKey, ALGORITHM);
+    }
+}
@@ -1,25 +1,38 @@
 package com.hotelbooking.hotel_reservation_eu.service.impl;
 
+import com.hotelbooking.hotel_reservation_eu.dto.StatisticsReportDto;
+import com.hotelbooking.hotel_reservation_eu.mapper.DataSyncWatermarkMapper;
 import com.hotelbooking.hotel_reservation_eu.mapper.ReservationMapper;
-import com.hotelbooking.hotel_reservation_eu.model.Reservation;
+import com.hotelbooking.hotel_reservation_eu.statistics.DailyStatisticsAggregate;
+import com.hotelbooking.hotel_reservation_eu.model.AnonymizedReservation;
+import com.hotelbooking.hotel_reservation_eu.model.DataSyncWatermark;
 import com.hotelbooking.hotel_reservation_eu.service.BiDataWriteService;
 import com.hotelbooking.hotel_reservation_eu.service.DataAnonymizationService;
 import com.hotelbooking.hotel_reservation_eu.service.DataSyncScheduledService;
+import com.hotelbooking.hotel_reservation_eu.service.RealtimeStatisticsService;
 import com.hotelbooking.hotel_reservation_eu.service.StatisticsReportService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 数据同步定时任务服务实现类
- * 负责定时执行数据同步任务，生成匿名化统计报告并写入BI数据库
+ * 负责定时执行数据同步任务，生成匿名化统计报告并写入BI数据库。
+ * 同步任务同一时间只执行一次；下一次执行的间隔根据本次结果自适应调整（见 AdaptiveSyncInterval），
+ * BI写入熔断期间直接跳过，不再每次等待连接超时
  */
 @Slf4j
 @Service
@@ -30,14 +43,143 @@ public class DataSyncScheduledServiceImpl implements DataSyncScheduledService {
     private final DataAnonymizationService dataAnonymizationService;
     private final StatisticsReportService statisticsReportService;
     private final BiDataWriteService biDataWriteService;
+    private final DataSyncWatermarkMapper dataSyncWatermarkMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final RealtimeStatisticsService realtimeStatisticsService;
+
+    private static final String WATERMARK_SYNC_NAME = "bi-daily-statistics";
+
+    /** 是否启用outbox同步（启用后由outbox工作线程池同步，定时任务不再执行） */
+    @Value("${data-sync.outbox.enabled:false}")
+    private boolean outboxEnabled;
+
+    /** 是否启用增量同步（关闭时每次全量扫描当天预订） */
+    @Value("${data-sync.incremental.enabled:true}")
+    private boolean incrementalEnabled;
+
+    /** 每批拉取的变更行数 */
+    @Value("${data-sync.incremental.batch-size:1000}")
+    private int incrementalBatchSize;
+
+    /** 单次同步最多拉取的批次数，避免积压时单次执行过长 */
+    @Value("${data-sync.incremental.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    /** 安全延迟（秒）：只拉取早于 now - lag 的变更，避免漏掉尚未提交的事务 */
+    @Value("${data-sync.incremental.safety-lag-seconds:5}")
+    private long safetyLagSeconds;
+
+    /** 基础同步间隔（毫秒） */
+    @Value("${data-sync.schedule.interval:15000}")
+    private long scheduleIntervalMs;
+
+    /** 变更量大时允许缩短到的最小间隔（毫秒） */
+    @Value("${data-sync.schedule.min-interval:5000}")
+    private long minIntervalMs;
+
+    /** BI不可用或无新数据时允许退避到的最大间隔（毫秒） */
+    @Value("${data-sync.schedule.max-interval:120000}")
+    private long maxIntervalMs;
+
+    /** 单次同步变更数达到该值时缩短间隔 */
+    @Value("${data-sync.schedule.high-change-threshold:500}")
+    private long highChangeThreshold;
+
+    /** 只读事务模板，用于在同一SqlSession内消费MyBatis游标 */
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    /** 自适应同步间隔 */
+    private AdaptiveSyncInterval syncInterval;
+
+    /** 同步任务是否正在执行（保证同一时间只执行一次） */
+    private final AtomicBoolean syncInProgress = new AtomicBoolean();
+
+    /** 本次同步处理的变更数，用于调整下一次间隔 */
+    private long lastRunChanges;
+    /** 全量模式上一次读取的预订数 */
+    private long lastFullSyncCount;
+    /** 实时模式上一次读取的已折叠事件数 */
+    private long lastAppliedEventCount;
 
     // 同步状态和最后同步时间
     private final AtomicReference<String> syncStatus = new AtomicReference<>("IDLE");
     private final AtomicReference<LocalDateTime> lastSyncTime = new AtomicReference<>();
 
+    // 增量同步状态（仅由定时任务线程访问）
+    private DailyStatisticsAggregate dailyAggregate;
+    private LocalDateTime cursorUpdatedAt;
+    private long cursorId;
+    private long processedCount;
+    /** 已成功写入BI的高水位（从持久化表加载），用于判断重启后是否有新变更 */
+    private DataSyncWatermark syncedWatermark;
+    /** 聚合中是否存在尚未写入BI的变更 */
+    private boolean aggregateDirty;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+        syncInterval = new AdaptiveSyncInterval(scheduleIntervalMs, minIntervalMs, maxIntervalMs, highChangeThreshold);
+        log.info("数据同步调度间隔: base={}ms, min={}ms, max={}ms", syncInterval.current(), minIntervalMs, maxIntervalMs);
+    }
+
     @Override
-    @Scheduled(fixedRate = 15000) // 15秒 = 15000毫秒
     public void executeDataSyncTask() {
+        if (!syncInProgress.compareAndSet(false, true)) {
+            log.warn("上一次数据同步任务仍在执行，跳过本次调度");
+            return;
+        }
+
+        AdaptiveSyncInterval.Outcome outcome = AdaptiveSyncInterval.Outcome.FAILED;
+        lastRunChanges = 0L;
+        try {
+            outcome = runDataSyncTask();
+        } finally {
+            syncInProgress.set(false);
+            long nextInterval = syncInterval.next(outcome, lastRunChanges);
+            log.debug("下一次数据同步间隔: {}ms, 本次结果: {}, 变更数: {}", nextInterval, outcome, lastRunChanges);
+        }
+    }
+
+    @Override
+    public long getNextIntervalMillis() {
+        return syncInterval.current();
+    }
+
+    /**
+     * 按配置的同步模式执行一次同步，返回本次执行自身的结果
+     * （不从共享的 syncStatus 读回，避免被并发的手动同步或回填覆盖）
+     */
+    private AdaptiveSyncInterval.Outcome runDataSyncTask() {
+        if (outboxEnabled) {
+            log.debug("已启用outbox同步，跳过定时同步任务");
+            return AdaptiveSyncInterval.Outcome.NO_DATA;
+        }
+        if (!biDataWriteService.isAvailable()) {
+            log.warn("BI写入熔断中，跳过本次同步");
+            syncStatus.set("SKIPPED_CIRCUIT_OPEN");
+            return AdaptiveSyncInterval.Outcome.UNHEALTHY;
+        }
+
+        AdaptiveSyncInterval.Outcome outcome;
+        if (realtimeStatisticsService.isEnabled()) {
+            outcome = executeRealtimeFlushTask();
+        } else if (incrementalEnabled) {
+            outcome = executeIncrementalSyncTask();
+        } else {
+            outcome = executeFullSyncTask();
+        }
+
+        // 本次执行中BI写入熔断（例如写入失败累计达到阈值）时按不健康退避
+        return biDataWriteService.isAvailable() ? outcome : AdaptiveSyncInterval.Outcome.UNHEALTHY;
+    }
+
+    /**
+     * 全量同步：读取当天全部预订的匿名化投影，重新生成统计报告并写入BI
+     *
+     * @return 本次执行的结果，用于调整下一次间隔
+     */
+    private AdaptiveSyncInterval.Outcome executeFullSyncTask() {
         log.info("开始执行定时数据同步任务");
         long startTime = System.currentTimeMillis();
 
@@ -52,38 +194,33 @@ public class DataSyncScheduledServiceImpl implements DataSyncScheduledService {
             if (!biDataWriteService.checkConnection()) {
                 log.error("BI数据库连接失败，跳过本次同步");
                 syncStatus.set("FAILED_CONNECTION");
-                return;
+                return AdaptiveSyncInterval.Outcome.UNHEALTHY;
+            }
+
+            // 校验匿名化投影（每种投影只校验一次）
+            if (!isReservationProjectionAnonymized()) {
+                log.error("数据脱敏验证失败，存在未脱敏的PII信息");
+                syncStatus.set("FAILED_ANONYMIZATION");
+                return AdaptiveSyncInterval.Outcome.FAILED;
             }
 
-            // 从数据库获取今日的预订数据
-            List<Reservation> todayReservations = getTodayReservations(currentDate);
+            // 从数据库直接读取今日预订的匿名化投影，PII列不会被查询
+            List<AnonymizedReservation> todayReservations = reservationMapper.selectAnonymizedByDate(currentDate);
             log.info("获取到今日预订数据: {}条", todayReservations.size());
+            lastRunChanges = Math.abs(todayReservations.size() - lastFullSyncCount);
+            lastFullSyncCount = todayReservations.size();
 
             if (todayReservations.isEmpty()) {
                 log.info("今日无预订数据，跳过同步");
                 syncStatus.set("COMPLETED_NO_DATA");
-                return;
-            }
-
-            // 对数据进行脱敏处理
-            List<Reservation> anonymizedReservations = dataAnonymizationService.anonymizeReservations(todayReservations);
-            log.info("数据脱敏完成，共处理{}条记录", anonymizedReservations.size());
-
-            // 验证脱敏结果
-            boolean allAnonymized = anonymizedReservations.stream()
-                    .allMatch(dataAnonymizationService::isDataAnonymized);
-
-            if (!allAnonymized) {
-                log.error("数据脱敏验证失败，存在未脱敏的PII信息");
-                syncStatus.set("FAILED_ANONYMIZATION");
-                return;
+                return AdaptiveSyncInterval.Outcome.NO_DATA;
             }
 
-            // 生成统计报告
-            Map<String, Object> comprehensiveReport = statisticsReportService
-                    .generateReportFromAnonymizedData(anonymizedReservations, currentDate);
+            // 生成统计报告（数据量大时并行聚合）
+            StatisticsReportDto comprehensiveReport = statisticsReportService.generateReportFromAggregate(
+                    DailyStatisticsAggregate.aggregate(currentDate, todayReservations));
 
-            log.info("统计报告生成完成: {}", comprehensiveReport.get("reportType"));
+            log.info("统计报告生成完成: {}", comprehensiveReport.reportType());
 
             // 写入统计数据到BI数据库
             boolean writeSuccess = biDataWriteService.writeAllStatistics(comprehensiveReport, currentDate);
@@ -95,22 +232,241 @@ public class DataSyncScheduledServiceImpl implements DataSyncScheduledService {
                 
                 long executionTime = System.currentTimeMillis() - startTime;
                 log.info("定时数据同步任务执行完成，生成报告类型: {}, 数据量: {}, 执行时间: {}ms, BI写入: 成功",
-                        comprehensiveReport.get("reportType"),
-                        comprehensiveReport.get("dataCount"),
+                        comprehensiveReport.reportType(),
+                        comprehensiveReport.dataCount(),
                         executionTime);
-            } else {
-                syncStatus.set("FAILED_BI_WRITE");
-                log.error("统计数据写入BI数据库失败");
+                return AdaptiveSyncInterval.Outcome.SYNCED;
             }
+            syncStatus.set("FAILED_BI_WRITE");
+            log.error("统计数据写入BI数据库失败");
+            return AdaptiveSyncInterval.Outcome.UNHEALTHY;
 
         } catch (Exception e) {
             log.error("定时数据同步任务执行失败", e);
             syncStatus.set("FAILED_ERROR");
+            return AdaptiveSyncInterval.Outcome.FAILED;
+        }
+    }
+
+    /**
+     * 实时统计刷新：计数器已由预订事件实时更新，这里只把有变化的日期写入BI
+     *
+     * @return 本次执行的结果，用于调整下一次间隔
+     */
+    private AdaptiveSyncInterval.Outcome executeRealtimeFlushTask() {
+        long startTime = System.currentTimeMillis();
+        try {
+            syncStatus.set("RUNNING");
+            long appliedEventCount = realtimeStatisticsService.getAppliedEventCount();
+            lastRunChanges = appliedEventCount - lastAppliedEventCount;
+            lastAppliedEventCount = appliedEventCount;
+            int flushed = realtimeStatisticsService.flushDirtyDates();
+            if (flushed == 0) {
+                log.debug("无待刷新的实时统计");
+                syncStatus.set("COMPLETED_NO_DATA");
+                return AdaptiveSyncInterval.Outcome.NO_DATA;
+            }
+            lastSyncTime.set(LocalDateTime.now());
+            syncStatus.set("COMPLETED_SUCCESS");
+            log.info("实时统计刷新任务执行完成，刷新日期数: {}, 执行时间: {}ms",
+                    flushed, System.currentTimeMillis() - startTime);
+            return AdaptiveSyncInterval.Outcome.SYNCED;
+        } catch (Exception e) {
+            log.error("实时统计刷新任务执行失败", e);
+            syncStatus.set("FAILED_ERROR");
+            return AdaptiveSyncInterval.Outcome.FAILED;
+        }
+    }
+
+    /**
+     * 增量同步：只拉取高水位之后变更的预订，折叠进当天的运行聚合后写入BI
+     *
+     * @return 本次执行的结果，用于调整下一次间隔
+     */
+    private AdaptiveSyncInterval.Outcome executeIncrementalSyncTask() {
+        log.info("开始执行增量数据同步任务");
+        long startTime = System.currentTimeMillis();
+
+        try {
+            syncStatus.set("RUNNING");
+
+            // 检查BI数据库连接
+            if (!biDataWriteService.checkConnection()) {
+                log.error("BI数据库连接失败，跳过本次同步");
+                syncStatus.set("FAILED_CONNECTION");
+                return AdaptiveSyncInterval.Outcome.UNHEALTHY;
+            }
+
+            if (!isReservationProjectionAnonymized()) {
+                log.error("数据脱敏验证失败，存在未脱敏的PII信息");
+                syncStatus.set("FAILED_ANONYMIZATION");
+                return AdaptiveSyncInterval.Outcome.FAILED;
+            }
+
+            LocalDate currentDate = LocalDate.now();
+            if (dailyAggregate != null && !dailyAggregate.getDate().equals(currentDate)) {
+                // 日期切换：先把前一天剩余的变更补齐并写入BI
+                finishPreviousDay(currentDate);
+            }
+            if (dailyAggregate == null) {
+                resetDailyAggregate(currentDate);
+            }
+
+            LocalDateTime upperBound = LocalDateTime.now().minusSeconds(safetyLagSeconds);
+            int folded = foldChanges(upperBound);
+            lastRunChanges = folded;
+            log.info("增量拉取完成: 本次变更{}条, 当天预订{}条, 高水位=({}, {})",
+                    folded, dailyAggregate.getTotalReservations(), cursorUpdatedAt, cursorId);
+
+            if (!aggregateDirty) {
+                log.info("无新的预订变更，跳过BI写入");
+                syncStatus.set("COMPLETED_NO_DATA");
+                return AdaptiveSyncInterval.Outcome.NO_DATA;
+            }
+
+            if (writeAggregate(dailyAggregate)) {
+                lastSyncTime.set(LocalDateTime.now());
+                syncStatus.set("COMPLETED_SUCCESS");
+                log.info("增量数据同步任务执行完成，数据量: {}, 执行时间: {}ms, BI写入: 成功",
+                        dailyAggregate.getTotalReservations(), System.currentTimeMillis() - startTime);
+                return AdaptiveSyncInterval.Outcome.SYNCED;
+            }
+            syncStatus.set("FAILED_BI_WRITE");
+            log.error("统计数据写入BI数据库失败");
+            return AdaptiveSyncInterval.Outcome.UNHEALTHY;
+
+        } catch (Exception e) {
+            log.error("增量数据同步任务执行失败", e);
+            syncStatus.set("FAILED_ERROR");
+            return AdaptiveSyncInterval.Outcome.FAILED;
+        }
+    }
+
+    /**
+     * 重置当天聚合，从当天零点开始重放变更
+     * 服务重启后内存聚合丢失，通过重放当天变更重建；持久化高水位用于判断重放后是否需要重新写入BI
+     */
+    private void resetDailyAggregate(LocalDate date) {
+        dailyAggregate = new DailyStatisticsAggregate(date);
+        cursorUpdatedAt = date.atStartOfDay();
+        cursorId = 0L;
+        processedCount = 0L;
+        aggregateDirty = false;
+        syncedWatermark = loadWatermark(date);
+        log.info("初始化当天增量聚合: date={}, 已持久化高水位={}", date,
+                syncedWatermark != null ? syncedWatermark.getLastUpdatedAt() : null);
+    }
+
+    /**
+     * 补齐前一天的剩余变更并写入BI，然后切换到新的一天
+     */
+    private void finishPreviousDay(LocalDate currentDate) {
+        DailyStatisticsAggregate previous = dailyAggregate;
+        LocalDateTime dayEnd = currentDate.atStartOfDay();
+        LocalDateTime upperBound = LocalDateTime.now().minusSeconds(safetyLagSeconds);
+        foldChanges(upperBound.isBefore(dayEnd) ? upperBound : dayEnd);
+        if (aggregateDirty && !writeAggregate(previous)) {
+            log.warn("前一天统计数据补写BI失败: date={}", previous.getDate());
+        }
+        dailyAggregate = null;
+    }
+
+    /**
+     * 按 (updated_at, id) 高水位分批拉取变更的匿名化投影，折叠进当天聚合
+     *
+     * @return 本次计入聚合的变更行数
+     */
+    private int foldChanges(LocalDateTime upperBound) {
+        int folded = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<AnonymizedReservation> changes = reservationMapper.selectChangedSince(
+                    cursorUpdatedAt, cursorId, upperBound, incrementalBatchSize);
+            if (changes.isEmpty()) {
+                break;
+            }
+
+            for (AnonymizedReservation change : changes) {
+                if (dailyAggregate.apply(change)) {
+                    folded++;
+                    if (isAfterSyncedWatermark(change)) {
+                        aggregateDirty = true;
+                    }
+                }
+                cursorUpdatedAt = change.updatedAt();
+                cursorId = change.id();
+            }
+            processedCount += changes.size();
+
+            if (changes.size() < incrementalBatchSize) {
+                break;
+            }
+        }
+        return folded;
+    }
+
+    /**
+     * 判断变更是否晚于已写入BI的高水位
+     */
+    private boolean isAfterSyncedWatermark(AnonymizedReservation change) {
+        if (syncedWatermark == null) {
+            return true;
+        }
+        int cmp = change.updatedAt().compareTo(syncedWatermark.getLastUpdatedAt());
+        return cmp > 0 || (cmp == 0 && change.id() > syncedWatermark.getLastId());
+    }
+
+    /**
+     * 将聚合写入BI，成功后推进并持久化高水位
+     */
+    private boolean writeAggregate(DailyStatisticsAggregate aggregate) {
+        StatisticsReportDto comprehensiveReport = statisticsReportService.generateReportFromAggregate(aggregate);
+        if (!biDataWriteService.writeAllStatistics(comprehensiveReport, aggregate.getDate())) {
+            return false;
+        }
+
+        aggregateDirty = false;
+        syncedWatermark = DataSyncWatermark.builder()
+                .syncName(WATERMARK_SYNC_NAME)
+                .watermarkDate(aggregate.getDate())
+                .lastUpdatedAt(cursorUpdatedAt)
+                .lastId(cursorId)
+                .processedCount(processedCount)
+                .build();
+        saveWatermark(syncedWatermark);
+        return true;
+    }
+
+    /**
+     * 加载持久化的高水位（仅当属于指定日期时有效）
+     */
+    private DataSyncWatermark loadWatermark(LocalDate date) {
+        try {
+            DataSyncWatermark watermark = dataSyncWatermarkMapper.selectById(WATERMARK_SYNC_NAME);
+            return watermark != null && date.equals(watermark.getWatermarkDate()) ? watermark : null;
+        } catch (Exception e) {
+            log.warn("加载同步高水位失败，将全量重写当天统计: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 持久化高水位，失败不影响本次同步结果
+     */
+    private void saveWatermark(DataSyncWatermark watermark) {
+        try {
+            dataSyncWatermarkMapper.upsert(watermark);
+        } catch (Exception e) {
+            log.warn("持久化同步高水位失败: {}", e.getMessage());
         }
     }
 
     @Override
-    public void manualDataSync(LocalDate date) {
+    public boolean manualDataSync(LocalDate date) {
+        if (!syncInProgress.compareAndSet(false, true)) {
+            log.warn("数据同步任务正在执行，跳过手动同步: date={}", date);
+            return false;
+        }
+
         log.info("手动触发数据同步: date={}", date);
         long startTime = System.currentTimeMillis();
 
@@ -121,48 +477,111 @@ public class DataSyncScheduledServiceImpl implements DataSyncScheduledService {
             if (!biDataWriteService.checkConnection()) {
                 log.error("BI数据库连接失败，手动同步失败");
                 syncStatus.set("MANUAL_FAILED_CONNECTION");
-                return;
+                return true;
             }
 
-            // 获取指定日期的预订数据
-            List<Reservation> dateReservations = getDateReservations(date);
-            log.info("获取到{}的预订数据: {}条", date, dateReservations.size());
+            String result = syncDateStreaming(date);
+            syncStatus.set("MANUAL_" + result);
+            log.info("手动数据同步执行完成: date={}, 结果: {}, 执行时间: {}ms",
+                    date, result, System.currentTimeMillis() - startTime);
 
-            if (dateReservations.isEmpty()) {
-                log.info("{}无预订数据，跳过同步", date);
-                syncStatus.set("MANUAL_COMPLETED_NO_DATA");
-                return;
-            }
+        } catch (Exception e) {
+            log.error("手动数据同步执行失败", e);
+            syncStatus.set("MANUAL_FAILED_ERROR");
+        } finally {
+            syncInProgress.set(false);
+        }
+        return true;
+    }
 
-            // 对数据进行脱敏处理
-            List<Reservation> anonymizedReservations = dataAnonymizationService.anonymizeReservations(dateReservations);
-            log.info("手动同步数据脱敏完成，共处理{}条记录", anonymizedReservations.size());
+    @Override
+    public int backfillDataSync(LocalDate startDate, LocalDate endDate) {
+        if (!syncInProgress.compareAndSet(false, true)) {
+            log.warn("数据同步任务正在执行，跳过历史数据回填: {} ~ {}", startDate, endDate);
+            return -1;
+        }
 
-            // 生成统计报告
-            Map<String, Object> comprehensiveReport = statisticsReportService
-                    .generateReportFromAnonymizedData(anonymizedReservations, date);
+        log.info("开始历史数据回填: {} ~ {}", startDate, endDate);
+        long startTime = System.currentTimeMillis();
+        int syncedDays = 0;
 
-            log.info("手动同步统计报告生成完成: {}", comprehensiveReport.get("reportType"));
+        try {
+            syncStatus.set("BACKFILL_RUNNING");
 
-            // 写入统计数据到BI数据库
-            boolean writeSuccess = biDataWriteService.writeAllStatistics(comprehensiveReport, date);
-            
-            if (writeSuccess) {
-                // 记录同步成功
-                lastSyncTime.set(LocalDateTime.now());
-                syncStatus.set("MANUAL_COMPLETED_SUCCESS");
-                
-                long executionTime = System.currentTimeMillis() - startTime;
-                log.info("手动数据同步执行完成，执行时间: {}ms, BI写入: 成功", executionTime);
-            } else {
-                syncStatus.set("MANUAL_FAILED_BI_WRITE");
-                log.error("手动同步统计数据写入BI数据库失败");
+            // 检查BI数据库连接
+            if (!biDataWriteService.checkConnection()) {
+                log.error("BI数据库连接失败，历史数据回填失败");
+                syncStatus.set("BACKFILL_FAILED_CONNECTION");
+                return 0;
             }
 
+            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+                String result = syncDateStreaming(date);
+                if ("COMPLETED_SUCCESS".equals(result) || "COMPLETED_NO_DATA".equals(result)) {
+                    syncedDays++;
+                } else {
+                    log.warn("历史数据回填失败: date={}, 结果: {}", date, result);
+                }
+            }
+
+            syncStatus.set("BACKFILL_COMPLETED");
+            log.info("历史数据回填完成: {} ~ {}, 成功{}天, 执行时间: {}ms",
+                    startDate, endDate, syncedDays, System.currentTimeMillis() - startTime);
+
         } catch (Exception e) {
-            log.error("手动数据同步执行失败", e);
-            syncStatus.set("MANUAL_FAILED_ERROR");
+            log.error("历史数据回填执行失败", e);
+            syncStatus.set("BACKFILL_FAILED_ERROR");
+        } finally {
+            syncInProgress.set(false);
+        }
+        return syncedDays;
+    }
+
+    @Override
+    public String syncDate(LocalDate date) {
+        return syncDateStreaming(date);
+    }
+
+    /**
+     * 以游标流式读取指定日期的匿名化投影，折叠进单次遍历聚合，然后写入BI
+     * 整个过程不物化预订列表，也不读取PII列，内存占用与当天预订量无关
+     *
+     * @return 同步结果：COMPLETED_SUCCESS / COMPLETED_NO_DATA / FAILED_ANONYMIZATION / FAILED_BI_WRITE
+     */
+    private String syncDateStreaming(LocalDate date) {
+        if (!isReservationProjectionAnonymized()) {
+            log.error("数据脱敏验证失败，存在未脱敏的PII信息: date={}", date);
+            return "FAILED_ANONYMIZATION";
+        }
+
+        DailyStatisticsAggregate aggregate = DailyStatisticsAggregate.singlePass(date);
+
+        // MyBatis游标需要在事务（同一SqlSession）内消费
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Cursor<AnonymizedReservation> cursor = reservationMapper.streamByDate(date)) {
+                for (AnonymizedReservation reservation : cursor) {
+                    aggregate.apply(reservation);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        log.info("流式读取{}的预订数据完成: {}条", date, aggregate.getTotalReservations());
+        if (aggregate.getTotalReservations() == 0) {
+            log.info("{}无预订数据，跳过同步", date);
+            return "COMPLETED_NO_DATA";
+        }
+
+        // 生成统计报告并写入BI数据库
+        StatisticsReportDto comprehensiveReport = statisticsReportService.generateReportFromAggregate(aggregate);
+        if (!biDataWriteService.writeAllStatistics(comprehensiveReport, date)) {
+            log.error("统计数据写入BI数据库失败: date={}", date);
+            return "FAILED_BI_WRITE";
         }
+
+        lastSyncTime.set(LocalDateTime.now());
+        return "COMPLETED_SUCCESS";
     }
 
     @Override
@@ -177,16 +596,10 @@ public class DataSyncScheduledServiceImpl implements DataSyncScheduledService {
     }
 
     /**
-     * 获取今日的预订数据
-     */
-    private List<Reservation> getTodayReservations(LocalDate date) {
-        return reservationMapper.selectTodayReservations();
-    }
-
-    /**
-     * 获取指定日期的预订数据
+     * 校验预订匿名化投影不含PII（结果由脱敏服务缓存，每种投影只校验一次）
      */
-    private List<Reservation> getDateReservations(LocalDate date) {
-        return reservationMapper.selectByDate(date);
+    private boolean isReservationProjectionAnonymized() {
+        return dataAnonymizationService.isProjectionAnonymized(
+                AnonymizedReservation.class, ReservationMapper.ANONYMIZED_COLUMNS);
     }
 }
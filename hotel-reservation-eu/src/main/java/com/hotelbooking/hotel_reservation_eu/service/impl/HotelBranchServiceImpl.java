@@ -1,34 +1,35 @@
 package com.hotelbooking.hotel_reservation_eu.service.impl;
 
-import com.hotelbooking.hotel_reservation_eu.mapper.HotelBranchMapper;
 import com.hotelbooking.hotel_reservation_eu.model.HotelBranch;
 import com.hotelbooking.hotel_reservation_eu.service.HotelBranchService;
+import com.hotelbooking.hotel_reservation_eu.service.ReferenceDataCacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 /**
  * 酒店分店服务实现类
+ * 读取经过参考数据近端缓存，不再每次查询数据库
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class HotelBranchServiceImpl implements HotelBranchService {
 
-    private final HotelBranchMapper hotelBranchMapper;
+    private final ReferenceDataCacheService referenceDataCacheService;
 
     @Override
     public HotelBranch getHotelBranchById(Long id) {
-        log.info("根据ID获取分店信息: id={}", id);
+        log.debug("根据ID获取分店信息: id={}", id);
         
         try {
-            HotelBranch hotelBranch = hotelBranchMapper.selectByIdAndActive(id);
+            HotelBranch hotelBranch = referenceDataCacheService.getActiveBranch(id);
             if (hotelBranch == null) {
                 log.warn("分店不存在或已停用: id={}", id);
                 return null;
             }
             
-            log.info("成功获取分店信息: id={}, name={}", id, hotelBranch.getBranchName());
+            log.debug("成功获取分店信息: id={}, name={}", id, hotelBranch.getBranchName());
             return hotelBranch;
             
         } catch (Exception e) {
@@ -39,13 +40,13 @@ public class HotelBranchServiceImpl implements HotelBranchService {
 
     @Override
     public boolean isHotelBranchAvailable(Long id) {
-        log.info("检查分店可用性: id={}", id);
+        log.debug("检查分店可用性: id={}", id);
         
         try {
-            HotelBranch hotelBranch = hotelBranchMapper.selectByIdAndActive(id);
+            HotelBranch hotelBranch = referenceDataCacheService.getActiveBranch(id);
             boolean available = hotelBranch != null;
             
-            log.info("分店可用性检查结果: id={}, available={}", id, available);
+            log.debug("分店可用性检查结果: id={}, available={}", id, available);
             return available;
             
         } catch (Exception e) {
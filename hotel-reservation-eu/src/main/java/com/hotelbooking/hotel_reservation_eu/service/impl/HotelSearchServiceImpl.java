@@ -0,0 +1,217 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.hotelbooking.hotel_reservation_eu.search.AmenityDictionary;
+import com.hotelbooking.hotel_reservation_eu.search.AmenityFacet;
+import com.hotelbooking.hotel_reservation_eu.search.BranchInventory;
+import com.hotelbooking.hotel_reservation_eu.search.InventoryEntry;
+import com.hotelbooking.hotel_reservation_eu.search.SearchCursor;
+import com.hotelbooking.hotel_reservation_eu.search.SearchHit;
+import com.hotelbooking.hotel_reservation_eu.search.SearchPage;
+import com.hotelbooking.hotel_reservation_eu.search.SearchParams;
+import com.hotelbooking.hotel_reservation_eu.search.TopKCollector;
+import com.hotelbooking.hotel_reservation_eu.service.BranchInventoryIndexService;
+import com.hotelbooking.hotel_reservation_eu.service.HotelSearchService;
+import com.hotelbooking.hotel_reservation_eu.service.RoomAvailabilityService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 酒店搜索服务实现类
+ * 分店列表和房源都来自内存索引，剩余房间数来自按晚台账，整个搜索不访问数据库。
+ * 每个分店一个任务提交到有界线程池并行计算，分店内先取前 pageSize+1 条，
+ * 主线程按完成顺序把各分店结果流式并入Top-K收集器，内存只与页大小和分店数相关。
+ * 线程池队列满时由请求线程自己执行任务（背压），不会无限堆积
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HotelSearchServiceImpl implements HotelSearchService {
+
+    private final BranchInventoryIndexService branchInventoryIndexService;
+    private final RoomAvailabilityService roomAvailabilityService;
+
+    /** 并行计算分店的线程数 */
+    @Value("${search.fan-out.threads:8}")
+    private int fanOutThreads;
+
+    /** 等待分店任务的队列容量 */
+    @Value("${search.fan-out.queue-capacity:256}")
+    private int queueCapacity;
+
+    /** 单次搜索等待所有分店的最长时间（毫秒），超时的分店不计入结果 */
+    @Value("${search.fan-out.timeout-ms:2000}")
+    private long timeoutMs;
+
+    /** 每页最大条数 */
+    @Value("${search.max-page-size:100}")
+    private int maxPageSize;
+
+    private ThreadPoolExecutor fanOutPool;
+
+    /** 单个分店的计算结果：满足条件的总数、排在游标之后的前K条，以及按设施编号的分面计数 */
+    private record BranchResult(int matched, List<SearchHit> topHits, int[] amenityCounts) {
+    }
+
+    @PostConstruct
+    public void start() {
+        fanOutPool = new ThreadPoolExecutor(fanOutThreads, fanOutThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreadFactory("search-fan-out-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        fanOutPool.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        fanOutPool.shutdown();
+        if (!fanOutPool.awaitTermination(5, TimeUnit.SECONDS)) {
+            fanOutPool.shutdownNow();
+        }
+    }
+
+    @Override
+    public SearchPage searchBranch(BranchInventory inventory, SearchParams params) {
+        List<InventoryEntry> entries = inventory.getEntries();
+        int[] candidates = inventory.select(params.guests(), params.rooms(), params.amenityIds());
+        int[] matched = new int[candidates.length];
+        List<SearchHit> hits = new ArrayList<>(candidates.length);
+
+        for (int index : candidates) {
+            InventoryEntry entry = entries.get(index);
+            // 没有价格的房源不可预订，与多分店搜索一致不返回
+            if (entry.effectivePrice() == null) {
+                continue;
+            }
+            int freeRooms = roomAvailabilityService.getFreeRooms(inventory.getBranchId(), entry,
+                    params.checkin(), params.checkout());
+            if (freeRooms < params.rooms()) {
+                continue;
+            }
+            matched[hits.size()] = index;
+            hits.add(new SearchHit(inventory, entry, freeRooms));
+        }
+
+        int[] amenityCounts = new int[AmenityDictionary.size()];
+        inventory.countAmenities(Arrays.copyOf(matched, hits.size()), amenityCounts);
+        return new SearchPage(hits, hits.size(), 1, null, AmenityFacet.fromCounts(amenityCounts));
+    }
+
+    @Override
+    public SearchPage searchByLocation(SearchParams params, SearchCursor cursor, int pageSize) {
+        long start = System.currentTimeMillis();
+        int limit = Math.max(1, Math.min(pageSize, maxPageSize));
+        List<BranchInventory> branches = branchInventoryIndexService.findBranches(params.city(), params.country());
+
+        // 多取一条用于判断是否还有下一页
+        TopKCollector<SearchHit> collector = new TopKCollector<>(limit + 1, SearchHit.PRICE_ORDER);
+        List<int[]> branchAmenityCounts = new ArrayList<>(branches.size());
+        long totalResults = 0;
+
+        if (branches.size() == 1) {
+            BranchResult result = searchBranch(branches.get(0), params, cursor, limit + 1);
+            totalResults = result.matched();
+            collector.offerAll(result.topHits());
+            branchAmenityCounts.add(result.amenityCounts());
+        } else if (!branches.isEmpty()) {
+            CompletionService<BranchResult> completionService = new ExecutorCompletionService<>(fanOutPool);
+            List<Future<BranchResult>> futures = new ArrayList<>(branches.size());
+            for (BranchInventory branch : branches) {
+                futures.add(completionService.submit(() -> searchBranch(branch, params, cursor, limit + 1)));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    Future<BranchResult> future = completionService.poll(
+                            deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (future == null) {
+                        log.warn("多分店搜索超时，部分分店未计入结果 - 城市: {}, 国家: {}, 完成: {}/{}",
+                                params.city(), params.country(), i, futures.size());
+                        break;
+                    }
+                    try {
+                        BranchResult result = future.get();
+                        totalResults += result.matched();
+                        collector.offerAll(result.topHits());
+                        branchAmenityCounts.add(result.amenityCounts());
+                    } catch (ExecutionException e) {
+                        log.warn("分店搜索失败，跳过该分店: {}", e.getCause().getMessage());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+
+        List<SearchHit> hits = collector.toSortedList();
+        String nextCursor = null;
+        if (hits.size() > limit) {
+            hits = new ArrayList<>(hits.subList(0, limit));
+            nextCursor = hits.get(limit - 1).toCursor().encode();
+        }
+
+        // 各分店的计数数组长度不超过分店任务结束后的字典大小
+        int[] amenityCounts = new int[AmenityDictionary.size()];
+        for (int[] counts : branchAmenityCounts) {
+            for (int id = 0; id < counts.length; id++) {
+                amenityCounts[id] += counts[id];
+            }
+        }
+
+        log.debug("多分店搜索完成 - 城市: {}, 国家: {}, 分店数: {}, 结果数: {}, 耗时: {}ms",
+                params.city(), params.country(), branches.size(), totalResults, System.currentTimeMillis() - start);
+        return new SearchPage(hits, totalResults, branches.size(), nextCursor, AmenityFacet.fromCounts(amenityCounts));
+    }
+
+    /**
+     * 计算单个分店的可售房型：先按客人数、房间数和设施在索引中筛选，再对候选房型查询按晚房量，
+     * 统计满足条件的总数和设施分面，只保留排在游标之后的前 k 条
+     */
+    private BranchResult searchBranch(BranchInventory branch, SearchParams params, SearchCursor cursor, int k) {
+        TopKCollector<SearchHit> collector = new TopKCollector<>(k, SearchHit.PRICE_ORDER);
+        List<InventoryEntry> entries = branch.getEntries();
+        int[] candidates = branch.select(params.guests(), params.rooms(), params.amenityIds());
+        int[] matched = new int[candidates.length];
+        int matchedCount = 0;
+        for (int index : candidates) {
+            InventoryEntry entry = entries.get(index);
+            if (entry.effectivePrice() == null) {
+                continue;
+            }
+            int freeRooms = roomAvailabilityService.getFreeRooms(branch.getBranchId(), entry,
+                    params.checkin(), params.checkout());
+            if (freeRooms < params.rooms()) {
+                continue;
+            }
+            matched[matchedCount++] = index;
+            SearchHit hit = new SearchHit(branch, entry, freeRooms);
+            if (hit.isAfter(cursor)) {
+                collector.offer(hit);
+            }
+        }
+
+        int[] amenityCounts = new int[AmenityDictionary.size()];
+        branch.countAmenities(Arrays.copyOf(matched, matchedCount), amenityCounts);
+        return new BranchResult(matchedCount, collector.toSortedList(), amenityCounts);
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,130 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.hotelbooking.hotel_reservation_eu.service.KeyManagementService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 本地密钥管理服务（KMS的本地替代实现）
+ * 主密钥来自配置 aws.kms.local.master-keys（"主密钥ID=密钥,主密钥ID=密钥"），用AES-GCM加密数据密钥，
+ * 主密钥ID作为附加认证数据，密文不能换到其他主密钥下解密。轮换主密钥时新增一项并修改 active-master-key-id，
+ * 旧主密钥需保留到所有数据密钥都重新加密之后
+ */
+@Slf4j
+@Service
+public class LocalKeyManagementService implements KeyManagementService {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int DATA_KEY_LENGTH = 32;
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_LENGTH = 16;
+
+    @Value("${aws.kms.local.master-keys}")
+    private String masterKeysConfig;
+
+    @Value("${aws.kms.local.active-master-key-id}")
+    private String activeMasterKeyId;
+
+    private final Map<String, SecretKeySpec> masterKeys = new HashMap<>();
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public LocalKeyManagementService() {
+    }
+
+    /**
+     * 直接指定主密钥（用于测试）
+     */
+    public LocalKeyManagementService(String masterKeysConfig, String activeMasterKeyId) {
+        this.masterKeysConfig = masterKeysConfig;
+        this.activeMasterKeyId = activeMasterKeyId;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        masterKeys.clear();
+        for (String entry : masterKeysConfig.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator <= 0 || separator == entry.length() - 1) {
+                throw new IllegalStateException("主密钥配置格式错误，应为 主密钥ID=密钥");
+            }
+            masterKeys.put(entry.substring(0, separator).trim(), deriveKey(entry.substring(separator + 1).trim()));
+        }
+        if (!masterKeys.containsKey(activeMasterKeyId)) {
+            throw new IllegalStateException("当前主密钥未配置: " + activeMasterKeyId);
+        }
+        log.info("本地KMS初始化完成 - 主密钥数: {}, 当前主密钥: {}", masterKeys.size(), activeMasterKeyId);
+    }
+
+    @Override
+    public String getActiveMasterKeyId() {
+        return activeMasterKeyId;
+    }
+
+    @Override
+    public DataKey generateDataKey() {
+        byte[] plaintextKey = new byte[DATA_KEY_LENGTH];
+        secureRandom.nextBytes(plaintextKey);
+        return encryptDataKey(plaintextKey);
+    }
+
+    @Override
+    public DataKey encryptDataKey(byte[] plaintextKey) {
+        try {
+            byte[] iv = new byte[GCM_IV_LENGTH];
+            secureRandom.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, masterKey(activeMasterKeyId), new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv));
+            cipher.updateAAD(activeMasterKeyId.getBytes(StandardCharsets.UTF_8));
+
+            byte[] encryptedKey = new byte[GCM_IV_LENGTH + plaintextKey.length + GCM_TAG_LENGTH];
+            System.arraycopy(iv, 0, encryptedKey, 0, GCM_IV_LENGTH);
+            cipher.doFinal(plaintextKey, 0, plaintextKey.length, encryptedKey, GCM_IV_LENGTH);
+            return new DataKey(activeMasterKeyId, plaintextKey, encryptedKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("加密数据密钥失败", e);
+        }
+    }
+
+    @Override
+    public byte[] decryptDataKey(String masterKeyId, byte[] encryptedKey) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, masterKey(masterKeyId),
+                    new GCMParameterSpec(GCM_TAG_LENGTH * 8, encryptedKey, 0, GCM_IV_LENGTH));
+            cipher.updateAAD(masterKeyId.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(encryptedKey, GCM_IV_LENGTH, encryptedKey.length - GCM_IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("解密数据密钥失败: " + masterKeyId, e);
+        }
+    }
+
+    private SecretKeySpec masterKey(String masterKeyId) {
+        SecretKeySpec key = masterKeys.get(masterKeyId);
+        if (key == null) {
+            throw new IllegalArgumentException("主密钥不存在: " + masterKeyId);
+        }
+        return key;
+    }
+
+    private static SecretKeySpec deriveKey(String secret) {
+        try {
+            byte[] keyBytes = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            return new SecretKeySpec(keyBytes, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("派生主密钥失败", e);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.hotelbooking.hotel_reservation_eu.dto.StatisticsReportDto;
+import com.hotelbooking.hotel_reservation_eu.event.ReservationChangedEvent;
+import com.hotelbooking.hotel_reservation_eu.mapper.ReservationMapper;
+import com.hotelbooking.hotel_reservation_eu.model.AnonymizedReservation;
+import com.hotelbooking.hotel_reservation_eu.service.BiDataWriteService;
+import com.hotelbooking.hotel_reservation_eu.service.DataAnonymizationService;
+import com.hotelbooking.hotel_reservation_eu.service.RealtimeStatisticsService;
+import com.hotelbooking.hotel_reservation_eu.service.StatisticsReportService;
+import com.hotelbooking.hotel_reservation_eu.statistics.DailyStatisticsAggregate;
+import com.hotelbooking.hotel_reservation_eu.statistics.RealtimeDayCounters;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 实时统计服务实现类
+ * 预订事务提交后，事件在提交线程中直接折叠进对应日期的LongAdder计数器（不访问数据库）；
+ * 定时任务调用 flushDirtyDates 时只为有变化的日期生成报告并写入BI。
+ * 每个日期在本进程内只做一次种子扫描，之后的统计完全由事件驱动。
+ * 计数器只能看到本实例提交的变更，只适用于单实例部署；启用outbox同步时不折叠事件（outbox模式不刷新计数器）
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RealtimeStatisticsServiceImpl implements RealtimeStatisticsService {
+
+    private final ReservationMapper reservationMapper;
+    private final DataAnonymizationService dataAnonymizationService;
+    private final StatisticsReportService statisticsReportService;
+    private final BiDataWriteService biDataWriteService;
+    private final PlatformTransactionManager transactionManager;
+
+    /** 是否启用实时统计 */
+    @Value("${data-sync.realtime.enabled:false}")
+    private boolean enabled;
+
+    /** 内存中保留的天数（含今天），更早且已刷新的日期会被移除 */
+    @Value("${data-sync.realtime.retained-days:2}")
+    private int retainedDays;
+
+    /** 是否启用outbox同步（启用时由outbox负责同步，实时统计不生效） */
+    @Value("${data-sync.outbox.enabled:false}")
+    private boolean outboxEnabled;
+
+    /** 只读事务模板，用于在同一SqlSession内消费种子扫描游标 */
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    /** 按统计日期的实时计数器 */
+    private final ConcurrentHashMap<LocalDate, RealtimeDayCounters> countersByDate = new ConcurrentHashMap<>();
+
+    private final AtomicLong appliedEvents = new AtomicLong();
+    private final AtomicLong flushedDates = new AtomicLong();
+    private final AtomicReference<LocalDateTime> lastFlushTime = new AtomicReference<>();
+
+    @PostConstruct
+    public void initTransactionTemplate() {
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+        if (enabled && outboxEnabled) {
+            log.warn("已启用outbox同步，实时统计不生效");
+        } else if (enabled) {
+            log.warn("已启用实时统计：计数器只包含本实例提交的变更，多实例部署会互相覆盖BI中的统计，请只在单实例部署时启用");
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled && !outboxEnabled;
+    }
+
+    /**
+     * 事务提交后再折叠，回滚的变更不会计入统计
+     */
+    @Override
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReservationChanged(ReservationChangedEvent event) {
+        // outbox模式下不会刷新和清理计数器，不能继续折叠
+        if (!isEnabled() || event.reportDate() == null) {
+            return;
+        }
+        RealtimeDayCounters counters = countersByDate.computeIfAbsent(event.reportDate(), RealtimeDayCounters::new);
+        if (event.reservationId() != null && counters.applyEvent(event.toAnonymized())) {
+            appliedEvents.incrementAndGet();
+        }
+    }
+
+    @Override
+    public int flushDirtyDates() {
+        int flushed = 0;
+        for (RealtimeDayCounters counters : countersByDate.values()) {
+            if (!counters.isDirty()) {
+                continue;
+            }
+            try {
+                if (flushDate(counters)) {
+                    flushed++;
+                }
+            } catch (Exception e) {
+                counters.markDirty();
+                log.error("实时统计刷新失败: date={}", counters.getDate(), e);
+            }
+        }
+        evictExpiredDates();
+        if (flushed > 0) {
+            flushedDates.addAndGet(flushed);
+            lastFlushTime.set(LocalDateTime.now());
+        }
+        return flushed;
+    }
+
+    /**
+     * 刷新一个日期：必要时先做种子扫描，再读取计数器快照写入BI
+     */
+    private boolean flushDate(RealtimeDayCounters counters) {
+        LocalDate date = counters.getDate();
+        if (!counters.isSeeded()) {
+            seed(counters);
+        }
+
+        // 先清除标记再读快照，读快照期间到达的事件会重新标记，下次刷新补上
+        counters.clearDirty();
+        DailyStatisticsAggregate snapshot = counters.snapshot();
+        if (snapshot.getTotalReservations() == 0) {
+            return false;
+        }
+
+        StatisticsReportDto comprehensiveReport = statisticsReportService.generateReportFromAggregate(snapshot);
+        if (!biDataWriteService.writeAllStatistics(comprehensiveReport, date)) {
+            counters.markDirty();
+            log.error("实时统计写入BI数据库失败: date={}", date);
+            return false;
+        }
+        log.info("实时统计刷新完成: date={}, 预订{}条", date, snapshot.getTotalReservations());
+        return true;
+    }
+
+    /**
+     * 以游标流式读取该日期已有预订的匿名化投影作为计数器初值
+     * 种子只填充尚未被事件覆盖的预订，扫描中途失败后重试也不会重复计数
+     */
+    private void seed(RealtimeDayCounters counters) {
+        LocalDate date = counters.getDate();
+        long startTime = System.currentTimeMillis();
+        if (!dataAnonymizationService.isProjectionAnonymized(
+                AnonymizedReservation.class, ReservationMapper.ANONYMIZED_COLUMNS)) {
+            throw new IllegalStateException("数据脱敏验证失败，存在未脱敏的PII信息");
+        }
+        Integer seededCount = readOnlyTransactionTemplate.execute(status -> {
+            int count = 0;
+            try (Cursor<AnonymizedReservation> cursor = reservationMapper.streamByDate(date)) {
+                for (AnonymizedReservation reservation : cursor) {
+                    if (counters.applySeed(reservation)) {
+                        count++;
+                    }
+                }
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        counters.markSeeded();
+        log.info("实时统计种子扫描完成: date={}, 计入{}条, 执行时间: {}ms",
+                date, seededCount, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 移除保留期之外且已刷新的日期，之后再收到这些日期的事件时会重新做种子扫描
+     */
+    private void evictExpiredDates() {
+        LocalDate oldestRetained = LocalDate.now().minusDays(Math.max(retainedDays, 1) - 1L);
+        countersByDate.values().removeIf(counters ->
+                counters.getDate().isBefore(oldestRetained) && !counters.isDirty());
+    }
+
+    @Override
+    public long getAppliedEventCount() {
+        return appliedEvents.get();
+    }
+
+    @Override
+    public Map<String, Object> getRealtimeStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", isEnabled());
+        if (!isEnabled()) {
+            return status;
+        }
+
+        List<LocalDate> trackedDates = new ArrayList<>();
+        List<LocalDate> dirtyDates = new ArrayList<>();
+        long trackedReservations = 0;
+        for (RealtimeDayCounters counters : countersByDate.values()) {
+            trackedDates.add(counters.getDate());
+            if (counters.isDirty()) {
+                dirtyDates.add(counters.getDate());
+            }
+            trackedReservations += counters.trackedReservations();
+        }
+        Collections.sort(trackedDates);
+        Collections.sort(dirtyDates);
+        status.put("trackedDates", trackedDates);
+        status.put("dirtyDates", dirtyDates);
+        status.put("trackedReservations", trackedReservations);
+        status.put("appliedEvents", appliedEvents.get());
+        status.put("flushedDates", flushedDates.get());
+        status.put("lastFlushTime", lastFlushTime.get());
+        return status;
+    }
+}
@@ -0,0 +1,137 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.hotelbooking.hotel_reservation_eu.cache.NearCache;
+import com.hotelbooking.hotel_reservation_eu.cache.NearCacheStats;
+import com.hotelbooking.hotel_reservation_eu.event.InventoryChangedEvent;
+import com.hotelbooking.hotel_reservation_eu.mapper.HotelBranchMapper;
+import com.hotelbooking.hotel_reservation_eu.mapper.RoomTypeBranchMappingMapper;
+import com.hotelbooking.hotel_reservation_eu.mapper.RoomTypeMapper;
+import com.hotelbooking.hotel_reservation_eu.model.HotelBranch;
+import com.hotelbooking.hotel_reservation_eu.model.RoomType;
+import com.hotelbooking.hotel_reservation_eu.model.RoomTypeBranchMapping;
+import com.hotelbooking.hotel_reservation_eu.service.ReferenceDataCacheService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 参考数据近端缓存服务实现类
+ * 房型、分店、房型分店关联各一个有容量上限和过期时间的进程内缓存，不存在或已停用的结果也会缓存。
+ * 失效在事务提交后执行，避免其他请求在提交前把旧数据重新加载进缓存
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReferenceDataCacheServiceImpl implements ReferenceDataCacheService {
+
+    private record MappingKey(Long roomTypeId, Long branchId) {
+    }
+
+    private final RoomTypeMapper roomTypeMapper;
+    private final HotelBranchMapper hotelBranchMapper;
+    private final RoomTypeBranchMappingMapper roomTypeBranchMappingMapper;
+
+    /** 每个缓存的最大条数 */
+    @Value("${reference-cache.max-size:10000}")
+    private int maxSize;
+
+    /** 缓存有效期（秒），决定其他实例的修改最迟多久后生效 */
+    @Value("${reference-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private NearCache<Long, RoomType> roomTypes;
+    private NearCache<Long, HotelBranch> branches;
+    private NearCache<MappingKey, RoomTypeBranchMapping> mappings;
+
+    @PostConstruct
+    public void init() {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        roomTypes = new NearCache<>("roomTypes", maxSize, ttl);
+        branches = new NearCache<>("branches", maxSize, ttl);
+        mappings = new NearCache<>("roomTypeBranchMappings", maxSize, ttl);
+        log.info("参考数据缓存初始化完成 - 最大条数: {}, 有效期: {}秒", maxSize, ttlSeconds);
+    }
+
+    @Override
+    public RoomType getActiveRoomType(Long roomTypeId) {
+        if (roomTypeId == null) {
+            return null;
+        }
+        return roomTypes.get(roomTypeId, id -> {
+            log.debug("加载房型: id={}", id);
+            return roomTypeMapper.selectByIdAndActive(id);
+        });
+    }
+
+    @Override
+    public HotelBranch getActiveBranch(Long branchId) {
+        if (branchId == null) {
+            return null;
+        }
+        return branches.get(branchId, id -> {
+            log.debug("加载分店: id={}", id);
+            return hotelBranchMapper.selectByIdAndActive(id);
+        });
+    }
+
+    @Override
+    public RoomTypeBranchMapping getActiveMapping(Long roomTypeId, Long branchId) {
+        if (roomTypeId == null || branchId == null) {
+            return null;
+        }
+        return mappings.get(new MappingKey(roomTypeId, branchId), key -> {
+            log.debug("加载房型分店关联: roomTypeId={}, branchId={}", key.roomTypeId(), key.branchId());
+            QueryWrapper<RoomTypeBranchMapping> queryWrapper = new QueryWrapper<>();
+            queryWrapper.eq("room_type_id", key.roomTypeId())
+                    .eq("hotel_branch_id", key.branchId())
+                    .eq("is_active", 1);
+            return roomTypeBranchMappingMapper.selectOne(queryWrapper);
+        });
+    }
+
+    @Override
+    public void invalidateRoomType(Long roomTypeId) {
+        roomTypes.invalidate(roomTypeId);
+        mappings.invalidateIf(key -> key.roomTypeId().equals(roomTypeId));
+    }
+
+    @Override
+    public void invalidateBranch(Long branchId) {
+        branches.invalidate(branchId);
+        mappings.invalidateIf(key -> key.branchId().equals(branchId));
+    }
+
+    @Override
+    public void invalidateAll() {
+        roomTypes.invalidateAll();
+        branches.invalidateAll();
+        mappings.invalidateAll();
+        log.info("参考数据缓存已清空");
+    }
+
+    @Override
+    public List<NearCacheStats> getCacheStats() {
+        return List.of(roomTypes.stats(), branches.stats(), mappings.stats());
+    }
+
+    /**
+     * 运营端修改分店、房型或关联并提交后失效对应缓存
+     */
+    @Override
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (event.roomTypeId() != null) {
+            invalidateRoomType(event.roomTypeId());
+        }
+        event.branchIds().forEach(this::invalidateBranch);
+        log.debug("房源数据变更，已失效参考数据缓存 - 分店: {}, 房型: {}", event.branchIds(), event.roomTypeId());
+    }
+}
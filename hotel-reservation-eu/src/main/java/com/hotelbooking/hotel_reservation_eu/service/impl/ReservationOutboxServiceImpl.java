@@ -0,0 +1,295 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.hotelbooking.hotel_reservation_eu.mapper.ReservationOutboxMapper;
+import com.hotelbooking.hotel_reservation_eu.model.Reservation;
+import com.hotelbooking.hotel_reservation_eu.model.ReservationOutboxEvent;
+import com.hotelbooking.hotel_reservation_eu.service.DataSyncScheduledService;
+import com.hotelbooking.hotel_reservation_eu.service.ReservationOutboxService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 预订变更Outbox服务实现类
+ * 独立的调度线程按固定间隔拉取到期事件，按统计日期合并后提交到有界工作线程池：
+ * 每个日期同一时间只有一个工作线程在同步，工作队列满时停止拉取（背压），
+ * 同步失败按带随机抖动的指数退避重试，超过最大次数后移入死信表。
+ * 整个流程不占用Spring默认的定时任务线程
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReservationOutboxServiceImpl implements ReservationOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final ReservationOutboxMapper reservationOutboxMapper;
+    private final DataSyncScheduledService dataSyncScheduledService;
+    private final PlatformTransactionManager transactionManager;
+
+    /** 是否启用outbox同步 */
+    @Value("${data-sync.outbox.enabled:false}")
+    private boolean enabled;
+
+    /** 拉取到期事件的间隔（毫秒） */
+    @Value("${data-sync.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    /** 每次拉取的最大事件数 */
+    @Value("${data-sync.outbox.batch-size:500}")
+    private int batchSize;
+
+    /** 工作线程数（BI连接池较小，不宜过大） */
+    @Value("${data-sync.outbox.worker-threads:2}")
+    private int workerThreads;
+
+    /** 工作队列容量，队列满时暂停拉取 */
+    @Value("${data-sync.outbox.queue-capacity:16}")
+    private int queueCapacity;
+
+    /** 最大尝试次数，超过后移入死信表 */
+    @Value("${data-sync.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    /** 首次重试的退避时间（毫秒） */
+    @Value("${data-sync.outbox.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    /** 最大退避时间（毫秒） */
+    @Value("${data-sync.outbox.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    private TransactionTemplate transactionTemplate;
+    private ScheduledExecutorService dispatcher;
+    private ThreadPoolExecutor workerPool;
+
+    /** 正在同步中的统计日期，保证同一日期不会被并发重算 */
+    private final Set<LocalDate> inFlightDates = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong processedEvents = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong deadLetteredEvents = new AtomicLong();
+    private final AtomicReference<LocalDateTime> lastSuccessTime = new AtomicReference<>();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Outbox同步未启用");
+            return;
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        workerPool = new ThreadPoolExecutor(workerThreads, workerThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreadFactory("bi-outbox-worker-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        dispatcher = Executors.newSingleThreadScheduledExecutor(namedThreadFactory("bi-outbox-dispatcher-"));
+        dispatcher.scheduleWithFixedDelay(this::dispatchSafely, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Outbox同步已启动: workerThreads={}, queueCapacity={}, batchSize={}, pollInterval={}ms",
+                workerThreads, queueCapacity, batchSize, pollIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (dispatcher == null) {
+            return;
+        }
+        dispatcher.shutdownNow();
+        workerPool.shutdown();
+        if (!workerPool.awaitTermination(30, TimeUnit.SECONDS)) {
+            // 未完成的事件仍在outbox表中，重启后继续同步
+            workerPool.shutdownNow();
+        }
+        log.info("Outbox同步已停止");
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendEvent(Reservation reservation, String eventType) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdAt = reservation.getCreatedAt() != null ? reservation.getCreatedAt() : now;
+        reservationOutboxMapper.insert(ReservationOutboxEvent.builder()
+                .reservationId(reservation.getId())
+                .eventType(eventType)
+                .reportDate(createdAt.toLocalDate())
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    @Override
+    public Map<String, Object> getOutboxStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", enabled);
+        if (!enabled) {
+            return status;
+        }
+
+        try {
+            LocalDateTime oldest = reservationOutboxMapper.selectOldestCreatedAt();
+            status.put("queueDepth", reservationOutboxMapper.countPending());
+            status.put("syncLagSeconds", oldest != null ? Duration.between(oldest, LocalDateTime.now()).getSeconds() : 0L);
+            status.put("deadLetterCount", reservationOutboxMapper.countDeadLetters());
+        } catch (Exception e) {
+            log.warn("查询Outbox状态失败: {}", e.getMessage());
+        }
+        status.put("workerQueueDepth", workerPool.getQueue().size());
+        status.put("activeWorkers", workerPool.getActiveCount());
+        status.put("inFlightDates", new ArrayList<>(inFlightDates));
+        status.put("processedEvents", processedEvents.get());
+        status.put("failedAttempts", failedAttempts.get());
+        status.put("deadLetteredEvents", deadLetteredEvents.get());
+        status.put("lastSuccessTime", lastSuccessTime.get());
+        return status;
+    }
+
+    private void dispatchSafely() {
+        try {
+            dispatch();
+        } catch (Exception e) {
+            log.error("拉取Outbox事件失败", e);
+        }
+    }
+
+    /**
+     * 拉取到期事件，按统计日期合并后提交到工作线程池
+     */
+    private void dispatch() {
+        if (workerPool.getQueue().remainingCapacity() == 0) {
+            log.debug("Outbox工作队列已满，暂停拉取");
+            return;
+        }
+
+        List<ReservationOutboxEvent> dueEvents = reservationOutboxMapper.selectDue(
+                LocalDateTime.now(), new ArrayList<>(inFlightDates), batchSize);
+        if (dueEvents.isEmpty()) {
+            return;
+        }
+
+        Map<LocalDate, List<ReservationOutboxEvent>> eventsByDate = new LinkedHashMap<>();
+        for (ReservationOutboxEvent event : dueEvents) {
+            eventsByDate.computeIfAbsent(event.getReportDate(), d -> new ArrayList<>()).add(event);
+        }
+
+        for (Map.Entry<LocalDate, List<ReservationOutboxEvent>> entry : eventsByDate.entrySet()) {
+            LocalDate date = entry.getKey();
+            if (!inFlightDates.add(date)) {
+                continue;
+            }
+            try {
+                workerPool.execute(() -> syncDate(date, entry.getValue()));
+            } catch (RejectedExecutionException e) {
+                // 工作队列已满，剩余事件留在outbox表中下次拉取
+                inFlightDates.remove(date);
+                log.debug("Outbox工作队列已满，{}的事件延后同步", date);
+                break;
+            }
+        }
+    }
+
+    /**
+     * 重算一个统计日期并写入BI，成功后删除对应事件
+     */
+    private void syncDate(LocalDate date, List<ReservationOutboxEvent> events) {
+        List<Long> eventIds = events.stream().map(ReservationOutboxEvent::getId).toList();
+        try {
+            String result = dataSyncScheduledService.syncDate(date);
+            if ("COMPLETED_SUCCESS".equals(result) || "COMPLETED_NO_DATA".equals(result)) {
+                reservationOutboxMapper.deleteByIds(eventIds);
+                processedEvents.addAndGet(eventIds.size());
+                lastSuccessTime.set(LocalDateTime.now());
+                log.info("Outbox同步完成: date={}, events={}, result={}", date, eventIds.size(), result);
+            } else {
+                handleFailure(date, events, result);
+            }
+        } catch (Exception e) {
+            log.error("Outbox同步异常: date={}", date, e);
+            handleFailure(date, events, e.getClass().getSimpleName() + ": " + e.getMessage());
+        } finally {
+            inFlightDates.remove(date);
+        }
+    }
+
+    /**
+     * 记录失败：未达上限的事件安排退避重试，达到上限的事件移入死信表
+     */
+    private void handleFailure(LocalDate date, List<ReservationOutboxEvent> events, String error) {
+        failedAttempts.incrementAndGet();
+        String lastError = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+
+        List<Long> retryIds = new ArrayList<>();
+        List<Long> deadIds = new ArrayList<>();
+        int maxRetryAttempt = 0;
+        for (ReservationOutboxEvent event : events) {
+            int attempt = (event.getAttempts() != null ? event.getAttempts() : 0) + 1;
+            if (attempt >= maxAttempts) {
+                deadIds.add(event.getId());
+            } else {
+                retryIds.add(event.getId());
+                maxRetryAttempt = Math.max(maxRetryAttempt, attempt);
+            }
+        }
+
+        try {
+            if (!retryIds.isEmpty()) {
+                LocalDateTime nextAttemptAt = LocalDateTime.now().plus(Duration.ofMillis(backoffMillis(maxRetryAttempt)));
+                reservationOutboxMapper.scheduleRetry(retryIds, nextAttemptAt, lastError);
+                log.warn("Outbox同步失败，安排重试: date={}, events={}, attempt={}, nextAttemptAt={}, error={}",
+                        date, retryIds.size(), maxRetryAttempt, nextAttemptAt, lastError);
+            }
+            if (!deadIds.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    reservationOutboxMapper.copyToDeadLetter(deadIds, lastError);
+                    reservationOutboxMapper.deleteByIds(deadIds);
+                });
+                deadLetteredEvents.addAndGet(deadIds.size());
+                log.error("Outbox事件超过最大重试次数，已移入死信表: date={}, events={}, error={}",
+                        date, deadIds.size(), lastError);
+            }
+        } catch (Exception e) {
+            // 事件仍在outbox表中，下次拉取时会再次尝试
+            log.error("记录Outbox同步失败状态失败: date={}", date, e);
+        }
+    }
+
+    /**
+     * 指数退避加随机抖动：在 [delay/2, delay] 之间随机取值，避免多个日期同时重试
+     */
+    private long backoffMillis(int attempt) {
+        long delay = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
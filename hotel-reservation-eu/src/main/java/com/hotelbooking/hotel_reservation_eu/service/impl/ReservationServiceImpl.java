@@ -2,15 +2,20 @@ package com.hotelbooking.hotel_reservation_eu.service.impl;
 
 import com.hotelbooking.hotel_reservation_eu.dto.ReservationRequestDto;
 import com.hotelbooking.hotel_reservation_eu.dto.ReservationResponseDto;
+import com.hotelbooking.hotel_reservation_eu.event.ReservationChangedEvent;
 import com.hotelbooking.hotel_reservation_eu.mapper.ReservationMapper;
 import com.hotelbooking.hotel_reservation_eu.mapper.RoomTypeMapper;
 import com.hotelbooking.hotel_reservation_eu.mapper.HotelBranchMapper;
 import com.hotelbooking.hotel_reservation_eu.model.HotelBranch;
 import com.hotelbooking.hotel_reservation_eu.model.Reservation;
+import com.hotelbooking.hotel_reservation_eu.model.ReservationOutboxEvent;
 import com.hotelbooking.hotel_reservation_eu.model.RoomType;
+import com.hotelbooking.hotel_reservation_eu.service.ReservationOutboxService;
 import com.hotelbooking.hotel_reservation_eu.service.ReservationService;
+import com.hotelbooking.hotel_reservation_eu.service.RoomAvailabilityService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,6 +36,9 @@ public class ReservationServiceImpl implements ReservationService {
     private final ReservationMapper reservationMapper;
     private final RoomTypeMapper roomTypeMapper;
     private final HotelBranchMapper hotelBranchMapper;
+    private final ReservationOutboxService reservationOutboxService;
+    private final RoomAvailabilityService roomAvailabilityService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -70,6 +78,10 @@ public class ReservationServiceImpl implements ReservationService {
         if (result != 1) {
             throw new RuntimeException("保存预订失败");
         }
+        // 按晚原子占用库存，房间不足时抛出异常回滚本次预订
+        roomAvailabilityService.reserveRooms(reservation);
+        reservationOutboxService.appendEvent(reservation, ReservationOutboxEvent.EVENT_CREATED);
+        eventPublisher.publishEvent(ReservationChangedEvent.of(reservation, ReservationOutboxEvent.EVENT_CREATED));
 
         log.info("预订创建成功: reservationId={}", reservation.getId());
 
@@ -129,6 +141,9 @@ public class ReservationServiceImpl implements ReservationService {
         if (result != 1) {
             throw new RuntimeException("取消预订失败");
         }
+        roomAvailabilityService.releaseRooms(reservation);
+        reservationOutboxService.appendEvent(reservation, ReservationOutboxEvent.EVENT_CANCELLED);
+        eventPublisher.publishEvent(ReservationChangedEvent.of(reservation, ReservationOutboxEvent.EVENT_CANCELLED));
 
         log.info("预订取消成功: reservationId={}", reservationId);
         return true;
@@ -166,6 +181,8 @@ public class ReservationServiceImpl implements ReservationService {
             log.error("数据库更新失败: reservationId={}, result={}", reservationId, result);
             throw new RuntimeException("支付处理失败");
         }
+        reservationOutboxService.appendEvent(reservation, ReservationOutboxEvent.EVENT_PAID);
+        eventPublisher.publishEvent(ReservationChangedEvent.of(reservation, ReservationOutboxEvent.EVENT_PAID));
 
         log.info("支付处理成功: reservationId={}", reservationId);
         return true;
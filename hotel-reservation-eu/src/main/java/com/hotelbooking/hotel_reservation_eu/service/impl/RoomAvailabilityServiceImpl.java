@@ -0,0 +1,290 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.hotelbooking.hotel_reservation_eu.event.ReservationChangedEvent;
+import com.hotelbooking.hotel_reservation_eu.mapper.ReservationMapper;
+import com.hotelbooking.hotel_reservation_eu.mapper.RoomNightInventoryMapper;
+import com.hotelbooking.hotel_reservation_eu.model.Reservation;
+import com.hotelbooking.hotel_reservation_eu.model.ReservationOutboxEvent;
+import com.hotelbooking.hotel_reservation_eu.search.InventoryEntry;
+import com.hotelbooking.hotel_reservation_eu.search.RoomStayLedger;
+import com.hotelbooking.hotel_reservation_eu.service.BranchInventoryIndexService;
+import com.hotelbooking.hotel_reservation_eu.service.RoomAvailabilityService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按晚房量服务实现类
+ * 台账在首次访问某个房型分店关联时从数据库加载一次（只读取入住区间和房间数），
+ * 之后由下单占用、事务回滚和取消事件增量维护；台账覆盖 [今天, 今天 + 2 × 可预订天数)，
+ * 可预订范围接近台账末尾时整体平移。每个房型分店关联一把锁，加载、平移和增量修改都在锁内进行，
+ * 加载期间到达的取消会等加载完成后作用在新台账上，不会丢失；搜索读取已加载的台账不加锁。
+ * 下单是否成功以 room_night_inventory 的原子条件更新为准，多个应用实例并发下单也不会超卖；
+ * 内存台账只用于搜索展示，其他实例的下单和取消不会通知本实例，台账超过有效期后由一个搜索线程从数据库重新加载，
+ * 其余线程继续使用旧台账，因此其他实例的变更最迟在有效期后可见
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RoomAvailabilityServiceImpl implements RoomAvailabilityService {
+
+    private final ReservationMapper reservationMapper;
+    private final BranchInventoryIndexService branchInventoryIndexService;
+    private final RoomNightInventoryMapper roomNightInventoryMapper;
+
+    /** 可预订天数：退房日期不能晚于今天加该天数 */
+    @Value("${availability.horizon-days:365}")
+    private int horizonDays;
+
+    /** 台账有效期（秒），决定其他实例的下单和取消最迟多久后可见 */
+    @Value("${availability.ledger-ttl-seconds:300}")
+    private long ledgerTtlSeconds;
+
+    private record LedgerKey(Long branchId, Long roomTypeId) {
+    }
+
+    /**
+     * 单个房型分店关联的台账槽位：台账引用只在持有 lock 时替换
+     */
+    private static final class LedgerSlot {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile RoomStayLedger ledger;
+        /** 台账的加载时间（System.nanoTime），平移不改变 */
+        private volatile long loadedAtNanos;
+    }
+
+    private final ConcurrentHashMap<LedgerKey, LedgerSlot> slots = new ConcurrentHashMap<>();
+
+    /** 按分店的房量版本，在台账修改之后递增 */
+    private final ConcurrentHashMap<Long, AtomicLong> availabilityVersions = new ConcurrentHashMap<>();
+
+    private RoomNightAllocator roomNightAllocator;
+
+    @PostConstruct
+    public void initAllocator() {
+        roomNightAllocator = new RoomNightAllocator(roomNightInventoryMapper);
+    }
+
+    @Override
+    public int getFreeRooms(Long branchId, InventoryEntry entry, LocalDate checkin, LocalDate checkout) {
+        LocalDate today = LocalDate.now();
+        if (!isBookable(today, checkin, checkout)) {
+            return 0;
+        }
+        return ledger(new LedgerKey(branchId, entry.roomTypeId()), today)
+                .freeRooms(checkin, checkout, entry.maxRoomsCount());
+    }
+
+    @Override
+    public long getAvailabilityVersion(Long branchId) {
+        AtomicLong version = availabilityVersions.get(branchId);
+        return version != null ? version.get() : 0L;
+    }
+
+    @Override
+    public void reserveRooms(Reservation reservation) {
+        Long branchId = reservation.getBranchId();
+        Long roomTypeId = reservation.getRoomTypeId();
+        InventoryEntry entry = branchInventoryIndexService.getBranchInventory(branchId).getEntries().stream()
+                .filter(candidate -> candidate.roomTypeId().equals(roomTypeId))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("该分店暂不提供此房型"));
+
+        LocalDate today = LocalDate.now();
+        if (!isBookable(today, reservation.getCheckinDate(), reservation.getCheckoutDate())) {
+            throw new IllegalArgumentException("只能预订" + horizonDays + "天内的日期");
+        }
+
+        int rooms = reservation.getRooms() != null ? reservation.getRooms() : 1;
+        boolean allocated = roomNightAllocator.allocate(branchId, roomTypeId, reservation.getCheckinDate(),
+                reservation.getCheckoutDate(), rooms, entry.maxRoomsCount(), reservation.getId());
+        if (!allocated) {
+            throw new IllegalArgumentException("所选日期没有足够的可用房间");
+        }
+
+        // 数据库已占用成功，同步到内存台账（台账加载时可能已读到本事务插入的行，计入是幂等的）
+        LedgerKey key = new LedgerKey(branchId, roomTypeId);
+        LedgerSlot slot = slot(key, today);
+        slot.lock.lock();
+        try {
+            slot.ledger.load(reservation.getId(), reservation.getCheckinDate(), reservation.getCheckoutDate(), rooms);
+        } finally {
+            slot.lock.unlock();
+        }
+        bumpAvailabilityVersion(branchId);
+
+        // 预订事务未提交时释放占用，避免回滚的预订永久占房；
+        // 提交后再计入一次（幂等），事务提交前重新加载的台账读不到本预订
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            long reservationId = reservation.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(key, reservationId);
+                    } else {
+                        restore(key, reservation, rooms);
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public void releaseRooms(Reservation reservation) {
+        int rooms = reservation.getRooms() != null ? reservation.getRooms() : 1;
+        roomNightAllocator.release(reservation.getBranchId(), reservation.getRoomTypeId(),
+                reservation.getCheckinDate(), reservation.getCheckoutDate(), rooms);
+    }
+
+    /**
+     * 内存台账在取消事务提交后释放；台账尚未开始加载时无需处理，之后的加载在取消提交之后查询，读不到已取消的预订；
+     * 正在加载或平移时等待其完成，再从新台账中释放
+     */
+    @Override
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReservationChanged(ReservationChangedEvent event) {
+        if (ReservationOutboxEvent.EVENT_CANCELLED.equals(event.eventType()) && event.reservationId() != null) {
+            release(new LedgerKey(event.branchId(), event.roomTypeId()), event.reservationId());
+        }
+    }
+
+    private void release(LedgerKey key, long reservationId) {
+        LedgerSlot slot = slots.get(key);
+        if (slot == null) {
+            return;
+        }
+        boolean released;
+        slot.lock.lock();
+        try {
+            released = slot.ledger != null && slot.ledger.release(reservationId);
+        } finally {
+            slot.lock.unlock();
+        }
+        if (released) {
+            bumpAvailabilityVersion(key.branchId());
+            log.debug("释放预订占用的房间 - 分店ID: {}, 房型ID: {}, 预订ID: {}",
+                    key.branchId(), key.roomTypeId(), reservationId);
+        }
+    }
+
+    /**
+     * 重新计入已提交的预订（已计入时不变）
+     */
+    private void restore(LedgerKey key, Reservation reservation, int rooms) {
+        LedgerSlot slot = slots.get(key);
+        if (slot == null) {
+            return;
+        }
+        slot.lock.lock();
+        try {
+            if (slot.ledger != null) {
+                slot.ledger.load(reservation.getId(), reservation.getCheckinDate(),
+                        reservation.getCheckoutDate(), rooms);
+            }
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+
+    private void bumpAvailabilityVersion(Long branchId) {
+        if (branchId != null) {
+            availabilityVersions.computeIfAbsent(branchId, id -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private boolean isBookable(LocalDate today, LocalDate checkin, LocalDate checkout) {
+        return checkin != null && checkout != null && checkout.isAfter(checkin)
+                && !checkin.isBefore(today) && !checkout.isAfter(today.plusDays(horizonDays));
+    }
+
+    /**
+     * 获取台账：首次访问时加载，可预订范围超出台账末尾时平移
+     */
+    private RoomStayLedger ledger(LedgerKey key, LocalDate today) {
+        return slot(key, today).ledger;
+    }
+
+    /**
+     * 获取已加载且覆盖可预订范围的台账槽位
+     * 加载和平移在槽位锁内进行：只阻塞同一房型分店关联的请求，不持有 ConcurrentHashMap 的哈希桶锁；
+     * 台账过期时只有拿到锁的线程重新加载，其余线程不等待，继续使用旧台账
+     */
+    private LedgerSlot slot(LedgerKey key, LocalDate today) {
+        LocalDate horizonEnd = today.plusDays(horizonDays);
+        LedgerSlot slot = slots.computeIfAbsent(key, k -> new LedgerSlot());
+        RoomStayLedger current = slot.ledger;
+        if (current != null && !horizonEnd.isAfter(current.getEnd())) {
+            if (isExpired(slot) && slot.lock.tryLock()) {
+                try {
+                    if (slot.ledger == current && isExpired(slot)) {
+                        reload(key, slot, today);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("重新加载房量台账失败，使用现有台账 - 分店ID: {}, 房型ID: {}, 原因: {}",
+                            key.branchId(), key.roomTypeId(), e.getMessage());
+                } finally {
+                    slot.lock.unlock();
+                }
+            }
+            return slot;
+        }
+        slot.lock.lock();
+        try {
+            current = slot.ledger;
+            if (current == null) {
+                reload(key, slot, today);
+            } else if (horizonEnd.isAfter(current.getEnd())) {
+                slot.ledger = current.rebase(today, horizonDays * 2);
+            }
+            return slot;
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+
+    private boolean isExpired(LedgerSlot slot) {
+        return System.nanoTime() - slot.loadedAtNanos > TimeUnit.SECONDS.toNanos(ledgerTtlSeconds);
+    }
+
+    /**
+     * 从数据库加载台账并替换槽位中的台账，调用方需持有槽位锁
+     */
+    private void reload(LedgerKey key, LedgerSlot slot, LocalDate today) {
+        boolean replacing = slot.ledger != null;
+        slot.ledger = load(key, today);
+        slot.loadedAtNanos = System.nanoTime();
+        if (replacing) {
+            bumpAvailabilityVersion(key.branchId());
+        }
+    }
+
+    private RoomStayLedger load(LedgerKey key, LocalDate today) {
+        RoomStayLedger ledger = new RoomStayLedger(today, horizonDays * 2);
+        // 先计数，没有未结束的预订时省去明细查询
+        int conflicting = reservationMapper.countConflictingReservations(
+                key.roomTypeId(), key.branchId(), today, ledger.getEnd());
+        if (conflicting > 0) {
+            for (Reservation stay : reservationMapper.selectConflictingStays(
+                    key.roomTypeId(), key.branchId(), today, ledger.getEnd())) {
+                ledger.load(stay.getId(), stay.getCheckinDate(), stay.getCheckoutDate(),
+                        stay.getRooms() != null ? stay.getRooms() : 1);
+            }
+        }
+        log.debug("加载房量台账 - 分店ID: {}, 房型ID: {}, 预订数: {}",
+                key.branchId(), key.roomTypeId(), ledger.trackedStays());
+        return ledger;
+    }
+}
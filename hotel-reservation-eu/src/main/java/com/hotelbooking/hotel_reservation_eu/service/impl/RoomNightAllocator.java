@@ -0,0 +1,51 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.hotelbooking.hotel_reservation_eu.mapper.RoomNightInventoryMapper;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 按晚房量库存分配器
+ * 缺失的库存行先按已有预订初始化，再用一条带条件的UPDATE同时占用所有夜晚；
+ * 数据库行锁串行化同一晚的并发占用，更新行数少于入住晚数即说明有夜晚已满。
+ * 必须在事务内调用，分配失败时由调用方回滚事务撤销已更新的夜晚
+ */
+final class RoomNightAllocator {
+
+    private final RoomNightInventoryMapper roomNightInventoryMapper;
+
+    RoomNightAllocator(RoomNightInventoryMapper roomNightInventoryMapper) {
+        this.roomNightInventoryMapper = roomNightInventoryMapper;
+    }
+
+    /**
+     * 占用入住区间 [checkin, checkout) 内每晚 rooms 间
+     *
+     * @param capacity      每晚可售房间数
+     * @param reservationId 本次预订ID（已插入但未提交，初始化库存行时不计入）
+     * @return 是否所有夜晚都占用成功
+     */
+    boolean allocate(Long branchId, Long roomTypeId, LocalDate checkin, LocalDate checkout,
+                     int rooms, int capacity, Long reservationId) {
+        int nights = (int) ChronoUnit.DAYS.between(checkin, checkout);
+        if (nights <= 0 || rooms <= 0 || rooms > capacity) {
+            return false;
+        }
+        // 库存行齐全时跳过初始化，稳定运行后每次下单只执行一条UPDATE
+        if (roomNightInventoryMapper.countNights(branchId, roomTypeId, checkin, checkout) < nights) {
+            roomNightInventoryMapper.seedNights(branchId, roomTypeId, checkin.datesUntil(checkout).toList(),
+                    reservationId);
+        }
+        return roomNightInventoryMapper.allocate(branchId, roomTypeId, checkin, checkout, rooms, capacity) == nights;
+    }
+
+    /**
+     * 释放入住区间内每晚 rooms 间
+     */
+    void release(Long branchId, Long roomTypeId, LocalDate checkin, LocalDate checkout, int rooms) {
+        if (checkout.isAfter(checkin) && rooms > 0) {
+            roomNightInventoryMapper.release(branchId, roomTypeId, checkin, checkout, rooms);
+        }
+    }
+}
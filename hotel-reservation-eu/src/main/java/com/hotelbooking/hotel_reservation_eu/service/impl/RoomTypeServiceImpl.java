@@ -1,34 +1,35 @@
 package com.hotelbooking.hotel_reservation_eu.service.impl;
 
-import com.hotelbooking.hotel_reservation_eu.mapper.RoomTypeMapper;
 import com.hotelbooking.hotel_reservation_eu.model.RoomType;
 import com.hotelbooking.hotel_reservation_eu.service.RoomTypeService;
+import com.hotelbooking.hotel_reservation_eu.service.ReferenceDataCacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 /**
  * 房型服务实现类
+ * 读取经过参考数据近端缓存，不再每次查询数据库
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RoomTypeServiceImpl implements RoomTypeService {
 
-    private final RoomTypeMapper roomTypeMapper;
+    private final ReferenceDataCacheService referenceDataCacheService;
 
     @Override
     public RoomType getRoomTypeById(Long id) {
-        log.info("根据ID获取房型信息: id={}", id);
+        log.debug("根据ID获取房型信息: id={}", id);
         
         try {
-            RoomType roomType = roomTypeMapper.selectByIdAndActive(id);
+            RoomType roomType = referenceDataCacheService.getActiveRoomType(id);
             if (roomType == null) {
                 log.warn("房型不存在或已停用: id={}", id);
                 return null;
             }
             
-            log.info("成功获取房型信息: id={}, name={}", id, roomType.getTypeName());
+            log.debug("成功获取房型信息: id={}, name={}", id, roomType.getTypeName());
             return roomType;
             
         } catch (Exception e) {
@@ -39,13 +40,13 @@ public class RoomTypeServiceImpl implements RoomTypeService {
 
     @Override
     public boolean isRoomTypeAvailable(Long id) {
-        log.info("检查房型可用性: id={}", id);
+        log.debug("检查房型可用性: id={}", id);
         
         try {
-            RoomType roomType = roomTypeMapper.selectByIdAndActive(id);
+            RoomType roomType = referenceDataCacheService.getActiveRoomType(id);
             boolean available = roomType != null;
             
-            log.info("房型可用性检查结果: id={}, available={}", id, available);
+            log.debug("房型可用性检查结果: id={}, available={}", id, available);
             return available;
             
         } catch (Exception e) {
@@ -0,0 +1,80 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.hotelbooking.hotel_reservation_eu.search.CachedSearchResponse;
+import com.hotelbooking.hotel_reservation_eu.search.SearchResponseKey;
+import com.hotelbooking.hotel_reservation_eu.service.BranchInventoryIndexService;
+import com.hotelbooking.hotel_reservation_eu.service.RoomAvailabilityService;
+import com.hotelbooking.hotel_reservation_eu.service.SearchResponseCacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 搜索响应缓存服务实现类
+ * 每条缓存记录生成时的分店索引版本和房量版本，读取时与当前版本比较，不一致即失效，
+ * 运营端修改房源、下单和取消都不需要主动清理缓存。
+ * 版本在生成响应之前读取，生成期间发生的变更会使这条缓存立即失效，不会缓存到旧数据。
+ * 另设过期时间和条数上限兜底，条数超限时先清理失效记录，仍超限则整体清空
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchResponseCacheServiceImpl implements SearchResponseCacheService {
+
+    private final BranchInventoryIndexService branchInventoryIndexService;
+    private final RoomAvailabilityService roomAvailabilityService;
+
+    /** 缓存有效期（秒） */
+    @Value("${search.response-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    /** 最大缓存条数 */
+    @Value("${search.response-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final ConcurrentHashMap<SearchResponseKey, CachedSearchResponse> responses = new ConcurrentHashMap<>();
+
+    @Override
+    public CachedSearchResponse get(SearchResponseKey key) {
+        CachedSearchResponse cached = responses.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (!isValid(key, cached, System.currentTimeMillis())) {
+            responses.remove(key, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    @Override
+    public CachedSearchResponse put(SearchResponseKey key, long inventoryVersion, long availabilityVersion,
+                                   byte[] body) {
+        long now = System.currentTimeMillis();
+        CachedSearchResponse cached = new CachedSearchResponse(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"",
+                inventoryVersion, availabilityVersion, now + ttlSeconds * 1000);
+        if (responses.size() >= maxEntries) {
+            evict(now);
+        }
+        responses.put(key, cached);
+        return cached;
+    }
+
+    private boolean isValid(SearchResponseKey key, CachedSearchResponse cached, long now) {
+        return cached.expiresAtMillis() > now
+                && cached.availabilityVersion() == roomAvailabilityService.getAvailabilityVersion(key.branchId())
+                && cached.inventoryVersion() == branchInventoryIndexService.getBranchInventory(key.branchId()).getVersion();
+    }
+
+    private void evict(long now) {
+        responses.entrySet().removeIf(entry -> !isValid(entry.getKey(), entry.getValue(), now));
+        if (responses.size() >= maxEntries) {
+            log.info("搜索响应缓存超过上限，清空 - 条数: {}", responses.size());
+            responses.clear();
+        }
+    }
+}
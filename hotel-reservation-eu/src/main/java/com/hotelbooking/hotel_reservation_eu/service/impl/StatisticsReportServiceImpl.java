@@ -1,7 +1,9 @@
 package com.hotelbooking.hotel_reservation_eu.service.impl;
 
+import com.hotelbooking.hotel_reservation_eu.dto.StatisticsReportDto;
 import com.hotelbooking.hotel_reservation_eu.model.Reservation;
 import com.hotelbooking.hotel_reservation_eu.service.StatisticsReportService;
+import com.hotelbooking.hotel_reservation_eu.statistics.DailyStatisticsAggregate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -9,8 +11,9 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 统计报告生成服务实现类
@@ -21,280 +24,107 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class StatisticsReportServiceImpl implements StatisticsReportService {
 
+    private static final String REGION = "EU";
+    private static final String CURRENCY = "EUR";
+    private static final int TOP_ROOM_TYPES = 5;
+
+    private static final String COMPREHENSIVE_REPORT_TYPE = "comprehensive-report";
+    private static final String ANONYMIZED_REPORT_TYPE = "comprehensive-report-from-anonymized-data";
+
     @Override
-    public Map<String, Object> generateDailyTotalIncomeReport(LocalDate date) {
+    public StatisticsReportDto.DailyTotalIncome generateDailyTotalIncomeReport(LocalDate date) {
         log.info("生成每日总收入统计报告: date={}", date);
-        
-        Map<String, Object> report = new HashMap<>();
-        report.put("reportDate", date);
-        report.put("reportType", "daily-total-income");
-        report.put("region", "EU"); // 添加地区标识
-        report.put("generatedAt", new Date());
-        
-        // 这里的数据将在定时任务中从数据库获取并传入
-        // 目前返回示例数据结构
-        report.put("totalIncome", BigDecimal.ZERO);
-        report.put("totalReservations", 0);
-        report.put("avgPricePerNight", BigDecimal.ZERO);
-        report.put("currency", "EUR");
-        
-        log.info("每日总收入统计报告生成完成");
-        return report;
+        // 这里的数据将在定时任务中从数据库获取并传入，目前返回空统计
+        return generateComprehensiveReport(date).dailyTotalIncome();
     }
 
     @Override
-    public Map<String, Object> generatePopularRoomTypesTop5Report(LocalDate date) {
+    public List<StatisticsReportDto.RoomTypeRanking> generatePopularRoomTypesTop5Report(LocalDate date) {
         log.info("生成热门房型Top5统计报告: date={}", date);
-        
-        Map<String, Object> report = new HashMap<>();
-        report.put("reportDate", date);
-        report.put("reportType", "popular-room-types-top-5");
-        report.put("region", "EU"); // 添加地区标识
-        report.put("generatedAt", new Date());
-        
-        // 热门房型Top5列表
-        List<Map<String, Object>> top5List = new ArrayList<>();
-        report.put("top5RoomTypes", top5List);
-        
-        log.info("热门房型Top5统计报告生成完成");
-        return report;
+        return generateComprehensiveReport(date).popularRoomTypesTop5();
     }
 
     @Override
-    public Map<String, Object> generateBranchPerformanceReport(LocalDate date) {
+    public List<StatisticsReportDto.BranchPerformance> generateBranchPerformanceReport(LocalDate date) {
         log.info("生成分店业绩统计报告: date={}", date);
-        
-        Map<String, Object> report = new HashMap<>();
-        report.put("reportDate", date);
-        report.put("reportType", "branch-performance");
-        report.put("region", "EU"); // 添加地区标识
-        report.put("generatedAt", new Date());
-        
-        // 分店业绩列表
-        List<Map<String, Object>> branchList = new ArrayList<>();
-        report.put("branchPerformance", branchList);
-        
-        log.info("分店业绩统计报告生成完成");
-        return report;
+        return generateComprehensiveReport(date).branchPerformance();
     }
 
     @Override
-    public Map<String, Object> generateReservationTrendsReport(LocalDate date) {
+    public StatisticsReportDto.ReservationTrends generateReservationTrendsReport(LocalDate date) {
         log.info("生成预订趋势统计报告: date={}", date);
-        
-        Map<String, Object> report = new HashMap<>();
-        report.put("reportDate", date);
-        report.put("reportType", "reservation-trends");
-        report.put("region", "EU"); // 添加地区标识
-        report.put("generatedAt", new Date());
-        
-        // 预订趋势数据
-        Map<String, Object> trends = new HashMap<>();
-        trends.put("totalReservations", 0);
-        trends.put("confirmedReservations", 0);
-        trends.put("cancelledReservations", 0);
-        trends.put("completionRate", BigDecimal.ZERO);
-        
-        report.put("trends", trends);
-        
-        log.info("预订趋势统计报告生成完成");
-        return report;
+        return generateComprehensiveReport(date).reservationTrends();
     }
 
     @Override
-    public Map<String, Object> generateComprehensiveReport(LocalDate date) {
+    public StatisticsReportDto generateComprehensiveReport(LocalDate date) {
         log.info("生成综合统计报告: date={}", date);
-        
-        Map<String, Object> report = new HashMap<>();
-        report.put("reportDate", date);
-        report.put("reportType", "comprehensive-report");
-        report.put("region", "EU"); // 添加地区标识
-        report.put("generatedAt", new Date());
-        
-        // 这里的数据将在定时任务中从数据库获取并传入
-        // 目前返回示例数据结构
-        report.put("dailyTotalIncome", generateDailyTotalIncomeReport(date));
-        report.put("popularRoomTypesTop5", generatePopularRoomTypesTop5Report(date));
-        report.put("branchPerformance", generateBranchPerformanceReport(date));
-        report.put("reservationTrends", generateReservationTrendsReport(date));
-        
-        log.info("综合统计报告生成完成");
-        return report;
+        // 这里的数据将在定时任务中从数据库获取并传入，目前基于空聚合返回示例数据结构
+        return buildReport(DailyStatisticsAggregate.singlePass(date), COMPREHENSIVE_REPORT_TYPE);
     }
 
     @Override
-    public Map<String, Object> generateReportFromAnonymizedData(List<Reservation> anonymizedReservations, LocalDate date) {
+    public StatisticsReportDto generateReportFromAnonymizedData(List<Reservation> anonymizedReservations, LocalDate date) {
         log.info("根据脱敏数据生成综合统计报告: date={}, dataCount={}", date, anonymizedReservations.size());
-        
-        Map<String, Object> report = new HashMap<>();
-        report.put("reportDate", date);
-        report.put("reportType", "comprehensive-report-from-anonymized-data");
-        report.put("region", "EU"); // 添加地区标识
-        report.put("generatedAt", new Date());
-        report.put("dataCount", anonymizedReservations.size());
-        
-        // 生成每日总收入统计
-        Map<String, Object> dailyIncome = generateDailyTotalIncomeFromData(anonymizedReservations, date);
-        report.put("dailyTotalIncome", dailyIncome);
-        
-        // 生成热门房型Top5统计
-        Map<String, Object> popularRoomTypes = generatePopularRoomTypesTop5FromData(anonymizedReservations, date);
-        report.put("popularRoomTypesTop5", popularRoomTypes);
-        
-        // 生成分店业绩统计
-        Map<String, Object> branchPerformance = generateBranchPerformanceFromData(anonymizedReservations, date);
-        report.put("branchPerformance", branchPerformance);
-        
-        // 生成预订趋势统计
-        Map<String, Object> reservationTrends = generateReservationTrendsFromData(anonymizedReservations, date);
-        report.put("reservationTrends", reservationTrends);
-        
+
+        // 单次遍历累加全部指标
+        DailyStatisticsAggregate aggregate = DailyStatisticsAggregate.singlePass(date);
+        for (Reservation reservation : anonymizedReservations) {
+            aggregate.add(reservation);
+        }
+        StatisticsReportDto report = buildReport(aggregate, ANONYMIZED_REPORT_TYPE);
+
         log.info("根据脱敏数据生成综合统计报告完成");
         return report;
     }
-    
-    /**
-     * 根据脱敏数据生成每日总收入统计
-     */
-    private Map<String, Object> generateDailyTotalIncomeFromData(List<Reservation> reservations, LocalDate date) {
-        Map<String, Object> dailyIncome = new HashMap<>();
-        dailyIncome.put("reportDate", date);
-        dailyIncome.put("reportType", "daily-total-income");
-        dailyIncome.put("region", "EU"); // 添加地区标识
-        
-        // 计算总收入
-        BigDecimal totalIncome = reservations.stream()
-                .filter(r -> "PAID".equals(r.getPaymentStatus()))
-                .map(Reservation::getTotalPrice)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        // 计算总预订数
-        int totalReservations = reservations.size();
-        
-        // 计算平均每晚价格
-        BigDecimal avgPricePerNight = totalReservations > 0 ? 
-                totalIncome.divide(BigDecimal.valueOf(totalReservations), 2, RoundingMode.HALF_UP) : 
-                BigDecimal.ZERO;
-        
-        dailyIncome.put("totalIncome", totalIncome);
-        dailyIncome.put("totalReservations", totalReservations);
-        dailyIncome.put("avgPricePerNight", avgPricePerNight);
-        dailyIncome.put("currency", "EUR");
-        
-        return dailyIncome;
+
+    @Override
+    public StatisticsReportDto generateReportFromAggregate(DailyStatisticsAggregate aggregate) {
+        log.info("根据运行聚合生成综合统计报告: date={}, dataCount={}", aggregate.getDate(), aggregate.getTotalReservations());
+        return buildReport(aggregate, ANONYMIZED_REPORT_TYPE);
     }
-    
+
     /**
-     * 根据脱敏数据生成热门房型Top5统计
+     * 根据统计聚合构建类型化的综合统计报告
      */
-    private Map<String, Object> generatePopularRoomTypesTop5FromData(List<Reservation> reservations, LocalDate date) {
-        Map<String, Object> popularRoomTypes = new HashMap<>();
-        popularRoomTypes.put("reportDate", date);
-        popularRoomTypes.put("reportType", "popular-room-types-top-5");
-        popularRoomTypes.put("region", "EU"); // 添加地区标识
-        
-        // 按房型分组统计
-        Map<Long, List<Reservation>> roomTypeGroups = reservations.stream()
-                .filter(r -> "PAID".equals(r.getPaymentStatus()))
-                .collect(Collectors.groupingBy(Reservation::getRoomTypeId));
-        
-        // 计算每个房型的统计信息
-        List<Map<String, Object>> top5List = roomTypeGroups.entrySet().stream()
-                .map(entry -> {
-                    Map<String, Object> roomTypeStats = new HashMap<>();
-                    roomTypeStats.put("roomTypeId", entry.getKey());
-                    roomTypeStats.put("reservationCount", entry.getValue().size());
-                    
-                    BigDecimal totalRevenue = entry.getValue().stream()
-                            .map(Reservation::getTotalPrice)
-                            .filter(Objects::nonNull)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    roomTypeStats.put("totalRevenue", totalRevenue);
-                    
-                    return roomTypeStats;
-                })
-                .sorted((a, b) -> {
-                    Integer countA = (Integer) a.get("reservationCount");
-                    Integer countB = (Integer) b.get("reservationCount");
-                    return countB.compareTo(countA); // 降序排列
-                })
-                .limit(5)
-                .collect(Collectors.toList());
-        
-        // 添加排名
-        for (int i = 0; i < top5List.size(); i++) {
-            top5List.get(i).put("ranking", i + 1);
+    private StatisticsReportDto buildReport(DailyStatisticsAggregate aggregate, String reportType) {
+        int totalReservations = aggregate.getTotalReservations();
+
+        // 每日总收入统计
+        BigDecimal totalIncome = aggregate.getTotalIncome();
+        BigDecimal avgPricePerNight = totalReservations > 0 ?
+                totalIncome.divide(BigDecimal.valueOf(totalReservations), 2, RoundingMode.HALF_UP) :
+                BigDecimal.ZERO;
+        StatisticsReportDto.DailyTotalIncome dailyIncome = new StatisticsReportDto.DailyTotalIncome(
+                totalIncome, totalReservations, avgPricePerNight, CURRENCY);
+
+        // 热门房型Top5统计
+        List<DailyStatisticsAggregate.GroupStats> topRoomTypes = aggregate.topRoomTypes(TOP_ROOM_TYPES);
+        List<StatisticsReportDto.RoomTypeRanking> top5List = new ArrayList<>(topRoomTypes.size());
+        for (int i = 0; i < topRoomTypes.size(); i++) {
+            DailyStatisticsAggregate.GroupStats stats = topRoomTypes.get(i);
+            top5List.add(new StatisticsReportDto.RoomTypeRanking(
+                    i + 1, stats.id(), (int) stats.count(), stats.revenue()));
         }
-        
-        popularRoomTypes.put("top5RoomTypes", top5List);
-        return popularRoomTypes;
-    }
-    
-    /**
-     * 根据脱敏数据生成分店业绩统计
-     */
-    private Map<String, Object> generateBranchPerformanceFromData(List<Reservation> reservations, LocalDate date) {
-        Map<String, Object> branchPerformance = new HashMap<>();
-        branchPerformance.put("reportDate", date);
-        branchPerformance.put("reportType", "branch-performance");
-        branchPerformance.put("region", "EU"); // 添加地区标识
-        
-        // 按分店分组统计
-        Map<Long, List<Reservation>> branchGroups = reservations.stream()
-                .filter(r -> "PAID".equals(r.getPaymentStatus()))
-                .collect(Collectors.groupingBy(Reservation::getBranchId));
-        
-        List<Map<String, Object>> branchList = branchGroups.entrySet().stream()
-                .map(entry -> {
-                    Map<String, Object> branchStats = new HashMap<>();
-                    branchStats.put("branchId", entry.getKey());
-                    branchStats.put("reservationCount", entry.getValue().size());
-                    
-                    BigDecimal totalRevenue = entry.getValue().stream()
-                            .map(Reservation::getTotalPrice)
-                            .filter(Objects::nonNull)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    branchStats.put("totalRevenue", totalRevenue);
-                    
-                    return branchStats;
-                })
-                .collect(Collectors.toList());
-        
-        branchPerformance.put("branchPerformance", branchList);
-        return branchPerformance;
-    }
-    
-    /**
-     * 根据脱敏数据生成预订趋势统计
-     */
-    private Map<String, Object> generateReservationTrendsFromData(List<Reservation> reservations, LocalDate date) {
-        Map<String, Object> reservationTrends = new HashMap<>();
-        reservationTrends.put("reportDate", date);
-        reservationTrends.put("reportType", "reservation-trends");
-        reservationTrends.put("region", "EU"); // 添加地区标识
-        
-        long totalReservations = reservations.size();
-        long confirmedReservations = reservations.stream()
-                .filter(r -> "CONFIRMED".equals(r.getStatus()))
-                .count();
-        long cancelledReservations = reservations.stream()
-                .filter(r -> "CANCELLED".equals(r.getStatus()))
-                .count();
-        
-        BigDecimal completionRate = totalReservations > 0 ? 
+
+        // 分店业绩统计
+        List<DailyStatisticsAggregate.GroupStats> branches = aggregate.branchStats();
+        List<StatisticsReportDto.BranchPerformance> branchList = new ArrayList<>(branches.size());
+        for (DailyStatisticsAggregate.GroupStats stats : branches) {
+            branchList.add(new StatisticsReportDto.BranchPerformance(stats.id(), (int) stats.count(), stats.revenue()));
+        }
+
+        // 预订趋势统计
+        long confirmedReservations = aggregate.getConfirmedReservations();
+        BigDecimal completionRate = totalReservations > 0 ?
                 BigDecimal.valueOf(confirmedReservations)
                         .divide(BigDecimal.valueOf(totalReservations), 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100)) : 
+                        .multiply(BigDecimal.valueOf(100)) :
                 BigDecimal.ZERO;
-        
-        Map<String, Object> trends = new HashMap<>();
-        trends.put("totalReservations", totalReservations);
-        trends.put("confirmedReservations", confirmedReservations);
-        trends.put("cancelledReservations", cancelledReservations);
-        trends.put("completionRate", completionRate);
-        
-        reservationTrends.put("trends", trends);
-        return reservationTrends;
+        StatisticsReportDto.ReservationTrends trends = new StatisticsReportDto.ReservationTrends(
+                totalReservations, confirmedReservations, aggregate.getCancelledReservations(), completionRate);
+
+        return new StatisticsReportDto(aggregate.getDate(), reportType, REGION, LocalDateTime.now(), totalReservations,
+                dailyIncome, top5List, branchList, trends);
     }
 }
@@ -0,0 +1,223 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.hotelbooking.hotel_reservation_eu.mapper.UserMapper;
+import com.hotelbooking.hotel_reservation_eu.model.User;
+import com.hotelbooking.hotel_reservation_eu.service.BlindIndexService;
+import com.hotelbooking.hotel_reservation_eu.service.DataEncryptionService;
+import com.hotelbooking.hotel_reservation_eu.service.UserBlindIndexBackfillService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 用户盲索引回填服务实现类
+ * 协调线程按主键顺序读取尚未建立索引的用户，每批交给工作线程池解密、计算盲索引并逐行写回；
+ * 工作队列满时由协调线程自己处理（背压）。写回条件包含原密文邮箱，回填期间用户修改了邮箱时跳过该行
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserBlindIndexBackfillServiceImpl implements UserBlindIndexBackfillService {
+
+    private final UserMapper userMapper;
+    private final DataEncryptionService encryptionService;
+    private final BlindIndexService blindIndexService;
+
+    /** 应用启动后是否自动回填 */
+    @Value("${user-blind-index.backfill.on-startup:true}")
+    private boolean backfillOnStartup;
+
+    /** 每批读取的用户数 */
+    @Value("${user-blind-index.backfill.batch-size:1000}")
+    private int batchSize;
+
+    /** 并行处理批次的线程数 */
+    @Value("${user-blind-index.backfill.threads:4}")
+    private int threads;
+
+    private ExecutorService coordinator;
+    private ThreadPoolExecutor workerPool;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong indexedUsers = new AtomicLong();
+    private final AtomicLong skippedUsers = new AtomicLong();
+    private final AtomicLong failedUsers = new AtomicLong();
+    private final AtomicLong unindexableUsers = new AtomicLong();
+    private volatile boolean backfillComplete;
+    private final AtomicReference<LocalDateTime> lastStartTime = new AtomicReference<>();
+    private final AtomicReference<LocalDateTime> lastFinishTime = new AtomicReference<>();
+
+    @PostConstruct
+    public void start() {
+        coordinator = Executors.newSingleThreadExecutor(namedThreadFactory("blind-index-backfill-coordinator-"));
+        workerPool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 2), namedThreadFactory("blind-index-backfill-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        workerPool.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        coordinator.shutdownNow();
+        workerPool.shutdown();
+        if (!workerPool.awaitTermination(5, TimeUnit.SECONDS)) {
+            workerPool.shutdownNow();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (backfillOnStartup) {
+            startBackfill();
+            return;
+        }
+        try {
+            backfillComplete = userMapper.countWithoutBlindIndex() == 0;
+        } catch (Exception e) {
+            log.warn("查询待回填用户数失败，按邮箱查询将继续比对未建立索引的用户: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean startBackfill() {
+        if (running.get()) {
+            return false;
+        }
+        coordinator.execute(() -> {
+            try {
+                runBackfill();
+            } catch (Exception e) {
+                log.error("用户盲索引回填失败: {}", e.getMessage(), e);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public long runBackfill() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("用户盲索引回填已在运行，跳过");
+            return -1;
+        }
+        long startNanos = System.nanoTime();
+        long indexedBefore = indexedUsers.get();
+        long failedBefore = failedUsers.get();
+        long unindexableBefore = unindexableUsers.get();
+        lastStartTime.set(LocalDateTime.now());
+        try {
+            List<Future<?>> batches = new ArrayList<>();
+            long afterId = 0;
+            List<User> batch;
+            while (!(batch = userMapper.selectBlindIndexBatch(afterId, batchSize)).isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+                List<User> users = batch;
+                batches.add(workerPool.submit(() -> indexBatch(users)));
+            }
+            for (Future<?> future : batches) {
+                future.get();
+            }
+
+            long indexed = indexedUsers.get() - indexedBefore;
+            log.info("用户盲索引回填完成 - 批次: {}, 建立索引: {}, 耗时: {}ms", batches.size(), indexed,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            long notIndexed = failedUsers.get() - failedBefore + unindexableUsers.get() - unindexableBefore;
+            if (notIndexed > 0) {
+                log.warn("用户盲索引回填后仍有 {} 个用户无法建立索引（邮箱为空或解密失败），按邮箱无法查到这些用户，请人工处理",
+                        notIndexed);
+            }
+            backfillComplete = true;
+            return indexed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("用户盲索引回填被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("用户盲索引回填失败", e.getCause());
+        } finally {
+            lastFinishTime.set(LocalDateTime.now());
+            running.set(false);
+        }
+    }
+
+    /**
+     * 解密一批用户的邮箱和电话并写回盲索引，单个用户失败不影响其他用户
+     */
+    private void indexBatch(List<User> users) {
+        for (User user : users) {
+            try {
+                String emailHash = blindIndexService.emailIndex(encryptionService.decrypt(user.getEmail()));
+                if (emailHash == null) {
+                    unindexableUsers.incrementAndGet();
+                    log.warn("用户邮箱为空，无法建立盲索引 - 用户: {}", user.getId());
+                    continue;
+                }
+                String phoneHash = blindIndexService.phoneIndex(encryptionService.decrypt(user.getPhoneNumber()));
+                if (userMapper.updateBlindIndex(user.getId(), user.getEmail(), emailHash, phoneHash) == 1) {
+                    indexedUsers.incrementAndGet();
+                } else {
+                    // 回填期间用户修改了邮箱，修改时已写入新索引
+                    skippedUsers.incrementAndGet();
+                }
+            } catch (Exception e) {
+                failedUsers.incrementAndGet();
+                log.warn("用户盲索引回填失败，跳过用户: {}, 原因: {}", user.getId(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean isBackfillComplete() {
+        return backfillComplete;
+    }
+
+    @Override
+    public Map<String, Object> getBackfillStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", running.get());
+        try {
+            status.put("remainingUsers", userMapper.countWithoutBlindIndex());
+        } catch (Exception e) {
+            log.warn("查询盲索引回填状态失败: {}", e.getMessage());
+        }
+        status.put("indexedUsers", indexedUsers.get());
+        status.put("skippedUsers", skippedUsers.get());
+        status.put("failedUsers", failedUsers.get());
+        status.put("unindexableUsers", unindexableUsers.get());
+        status.put("complete", backfillComplete);
+        status.put("workerQueueDepth", workerPool.getQueue().size());
+        status.put("lastStartTime", lastStartTime.get());
+        status.put("lastFinishTime", lastFinishTime.get());
+        return status;
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
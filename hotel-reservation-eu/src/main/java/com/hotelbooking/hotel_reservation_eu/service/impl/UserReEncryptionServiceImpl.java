@@ -0,0 +1,222 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.hotelbooking.hotel_reservation_eu.mapper.UserMapper;
+import com.hotelbooking.hotel_reservation_eu.model.User;
+import com.hotelbooking.hotel_reservation_eu.service.DataEncryptionService;
+import com.hotelbooking.hotel_reservation_eu.service.DataKeyService;
+import com.hotelbooking.hotel_reservation_eu.service.UserReEncryptionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 用户PII重新加密服务实现类
+ * 单个后台线程按主键顺序（键集分页）读取用户的加密列，只有存在旧版本密文的行才解密并用当前数据密钥重新加密，
+ * 写回条件包含所有原密文，期间被用户修改的行跳过（用户保存时已使用当前密钥）。
+ * 每批处理后按 max-rows-per-second 休眠限速，耗时约为 用户数 / 限速，可由进度估算剩余时间
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserReEncryptionServiceImpl implements UserReEncryptionService {
+
+    private final UserMapper userMapper;
+    private final DataEncryptionService encryptionService;
+    private final DataKeyService dataKeyService;
+
+    /** 每批读取的用户数 */
+    @Value("${user-re-encryption.batch-size:500}")
+    private int batchSize;
+
+    /** 每秒最多扫描的用户数 */
+    @Value("${user-re-encryption.max-rows-per-second:2000}")
+    private int maxRowsPerSecond;
+
+    private ExecutorService worker;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopRequested;
+
+    private final AtomicLong scannedRows = new AtomicLong();
+    private final AtomicLong reEncryptedRows = new AtomicLong();
+    private final AtomicLong conflictRows = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private volatile long lastId;
+    private volatile long maxId;
+    private volatile int targetKeyVersion;
+    private volatile long runStartNanos;
+    private final AtomicReference<LocalDateTime> lastStartTime = new AtomicReference<>();
+    private final AtomicReference<LocalDateTime> lastFinishTime = new AtomicReference<>();
+
+    @PostConstruct
+    public void init() {
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-re-encryption");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        stopRequested = true;
+        worker.shutdown();
+        if (!worker.awaitTermination(5, TimeUnit.SECONDS)) {
+            worker.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean start() {
+        if (running.get()) {
+            return false;
+        }
+        worker.execute(() -> {
+            try {
+                run();
+            } catch (Exception e) {
+                log.error("用户PII重新加密失败: {}", e.getMessage(), e);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public void stop() {
+        stopRequested = true;
+    }
+
+    @Override
+    public long run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("用户PII重新加密已在运行，跳过");
+            return -1;
+        }
+        stopRequested = false;
+        scannedRows.set(0);
+        reEncryptedRows.set(0);
+        conflictRows.set(0);
+        failedRows.set(0);
+        lastId = 0;
+        runStartNanos = System.nanoTime();
+        lastStartTime.set(LocalDateTime.now());
+        try {
+            targetKeyVersion = dataKeyService.getActiveKeyVersion();
+            Long max = userMapper.selectMaxId();
+            maxId = max != null ? max : 0;
+            log.info("开始重新加密用户PII - 目标密钥版本: {}, 最大用户ID: {}", targetKeyVersion, maxId);
+
+            List<User> batch;
+            while (!stopRequested && !(batch = userMapper.selectEncryptedPiiBatch(lastId, batchSize)).isEmpty()) {
+                for (User user : batch) {
+                    reEncryptUser(user);
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+                scannedRows.addAndGet(batch.size());
+                throttle();
+            }
+
+            log.info("用户PII重新加密{} - 扫描: {}, 重新加密: {}, 冲突跳过: {}, 失败: {}, 耗时: {}ms",
+                    stopRequested ? "已停止" : "完成", scannedRows.get(), reEncryptedRows.get(), conflictRows.get(),
+                    failedRows.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - runStartNanos));
+            return reEncryptedRows.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("用户PII重新加密被中断 - 已处理到用户ID: {}", lastId);
+            return reEncryptedRows.get();
+        } finally {
+            lastFinishTime.set(LocalDateTime.now());
+            running.set(false);
+        }
+    }
+
+    /**
+     * 重新加密单个用户的旧版本密文，失败的用户跳过，下次运行时重试
+     */
+    private void reEncryptUser(User user) {
+        try {
+            if (!needsReEncryption(user)) {
+                return;
+            }
+            User reEncrypted = User.builder()
+                    .firstName(encryptionService.reEncrypt(user.getFirstName()))
+                    .lastName(encryptionService.reEncrypt(user.getLastName()))
+                    .email(encryptionService.reEncrypt(user.getEmail()))
+                    .phoneNumber(encryptionService.reEncrypt(user.getPhoneNumber()))
+                    .address(encryptionService.reEncrypt(user.getAddress()))
+                    .build();
+            if (userMapper.updateReEncryptedPii(user, reEncrypted) == 1) {
+                reEncryptedRows.incrementAndGet();
+            } else {
+                conflictRows.incrementAndGet();
+            }
+        } catch (Exception e) {
+            failedRows.incrementAndGet();
+            log.warn("重新加密用户PII失败，跳过用户: {}, 原因: {}", user.getId(), e.getMessage());
+        }
+    }
+
+    private boolean needsReEncryption(User user) {
+        return encryptionService.needsReEncryption(user.getFirstName())
+                || encryptionService.needsReEncryption(user.getLastName())
+                || encryptionService.needsReEncryption(user.getEmail())
+                || encryptionService.needsReEncryption(user.getPhoneNumber())
+                || encryptionService.needsReEncryption(user.getAddress());
+    }
+
+    /**
+     * 按已扫描行数计算应耗费的时间，处理过快时休眠补足
+     */
+    private void throttle() throws InterruptedException {
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long expectedNanos = scannedRows.get() * TimeUnit.SECONDS.toNanos(1) / maxRowsPerSecond;
+        long aheadNanos = expectedNanos - (System.nanoTime() - runStartNanos);
+        if (aheadNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(aheadNanos);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        boolean active = running.get();
+        status.put("running", active);
+        status.put("targetKeyVersion", targetKeyVersion);
+        status.put("lastId", lastId);
+        status.put("maxId", maxId);
+        status.put("progressPercent", maxId > 0 ? Math.min(100.0, lastId * 100.0 / maxId) : 100.0);
+        status.put("scannedRows", scannedRows.get());
+        status.put("reEncryptedRows", reEncryptedRows.get());
+        status.put("conflictRows", conflictRows.get());
+        status.put("failedRows", failedRows.get());
+        if (active) {
+            double elapsedSeconds = Math.max(1e-3, (System.nanoTime() - runStartNanos) / 1e9);
+            double rowsPerSecond = scannedRows.get() / elapsedSeconds;
+            status.put("rowsPerSecond", Math.round(rowsPerSecond));
+            // 按主键区间估算剩余行数
+            if (rowsPerSecond > 0 && lastId > 0) {
+                double remainingRows = scannedRows.get() * (double) (maxId - lastId) / lastId;
+                status.put("estimatedRemainingSeconds", Math.round(remainingRows / rowsPerSecond));
+            }
+        }
+        status.put("lastStartTime", lastStartTime.get());
+        status.put("lastFinishTime", lastFinishTime.get());
+        return status;
+    }
+}
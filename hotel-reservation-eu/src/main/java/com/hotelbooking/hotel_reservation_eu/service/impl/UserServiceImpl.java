@@ -1,10 +1,16 @@
 package com.hotelbooking.hotel_reservation_eu.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.hotelbooking.hotel_reservation_eu.dto.RegisterRequestDto;
 import com.hotelbooking.hotel_reservation_eu.mapper.UserMapper;
 import com.hotelbooking.hotel_reservation_eu.model.User;
+import com.hotelbooking.hotel_reservation_eu.service.BlindIndexService;
 import com.hotelbooking.hotel_reservation_eu.service.DataEncryptionService;
+import com.hotelbooking.hotel_reservation_eu.service.UserBlindIndexBackfillService;
 import com.hotelbooking.hotel_reservation_eu.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -13,7 +19,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 /**
  * 用户服务实现类
@@ -27,6 +37,11 @@ public class UserServiceImpl implements UserService {
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final DataEncryptionService encryptionService;
+    private final BlindIndexService blindIndexService;
+    private final UserBlindIndexBackfillService userBlindIndexBackfillService;
+
+    /** 加密存储的PII字段数 */
+    private static final int PII_FIELD_COUNT = 5;
 
     @Override
     public User findByUsername(String username) {
@@ -35,8 +50,8 @@ public class UserServiceImpl implements UserService {
         User user = userMapper.selectOne(queryWrapper);
         
         if (user != null) {
-            // 解密PII数据
-            decryptUserPiiData(user);
+            // 登录只读取用户名、密码和账户状态，PII数据在读取时才解密
+            lazyDecryptUserPiiData(user);
         }
         
         return user;
@@ -44,24 +59,56 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User findByEmail(String email) {
-        // 由于邮箱已加密存储，需要遍历查找
-        // 注意：这种方式效率较低，生产环境可考虑邮箱哈希索引
-        QueryWrapper<User> queryWrapper = new QueryWrapper<>();
-        var users = userMapper.selectList(queryWrapper);
-        
-        for (User user : users) {
+        // 邮箱已加密存储，按盲索引查询后解密核对
+        String emailHash = blindIndexService.emailIndex(email);
+        if (emailHash == null) {
+            return null;
+        }
+        String normalized = BlindIndexService.normalizeEmail(email);
+        User user = findMatching(userMapper.selectByEmailHash(emailHash),
+                candidate -> normalized.equals(BlindIndexService.normalizeEmail(
+                        encryptionService.decrypt(candidate.getEmail()))));
+        if (user == null && !userBlindIndexBackfillService.isBackfillComplete()) {
+            // 盲索引回填完成前，尚未建立索引的用户仍需解密比对；只读取邮箱列，匹配后再读取整行
+            User matched = findMatching(userMapper.selectEmailsWithoutBlindIndex(),
+                    candidate -> normalized.equals(BlindIndexService.normalizeEmail(
+                            encryptionService.decrypt(candidate.getEmail()))));
+            if (matched != null) {
+                user = userMapper.selectById(matched.getId());
+                if (user != null) {
+                    lazyDecryptUserPiiData(user);
+                }
+            }
+        }
+        return user;
+    }
+
+    @Override
+    public User findByPhoneNumber(String phoneNumber) {
+        String phoneHash = blindIndexService.phoneIndex(phoneNumber);
+        if (phoneHash == null) {
+            return null;
+        }
+        String normalized = BlindIndexService.normalizePhone(phoneNumber);
+        return findMatching(userMapper.selectByPhoneHash(phoneHash),
+                candidate -> normalized.equals(BlindIndexService.normalizePhone(
+                        encryptionService.decrypt(candidate.getPhoneNumber()))));
+    }
+
+    /**
+     * 返回第一个解密后匹配的用户（PII数据在读取时解密），解密失败的用户跳过
+     */
+    private User findMatching(List<User> candidates, Predicate<User> matcher) {
+        for (User user : candidates) {
             try {
-                String decryptedEmail = encryptionService.decrypt(user.getEmail());
-                if (email.equals(decryptedEmail)) {
-                    decryptUserPiiData(user);
+                if (matcher.test(user)) {
+                    lazyDecryptUserPiiData(user);
                     return user;
                 }
             } catch (Exception e) {
-                log.warn("解密邮箱失败，跳过用户: {}", user.getId());
-                continue;
+                log.warn("解密用户数据失败，跳过用户: {}", user.getId());
             }
         }
-        
         return null;
     }
 
@@ -72,8 +119,8 @@ public class UserServiceImpl implements UserService {
         try {
             User user = userMapper.selectById(id);
             if (user != null) {
-                // 解密PII数据
-                decryptUserPiiData(user);
+                // PII数据在读取时解密
+                lazyDecryptUserPiiData(user);
                 log.info("成功获取用户信息: id={}, username={}", id, user.getUsername());
             } else {
                 log.warn("用户不存在: id={}", id);
@@ -112,7 +159,9 @@ public class UserServiceImpl implements UserService {
                 .firstName(encryptionService.encrypt(registerRequestDto.getFirstName()))
                 .lastName(encryptionService.encrypt(registerRequestDto.getLastName()))
                 .email(encryptionService.encrypt(registerRequestDto.getEmail()))
+                .emailHash(blindIndexService.emailIndex(registerRequestDto.getEmail()))
                 .phoneNumber(encryptionService.encrypt(registerRequestDto.getPhoneNumber()))
+                .phoneHash(blindIndexService.phoneIndex(registerRequestDto.getPhoneNumber()))
                 .address(encryptionService.encrypt(registerRequestDto.getAddress()))
                 .dateOfBirth(registerRequestDto.getDateOfBirth()) // 出生日期不加密（用于年龄计算）
                 .nationality(registerRequestDto.getNationality()) // 国籍不加密（用于统计分析）
@@ -136,24 +185,19 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public void saveUser(User user) {
-        // 加密PII数据
-        encryptUserPiiData(user);
-        
         if (user.getId() == null) {
             // 新用户，插入
             user.setCreatedAt(LocalDateTime.now());
             user.setUpdatedAt(LocalDateTime.now());
-            userMapper.insert(user);
+            writeWithEncryptedPii(user, () -> userMapper.insert(user));
+            user.trackChanges();
             log.info("New user saved with username: {}", user.getUsername());
         } else {
             // 现有用户，更新
             user.setUpdatedAt(LocalDateTime.now());
-            userMapper.updateById(user);
+            updateChangedColumns(user);
             log.info("Existing user updated with username: {}", user.getUsername());
         }
-        
-        // 解密PII数据（保持对象状态一致）
-        decryptUserPiiData(user);
     }
 
     @Override
@@ -181,9 +225,8 @@ public class UserServiceImpl implements UserService {
         user.setResetPasswordTokenExpiry(LocalDateTime.now().plusHours(24)); // 24小时有效
         user.setUpdatedAt(LocalDateTime.now());
 
-        // 加密后保存
-        encryptUserPiiData(user);
-        userMapper.updateById(user);
+        // 只更新令牌相关的列，PII数据不重新加密
+        updateChangedColumns(user);
 
         // TODO: 发送重置密码邮件
         log.info("Password reset token generated for user: {} with email: {}", user.getUsername(), email);
@@ -202,12 +245,21 @@ public class UserServiceImpl implements UserService {
         User user = userMapper.selectOne(queryWrapper);
         
         if (user != null) {
-            decryptUserPiiData(user);
+            lazyDecryptUserPiiData(user);
         }
         
         return user;
     }
 
+    @Override
+    public List<User> listUsers(long afterId, int limit) {
+        QueryWrapper<User> queryWrapper = new QueryWrapper<>();
+        queryWrapper.gt("id", afterId).orderByAsc("id").last("LIMIT " + Math.max(1, limit));
+        List<User> users = userMapper.selectList(queryWrapper);
+        decryptUsersPiiData(users);
+        return users;
+    }
+
     @Override
     @Transactional
     public void resetPassword(String token, String newPassword) {
@@ -222,9 +274,8 @@ public class UserServiceImpl implements UserService {
         user.setResetPasswordTokenExpiry(null);
         user.setUpdatedAt(LocalDateTime.now());
 
-        // 加密后保存
-        encryptUserPiiData(user);
-        userMapper.updateById(user);
+        // 只更新密码和令牌相关的列，清除的令牌显式写入NULL
+        updateChangedColumns(user);
         
         log.info("Password reset successfully for user: {}", user.getUsername());
     }
@@ -234,16 +285,81 @@ public class UserServiceImpl implements UserService {
     public void updateUser(User user) {
         user.setUpdatedAt(LocalDateTime.now());
         
-        // 加密PII数据
-        encryptUserPiiData(user);
-        userMapper.updateById(user);
-        
-        // 解密PII数据（保持对象状态一致）
-        decryptUserPiiData(user);
+        // 只加密修改过的PII字段，只更新修改过的列
+        updateChangedColumns(user);
         
         log.info("User updated successfully: {}", user.getUsername());
     }
 
+    /**
+     * 部分更新用户：只加密修改过的PII字段，只写入修改过的列（包括改为NULL的列）
+     * 未跟踪修改的用户加密全部PII后按ID更新非空列
+     */
+    private void updateChangedColumns(User user) {
+        if (!user.isTrackingChanges()) {
+            writeWithEncryptedPii(user, () -> userMapper.updateById(user));
+            user.trackChanges();
+            return;
+        }
+
+        Set<String> changed = user.getChangedProperties();
+        // 盲索引由明文计算，邮箱或电话修改时同步更新
+        if (changed.contains("email")) {
+            user.setEmailHash(blindIndexService.emailIndex(user.getEmail()));
+        }
+        if (changed.contains("phoneNumber")) {
+            user.setPhoneHash(blindIndexService.phoneIndex(user.getPhoneNumber()));
+        }
+        changed = user.getChangedProperties();
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(User.class);
+        UpdateWrapper<User> updateWrapper = new UpdateWrapper<>();
+        try {
+            for (TableFieldInfo field : tableInfo.getFieldList()) {
+                if (!changed.contains(field.getProperty())) {
+                    continue;
+                }
+                Object value = tableInfo.getPropertyValue(user, field.getProperty());
+                if (User.PII_PROPERTIES.contains(field.getProperty())) {
+                    value = encryptionService.encrypt((String) value);
+                }
+                updateWrapper.set(field.getColumn(), value);
+            }
+        } catch (Exception e) {
+            log.error("加密用户PII数据失败: {}", e.getMessage());
+            throw new RuntimeException("用户数据加密失败", e);
+        }
+        updateWrapper.eq("id", user.getId());
+        userMapper.update(null, updateWrapper);
+        user.trackChanges();
+        log.debug("部分更新用户: id={}, 更新列: {}", user.getId(), changed);
+    }
+
+    /**
+     * 加密PII数据后执行写入，写入后恢复对象中的明文（不再解密密文）
+     */
+    private void writeWithEncryptedPii(User user, Runnable write) {
+        String firstName = user.getFirstName();
+        String lastName = user.getLastName();
+        String email = user.getEmail();
+        String phoneNumber = user.getPhoneNumber();
+        String address = user.getAddress();
+
+        encryptUserPiiData(user);
+        try {
+            write.run();
+        } finally {
+            user.setFirstName(firstName);
+            user.setLastName(lastName);
+            user.setEmail(email);
+            user.setPhoneNumber(phoneNumber);
+            user.setAddress(address);
+        }
+    }
+
     /**
      * 加密用户PII数据
      */
@@ -251,6 +367,10 @@ public class UserServiceImpl implements UserService {
         if (user == null) return;
         
         try {
+            // 盲索引由明文计算，需在加密前生成
+            user.setEmailHash(blindIndexService.emailIndex(user.getEmail()));
+            user.setPhoneHash(blindIndexService.phoneIndex(user.getPhoneNumber()));
+
             // 加密敏感PII字段
             if (user.getFirstName() != null) {
                 user.setFirstName(encryptionService.encrypt(user.getFirstName()));
@@ -274,32 +394,45 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * 解密用户PII数据
+     * 延迟解密用户PII数据：字段保持密文，首次读取时才解密；同时开始跟踪修改，保存时只写入修改过的列
      */
-    private void decryptUserPiiData(User user) {
-        if (user == null) return;
-        
+    private void lazyDecryptUserPiiData(User user) {
+        user.enableLazyPiiDecryption(encryptionService::decrypt);
+        user.trackChanges();
+    }
+
+    /**
+     * 批量解密多个用户的PII数据（列表、导出），所有用户的密文合并后并行解密
+     */
+    private void decryptUsersPiiData(List<User> users) {
+        if (users.isEmpty()) return;
+
+        List<String> encrypted = new ArrayList<>(users.size() * PII_FIELD_COUNT);
+        for (User user : users) {
+            encrypted.add(user.getFirstName());
+            encrypted.add(user.getLastName());
+            encrypted.add(user.getEmail());
+            encrypted.add(user.getPhoneNumber());
+            encrypted.add(user.getAddress());
+        }
+
+        List<String> decrypted;
         try {
-            // 解密敏感PII字段
-            if (user.getFirstName() != null) {
-                user.setFirstName(encryptionService.decrypt(user.getFirstName()));
-            }
-            if (user.getLastName() != null) {
-                user.setLastName(encryptionService.decrypt(user.getLastName()));
-            }
-            if (user.getEmail() != null) {
-                user.setEmail(encryptionService.decrypt(user.getEmail()));
-            }
-            if (user.getPhoneNumber() != null) {
-                user.setPhoneNumber(encryptionService.decrypt(user.getPhoneNumber()));
-            }
-            if (user.getAddress() != null) {
-                user.setAddress(encryptionService.decrypt(user.getAddress()));
-            }
+            decrypted = encryptionService.decryptAll(encrypted);
         } catch (Exception e) {
-            log.error("解密用户PII数据失败: {}", e.getMessage());
+            log.error("批量解密用户PII数据失败: {}", e.getMessage());
             throw new RuntimeException("用户数据解密失败", e);
         }
+
+        int index = 0;
+        for (User user : users) {
+            user.setFirstName(decrypted.get(index++));
+            user.setLastName(decrypted.get(index++));
+            user.setEmail(decrypted.get(index++));
+            user.setPhoneNumber(decrypted.get(index++));
+            user.setAddress(decrypted.get(index++));
+            user.trackChanges();
+        }
     }
 
     @Override
@@ -309,6 +442,8 @@ public class UserServiceImpl implements UserService {
         if (user == null) {
             throw new IllegalArgumentException("用户不存在");
         }
+        // 不解密原数据：PII字段以密文与匿名化后的值比较，都会被重新加密写入
+        user.trackChanges();
 
         log.info("开始删除用户账户（数据匿名化）- 用户ID: {}, 用户名: {}", userId, user.getUsername());
 
@@ -345,11 +480,8 @@ public class UserServiceImpl implements UserService {
         // 更新删除时间
         user.setUpdatedAt(LocalDateTime.now());
         
-        // 加密匿名化后的数据（保持数据一致性）
-        encryptUserPiiData(user);
-        
-        // 保存到数据库
-        userMapper.updateById(user);
+        // 加密匿名化后的数据并保存到数据库（清除的字段显式写入NULL）
+        updateChangedColumns(user);
         
         log.info("用户账户删除完成（数据匿名化）- 用户ID: {}, 原用户名: {}", userId, user.getUsername());
     }
@@ -0,0 +1,315 @@
+package com.hotelbooking.hotel_reservation_eu.statistics;
+
+import com.hotelbooking.hotel_reservation_eu.model.AnonymizedReservation;
+import com.hotelbooking.hotel_reservation_eu.model.Reservation;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 每日统计聚合引擎
+ * 一次遍历同时计算收入、房型、分店和趋势四类指标：金额以分（long）累加，
+ * 房型/分店按long主键分组，不产生装箱对象和中间集合。
+ * 增量同步时按预订ID折叠变更：同一预订再次变更时先扣除旧贡献再累加新贡献，
+ * 因此每次折叠的成本只与变更行数相关，与当天预订总量无关
+ */
+public class DailyStatisticsAggregate {
+
+    /** 超过该行数时使用fork/join并行聚合 */
+    static final int PARALLEL_THRESHOLD = 50_000;
+
+    /** 并行聚合时每个分片的最小行数 */
+    private static final int PARALLEL_CHUNK_SIZE = 16_384;
+
+    /** 统计日期（按预订创建日期归属） */
+    private final LocalDate date;
+
+    /** 每个预订当前计入聚合的贡献，用于撤销旧值（单次遍历模式下为null） */
+    private final Map<Long, Contribution> contributions;
+
+    /** 按房型聚合（仅已支付） */
+    private final LongStatsMap roomTypeStats = new LongStatsMap();
+
+    /** 按分店聚合（仅已支付） */
+    private final LongStatsMap branchStats = new LongStatsMap();
+
+    private int totalReservations;
+    private long totalIncomeCents;
+    private long confirmedReservations;
+    private long cancelledReservations;
+
+    /**
+     * 创建可撤销的聚合（增量同步使用，同一预订可多次折叠）
+     */
+    public DailyStatisticsAggregate(LocalDate date) {
+        this(date, true);
+    }
+
+    private DailyStatisticsAggregate(LocalDate date, boolean retractable) {
+        this.date = date;
+        this.contributions = retractable ? new HashMap<>() : null;
+    }
+
+    /**
+     * 创建单次遍历聚合（流式全量扫描使用）
+     * 每个预订只出现一次，不保留逐条贡献，内存占用只与房型/分店数量相关
+     */
+    public static DailyStatisticsAggregate singlePass(LocalDate date) {
+        return new DailyStatisticsAggregate(date, false);
+    }
+
+    /**
+     * 根据实时计数器的快照构建聚合（分组数据通过 addRoomTypeGroup/addBranchGroup 填充）
+     */
+    static DailyStatisticsAggregate ofTotals(LocalDate date, int totalReservations, long totalIncomeCents,
+                                             long confirmedReservations, long cancelledReservations) {
+        DailyStatisticsAggregate aggregate = new DailyStatisticsAggregate(date, false);
+        aggregate.totalReservations = totalReservations;
+        aggregate.totalIncomeCents = totalIncomeCents;
+        aggregate.confirmedReservations = confirmedReservations;
+        aggregate.cancelledReservations = cancelledReservations;
+        return aggregate;
+    }
+
+    void addRoomTypeGroup(long roomTypeId, long count, long cents) {
+        roomTypeStats.add(roomTypeId, count, cents);
+    }
+
+    void addBranchGroup(long branchId, long count, long cents) {
+        branchStats.add(branchId, count, cents);
+    }
+
+    /**
+     * 对匿名化投影做单次遍历聚合，行数较多时按分片在ForkJoinPool中并行累加后合并
+     * 调用方需保证每个预订只出现一次；创建日期不属于统计日期的行会被忽略
+     */
+    public static DailyStatisticsAggregate aggregate(LocalDate date, List<AnonymizedReservation> reservations) {
+        if (reservations.size() < PARALLEL_THRESHOLD) {
+            return aggregateRange(date, reservations, 0, reservations.size());
+        }
+        return ForkJoinPool.commonPool().invoke(new AggregateTask(date, reservations, 0, reservations.size()));
+    }
+
+    private static DailyStatisticsAggregate aggregateRange(LocalDate date, List<AnonymizedReservation> reservations,
+                                                           int from, int to) {
+        DailyStatisticsAggregate aggregate = singlePass(date);
+        for (int i = from; i < to; i++) {
+            aggregate.apply(reservations.get(i));
+        }
+        return aggregate;
+    }
+
+    /**
+     * 合并另一个单次遍历聚合的结果（两者的预订集合不能重叠）
+     */
+    private void merge(DailyStatisticsAggregate other) {
+        totalReservations += other.totalReservations;
+        totalIncomeCents += other.totalIncomeCents;
+        confirmedReservations += other.confirmedReservations;
+        cancelledReservations += other.cancelledReservations;
+        roomTypeStats.addAll(other.roomTypeStats);
+        branchStats.addAll(other.branchStats);
+    }
+
+    /**
+     * 折叠一条已脱敏的预订变更
+     * 创建日期不属于当前统计日期的预订会被忽略
+     *
+     * @return 是否计入了当前聚合
+     */
+    public boolean apply(Reservation reservation) {
+        if (reservation == null) {
+            return false;
+        }
+        return apply(reservation.getId(), reservation.getRoomTypeId(), reservation.getBranchId(),
+                toCents(reservation.getTotalPrice()), reservation.getStatus(), reservation.getPaymentStatus(),
+                reservation.getCreatedAt());
+    }
+
+    /**
+     * 折叠一条匿名化投影，语义与 apply(Reservation) 相同
+     *
+     * @return 是否计入了当前聚合
+     */
+    public boolean apply(AnonymizedReservation reservation) {
+        if (reservation == null) {
+            return false;
+        }
+        return apply(reservation.id(), reservation.roomTypeId(), reservation.branchId(),
+                reservation.totalPriceCents(), reservation.status(), reservation.paymentStatus(),
+                reservation.createdAt());
+    }
+
+    private boolean apply(Long id, Long roomTypeId, Long branchId, long totalPriceCents,
+                          String status, String paymentStatus, LocalDateTime createdAt) {
+        if (id == null || createdAt == null || !date.equals(createdAt.toLocalDate())) {
+            return false;
+        }
+
+        if (contributions == null) {
+            totalReservations++;
+            accumulate(roomTypeId, branchId, totalPriceCents, status, paymentStatus, 1);
+            return true;
+        }
+
+        Contribution current = new Contribution(roomTypeId, branchId, totalPriceCents, status, paymentStatus);
+        Contribution previous = contributions.put(id, current);
+        if (previous != null) {
+            accumulate(previous.roomTypeId(), previous.branchId(), previous.totalPriceCents(),
+                    previous.status(), previous.paymentStatus(), -1);
+        } else {
+            totalReservations++;
+        }
+        accumulate(roomTypeId, branchId, totalPriceCents, status, paymentStatus, 1);
+        return true;
+    }
+
+    /**
+     * 直接累加一条预订，不校验日期也不记录贡献
+     * 调用方需保证每个预订只传入一次（例如对已按日期查询出的列表做单次遍历）
+     */
+    public void add(Reservation reservation) {
+        totalReservations++;
+        accumulate(reservation.getRoomTypeId(), reservation.getBranchId(), toCents(reservation.getTotalPrice()),
+                reservation.getStatus(), reservation.getPaymentStatus(), 1);
+    }
+
+    private void accumulate(Long roomTypeId, Long branchId, long totalPriceCents,
+                            String status, String paymentStatus, int sign) {
+        if ("CONFIRMED".equals(status)) {
+            confirmedReservations += sign;
+        } else if ("CANCELLED".equals(status)) {
+            cancelledReservations += sign;
+        }
+
+        if (!"PAID".equals(paymentStatus)) {
+            return;
+        }
+
+        long signedCents = sign * totalPriceCents;
+        totalIncomeCents += signedCents;
+        // 房型/分店ID在库中非空，缺失时只计入总收入
+        if (roomTypeId != null) {
+            roomTypeStats.add(roomTypeId, sign, signedCents);
+        }
+        if (branchId != null) {
+            branchStats.add(branchId, sign, signedCents);
+        }
+    }
+
+    /**
+     * 金额转换为分，缺失金额按0计
+     */
+    static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        BigDecimal scaled = amount.scale() == 2 ? amount : amount.setScale(2, RoundingMode.HALF_UP);
+        return scaled.unscaledValue().longValueExact();
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /** 当天预订总数 */
+    public int getTotalReservations() {
+        return totalReservations;
+    }
+
+    /** 当天已支付总收入 */
+    public BigDecimal getTotalIncome() {
+        return BigDecimal.valueOf(totalIncomeCents, 2);
+    }
+
+    public long getConfirmedReservations() {
+        return confirmedReservations;
+    }
+
+    public long getCancelledReservations() {
+        return cancelledReservations;
+    }
+
+    /**
+     * 按已支付预订数排名的前N个房型（预订数相同时房型ID小的优先）
+     */
+    public List<GroupStats> topRoomTypes(int limit) {
+        int[] slots = roomTypeStats.topByCount(limit);
+        List<GroupStats> result = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            result.add(toGroupStats(roomTypeStats, slot));
+        }
+        return result;
+    }
+
+    /**
+     * 各分店的已支付统计，按分店ID升序
+     */
+    public List<GroupStats> branchStats() {
+        List<GroupStats> result = new ArrayList<>(branchStats.liveSize());
+        for (int slot = 0; slot < branchStats.capacity(); slot++) {
+            if (branchStats.isLive(slot)) {
+                result.add(toGroupStats(branchStats, slot));
+            }
+        }
+        result.sort(Comparator.comparingLong(GroupStats::id));
+        return result;
+    }
+
+    private static GroupStats toGroupStats(LongStatsMap stats, int slot) {
+        return new GroupStats(stats.keyAt(slot), stats.countAt(slot), BigDecimal.valueOf(stats.centsAt(slot), 2));
+    }
+
+    /**
+     * 单个预订对聚合的贡献（不含任何PII）
+     */
+    private record Contribution(Long roomTypeId, Long branchId, long totalPriceCents,
+                                String status, String paymentStatus) {
+    }
+
+    /**
+     * 并行聚合任务：分片足够小时顺序累加，否则二分后分别聚合再合并
+     */
+    private static final class AggregateTask extends RecursiveTask<DailyStatisticsAggregate> {
+
+        private final LocalDate date;
+        private final List<AnonymizedReservation> reservations;
+        private final int from;
+        private final int to;
+
+        AggregateTask(LocalDate date, List<AnonymizedReservation> reservations, int from, int to) {
+            this.date = date;
+            this.reservations = reservations;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected DailyStatisticsAggregate compute() {
+            if (to - from <= PARALLEL_CHUNK_SIZE) {
+                return aggregateRange(date, reservations, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            AggregateTask right = new AggregateTask(date, reservations, mid, to);
+            right.fork();
+            DailyStatisticsAggregate result = new AggregateTask(date, reservations, from, mid).compute();
+            result.merge(right.join());
+            return result;
+        }
+    }
+
+    /**
+     * 分组统计结果：分组ID（房型或分店）、已支付预订数和收入
+     */
+    public record GroupStats(long id, long count, BigDecimal revenue) {
+    }
+}
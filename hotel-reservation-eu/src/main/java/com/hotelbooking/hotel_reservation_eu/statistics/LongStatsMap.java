@@ -0,0 +1,206 @@
+package com.hotelbooking.hotel_reservation_eu.statistics;
+
+/**
+ * long主键的分组统计表（开放寻址 + 线性探测）
+ * 每个槽位保存预订数和以分为单位的收入，累加过程不产生任何装箱对象
+ * 计数被扣减到0的槽位保留在表中，遍历时跳过
+ */
+final class LongStatsMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] counts;
+    private long[] cents;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    LongStatsMap() {
+        this(MIN_CAPACITY);
+    }
+
+    LongStatsMap(int expectedKeys) {
+        allocate(tableSizeFor(Math.max(expectedKeys * 2, MIN_CAPACITY)));
+    }
+
+    /**
+     * 累加一个分组的预订数和收入（分），增量可以为负数用于撤销
+     */
+    void add(long key, long countDelta, long centsDelta) {
+        int slot = slotFor(key);
+        counts[slot] += countDelta;
+        cents[slot] += centsDelta;
+    }
+
+    /**
+     * 合并另一张统计表的全部分组（并行聚合时合并各分片结果）
+     */
+    void addAll(LongStatsMap other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.used[slot]) {
+                add(other.keys[slot], other.counts[slot], other.cents[slot]);
+            }
+        }
+    }
+
+    /** 槽位总数，配合 isLive/keyAt 等方法遍历 */
+    int capacity() {
+        return keys.length;
+    }
+
+    /** 槽位是否存有计数大于0的分组 */
+    boolean isLive(int slot) {
+        return used[slot] && counts[slot] > 0;
+    }
+
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    long countAt(int slot) {
+        return counts[slot];
+    }
+
+    long centsAt(int slot) {
+        return cents[slot];
+    }
+
+    /** 计数大于0的分组数量 */
+    int liveSize() {
+        int live = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (isLive(slot)) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    /**
+     * 按预订数取前N个分组（预订数相同时主键小的优先）
+     * 使用容量为N的小顶堆，只需一次遍历，不对全部分组排序
+     *
+     * @return 按排名从高到低排列的槽位下标
+     */
+    int[] topByCount(int limit) {
+        if (limit <= 0) {
+            return new int[0];
+        }
+        int[] heap = new int[limit];
+        int heapSize = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (!isLive(slot)) {
+                continue;
+            }
+            if (heapSize < limit) {
+                heap[heapSize] = slot;
+                siftUp(heap, heapSize++);
+            } else if (ranksBefore(slot, heap[0])) {
+                heap[0] = slot;
+                siftDown(heap, heapSize);
+            }
+        }
+
+        // 依次弹出堆顶（当前最差者）从后往前填充，得到从高到低的排名
+        int[] ranked = new int[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            ranked[i] = heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, i);
+        }
+        return ranked;
+    }
+
+    private boolean ranksBefore(int a, int b) {
+        return counts[a] != counts[b] ? counts[a] > counts[b] : keys[a] < keys[b];
+    }
+
+    private void siftUp(int[] heap, int index) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksBefore(heap[parent], slot)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = slot;
+    }
+
+    private void siftDown(int[] heap, int heapSize) {
+        if (heapSize == 0) {
+            return;
+        }
+        int index = 0;
+        int slot = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && ranksBefore(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!ranksBefore(slot, heap[child])) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = slot;
+    }
+
+    private int slotFor(long key) {
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash();
+            return slotFor(key);
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        long[] oldCents = cents;
+        boolean[] oldUsed = used;
+        allocate(oldKeys.length * 2);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                int target = slotFor(oldKeys[slot]);
+                counts[target] = oldCounts[slot];
+                cents[target] = oldCents[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new long[capacity];
+        cents = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int highest = Integer.highestOneBit(capacity);
+        return highest == capacity ? capacity : highest << 1;
+    }
+}
@@ -0,0 +1,212 @@
+package com.hotelbooking.hotel_reservation_eu.statistics;
+
+import com.hotelbooking.hotel_reservation_eu.model.AnonymizedReservation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个统计日期的实时计数器
+ * 预订变更事件在提交后直接折叠进计数器：按预订ID撤销旧贡献、累加新贡献，
+ * 计数使用LongAdder分段累加，多个请求线程并发更新同一天/同一分店时不会争用同一个CAS。
+ *
+ * 计数器首次使用时需要用当天已有预订做一次种子扫描。种子与事件可以任意交错：
+ * 种子只填充尚未被事件覆盖的预订，事件总是覆盖种子（同一预订的事件之间按updatedAt取最新），
+ * 因此扫描期间提交的变更既不会丢失也不会重复计数
+ */
+public class RealtimeDayCounters {
+
+    /** 统计日期（按预订创建日期归属） */
+    private final LocalDate date;
+
+    /** 每个预订当前计入的贡献（不含任何PII） */
+    private final ConcurrentHashMap<Long, Contribution> contributions = new ConcurrentHashMap<>();
+
+    /** 按房型计数（仅已支付） */
+    private final ConcurrentHashMap<Long, GroupCounter> roomTypeCounters = new ConcurrentHashMap<>();
+
+    /** 按分店计数（仅已支付） */
+    private final ConcurrentHashMap<Long, GroupCounter> branchCounters = new ConcurrentHashMap<>();
+
+    private final LongAdder totalReservations = new LongAdder();
+    private final LongAdder totalIncomeCents = new LongAdder();
+    private final LongAdder confirmedReservations = new LongAdder();
+    private final LongAdder cancelledReservations = new LongAdder();
+
+    /** 上次刷新到BI之后是否有变化 */
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    /** 是否已完成种子扫描 */
+    private volatile boolean seeded;
+
+    public RealtimeDayCounters(LocalDate date) {
+        this.date = date;
+    }
+
+    /**
+     * 折叠一条已提交的预订变更事件
+     *
+     * @return 是否计入了当前计数器
+     */
+    public boolean applyEvent(AnonymizedReservation reservation) {
+        return apply(reservation, false);
+    }
+
+    /**
+     * 折叠一条种子扫描读到的预订，已被事件覆盖的预订会被忽略
+     *
+     * @return 是否计入了当前计数器
+     */
+    public boolean applySeed(AnonymizedReservation reservation) {
+        return apply(reservation, true);
+    }
+
+    private boolean apply(AnonymizedReservation reservation, boolean fromSeed) {
+        if (reservation == null || reservation.createdAt() == null
+                || !date.equals(reservation.createdAt().toLocalDate())) {
+            return false;
+        }
+
+        Contribution next = new Contribution(
+                reservation.roomTypeId(),
+                reservation.branchId(),
+                reservation.totalPriceCents(),
+                reservation.status(),
+                reservation.paymentStatus(),
+                reservation.updatedAt(),
+                fromSeed);
+
+        boolean[] applied = new boolean[1];
+        // compute 在同一预订ID上串行执行，撤销与累加对该预订是原子的
+        contributions.compute(reservation.id(), (id, previous) -> {
+            if (previous != null && !supersedes(next, previous)) {
+                return previous;
+            }
+            if (previous != null) {
+                accumulate(previous, -1);
+            } else {
+                totalReservations.increment();
+            }
+            accumulate(next, 1);
+            applied[0] = true;
+            return next;
+        });
+
+        if (applied[0]) {
+            dirty.set(true);
+        }
+        return applied[0];
+    }
+
+    /**
+     * 判断新贡献是否应替换已有贡献：种子从不覆盖已有值；事件总是覆盖种子，
+     * 事件之间按updatedAt取较新者（提交后回调可能乱序到达）
+     */
+    private static boolean supersedes(Contribution next, Contribution previous) {
+        if (next.fromSeed()) {
+            return false;
+        }
+        if (previous.fromSeed() || next.updatedAt() == null || previous.updatedAt() == null) {
+            return true;
+        }
+        return !next.updatedAt().isBefore(previous.updatedAt());
+    }
+
+    private void accumulate(Contribution contribution, int sign) {
+        if ("CONFIRMED".equals(contribution.status())) {
+            confirmedReservations.add(sign);
+        } else if ("CANCELLED".equals(contribution.status())) {
+            cancelledReservations.add(sign);
+        }
+
+        if (!"PAID".equals(contribution.paymentStatus())) {
+            return;
+        }
+
+        long signedCents = sign * contribution.totalPriceCents();
+        totalIncomeCents.add(signedCents);
+        if (contribution.roomTypeId() != null) {
+            roomTypeCounters.computeIfAbsent(contribution.roomTypeId(), id -> new GroupCounter()).add(sign, signedCents);
+        }
+        if (contribution.branchId() != null) {
+            branchCounters.computeIfAbsent(contribution.branchId(), id -> new GroupCounter()).add(sign, signedCents);
+        }
+    }
+
+    /**
+     * 读取当前计数生成聚合快照
+     * 快照不加锁，并发更新中的单个预订可能只反映一半（已撤销未累加），下一次刷新即可修正
+     */
+    public DailyStatisticsAggregate snapshot() {
+        DailyStatisticsAggregate aggregate = DailyStatisticsAggregate.ofTotals(date,
+                totalReservations.intValue(),
+                totalIncomeCents.sum(),
+                confirmedReservations.sum(),
+                cancelledReservations.sum());
+        for (Map.Entry<Long, GroupCounter> entry : roomTypeCounters.entrySet()) {
+            aggregate.addRoomTypeGroup(entry.getKey(), entry.getValue().count.sum(), entry.getValue().cents.sum());
+        }
+        for (Map.Entry<Long, GroupCounter> entry : branchCounters.entrySet()) {
+            aggregate.addBranchGroup(entry.getKey(), entry.getValue().count.sum(), entry.getValue().cents.sum());
+        }
+        return aggregate;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public void markSeeded() {
+        seeded = true;
+        dirty.set(true);
+    }
+
+    public boolean isDirty() {
+        return dirty.get();
+    }
+
+    /**
+     * 取出并清除变化标记，刷新前调用；刷新期间到达的事件会重新设置标记
+     */
+    public boolean clearDirty() {
+        return dirty.getAndSet(false);
+    }
+
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    /** 当前计入的预订数（用于监控内存占用） */
+    public int trackedReservations() {
+        return contributions.size();
+    }
+
+    /**
+     * 单个预订对计数器的贡献
+     */
+    private record Contribution(Long roomTypeId, Long branchId, long totalPriceCents,
+                                String status, String paymentStatus,
+                                LocalDateTime updatedAt, boolean fromSeed) {
+    }
+
+    /**
+     * 分组计数：已支付预订数和收入（分）
+     */
+    private static final class GroupCounter {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder cents = new LongAdder();
+
+        void add(long countDelta, long centsDelta) {
+            count.add(countDelta);
+            cents.add(centsDelta);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.hotelbooking.hotel_reservation_eu.statistics;
+
+import com.alibaba.fastjson2.JSONFactory;
+import com.alibaba.fastjson2.JSONReader;
+import com.alibaba.fastjson2.JSONWriter;
+import com.alibaba.fastjson2.reader.ObjectReader;
+import com.alibaba.fastjson2.writer.ObjectWriter;
+import com.hotelbooking.hotel_reservation_eu.dto.StatisticsReportDto;
+
+/**
+ * 综合统计报告编解码器
+ * 基于fastjson2，在类加载时预先构建报告类型的读写器，序列化时不再反射查找字段；
+ * 输出的JSON写入BI库 comprehensive_reports.report_data
+ */
+public final class StatisticsReportCodec {
+
+    @SuppressWarnings("unchecked")
+    private static final ObjectWriter<StatisticsReportDto> WRITER = (ObjectWriter<StatisticsReportDto>)
+            JSONFactory.getDefaultObjectWriterProvider().getObjectWriter(StatisticsReportDto.class);
+
+    @SuppressWarnings("unchecked")
+    private static final ObjectReader<StatisticsReportDto> READER = (ObjectReader<StatisticsReportDto>)
+            JSONFactory.getDefaultObjectReaderProvider().getObjectReader(StatisticsReportDto.class);
+
+    private StatisticsReportCodec() {
+    }
+
+    /**
+     * 序列化为JSON字符串
+     */
+    public static String toJson(StatisticsReportDto report) {
+        try (JSONWriter writer = JSONWriter.of()) {
+            WRITER.write(writer, report, null, null, 0);
+            return writer.toString();
+        }
+    }
+
+    /**
+     * 从JSON字符串还原报告
+     */
+    public static StatisticsReportDto fromJson(String json) {
+        try (JSONReader reader = JSONReader.of(json)) {
+            return READER.readObject(reader, StatisticsReportDto.class, null, 0);
+        }
+    }
+}
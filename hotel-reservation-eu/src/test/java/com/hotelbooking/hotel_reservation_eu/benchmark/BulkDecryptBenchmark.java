@@ -0,0 +1,75 @@
+package com.hotelbooking.hotel_reservation_eu.benchmark;
+
+import com.hotelbooking.hotel_reservation_eu.service.DataEncryptionService;
+import com.hotelbooking.hotel_reservation_eu.service.InMemoryDataKeyService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户列表PII批量解密基准测试
+ * 一页用户（每个用户5个加密字段）逐个字段顺序解密，与 decryptAll 分块并行解密的单页耗时对比
+ *
+ * 运行方式：
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.hotelbooking.hotel_reservation_eu.benchmark.BulkDecryptBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class BulkDecryptBenchmark {
+
+    /** 每页用户数 */
+    @Param({"20", "200", "2000"})
+    private int userCount;
+
+    private final DataEncryptionService encryptionService = new DataEncryptionService(new InMemoryDataKeyService());
+    private List<String> cipherTexts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cipherTexts = new ArrayList<>(userCount * 5);
+        for (int i = 0; i < userCount; i++) {
+            cipherTexts.add(encryptionService.encrypt("Anna" + i));
+            cipherTexts.add(encryptionService.encrypt("Schmidt" + i));
+            cipherTexts.add(encryptionService.encrypt("guest.name" + i + "@example.com"));
+            cipherTexts.add(encryptionService.encrypt("+49 30 1234" + i));
+            cipherTexts.add(encryptionService.encrypt("Hauptstrasse " + i + ", 10115 Berlin, Germany"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        encryptionService.shutdown();
+    }
+
+    @Benchmark
+    public List<String> sequentialDecrypt() {
+        List<String> decrypted = new ArrayList<>(cipherTexts.size());
+        for (String cipherText : cipherTexts) {
+            decrypted.add(encryptionService.decrypt(cipherText));
+        }
+        return decrypted;
+    }
+
+    @Benchmark
+    public List<String> bulkDecrypt() {
+        return encryptionService.decryptAll(cipherTexts);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BulkDecryptBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
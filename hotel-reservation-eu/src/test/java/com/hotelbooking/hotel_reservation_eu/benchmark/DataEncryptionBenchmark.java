@@ -0,0 +1,140 @@
+package com.hotelbooking.hotel_reservation_eu.benchmark;
+
+import com.hotelbooking.hotel_reservation_eu.service.DataEncryptionService;
+import com.hotelbooking.hotel_reservation_eu.service.InMemoryDataKeyService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PII字段加解密基准测试
+ * 对比原先每次调用都重新派生密钥、获取 Cipher、创建 SecureRandom 的实现，
+ * 与缓存密钥、线程内复用 Cipher/SecureRandom 后的 String 接口和 byte[] 接口的单字段吞吐
+ *
+ * 运行方式：
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.hotelbooking.hotel_reservation_eu.benchmark.DataEncryptionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class DataEncryptionBenchmark {
+
+    private static final String KEY = "benchmark-data-encryption-key";
+
+    /** 邮箱长度的字段和地址长度的字段 */
+    @Param({"24", "128"})
+    private int fieldLength;
+
+    private final DataEncryptionService encryptionService = new DataEncryptionService(new InMemoryDataKeyService());
+    private final LegacyDataEncryption legacy = new LegacyDataEncryption(KEY);
+    private String plainText;
+    private byte[] plainBytes;
+    private String cipherText;
+    private byte[] cipherBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ReflectionTestUtils.setField(encryptionService, "dataEncryptionKey", KEY);
+        plainText = "guest.name@example.com  Hauptstrasse 1, 10115 Berlin, Germany ".repeat(4).substring(0, fieldLength);
+        plainBytes = plainText.getBytes(StandardCharsets.UTF_8);
+        cipherText = encryptionService.encrypt(plainText);
+        cipherBytes = encryptionService.encrypt(plainBytes);
+    }
+
+    @Benchmark
+    public String legacyEncrypt() throws Exception {
+        return legacy.encrypt(plainText);
+    }
+
+    @Benchmark
+    public String legacyDecrypt() throws Exception {
+        return legacy.decrypt(cipherText);
+    }
+
+    @Benchmark
+    public String encryptString() {
+        return encryptionService.encrypt(plainText);
+    }
+
+    @Benchmark
+    public String decryptString() {
+        return encryptionService.decrypt(cipherText);
+    }
+
+    @Benchmark
+    public byte[] encryptBytes() {
+        return encryptionService.encrypt(plainBytes);
+    }
+
+    @Benchmark
+    public byte[] decryptBytes() {
+        return encryptionService.decrypt(cipherBytes);
+    }
+
+    /**
+     * 原实现（作为对照）
+     */
+    static final class LegacyDataEncryption {
+
+        private final String dataEncryptionKey;
+
+        LegacyDataEncryption(String dataEncryptionKey) {
+            this.dataEncryptionKey = dataEncryptionKey;
+        }
+
+        String encrypt(String plainText) throws Exception {
+            SecretKeySpec keySpec = generateKeySpec();
+            byte[] iv = new byte[12];
+            new SecureRandom().nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+            byte[] encryptedData = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+            byte[] encryptedWithIv = new byte[12 + encryptedData.length];
+            System.arraycopy(iv, 0, encryptedWithIv, 0, 12);
+            System.arraycopy(encryptedData, 0, encryptedWithIv, 12, encryptedData.length);
+            return Base64.getEncoder().encodeToString(encryptedWithIv);
+        }
+
+        String decrypt(String encryptedText) throws Exception {
+            byte[] encryptedWithIv = Base64.getDecoder().decode(encryptedText);
+            byte[] iv = new byte[12];
+            System.arraycopy(encryptedWithIv, 0, iv, 0, 12);
+            byte[] encryptedData = new byte[encryptedWithIv.length - 12];
+            System.arraycopy(encryptedWithIv, 12, encryptedData, 0, encryptedData.length);
+            SecretKeySpec keySpec = generateKeySpec();
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+            return new String(cipher.doFinal(encryptedData), StandardCharsets.UTF_8);
+        }
+
+        private SecretKeySpec generateKeySpec() throws Exception {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return new SecretKeySpec(digest.digest(dataEncryptionKey.getBytes(StandardCharsets.UTF_8)), "AES");
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DataEncryptionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
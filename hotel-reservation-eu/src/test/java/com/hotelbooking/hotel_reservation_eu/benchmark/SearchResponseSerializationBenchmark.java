@@ -0,0 +1,160 @@
+package com.hotelbooking.hotel_reservation_eu.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelbooking.hotel_reservation_eu.dto.RoomTypeBranchMappingDto;
+import com.hotelbooking.hotel_reservation_eu.search.BranchInventory;
+import com.hotelbooking.hotel_reservation_eu.search.InventoryEntry;
+import com.hotelbooking.hotel_reservation_eu.search.SearchHit;
+import com.hotelbooking.hotel_reservation_eu.search.SearchPage;
+import com.hotelbooking.hotel_reservation_eu.search.SearchParams;
+import com.hotelbooking.hotel_reservation_eu.search.SearchResponseWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 搜索响应序列化基准测试
+ * 对比原先每个房型构建 HashMap 再由 ObjectMapper 序列化，与 SearchResponseWriter 直接流式写出，
+ * 在10/100/1000条结果下的耗时；GC分析器输出的 gc.alloc.rate.norm 即每次序列化分配的字节数
+ *
+ * 运行方式：
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.hotelbooking.hotel_reservation_eu.benchmark.SearchResponseSerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class SearchResponseSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int resultCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SearchParams params = SearchParams.ofBranch(1L, LocalDate.of(2030, 6, 1),
+            LocalDate.of(2030, 6, 4), 2, 1, List.of());
+    private List<SearchHit> hits;
+    private SearchPage page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<RoomTypeBranchMappingDto> mappings = new ArrayList<>(resultCount);
+        for (long i = 1; i <= resultCount; i++) {
+            mappings.add(RoomTypeBranchMappingDto.builder()
+                    .id(i)
+                    .roomTypeId(i)
+                    .hotelBranchId(1L)
+                    .isActive(true)
+                    .branchSpecificPrice(random.nextBoolean() ? BigDecimal.valueOf(8000 + random.nextInt(20000), 2) : null)
+                    .availableRoomsCount(10)
+                    .maxRoomsCount(10)
+                    .sortOrder(random.nextInt(10))
+                    .roomTypeName("豪华双床房 " + i)
+                    .roomTypeDescription("城市景观，配备独立浴室和工作区")
+                    .roomTypeBasePrice(BigDecimal.valueOf(10000 + random.nextInt(20000), 2))
+                    .size(25 + random.nextInt(30))
+                    .bedType("双床")
+                    .maxGuests(1 + random.nextInt(4))
+                    .imageUrl("/images/room-" + i + ".jpg")
+                    .hotelBranchName("柏林中央酒店")
+                    .hotelBranchCity("Berlin")
+                    .hotelBranchCountry("Germany")
+                    .build());
+        }
+        List<String> amenities = List.of("WiFi", "空调", "迷你吧", "保险箱", "吹风机");
+        BranchInventory inventory = BranchInventory.of(1L, mappings, json -> amenities);
+        hits = new ArrayList<>(resultCount);
+        for (InventoryEntry entry : inventory.getEntries()) {
+            hits.add(new SearchHit(inventory, entry, 1 + random.nextInt(10)));
+        }
+        page = new SearchPage(hits, hits.size(), 1, null, List.of());
+    }
+
+    @Benchmark
+    public byte[] legacyMapResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(LegacyMapResponse.build(hits, params));
+    }
+
+    @Benchmark
+    public byte[] streamingWriter() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512 + hits.size() * 512);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            SearchResponseWriter.writeBranchResponse(generator, params, page);
+        }
+        return out.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SearchResponseSerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * 原 HotelSearchApiController 中基于 HashMap 构建响应的实现，仅作为基准对照保留
+     */
+    static final class LegacyMapResponse {
+
+        private LegacyMapResponse() {
+        }
+
+        static Map<String, Object> build(List<SearchHit> hits, SearchParams params) {
+            List<Map<String, Object>> roomTypes = new ArrayList<>();
+            for (SearchHit hit : hits) {
+                InventoryEntry entry = hit.entry();
+                BranchInventory inventory = hit.branch();
+                Map<String, Object> roomTypeMap = new HashMap<>();
+                roomTypeMap.put("id", entry.roomTypeId());
+                roomTypeMap.put("roomTypeName", entry.roomTypeName());
+                roomTypeMap.put("description", entry.description());
+                roomTypeMap.put("size", entry.size());
+                roomTypeMap.put("bedType", entry.bedType());
+                roomTypeMap.put("maxGuests", entry.maxGuests());
+                roomTypeMap.put("price", entry.effectivePrice());
+                roomTypeMap.put("priceSource", entry.priceSource());
+                roomTypeMap.put("availableRooms", "剩余" + hit.freeRooms() + "间");
+                roomTypeMap.put("imageUrl", entry.imageUrl());
+                roomTypeMap.put("amenities", entry.amenities());
+                roomTypeMap.put("branchName", inventory.getBranchName());
+                roomTypeMap.put("branchCity", inventory.getBranchCity());
+                roomTypeMap.put("branchCountry", inventory.getBranchCountry());
+                roomTypes.add(roomTypeMap);
+            }
+
+            Map<String, Object> searchParams = new HashMap<>();
+            searchParams.put("branchId", params.branchId());
+            searchParams.put("checkinDate", params.checkin().format(DateTimeFormatter.ofPattern("yyyy年MM月dd日")));
+            searchParams.put("checkoutDate", params.checkout().format(DateTimeFormatter.ofPattern("yyyy年MM月dd日")));
+            searchParams.put("checkinDateRaw", params.checkin().toString());
+            searchParams.put("checkoutDateRaw", params.checkout().toString());
+            searchParams.put("guests", params.guests());
+            searchParams.put("rooms", params.rooms());
+            searchParams.put("nights", params.nights());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("searchParams", searchParams);
+            response.put("hotels", roomTypes);
+            response.put("totalResults", roomTypes.size());
+            response.put("message", roomTypes.isEmpty() ? "该分店暂无可用房源" : "搜索完成");
+            return response;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.hotelbooking.hotel_reservation_eu.benchmark;
+
+import com.hotelbooking.hotel_reservation_eu.dto.StatisticsReportDto;
+import com.hotelbooking.hotel_reservation_eu.model.AnonymizedReservation;
+import com.hotelbooking.hotel_reservation_eu.model.Reservation;
+import com.hotelbooking.hotel_reservation_eu.service.impl.StatisticsReportServiceImpl;
+import com.hotelbooking.hotel_reservation_eu.statistics.DailyStatisticsAggregate;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 统计报告聚合基准测试
+ * 对比原四条Stream流水线实现、单次遍历聚合引擎和匿名化投影并行聚合在1万/10万/100万条预订下的耗时
+ *
+ * 运行方式：
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.hotelbooking.hotel_reservation_eu.benchmark.StatisticsAggregationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class StatisticsAggregationBenchmark {
+
+    private static final String[] STATUSES = {"PENDING", "CONFIRMED", "CONFIRMED", "CANCELLED", "COMPLETED"};
+    private static final String[] PAYMENT_STATUSES = {"PENDING", "PAID", "PAID", "REFUNDED"};
+
+    @Param({"10000", "100000", "1000000"})
+    private int reservationCount;
+
+    private final LocalDate date = LocalDate.of(2025, 1, 15);
+    private final StatisticsReportServiceImpl reportService = new StatisticsReportServiceImpl();
+    private List<Reservation> reservations;
+    private List<AnonymizedReservation> projections;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime createdAt = date.atTime(10, 0);
+        reservations = new ArrayList<>(reservationCount);
+        for (long i = 1; i <= reservationCount; i++) {
+            int nights = 1 + random.nextInt(7);
+            BigDecimal pricePerNight = BigDecimal.valueOf(5000 + random.nextInt(45000), 2);
+            reservations.add(Reservation.builder()
+                    .id(i)
+                    .roomTypeId(1L + random.nextInt(200))
+                    .branchId(1L + random.nextInt(500))
+                    .pricePerNight(pricePerNight)
+                    .totalPrice(pricePerNight.multiply(BigDecimal.valueOf(nights)))
+                    .status(STATUSES[random.nextInt(STATUSES.length)])
+                    .paymentStatus(PAYMENT_STATUSES[random.nextInt(PAYMENT_STATUSES.length)])
+                    .createdAt(createdAt)
+                    .build());
+        }
+        projections = new ArrayList<>(reservationCount);
+        for (Reservation reservation : reservations) {
+            projections.add(new AnonymizedReservation(reservation.getId(), reservation.getRoomTypeId(),
+                    reservation.getBranchId(), reservation.getTotalPrice().movePointRight(2).longValueExact(),
+                    reservation.getStatus(), reservation.getPaymentStatus(), createdAt, createdAt));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyStreamPipelines() {
+        return LegacyStreamReport.generate(reservations, date);
+    }
+
+    @Benchmark
+    public StatisticsReportDto singlePassEngine() {
+        DailyStatisticsAggregate aggregate = DailyStatisticsAggregate.singlePass(date);
+        for (Reservation reservation : reservations) {
+            aggregate.add(reservation);
+        }
+        return reportService.generateReportFromAggregate(aggregate);
+    }
+
+    @Benchmark
+    public StatisticsReportDto parallelProjectionEngine() {
+        return reportService.generateReportFromAggregate(DailyStatisticsAggregate.aggregate(date, projections));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StatisticsAggregationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * 原 StatisticsReportServiceImpl 中基于四条Stream流水线的实现，仅作为基准对照保留
+     */
+    static final class LegacyStreamReport {
+
+        private LegacyStreamReport() {
+        }
+
+        static Map<String, Object> generate(List<Reservation> reservations, LocalDate date) {
+            Map<String, Object> report = new HashMap<>();
+            report.put("reportDate", date);
+            report.put("dataCount", reservations.size());
+            report.put("dailyTotalIncome", dailyTotalIncome(reservations));
+            report.put("popularRoomTypesTop5", popularRoomTypesTop5(reservations));
+            report.put("branchPerformance", branchPerformance(reservations));
+            report.put("reservationTrends", reservationTrends(reservations));
+            return report;
+        }
+
+        private static Map<String, Object> dailyTotalIncome(List<Reservation> reservations) {
+            BigDecimal totalIncome = reservations.stream()
+                    .filter(r -> "PAID".equals(r.getPaymentStatus()))
+                    .map(Reservation::getTotalPrice)
+                    .filter(Objects::nonNull)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            int totalReservations = reservations.size();
+            Map<String, Object> dailyIncome = new HashMap<>();
+            dailyIncome.put("totalIncome", totalIncome);
+            dailyIncome.put("totalReservations", totalReservations);
+            dailyIncome.put("avgPricePerNight", totalReservations > 0 ?
+                    totalIncome.divide(BigDecimal.valueOf(totalReservations), 2, RoundingMode.HALF_UP) :
+                    BigDecimal.ZERO);
+            return dailyIncome;
+        }
+
+        private static List<Map<String, Object>> popularRoomTypesTop5(List<Reservation> reservations) {
+            Map<Long, List<Reservation>> roomTypeGroups = reservations.stream()
+                    .filter(r -> "PAID".equals(r.getPaymentStatus()))
+                    .collect(Collectors.groupingBy(Reservation::getRoomTypeId));
+            List<Map<String, Object>> top5List = roomTypeGroups.entrySet().stream()
+                    .map(entry -> groupStats("roomTypeId", entry))
+                    .sorted((a, b) -> ((Integer) b.get("reservationCount")).compareTo((Integer) a.get("reservationCount")))
+                    .limit(5)
+                    .collect(Collectors.toList());
+            for (int i = 0; i < top5List.size(); i++) {
+                top5List.get(i).put("ranking", i + 1);
+            }
+            return top5List;
+        }
+
+        private static List<Map<String, Object>> branchPerformance(List<Reservation> reservations) {
+            Map<Long, List<Reservation>> branchGroups = reservations.stream()
+                    .filter(r -> "PAID".equals(r.getPaymentStatus()))
+                    .collect(Collectors.groupingBy(Reservation::getBranchId));
+            return branchGroups.entrySet().stream()
+                    .map(entry -> groupStats("branchId", entry))
+                    .collect(Collectors.toList());
+        }
+
+        private static Map<String, Object> groupStats(String idKey, Map.Entry<Long, List<Reservation>> entry) {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put(idKey, entry.getKey());
+            stats.put("reservationCount", entry.getValue().size());
+            stats.put("totalRevenue", entry.getValue().stream()
+                    .map(Reservation::getTotalPrice)
+                    .filter(Objects::nonNull)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add));
+            return stats;
+        }
+
+        private static Map<String, Object> reservationTrends(List<Reservation> reservations) {
+            long totalReservations = reservations.size();
+            long confirmedReservations = reservations.stream().filter(r -> "CONFIRMED".equals(r.getStatus())).count();
+            long cancelledReservations = reservations.stream().filter(r -> "CANCELLED".equals(r.getStatus())).count();
+            Map<String, Object> trends = new HashMap<>();
+            trends.put("totalReservations", totalReservations);
+            trends.put("confirmedReservations", confirmedReservations);
+            trends.put("cancelledReservations", cancelledReservations);
+            trends.put("completionRate", totalReservations > 0 ?
+                    BigDecimal.valueOf(confirmedReservations)
+                            .divide(BigDecimal.valueOf(totalReservations), 4, RoundingMode.HALF_UP)
+                            .multiply(BigDecimal.valueOf(100)) :
+                    BigDecimal.ZERO);
+            return trends;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.hotelbooking.hotel_reservation_eu.benchmark;
+
+import com.hotelbooking.hotel_reservation_eu.service.BlindIndexService;
+import com.hotelbooking.hotel_reservation_eu.service.DataEncryptionService;
+import com.hotelbooking.hotel_reservation_eu.service.InMemoryDataKeyService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按邮箱查询用户基准测试
+ * 在MySQL兼容模式的H2内存库中写入1万/100万个加密用户，对比原先读取全表逐个解密比对，
+ * 与按盲索引列（idx_email）查询后只解密命中行的单次查询耗时
+ *
+ * 运行方式：
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.hotelbooking.hotel_reservation_eu.benchmark.UserEmailLookupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class UserEmailLookupBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int userCount;
+
+    private final DataEncryptionService encryptionService = new DataEncryptionService(new InMemoryDataKeyService());
+    private final BlindIndexService blindIndexService = new BlindIndexService("benchmark-blind-index-key");
+    private final Random random = new Random(42);
+    private Connection connection;
+    private PreparedStatement selectByHash;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        ReflectionTestUtils.setField(encryptionService, "dataEncryptionKey", "benchmark-data-encryption-key");
+        connection = DriverManager.getConnection("jdbc:h2:mem:user_lookup_" + userCount + ";MODE=MySQL;NON_KEYWORDS=USER", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE user (id BIGINT PRIMARY KEY, email VARCHAR(255) NOT NULL, " +
+                    "email_hash CHAR(64))");
+            statement.execute("CREATE INDEX idx_email ON user (email_hash)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO user (id, email, email_hash) VALUES (?, ?, ?)")) {
+            for (int i = 1; i <= userCount; i++) {
+                String email = email(i);
+                insert.setLong(1, i);
+                insert.setString(2, encryptionService.encrypt(email));
+                insert.setString(3, blindIndexService.emailIndex(email));
+                insert.addBatch();
+                if (i % 10_000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        selectByHash = connection.prepareStatement("SELECT id, email FROM user WHERE email_hash = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * 原实现：读取全部用户，逐个解密邮箱直到匹配
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public long fullTableDecryptScan() throws SQLException {
+        String target = email(1 + random.nextInt(userCount));
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT id, email FROM user")) {
+            while (resultSet.next()) {
+                if (target.equals(encryptionService.decrypt(resultSet.getString(2)))) {
+                    return resultSet.getLong(1);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 盲索引：计算HMAC后按索引查询，只解密命中的行
+     */
+    @Benchmark
+    public long blindIndexLookup() throws SQLException {
+        String target = email(1 + random.nextInt(userCount));
+        selectByHash.setString(1, blindIndexService.emailIndex(target));
+        try (ResultSet resultSet = selectByHash.executeQuery()) {
+            while (resultSet.next()) {
+                if (target.equalsIgnoreCase(encryptionService.decrypt(resultSet.getString(2)))) {
+                    return resultSet.getLong(1);
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static String email(int i) {
+        return "guest" + i + "@example.com";
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UserEmailLookupBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
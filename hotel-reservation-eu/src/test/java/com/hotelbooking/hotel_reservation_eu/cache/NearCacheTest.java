@@ -0,0 +1,104 @@
+package com.hotelbooking.hotel_reservation_eu.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NearCache 近端缓存测试类
+ */
+@DisplayName("近端缓存测试")
+class NearCacheTest {
+
+    @Test
+    @DisplayName("测试命中、空结果缓存、失效与统计")
+    void testHitsAndInvalidation() {
+        NearCache<Long, String> cache = new NearCache<>("test", 100, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get(1L, id -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get(1L, id -> "v" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+
+        // 不存在的数据也缓存，不会反复加载
+        assertNull(cache.get(2L, id -> { loads.incrementAndGet(); return null; }));
+        assertNull(cache.get(2L, id -> { loads.incrementAndGet(); return null; }));
+        assertEquals(2, loads.get());
+
+        cache.invalidate(1L);
+        assertEquals("v3", cache.get(1L, id -> "v" + loads.incrementAndGet()));
+
+        cache.invalidateIf(id -> id == 2L);
+        assertEquals("found", cache.get(2L, id -> "found"));
+
+        NearCacheStats stats = cache.stats();
+        assertEquals(2, stats.size());
+        assertEquals(2, stats.hits());
+        assertEquals(4, stats.misses());
+        assertEquals(2, stats.invalidations());
+        assertEquals(1.0 / 3, stats.hitRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("测试加载失败不缓存、过期重新加载与容量上限")
+    void testFailuresExpiryAndBound() {
+        NearCache<Long, String> cache = new NearCache<>("test", 10, Duration.ZERO);
+
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, id -> { throw new IllegalStateException(); }));
+        assertEquals(1, cache.stats().loadFailures());
+        assertEquals("a", cache.get(1L, id -> "a"));
+        // 有效期为0，每次读取都重新加载
+        assertEquals("b", cache.get(1L, id -> "b"));
+
+        NearCache<Long, Long> bounded = new NearCache<>("bounded", 10, Duration.ofMinutes(5));
+        for (long i = 0; i < 100; i++) {
+            bounded.get(i, id -> id);
+        }
+        assertTrue(bounded.stats().size() <= 10);
+        assertTrue(bounded.stats().evictions() >= 90);
+    }
+
+    @Test
+    @DisplayName("测试慢加载不阻塞失效，同一个键的并发未命中只加载一次")
+    void testLoadRunsOutsideMapLock() throws Exception {
+        NearCache<Long, String> cache = new NearCache<>("test", 100, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get(1L, id -> {
+            loads.incrementAndGet();
+            loadStarted.countDown();
+            try {
+                assertTrue(releaseLoad.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "old";
+        }));
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() ->
+                cache.get(1L, id -> "v" + loads.incrementAndGet()));
+
+        // 加载进行中失效同一个键不等待加载完成
+        CompletableFuture.runAsync(() -> cache.invalidate(1L)).get(1, TimeUnit.SECONDS);
+        releaseLoad.countDown();
+
+        assertEquals("old", first.get(5, TimeUnit.SECONDS));
+        // 第二个调用方在失效前已在等待或在失效后重新加载，不会读到失效后写入缓存的旧值
+        String secondValue = second.get(5, TimeUnit.SECONDS);
+        assertTrue("old".equals(secondValue) || "v2".equals(secondValue));
+        assertEquals("old".equals(secondValue) ? 1 : 2, loads.get());
+
+        // 失效前开始的加载结果不写入缓存
+        String reloaded = cache.get(1L, id -> "v" + loads.incrementAndGet());
+        assertNotEquals("old", reloaded);
+    }
+}
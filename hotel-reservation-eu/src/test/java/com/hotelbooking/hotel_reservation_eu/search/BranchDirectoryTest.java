@@ -0,0 +1,60 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import com.hotelbooking.hotel_reservation_eu.model.HotelBranch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BranchDirectory 启用分店目录测试类
+ */
+@DisplayName("启用分店目录测试")
+class BranchDirectoryTest {
+
+    @Test
+    @DisplayName("测试目录排序、按国家城市查找与ETag")
+    void testDirectory() {
+        HotelBranch munich = branch(1L, "慕尼黑店", "Munich", "Germany");
+        List<HotelBranch> branches = List.of(
+                munich,
+                branch(2L, "巴黎店", "Paris", "France"),
+                branch(3L, "柏林东店", "Berlin", "Germany"),
+                branch(4L, "柏林西店", "berlin", "Germany"));
+        BranchDirectory directory = BranchDirectory.of(branches);
+
+        assertEquals(List.of(2L, 3L, 4L, 1L), ids(directory.getActiveBranches()));
+        assertEquals(List.of(3L, 4L, 1L), ids(directory.getByCountry(" germany")));
+        assertEquals(List.of(3L, 4L), ids(directory.getByCity("BERLIN")));
+        assertTrue(directory.getByCountry("Spain").isEmpty());
+        assertEquals("Paris", directory.getById(2L).orElseThrow().getCity());
+
+        // ETag由内容计算，内容相同的目录ETag相同
+        assertEquals(directory.getETag(), BranchDirectory.of(branches).getETag());
+
+        // 目录保存的是副本，修改查询结果实体不影响目录
+        munich.setBranchName("已修改");
+        assertEquals("慕尼黑店", directory.getById(1L).orElseThrow().getBranchName());
+        assertThrows(UnsupportedOperationException.class, () -> directory.getActiveBranches().clear());
+
+        assertNotEquals(directory.getETag(), BranchDirectory.of(branches).getETag());
+    }
+
+    private static HotelBranch branch(Long id, String name, String city, String country) {
+        return HotelBranch.builder()
+                .id(id)
+                .branchName(name)
+                .city(city)
+                .country(country)
+                .status(1)
+                .updatedAt(LocalDateTime.of(2025, 1, 1, 0, 0))
+                .build();
+    }
+
+    private static List<Long> ids(List<HotelBranch> branches) {
+        return branches.stream().map(HotelBranch::getId).toList();
+    }
+}
@@ -0,0 +1,167 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import com.hotelbooking.hotel_reservation_eu.dto.RoomTypeBranchMappingDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BranchInventory 分店房源索引测试类
+ */
+@DisplayName("分店房源索引测试")
+class BranchInventoryTest {
+
+    private static final Long BRANCH_ID = 1L;
+
+    @Test
+    @DisplayName("测试房源按排序号和基础价格排序")
+    void testSearchOrder() {
+        BranchInventory inventory = BranchInventory.of(BRANCH_ID, List.of(
+                mapping(10L, 1, "300.00", null, 5),
+                mapping(11L, 0, "500.00", null, 2),
+                mapping(12L, 0, "200.00", null, 0),
+                mapping(13L, 1, "100.00", null, 3)
+        ), json -> List.of());
+
+        assertEquals(List.of(12L, 11L, 13L, 10L),
+                inventory.getEntries().stream().map(InventoryEntry::mappingId).toList());
+        assertEquals("测试分店", inventory.getBranchName());
+        assertEquals("Berlin", inventory.getBranchCity());
+    }
+
+    @Test
+    @DisplayName("测试有效价格与价格来源在建索引时计算，设施只解析一次")
+    void testPrecomputedPriceAndAmenities() {
+        AtomicInteger parseCount = new AtomicInteger();
+        BranchInventory inventory = BranchInventory.of(BRANCH_ID, List.of(
+                mapping(10L, 0, "300.00", "260.00", 5),
+                mapping(11L, 1, "300.00", "0", 5)
+        ), json -> {
+            parseCount.incrementAndGet();
+            return List.of("WiFi", "Minibar");
+        });
+
+        InventoryEntry branchPriced = inventory.getEntries().get(0);
+        assertEquals(new BigDecimal("260.00"), branchPriced.effectivePrice());
+        assertEquals(InventoryEntry.PRICE_SOURCE_BRANCH, branchPriced.priceSource());
+
+        InventoryEntry basePriced = inventory.getEntries().get(1);
+        assertEquals(new BigDecimal("300.00"), basePriced.effectivePrice());
+        assertEquals(InventoryEntry.PRICE_SOURCE_BASE, basePriced.priceSource());
+
+        assertEquals(2, parseCount.get());
+        assertEquals(List.of("WiFi", "Minibar"), basePriced.amenities());
+        assertThrows(UnsupportedOperationException.class, () -> basePriced.amenities().add("Sauna"));
+    }
+
+    @Test
+    @DisplayName("测试按客人数和房间数筛选房源")
+    void testSelectByGuestsAndRooms() {
+        RoomTypeBranchMappingDto single = mapping(10L, 0, "100.00", null, 5);
+        single.setMaxGuests(1);
+        RoomTypeBranchMappingDto twin = mapping(11L, 1, "200.00", null, 5);
+        twin.setMaxGuests(2);
+        RoomTypeBranchMappingDto family = mapping(12L, 2, "300.00", null, 5);
+        family.setMaxGuests(4);
+        family.setMaxRoomsCount(1);
+        RoomTypeBranchMappingDto unknown = mapping(13L, 3, "400.00", null, 5);
+        BranchInventory inventory = BranchInventory.of(BRANCH_ID, List.of(single, twin, family, unknown),
+                json -> List.of());
+
+        assertArrayEquals(new int[]{0, 1, 2, 3}, inventory.select(1, 1));
+        assertArrayEquals(new int[]{1, 2, 3}, inventory.select(2, 1));
+        assertArrayEquals(new int[]{2, 3}, inventory.select(3, 1));
+        // 两间房分摊客人；家庭房每晚只有1间，无法订2间
+        assertArrayEquals(new int[]{0, 1, 3}, inventory.select(2, 2));
+        assertArrayEquals(new int[]{1, 3}, inventory.select(4, 2));
+        assertArrayEquals(new int[]{3}, inventory.select(5, 2));
+        assertArrayEquals(new int[0], BranchInventory.empty(BRANCH_ID).select(1, 1));
+    }
+
+    @Test
+    @DisplayName("测试按设施组合筛选并统计设施分面")
+    void testAmenityFilterAndFacets() {
+        Map<String, List<String>> amenitiesByJson = Map.of(
+                "a", List.of("WiFi", "Balcony"),
+                "b", List.of(" wifi ", "Minibar"),
+                "c", List.of("Balcony", "Minibar", "WIFI"));
+        List<RoomTypeBranchMappingDto> mappings = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            RoomTypeBranchMappingDto mapping = mapping(10L + i, i, "100.00", null, 5);
+            mapping.setAmenities(i % 3 == 0 ? "a" : i % 3 == 1 ? "b" : "c");
+            mappings.add(mapping);
+        }
+        BranchInventory inventory = BranchInventory.of(BRANCH_ID, mappings, amenitiesByJson::get);
+
+        // 大小写和空白不同的写法归一为同一设施，并共用首次出现的名称
+        int wifi = AmenityDictionary.find("WiFi");
+        int balcony = AmenityDictionary.find("balcony");
+        int minibar = AmenityDictionary.find("MINIBAR");
+        assertEquals(wifi, AmenityDictionary.find(" WIFI"));
+        assertSame(inventory.getEntries().get(0).amenities().get(0), inventory.getEntries().get(1).amenities().get(0));
+
+        assertEquals(70, inventory.select(1, 1, new int[]{wifi}).length);
+        int[] wifiAndBalcony = inventory.select(1, 1, new int[]{wifi, balcony});
+        assertEquals(47, wifiAndBalcony.length);
+        for (int index : wifiAndBalcony) {
+            assertNotEquals(1, index % 3);
+        }
+        assertEquals(23, inventory.select(1, 1, new int[]{balcony, minibar}).length);
+        assertEquals(0, inventory.select(1, 1, new int[]{-1}).length);
+
+        int[] counts = new int[AmenityDictionary.size()];
+        inventory.countAmenities(wifiAndBalcony, counts);
+        assertEquals(47, counts[wifi]);
+        assertEquals(47, counts[balcony]);
+        assertEquals(23, counts[minibar]);
+    }
+
+    @Test
+    @DisplayName("测试没有房源时返回空索引")
+    void testEmptyInventory() {
+        BranchInventory inventory = BranchInventory.of(BRANCH_ID, List.of(), json -> List.of());
+        assertTrue(inventory.isEmpty());
+        assertTrue(inventory.getEntries().isEmpty());
+        assertEquals(BRANCH_ID, inventory.getBranchId());
+        assertEquals(0L, inventory.getVersion());
+        assertEquals(inventory.getVersion(), BranchInventory.empty(BRANCH_ID).getVersion());
+    }
+
+    @Test
+    @DisplayName("测试每次重建索引分配新版本，使旧响应缓存失效")
+    void testVersionChangesOnRebuild() {
+        List<RoomTypeBranchMappingDto> mappings = List.of(mapping(10L, 0, "300.00", null, 5));
+        BranchInventory first = BranchInventory.of(BRANCH_ID, mappings, json -> List.of());
+        BranchInventory second = BranchInventory.of(BRANCH_ID, mappings, json -> List.of());
+
+        assertTrue(first.getVersion() > 0);
+        assertTrue(second.getVersion() > first.getVersion());
+    }
+
+    private static RoomTypeBranchMappingDto mapping(Long id, int sortOrder, String basePrice,
+                                                    String branchPrice, int availableRooms) {
+        return RoomTypeBranchMappingDto.builder()
+                .id(id)
+                .roomTypeId(id + 100)
+                .hotelBranchId(BRANCH_ID)
+                .isActive(true)
+                .branchSpecificPrice(branchPrice != null ? new BigDecimal(branchPrice) : null)
+                .availableRoomsCount(availableRooms)
+                .maxRoomsCount(10)
+                .sortOrder(sortOrder)
+                .roomTypeName("房型" + id)
+                .roomTypeBasePrice(new BigDecimal(basePrice))
+                .amenities("[\"WiFi\"]")
+                .hotelBranchName("测试分店")
+                .hotelBranchCity("Berlin")
+                .hotelBranchCountry("Germany")
+                .build();
+    }
+}
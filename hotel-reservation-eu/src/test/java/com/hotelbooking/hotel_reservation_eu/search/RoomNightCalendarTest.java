@@ -0,0 +1,133 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RoomNightCalendar / RoomStayLedger 按晚房量不变式测试类
+ * 与逐晚数组的朴素实现对比，验证随机操作序列下的各项不变式
+ */
+@DisplayName("按晚房量日历不变式测试")
+class RoomNightCalendarTest {
+
+    private static final LocalDate ORIGIN = LocalDate.of(2025, 1, 1);
+    private static final int DAYS = 100;
+
+    @Test
+    @DisplayName("测试随机占用与释放后区间最大值与逐晚数组一致")
+    void testMatchesNaiveModel() {
+        Random random = new Random(42);
+        RoomNightCalendar calendar = new RoomNightCalendar(ORIGIN, DAYS);
+        int[] naive = new int[(int) (calendar.getEnd().toEpochDay() - ORIGIN.toEpochDay())];
+        List<int[]> active = new ArrayList<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            if (!active.isEmpty() && random.nextInt(3) == 0) {
+                int[] stay = active.remove(random.nextInt(active.size()));
+                calendar.add(night(stay[0]), night(stay[1]), -stay[2]);
+                addNaive(naive, stay[0], stay[1], -stay[2]);
+            } else {
+                int from = random.nextInt(DAYS);
+                int to = from + 1 + random.nextInt(14);
+                int rooms = 1 + random.nextInt(3);
+                calendar.add(night(from), night(to), rooms);
+                addNaive(naive, from, to, rooms);
+                active.add(new int[]{from, to, rooms});
+            }
+
+            int from = random.nextInt(DAYS);
+            int to = from + 1 + random.nextInt(DAYS - from);
+            assertEquals(naiveMax(naive, from, to), calendar.maxBooked(night(from), night(to)));
+        }
+
+        // 全部释放后每晚回到0
+        for (int[] stay : active) {
+            calendar.add(night(stay[0]), night(stay[1]), -stay[2]);
+        }
+        for (int day = 0; day < DAYS; day++) {
+            assertEquals(0, calendar.bookedOn(night(day)));
+        }
+    }
+
+    @Test
+    @DisplayName("测试退房当天不占用房间，日历范围外的区间不可查询")
+    void testHalfOpenIntervalsAndBounds() {
+        RoomNightCalendar calendar = new RoomNightCalendar(ORIGIN, DAYS);
+        calendar.add(night(0), night(3), 1);
+        assertEquals(1, calendar.maxBooked(night(2), night(4)));
+        assertEquals(0, calendar.maxBooked(night(3), night(5)));
+        assertEquals(0, calendar.bookedOn(night(3)));
+
+        assertTrue(calendar.covers(night(10), calendar.getEnd()));
+        assertFalse(calendar.covers(night(10), calendar.getEnd().plusDays(1)));
+        assertFalse(calendar.covers(night(10), night(10)));
+    }
+
+    @Test
+    @DisplayName("测试平移后保留新起始日期之后每晚的已订数")
+    void testRebasePreservesFutureNights() {
+        RoomNightCalendar calendar = new RoomNightCalendar(ORIGIN, DAYS);
+        calendar.add(night(5), night(20), 2);
+        calendar.add(night(15), night(30), 1);
+
+        RoomNightCalendar rebased = calendar.rebase(night(10), DAYS);
+        assertEquals(night(10), rebased.getOrigin());
+        for (int day = 10; day < 40; day++) {
+            assertEquals(calendar.bookedOn(night(day)), rebased.bookedOn(night(day)));
+        }
+        assertEquals(3, rebased.maxBooked(night(10), night(40)));
+    }
+
+    @Test
+    @DisplayName("测试台账中加载、占用、释放任意先后到达都只计入一次")
+    void testLedgerIsIdempotent() {
+        RoomStayLedger ledger = new RoomStayLedger(ORIGIN, DAYS);
+
+        // 加载时已读到本事务插入的行，下单成功后再次计入不会重复
+        ledger.load(1L, night(0), night(2), 2);
+        ledger.load(1L, night(0), night(2), 2);
+        assertEquals(1, ledger.freeRooms(night(0), night(2), 3));
+
+        ledger.load(2L, night(2), night(3), 3);
+        assertEquals(0, ledger.freeRooms(night(1), night(3), 3));
+
+        // 重复释放与未计入的释放不影响计数
+        assertTrue(ledger.release(1L));
+        assertFalse(ledger.release(1L));
+        assertFalse(ledger.release(99L));
+        assertEquals(3, ledger.freeRooms(night(0), night(2), 3));
+        assertEquals(0, ledger.freeRooms(night(0), night(3), 3));
+
+        assertTrue(ledger.release(2L));
+        assertEquals(3, ledger.freeRooms(night(0), night(3), 3));
+        assertEquals(0, ledger.trackedStays());
+
+        // 超出台账范围的区间没有可售房间
+        assertEquals(0, ledger.freeRooms(night(0), ledger.getEnd().plusDays(1), 3));
+    }
+
+    private static LocalDate night(int day) {
+        return ORIGIN.plusDays(day);
+    }
+
+    private static void addNaive(int[] naive, int from, int to, int rooms) {
+        for (int day = from; day < to && day < naive.length; day++) {
+            naive[day] += rooms;
+        }
+    }
+
+    private static int naiveMax(int[] naive, int from, int to) {
+        int max = Integer.MIN_VALUE;
+        for (int day = from; day < to; day++) {
+            max = Math.max(max, day < naive.length ? naive[day] : 0);
+        }
+        return max;
+    }
+}
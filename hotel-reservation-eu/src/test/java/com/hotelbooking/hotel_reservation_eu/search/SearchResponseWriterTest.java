@@ -0,0 +1,80 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelbooking.hotel_reservation_eu.dto.RoomTypeBranchMappingDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SearchResponseWriter 流式搜索响应测试类
+ */
+@DisplayName("搜索响应流式输出测试")
+class SearchResponseWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("测试单分店响应字段与原Map响应一致")
+    void testBranchResponse() throws IOException {
+        BranchInventory inventory = BranchInventory.of(7L, List.of(RoomTypeBranchMappingDto.builder()
+                .id(1L)
+                .roomTypeId(101L)
+                .hotelBranchId(7L)
+                .branchSpecificPrice(new BigDecimal("189.50"))
+                .maxRoomsCount(10)
+                .roomTypeName("豪华大床房")
+                .roomTypeBasePrice(new BigDecimal("220.00"))
+                .maxGuests(2)
+                .hotelBranchName("柏林中央酒店")
+                .hotelBranchCity("Berlin")
+                .hotelBranchCountry("Germany")
+                .build()), json -> List.of("WiFi", "空调"));
+        SearchHit hit = new SearchHit(inventory, inventory.getEntries().get(0), 3);
+        SearchParams params = SearchParams.ofBranch(7L, LocalDate.of(2030, 6, 1), LocalDate.of(2030, 6, 4), 2, 1,
+                List.of(" wifi", "WiFi"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            SearchResponseWriter.writeBranchResponse(generator, params,
+                    new SearchPage(List.of(hit), 1, 1, null, List.of(new AmenityFacet("WiFi", 1))));
+        }
+        String json = out.toString(StandardCharsets.UTF_8);
+        JsonNode response = objectMapper.readTree(json);
+
+        assertTrue(response.get("success").asBoolean());
+        assertEquals(1, response.get("totalResults").asInt());
+        assertEquals(SearchResponseWriter.MESSAGE_FOUND, response.get("message").asText());
+
+        JsonNode searchParams = response.get("searchParams");
+        assertEquals(7L, searchParams.get("branchId").asLong());
+        assertEquals("2030年06月01日", searchParams.get("checkinDate").asText());
+        assertEquals("2030-06-04", searchParams.get("checkoutDateRaw").asText());
+        assertEquals(3, searchParams.get("nights").asInt());
+        assertFalse(searchParams.has("city"));
+        assertEquals(1, searchParams.get("amenities").size());
+        assertEquals("WiFi", searchParams.get("amenities").get(0).asText());
+        assertEquals(1, response.get("facets").get("amenities").get(0).get("count").asInt());
+
+        JsonNode room = response.get("hotels").get(0);
+        assertEquals(101L, room.get("id").asLong());
+        assertTrue(json.contains("\"price\":189.50"), "价格应与BigDecimal原样输出一致");
+        assertEquals(InventoryEntry.PRICE_SOURCE_BRANCH, room.get("priceSource").asText());
+        assertEquals("剩余3间", room.get("availableRooms").asText());
+        assertEquals(2, room.get("amenities").size());
+        assertTrue(room.get("size").isNull());
+        assertTrue(room.get("description").isNull());
+        assertFalse(room.has("branchId"));
+        assertEquals("Berlin", room.get("branchCity").asText());
+    }
+}
@@ -0,0 +1,82 @@
+package com.hotelbooking.hotel_reservation_eu.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TopKCollector 与 SearchCursor 分页测试类
+ */
+@DisplayName("Top-K收集与游标分页测试")
+class TopKCollectorTest {
+
+    @Test
+    @DisplayName("测试流式Top-K与完整排序后取前K条一致")
+    void testMatchesFullSort() {
+        Random random = new Random(42);
+        List<Integer> values = new ArrayList<>();
+        TopKCollector<Integer> collector = new TopKCollector<>(10, Comparator.naturalOrder());
+        for (int i = 0; i < 1_000; i++) {
+            int value = random.nextInt(500);
+            values.add(value);
+            collector.offer(value);
+        }
+
+        Collections.sort(values);
+        assertEquals(values.subList(0, 10), collector.toSortedList());
+        assertEquals(1_000, collector.getOffered());
+    }
+
+    @Test
+    @DisplayName("测试按游标逐页读取覆盖全部结果且不重复")
+    void testCursorPaging() {
+        List<SearchCursor> all = new ArrayList<>();
+        Random random = new Random(7);
+        for (long branchId = 1; branchId <= 5; branchId++) {
+            for (long roomTypeId = 1; roomTypeId <= 9; roomTypeId++) {
+                // 大量同价房型，依靠分店ID和房型ID区分位置
+                all.add(new SearchCursor(BigDecimal.valueOf(100 + random.nextInt(4) * 50), branchId, roomTypeId));
+            }
+        }
+
+        List<SearchCursor> paged = new ArrayList<>();
+        SearchCursor after = null;
+        while (true) {
+            TopKCollector<SearchCursor> collector = new TopKCollector<>(7 + 1, Comparator.naturalOrder());
+            for (SearchCursor key : all) {
+                if (after == null || after.compareTo(key) < 0) {
+                    collector.offer(key);
+                }
+            }
+            List<SearchCursor> page = collector.toSortedList();
+            boolean hasMore = page.size() > 7;
+            page = hasMore ? page.subList(0, 7) : page;
+            paged.addAll(page);
+            if (!hasMore) {
+                break;
+            }
+            after = SearchCursor.decode(page.get(page.size() - 1).encode());
+        }
+
+        List<SearchCursor> expected = new ArrayList<>(all);
+        Collections.sort(expected);
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    @DisplayName("测试无效游标被拒绝")
+    void testInvalidCursor() {
+        SearchCursor cursor = new SearchCursor(new BigDecimal("129.50"), 3L, 12L);
+        assertEquals(cursor, SearchCursor.decode(cursor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("MTIzOmFiYzo0"));
+    }
+}
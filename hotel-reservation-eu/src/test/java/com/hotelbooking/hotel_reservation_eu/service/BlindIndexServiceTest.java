@@ -0,0 +1,37 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BlindIndexService 盲索引测试类
+ */
+@DisplayName("盲索引测试")
+class BlindIndexServiceTest {
+
+    private final BlindIndexService blindIndexService = new BlindIndexService("test-blind-index-key");
+
+    @Test
+    @DisplayName("测试邮箱和电话规范化后得到相同索引")
+    void testNormalization() {
+        String index = blindIndexService.emailIndex("Guest@Example.com");
+        assertEquals(64, index.length());
+        assertEquals(index, blindIndexService.emailIndex("  guest@example.COM "));
+        assertNotEquals(index, blindIndexService.emailIndex("guest2@example.com"));
+        assertNull(blindIndexService.emailIndex("  "));
+
+        assertEquals(blindIndexService.phoneIndex("+49 (30) 123-456"), blindIndexService.phoneIndex("4930123456"));
+        assertNull(blindIndexService.phoneIndex("n/a"));
+    }
+
+    @Test
+    @DisplayName("测试索引依赖密钥且邮箱电话互不相同")
+    void testKeyAndDomainSeparation() {
+        BlindIndexService otherKey = new BlindIndexService("another-blind-index-key");
+        assertNotEquals(blindIndexService.emailIndex("guest@example.com"), otherKey.emailIndex("guest@example.com"));
+        assertNotEquals(blindIndexService.emailIndex("12345"), blindIndexService.phoneIndex("12345"));
+        assertThrows(IllegalStateException.class, () -> new BlindIndexService(" "));
+    }
+}
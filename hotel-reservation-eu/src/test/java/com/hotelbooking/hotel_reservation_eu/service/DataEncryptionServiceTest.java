@@ -0,0 +1,190 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import com.hotelbooking.hotel_reservation_eu.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DataEncryptionService 数据加密测试类
+ */
+@DisplayName("数据加密测试")
+class DataEncryptionServiceTest {
+
+    private InMemoryDataKeyService dataKeyService;
+    private DataEncryptionService encryptionService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataKeyService = new InMemoryDataKeyService();
+        encryptionService = new DataEncryptionService(dataKeyService);
+        ReflectionTestUtils.setField(encryptionService, "dataEncryptionKey", "test-data-encryption-key");
+        encryptionService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        encryptionService.shutdown();
+    }
+
+    @Test
+    @DisplayName("测试加解密往返、空值透传与篡改检测")
+    void testRoundTrip() {
+        String encrypted = encryptionService.encrypt("guest@example.com");
+        assertNotEquals(encrypted, encryptionService.encrypt("guest@example.com"), "每次加密应使用新的IV");
+        assertEquals("guest@example.com", encryptionService.decrypt(encrypted));
+        assertNull(encryptionService.encrypt((String) null));
+        assertEquals(" ", encryptionService.decrypt(" "));
+
+        byte[] encryptedBytes = encryptionService.encrypt("Hauptstraße 1".getBytes(StandardCharsets.UTF_8));
+        assertEquals("Hauptstraße 1", new String(encryptionService.decrypt(encryptedBytes), StandardCharsets.UTF_8));
+
+        encryptedBytes[encryptedBytes.length - 1] ^= 1;
+        byte[] tampered = encryptedBytes;
+        assertThrows(RuntimeException.class, () -> encryptionService.decrypt(tampered));
+        // 解密失败后同一线程的 Cipher 仍可继续使用
+        assertEquals("guest@example.com", encryptionService.decrypt(encrypted));
+    }
+
+    @Test
+    @DisplayName("测试兼容原有密文格式且旧密钥配置变化后重新派生")
+    void testCompatibilityAndKeyChange() throws Exception {
+        // 原实现：SHA-256(配置密钥) 作为AES密钥，Base64(IV + 密文 + 标签)
+        byte[] keyBytes = MessageDigest.getInstance("SHA-256")
+                .digest("test-data-encryption-key".getBytes(StandardCharsets.UTF_8));
+        byte[] iv = new byte[12];
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(keyBytes, "AES"), new GCMParameterSpec(128, iv));
+        byte[] data = cipher.doFinal("legacy@example.com".getBytes(StandardCharsets.UTF_8));
+        byte[] withIv = new byte[iv.length + data.length];
+        System.arraycopy(data, 0, withIv, iv.length, data.length);
+        String legacy = Base64.getEncoder().encodeToString(withIv);
+        assertEquals("legacy@example.com", encryptionService.decrypt(legacy));
+        assertEquals(DataEncryptionService.LEGACY_KEY_VERSION, encryptionService.getKeyVersion(legacy));
+        assertTrue(encryptionService.needsReEncryption(legacy));
+
+        String reEncrypted = encryptionService.reEncrypt(legacy);
+        assertEquals(dataKeyService.getActiveKeyVersion(), encryptionService.getKeyVersion(reEncrypted));
+        assertEquals("legacy@example.com", encryptionService.decrypt(reEncrypted));
+
+        ReflectionTestUtils.setField(encryptionService, "dataEncryptionKey", "rotated-key");
+        assertThrows(RuntimeException.class, () -> encryptionService.decrypt(legacy));
+        assertEquals("new", encryptionService.decrypt(encryptionService.encrypt("new")));
+        assertEquals("legacy@example.com", encryptionService.decrypt(reEncrypted));
+    }
+
+    @Test
+    @DisplayName("测试数据密钥轮换后旧版本密文仍可解密并可重新加密")
+    void testDataKeyRotation() {
+        String v1 = encryptionService.encrypt("guest@example.com");
+        assertEquals(1, encryptionService.getKeyVersion(v1));
+        assertFalse(encryptionService.needsReEncryption(v1));
+        assertSame(v1, encryptionService.reEncrypt(v1));
+        assertEquals(-1, encryptionService.getKeyVersion(null));
+        assertFalse(encryptionService.needsReEncryption(""));
+
+        dataKeyService.rotateDataKey();
+        // 旧版本数据密钥重新由KMS解密
+        dataKeyService.clearCachedKeys();
+        String v2 = encryptionService.encrypt("guest@example.com");
+        assertEquals(2, encryptionService.getKeyVersion(v2));
+        assertEquals("guest@example.com", encryptionService.decrypt(v1));
+        assertTrue(encryptionService.needsReEncryption(v1));
+
+        String reEncrypted = encryptionService.reEncrypt(v1);
+        assertEquals(2, encryptionService.getKeyVersion(reEncrypted));
+        assertEquals("guest@example.com", encryptionService.decrypt(reEncrypted));
+
+        // 头部中的密钥版本受认证保护，改成其他版本后解密失败
+        byte[] encrypted = Base64.getDecoder().decode(v2.substring(1));
+        encrypted[4] = 1;
+        String forged = "$" + Base64.getEncoder().encodeToString(encrypted);
+        assertEquals(1, encryptionService.getKeyVersion(forged));
+        assertThrows(RuntimeException.class, () -> encryptionService.decrypt(forged));
+    }
+
+    @Test
+    @DisplayName("测试多线程并发加解密")
+    void testConcurrentUse() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 500; j++) {
+                        String value = "user" + thread + "-" + j + "@example.com";
+                        if (!value.equals(encryptionService.decrypt(encryptionService.encrypt(value)))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("测试批量并行解密与用户PII延迟解密")
+    void testBulkAndLazyDecryption() {
+        List<String> plainTexts = new ArrayList<>();
+        List<String> encrypted = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String value = i % 10 == 0 ? null : "guest" + i + "@example.com";
+            plainTexts.add(value);
+            encrypted.add(encryptionService.encrypt(value));
+        }
+        assertEquals(plainTexts, encryptionService.decryptAll(encrypted));
+        assertEquals(List.of("a"), encryptionService.decryptAll(List.of(encryptionService.encrypt("a"))));
+
+        encrypted.set(501, encrypted.get(501).substring(0, 20) + "AAAA");
+        assertThrows(RuntimeException.class, () -> encryptionService.decryptAll(encrypted));
+
+        AtomicInteger decryptions = new AtomicInteger();
+        User user = User.builder()
+                .username("guest")
+                .firstName(encryptionService.encrypt("Anna"))
+                .lastName(encryptionService.encrypt("Schmidt"))
+                .email(encryptionService.encrypt("anna@example.com"))
+                .build();
+        user.enableLazyPiiDecryption(value -> {
+            decryptions.incrementAndGet();
+            return encryptionService.decrypt(value);
+        });
+        assertTrue(user.hasEncryptedPii());
+        assertEquals("guest", user.getUsername());
+        assertEquals(0, decryptions.get(), "未读取PII时不应解密");
+
+        assertEquals("Anna Schmidt", user.getFullName());
+        assertEquals("Anna", user.getFirstName());
+        assertEquals(2, decryptions.get(), "同一字段只解密一次");
+        assertNull(user.getPhoneNumber());
+
+        user.setEmail("new@example.com");
+        assertEquals("new@example.com", user.getEmail());
+        assertFalse(user.hasEncryptedPii());
+        assertEquals(2, decryptions.get());
+    }
+}
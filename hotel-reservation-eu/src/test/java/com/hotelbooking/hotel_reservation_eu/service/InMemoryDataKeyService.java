@@ -0,0 +1,85 @@
+package com.hotelbooking.hotel_reservation_eu.service;
+
+import com.hotelbooking.hotel_reservation_eu.service.impl.LocalKeyManagementService;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 测试和基准测试用的数据密钥服务
+ * 数据密钥由本地KMS加密后保存在内存中（代替 data_encryption_key 表），不需要数据库
+ */
+public class InMemoryDataKeyService implements DataKeyService {
+
+    private final KeyManagementService keyManagementService;
+    private final Map<Integer, KeyManagementService.DataKey> wrappedKeys = new ConcurrentHashMap<>();
+    private final Map<Integer, SecretKey> dataKeys = new ConcurrentHashMap<>();
+    private volatile int activeVersion;
+
+    public InMemoryDataKeyService() {
+        this(new LocalKeyManagementService("test-1=test-master-key", "test-1"));
+    }
+
+    public InMemoryDataKeyService(KeyManagementService keyManagementService) {
+        this.keyManagementService = keyManagementService;
+        rotateDataKey();
+    }
+
+    @Override
+    public int getActiveKeyVersion() {
+        return activeVersion;
+    }
+
+    @Override
+    public SecretKey getDataKey(int version) {
+        return dataKeys.computeIfAbsent(version, v -> {
+            KeyManagementService.DataKey wrapped = wrappedKeys.get(v);
+            if (wrapped == null) {
+                throw new IllegalArgumentException("数据密钥不存在: " + v);
+            }
+            return new SecretKeySpec(keyManagementService.decryptDataKey(wrapped.masterKeyId(),
+                    wrapped.encryptedKey()), "AES");
+        });
+    }
+
+    @Override
+    public synchronized int rotateDataKey() {
+        KeyManagementService.DataKey generated = keyManagementService.generateDataKey();
+        int version = activeVersion + 1;
+        wrappedKeys.put(version, new KeyManagementService.DataKey(generated.masterKeyId(), null,
+                generated.encryptedKey()));
+        activeVersion = version;
+        return version;
+    }
+
+    @Override
+    public int rewrapDataKeys() {
+        int rewrapped = 0;
+        for (Map.Entry<Integer, KeyManagementService.DataKey> entry : wrappedKeys.entrySet()) {
+            KeyManagementService.DataKey wrapped = entry.getValue();
+            if (!wrapped.masterKeyId().equals(keyManagementService.getActiveMasterKeyId())) {
+                byte[] plaintextKey = keyManagementService.decryptDataKey(wrapped.masterKeyId(), wrapped.encryptedKey());
+                entry.setValue(keyManagementService.encryptDataKey(plaintextKey));
+                rewrapped++;
+            }
+        }
+        return rewrapped;
+    }
+
+    /**
+     * 清除已解密的数据密钥，下次使用时重新由KMS解密
+     */
+    public void clearCachedKeys() {
+        dataKeys.clear();
+    }
+
+    @Override
+    public Map<String, Object> getKeyStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("activeVersion", activeVersion);
+        return status;
+    }
+}
@@ -0,0 +1,53 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.hotelbooking.hotel_reservation_eu.dto.StatisticsReportDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * BI写入熔断测试类
+ */
+@DisplayName("BI写入熔断测试")
+class BiWriteCircuitBreakerTest {
+
+    @Test
+    @DisplayName("测试不完整的报告不访问BI库也不计入熔断失败")
+    void testInvalidReportDoesNotOpenBreaker() {
+        DataSource dataSource = mock(DataSource.class);
+        BiDataWriteServiceImpl writer = new BiDataWriteServiceImpl(dataSource, null, null, 3, 30_000, 300_000);
+        StatisticsReportDto report = new StatisticsReportDto(LocalDate.now(), "test-report", "EU",
+                LocalDateTime.now(), 0, null, List.of(), List.of(), null);
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IllegalArgumentException.class, () -> writer.writeAllStatistics(report, LocalDate.now()));
+        }
+        assertTrue(writer.isAvailable());
+        assertEquals("CLOSED", writer.getCircuitBreakerStatus().get("state"));
+        verifyNoInteractions(dataSource);
+    }
+
+    @Test
+    @DisplayName("测试非BI异常归还半开探测机会")
+    void testReleaseProbe() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ZERO, Duration.ZERO);
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "半开状态只放行一次探测");
+        breaker.releaseProbe();
+        assertTrue(breaker.tryAcquire(), "归还后下一个调用者可以重新探测");
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
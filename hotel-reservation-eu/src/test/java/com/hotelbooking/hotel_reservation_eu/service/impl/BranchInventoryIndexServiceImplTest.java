@@ -0,0 +1,124 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelbooking.hotel_reservation_eu.dto.RoomTypeBranchMappingDto;
+import com.hotelbooking.hotel_reservation_eu.mapper.RoomTypeBranchMappingMapper;
+import com.hotelbooking.hotel_reservation_eu.search.BranchInventory;
+import com.hotelbooking.hotel_reservation_eu.search.SearchIndexUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分店房源搜索索引加载测试类
+ */
+@DisplayName("分店房源搜索索引加载测试")
+class BranchInventoryIndexServiceImplTest {
+
+    private static final long BRANCH_ID = 1L;
+
+    private RoomTypeBranchMappingMapper mapper;
+    private BranchInventoryIndexServiceImpl index;
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(RoomTypeBranchMappingMapper.class);
+        index = new BranchInventoryIndexServiceImpl(mapper, new ObjectMapper());
+        ReflectionTestUtils.setField(index, "ttlSeconds", 300L);
+        index.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        index.shutdown();
+    }
+
+    @Test
+    @DisplayName("测试未加载过索引时多分店搜索返回不可用并在后台加载")
+    void testFindBranchesBeforeFirstLoad() {
+        when(mapper.selectAllSearchable()).thenReturn(List.of(mapping(10L, "100")));
+
+        assertThrows(SearchIndexUnavailableException.class, () -> index.findBranches("Berlin", null));
+
+        verify(mapper, timeout(5_000)).selectAllSearchable();
+        long deadline = System.currentTimeMillis() + 5_000;
+        List<BranchInventory> branches = null;
+        while (branches == null && System.currentTimeMillis() < deadline) {
+            try {
+                branches = index.findBranches("Berlin", null);
+            } catch (SearchIndexUnavailableException e) {
+                Thread.onSpinWait();
+            }
+        }
+        assertNotNull(branches);
+        assertEquals(1, branches.size());
+    }
+
+    @Test
+    @DisplayName("测试全量索引过期后在后台重建，期间返回旧快照")
+    void testExpiredIndexIsRebuiltInBackground() {
+        when(mapper.selectAllSearchable()).thenReturn(List.of(mapping(10L, "100")), List.of(mapping(10L, "120")));
+        index.rebuild();
+
+        // 价格在其他实例修改，本实例没有收到事件
+        ReflectionTestUtils.setField(index, "ttlSeconds", 0L);
+        assertEquals(new BigDecimal("100"), index.findBranches("Berlin", null).get(0).getEntries().get(0).effectivePrice());
+
+        verify(mapper, timeout(5_000).atLeast(2)).selectAllSearchable();
+        ReflectionTestUtils.setField(index, "ttlSeconds", 300L);
+        long deadline = System.currentTimeMillis() + 5_000;
+        BigDecimal price = null;
+        while (!new BigDecimal("120").equals(price) && System.currentTimeMillis() < deadline) {
+            price = index.getBranchInventory(BRANCH_ID).getEntries().get(0).effectivePrice();
+            Thread.onSpinWait();
+        }
+        assertEquals(new BigDecimal("120"), price);
+    }
+
+    @Test
+    @DisplayName("测试先查询的刷新结果不会覆盖后查询的结果")
+    void testOlderRefreshDoesNotOverwriteNewer() {
+        AtomicBoolean nested = new AtomicBoolean();
+        when(mapper.selectSearchableByBranchId(BRANCH_ID)).thenAnswer(invocation -> {
+            if (nested.compareAndSet(false, true)) {
+                // 第一次查询返回前，另一次刷新读到了更新后的数据并先完成
+                List<RoomTypeBranchMappingDto> older = List.of(mapping(10L, "100"));
+                index.refreshBranch(BRANCH_ID);
+                return older;
+            }
+            return List.of(mapping(10L, "120"));
+        });
+
+        index.refreshBranch(BRANCH_ID);
+
+        BranchInventory inventory = index.getBranchInventory(BRANCH_ID);
+        assertEquals(new BigDecimal("120"), inventory.getEntries().get(0).effectivePrice());
+    }
+
+    private static RoomTypeBranchMappingDto mapping(Long id, String price) {
+        return RoomTypeBranchMappingDto.builder()
+                .id(id)
+                .roomTypeId(id + 100)
+                .hotelBranchId(BRANCH_ID)
+                .isActive(true)
+                .branchSpecificPrice(new BigDecimal(price))
+                .availableRoomsCount(5)
+                .maxRoomsCount(5)
+                .sortOrder(0)
+                .roomTypeName("房型" + id)
+                .roomTypeBasePrice(new BigDecimal(price))
+                .hotelBranchName("测试分店")
+                .hotelBranchCity("Berlin")
+                .hotelBranchCountry("DE")
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.hotelbooking.hotel_reservation_eu.mapper.DataEncryptionKeyMapper;
+import com.hotelbooking.hotel_reservation_eu.model.DataEncryptionKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * DataKeyServiceImpl 数据密钥测试类
+ */
+@DisplayName("数据密钥测试")
+class DataKeyServiceImplTest {
+
+    private DataEncryptionKeyMapper mapper;
+    private PlatformTransactionManager transactionManager;
+    private DataKeyServiceImpl dataKeyService;
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(DataEncryptionKeyMapper.class);
+        AtomicInteger ids = new AtomicInteger();
+        when(mapper.insert(any(DataEncryptionKey.class))).thenAnswer(invocation -> {
+            invocation.<DataEncryptionKey>getArgument(0).setId(ids.incrementAndGet());
+            return 1;
+        });
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        dataKeyService = new DataKeyServiceImpl(mapper,
+                new LocalKeyManagementService("test-1=test-master-key", "test-1"), transactionManager);
+        dataKeyService.initTransactionTemplate();
+    }
+
+    @Test
+    @DisplayName("测试数据密钥在独立事务提交后才用于加密")
+    void testKeyUsedOnlyAfterCommit() {
+        doThrow(new TransactionSystemException("commit failed")).when(transactionManager).commit(any());
+        assertThrows(TransactionSystemException.class, () -> dataKeyService.getActiveKeyVersion());
+        assertThrows(TransactionSystemException.class, () -> dataKeyService.rotateDataKey());
+        verify(transactionManager, times(2)).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        // 查询状态时会再尝试生成一次，同样失败
+        assertEquals(List.of(), dataKeyService.getKeyStatus().get("cachedVersions"), "未提交的密钥不应缓存");
+
+        doNothing().when(transactionManager).commit(any());
+        int version = dataKeyService.rotateDataKey();
+        assertEquals(4, version);
+        assertNotNull(dataKeyService.getDataKey(version));
+        verify(mapper).retireOlderThan(version);
+        verify(mapper, never()).selectById(any());
+    }
+}
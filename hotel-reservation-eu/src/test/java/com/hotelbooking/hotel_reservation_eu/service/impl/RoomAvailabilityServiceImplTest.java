@@ -0,0 +1,116 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.hotelbooking.hotel_reservation_eu.event.ReservationChangedEvent;
+import com.hotelbooking.hotel_reservation_eu.mapper.ReservationMapper;
+import com.hotelbooking.hotel_reservation_eu.mapper.RoomNightInventoryMapper;
+import com.hotelbooking.hotel_reservation_eu.model.Reservation;
+import com.hotelbooking.hotel_reservation_eu.model.ReservationOutboxEvent;
+import com.hotelbooking.hotel_reservation_eu.search.InventoryEntry;
+import com.hotelbooking.hotel_reservation_eu.service.BranchInventoryIndexService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 按晚房量内存台账并发测试类
+ */
+@DisplayName("按晚房量内存台账并发测试")
+class RoomAvailabilityServiceImplTest {
+
+    private static final long BRANCH_ID = 1L;
+    private static final long ROOM_TYPE_ID = 10L;
+    private static final int CAPACITY = 2;
+
+    private final LocalDate checkin = LocalDate.now().plusDays(3);
+    private final LocalDate checkout = checkin.plusDays(2);
+    private final InventoryEntry entry = new InventoryEntry(100L, ROOM_TYPE_ID, "双人间", null, null, null, 2,
+            new BigDecimal("100"), new BigDecimal("100"), false, CAPACITY, CAPACITY, 0, null, List.of());
+
+    private ReservationMapper reservationMapper;
+    private RoomAvailabilityServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        reservationMapper = mock(ReservationMapper.class);
+        service = new RoomAvailabilityServiceImpl(reservationMapper, mock(BranchInventoryIndexService.class),
+                mock(RoomNightInventoryMapper.class));
+        ReflectionTestUtils.setField(service, "horizonDays", 365);
+        ReflectionTestUtils.setField(service, "ledgerTtlSeconds", 300L);
+    }
+
+    @Test
+    @DisplayName("测试加载台账期间提交的取消不会丢失")
+    void testCancellationDuringLoadIsApplied() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        when(reservationMapper.countConflictingReservations(eq(ROOM_TYPE_ID), eq(BRANCH_ID), any(), any()))
+                .thenAnswer(invocation -> {
+                    // 加载已读取数据库快照（仍包含预订7），此时取消事务提交
+                    loading.countDown();
+                    assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+                    return 1;
+                });
+        when(reservationMapper.selectConflictingStays(eq(ROOM_TYPE_ID), eq(BRANCH_ID), any(), any()))
+                .thenReturn(List.of(stay(7L)));
+
+        CompletableFuture<Integer> search = CompletableFuture.supplyAsync(() ->
+                service.getFreeRooms(BRANCH_ID, entry, checkin, checkout));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> cancel = CompletableFuture.runAsync(() ->
+                service.onReservationChanged(cancelledEvent(7L)));
+        // 取消在加载完成前不能返回，否则会作用在尚未放入的台账之外
+        Thread.sleep(100);
+        assertFalse(cancel.isDone());
+        cancelled.countDown();
+
+        search.get(5, TimeUnit.SECONDS);
+        cancel.get(5, TimeUnit.SECONDS);
+        assertEquals(CAPACITY, service.getFreeRooms(BRANCH_ID, entry, checkin, checkout));
+    }
+
+    @Test
+    @DisplayName("测试台账过期后重新加载其他实例的变更")
+    void testExpiredLedgerIsReloaded() {
+        when(reservationMapper.countConflictingReservations(eq(ROOM_TYPE_ID), eq(BRANCH_ID), any(), any()))
+                .thenReturn(1, 0);
+        when(reservationMapper.selectConflictingStays(eq(ROOM_TYPE_ID), eq(BRANCH_ID), any(), any()))
+                .thenReturn(List.of(stay(7L)));
+        assertEquals(CAPACITY - 1, service.getFreeRooms(BRANCH_ID, entry, checkin, checkout));
+        long version = service.getAvailabilityVersion(BRANCH_ID);
+
+        // 预订7已在其他实例取消，本实例没有收到事件
+        ReflectionTestUtils.setField(service, "ledgerTtlSeconds", 0L);
+        assertEquals(CAPACITY, service.getFreeRooms(BRANCH_ID, entry, checkin, checkout));
+        assertTrue(service.getAvailabilityVersion(BRANCH_ID) > version);
+    }
+
+    private Reservation stay(long id) {
+        Reservation reservation = new Reservation();
+        reservation.setId(id);
+        reservation.setBranchId(BRANCH_ID);
+        reservation.setRoomTypeId(ROOM_TYPE_ID);
+        reservation.setCheckinDate(checkin);
+        reservation.setCheckoutDate(checkout);
+        reservation.setRooms(1);
+        return reservation;
+    }
+
+    private ReservationChangedEvent cancelledEvent(long id) {
+        return new ReservationChangedEvent(id, ReservationOutboxEvent.EVENT_CANCELLED, ROOM_TYPE_ID, BRANCH_ID,
+                checkin, checkout, 1, null, "CANCELLED", null, null, null);
+    }
+}
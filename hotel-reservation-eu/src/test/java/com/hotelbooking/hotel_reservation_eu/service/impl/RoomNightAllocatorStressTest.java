@@ -0,0 +1,222 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.hotelbooking.hotel_reservation_eu.mapper.RoomNightInventoryMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RoomNightAllocator 并发压测
+ * 在MySQL兼容模式的H2内存库上，用多线程同时对同一房型、互相重叠的入住区间发起数千次下单，
+ * 每次下单与生产路径一致：插入预订 → 初始化缺失库存行 → 条件UPDATE占用，失败回滚。
+ * 结束后逐晚核对：库存行已订数 = 有效预订房间数之和，且不超过可售房间数（零超卖）
+ */
+@Slf4j
+@DisplayName("按晚房量库存并发压测")
+class RoomNightAllocatorStressTest {
+
+    private static final long BRANCH_ID = 1L;
+    private static final long ROOM_TYPE_ID = 1L;
+    private static final int CAPACITY = 20;
+    private static final int THREADS = 32;
+    private static final int BOOKINGS = 4_000;
+    private static final int WINDOW_DAYS = 30;
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2030, 6, 1);
+
+    /**
+     * 预订ID由测试分配：H2 的自增列在并发插入并回滚时偶尔会分配重复的值，
+     * 会被误计为下单失败，与库存分配无关
+     */
+    private static final AtomicLong RESERVATION_IDS = new AtomicLong();
+
+    private static PooledDataSource dataSource;
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        dataSource = new PooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:room_night_inventory;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+        dataSource.setPoolMaximumActiveConnections(THREADS);
+        dataSource.setPoolMaximumIdleConnections(THREADS);
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE reservation (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, branch_id BIGINT NOT NULL, room_type_id BIGINT NOT NULL, " +
+                    "checkin_date DATE NOT NULL, checkout_date DATE NOT NULL, rooms INT NOT NULL, " +
+                    "status VARCHAR(20) NOT NULL)");
+            statement.execute("CREATE TABLE room_night_inventory (" +
+                    "branch_id BIGINT NOT NULL, room_type_id BIGINT NOT NULL, stay_date DATE NOT NULL, " +
+                    "booked INT NOT NULL DEFAULT 0, " +
+                    "created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                    "updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                    "PRIMARY KEY (branch_id, room_type_id, stay_date))");
+            // 库存表上线前已存在的预订：初始化库存行时必须计入，已取消的不计入
+            insertReservation(connection, night(3), night(8), 5, "CONFIRMED");
+            insertReservation(connection, night(5), night(6), 4, "PENDING");
+            insertReservation(connection, night(10), night(12), 6, "CANCELLED");
+        }
+
+        MybatisConfiguration configuration = new MybatisConfiguration(
+                new Environment("stress", new JdbcTransactionFactory(), dataSource));
+        configuration.addMapper(RoomNightInventoryMapper.class);
+        sqlSessionFactory = new MybatisSqlSessionFactoryBuilder().build(configuration);
+    }
+
+    @Test
+    @DisplayName("测试数千次并发下单零超卖且库存与预订一致")
+    void testConcurrentBookingsNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            long seed = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                Random random = new Random(seed);
+                int from = random.nextInt(WINDOW_DAYS - 7);
+                int to = from + 1 + random.nextInt(7);
+                int rooms = 1 + random.nextInt(2);
+                switch (book(night(from), night(to), rooms)) {
+                    case 1 -> succeeded.incrementAndGet();
+                    case 0 -> rejected.incrementAndGet();
+                    default -> failed.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        executor.shutdown();
+
+        log.info("并发下单压测: 线程={}, 下单={}, 成功={}, 房满拒绝={}, 异常={}, 耗时={}ms, 吞吐={} 单/秒",
+                THREADS, BOOKINGS, succeeded.get(), rejected.get(), failed.get(), elapsedMillis,
+                BOOKINGS * 1000L / elapsedMillis);
+
+        assertEquals(BOOKINGS, succeeded.get() + rejected.get() + failed.get());
+        assertEquals(0, failed.get(), "下单只应成功或因房满被拒绝，不应因死锁或锁等待超时失败");
+        assertTrue(succeeded.get() > 0);
+        assertTrue(rejected.get() > 0, "需求远大于库存，应有下单因房满被拒绝");
+
+        int fullNights = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            for (int day = 0; day < WINDOW_DAYS; day++) {
+                int booked = bookedOn(connection, night(day));
+                int reservedRooms = activeRoomsOn(connection, night(day));
+                assertEquals(reservedRooms, booked, "库存行与有效预订不一致: " + night(day));
+                assertTrue(booked <= CAPACITY, "超卖: " + night(day) + " 已订 " + booked);
+                if (booked == CAPACITY) {
+                    fullNights++;
+                }
+            }
+        }
+        assertTrue(fullNights > 0, "压测应把部分夜晚订满");
+    }
+
+    /**
+     * 按生产路径下单：1 成功，0 房满回滚，-1 数据库异常回滚
+     */
+    private static int book(LocalDate checkin, LocalDate checkout, int rooms) throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession(false)) {
+            try {
+                long reservationId = insertReservation(session.getConnection(), checkin, checkout, rooms, "PENDING");
+                RoomNightAllocator allocator = new RoomNightAllocator(session.getMapper(RoomNightInventoryMapper.class));
+                if (allocator.allocate(BRANCH_ID, ROOM_TYPE_ID, checkin, checkout, rooms, CAPACITY, reservationId)) {
+                    session.commit(true);
+                    return 1;
+                }
+                session.rollback(true);
+                return 0;
+            } catch (PersistenceException | SQLException e) {
+                session.rollback(true);
+                return -1;
+            }
+        }
+    }
+
+    private static long insertReservation(Connection connection, LocalDate checkin, LocalDate checkout,
+                                          int rooms, String status) throws SQLException {
+        long id = RESERVATION_IDS.incrementAndGet();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO reservation (id, branch_id, room_type_id, checkin_date, checkout_date, rooms, status) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            statement.setLong(1, id);
+            statement.setLong(2, BRANCH_ID);
+            statement.setLong(3, ROOM_TYPE_ID);
+            statement.setDate(4, Date.valueOf(checkin));
+            statement.setDate(5, Date.valueOf(checkout));
+            statement.setInt(6, rooms);
+            statement.setString(7, status);
+            statement.executeUpdate();
+            return id;
+        }
+    }
+
+    private static int bookedOn(Connection connection, LocalDate night) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT booked FROM room_night_inventory WHERE branch_id = ? AND room_type_id = ? AND stay_date = ?")) {
+            statement.setLong(1, BRANCH_ID);
+            statement.setLong(2, ROOM_TYPE_ID);
+            statement.setDate(3, Date.valueOf(night));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        }
+    }
+
+    private static int activeRoomsOn(Connection connection, LocalDate night) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT COALESCE(SUM(rooms), 0) FROM reservation WHERE branch_id = ? AND room_type_id = ? " +
+                        "AND status NOT IN ('CANCELLED', 'COMPLETED') AND checkin_date <= ? AND checkout_date > ?")) {
+            statement.setLong(1, BRANCH_ID);
+            statement.setLong(2, ROOM_TYPE_ID);
+            statement.setDate(3, Date.valueOf(night));
+            statement.setDate(4, Date.valueOf(night));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+
+    private static LocalDate night(int day) {
+        return FIRST_NIGHT.plusDays(day);
+    }
+}
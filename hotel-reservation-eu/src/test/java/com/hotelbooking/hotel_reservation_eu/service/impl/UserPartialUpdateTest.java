@@ -0,0 +1,189 @@
+package com.hotelbooking.hotel_reservation_eu.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.hotelbooking.hotel_reservation_eu.mapper.UserMapper;
+import com.hotelbooking.hotel_reservation_eu.model.User;
+import com.hotelbooking.hotel_reservation_eu.service.BlindIndexService;
+import com.hotelbooking.hotel_reservation_eu.service.DataEncryptionService;
+import com.hotelbooking.hotel_reservation_eu.service.InMemoryDataKeyService;
+import com.hotelbooking.hotel_reservation_eu.service.UserBlindIndexBackfillService;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 用户部分更新测试
+ * 在MySQL兼容模式的H2内存库上运行 UserServiceImpl，核对密码重置、资料修改、账户删除时
+ * 只加密修改过的PII字段、只写入修改过的列，未修改的密文保持不变，清除的列写入NULL
+ */
+@DisplayName("用户部分更新测试")
+@SuppressWarnings("deprecation")
+class UserPartialUpdateTest {
+
+    private PooledDataSource dataSource;
+    private SqlSession session;
+    private UserServiceImpl userService;
+    private final AtomicInteger encryptions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new PooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:user_partial_update;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS user");
+            statement.execute("CREATE TABLE user (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "username VARCHAR(50), password VARCHAR(100), first_name VARCHAR(255), last_name VARCHAR(255), " +
+                    "email VARCHAR(255), phone_number VARCHAR(255), email_hash CHAR(64), phone_hash CHAR(64), " +
+                    "address VARCHAR(512), date_of_birth DATE, nationality VARCHAR(50), role VARCHAR(20), " +
+                    "enabled BOOLEAN, account_non_expired BOOLEAN, credentials_non_expired BOOLEAN, " +
+                    "account_non_locked BOOLEAN, reset_password_token VARCHAR(100), " +
+                    "reset_password_token_expiry DATETIME, created_at DATETIME, updated_at DATETIME, " +
+                    "gdpr_processing_consent BOOLEAN, gdpr_marketing_consent BOOLEAN, " +
+                    "gdpr_analytics_consent BOOLEAN, gdpr_consent_date DATETIME)");
+        }
+
+        MybatisConfiguration configuration = new MybatisConfiguration(
+                new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addMapper(UserMapper.class);
+        session = new MybatisSqlSessionFactoryBuilder().build(configuration).openSession(true);
+
+        DataEncryptionService encryptionService = new DataEncryptionService(new InMemoryDataKeyService()) {
+            @Override
+            public String encrypt(String plainText) {
+                encryptions.incrementAndGet();
+                return super.encrypt(plainText);
+            }
+        };
+        userService = new UserServiceImpl(session.getMapper(UserMapper.class), NoOpPasswordEncoder.getInstance(),
+                encryptionService, new BlindIndexService("test-blind-index-key"),
+                mock(UserBlindIndexBackfillService.class));
+
+        userService.saveUser(User.builder()
+                .username("anna")
+                .password("old-password")
+                .firstName("Anna")
+                .lastName("Schmidt")
+                .email("anna@example.com")
+                .phoneNumber("+49 30 123456")
+                .address("Hauptstraße 1, Berlin")
+                .nationality("DE")
+                .enabled(true)
+                .gdprMarketingConsent(true)
+                .build());
+        encryptions.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        session.close();
+        dataSource.forceCloseAll();
+    }
+
+    @Test
+    @DisplayName("测试密码重置流程不重新加密PII并清除令牌")
+    void testPasswordResetWritesOnlyTokenColumns() throws SQLException {
+        Map<String, Object> before = loadRow();
+
+        userService.initiatePasswordReset("ANNA@example.com");
+        Map<String, Object> afterInitiate = loadRow();
+        String token = (String) afterInitiate.get("RESET_PASSWORD_TOKEN");
+        assertNotNull(token);
+        assertNotNull(afterInitiate.get("RESET_PASSWORD_TOKEN_EXPIRY"));
+
+        userService.resetPassword(token, "new-password");
+        Map<String, Object> afterReset = loadRow();
+        assertEquals("new-password", afterReset.get("PASSWORD"));
+        assertNull(afterReset.get("RESET_PASSWORD_TOKEN"), "已使用的令牌应被清除");
+        assertNull(afterReset.get("RESET_PASSWORD_TOKEN_EXPIRY"));
+
+        assertEquals(0, encryptions.get(), "只修改令牌和密码时不应加密PII");
+        for (String column : new String[]{"FIRST_NAME", "LAST_NAME", "EMAIL", "PHONE_NUMBER", "ADDRESS", "EMAIL_HASH"}) {
+            assertEquals(before.get(column), afterReset.get(column), column + " 不应被重写");
+        }
+    }
+
+    @Test
+    @DisplayName("测试修改资料只加密修改过的PII字段")
+    void testUpdateUserEncryptsOnlyChangedPii() throws SQLException {
+        Map<String, Object> before = loadRow();
+
+        User user = userService.findByUsername("anna");
+        // 与资料表单一致：所有字段都会被赋值，只有地址和营销同意发生变化
+        user.setFirstName("Anna");
+        user.setLastName("Schmidt");
+        user.setEmail("anna@example.com");
+        user.setPhoneNumber("+49 30 123456");
+        user.setAddress("Friedrichstraße 2, Berlin");
+        user.setGdprMarketingConsent(false);
+        userService.updateUser(user);
+
+        Map<String, Object> after = loadRow();
+        assertEquals(1, encryptions.get(), "只有地址需要重新加密");
+        assertNotEquals(before.get("ADDRESS"), after.get("ADDRESS"));
+        assertEquals(before.get("EMAIL"), after.get("EMAIL"));
+        assertEquals(before.get("EMAIL_HASH"), after.get("EMAIL_HASH"));
+        assertEquals(false, after.get("GDPR_MARKETING_CONSENT"));
+        assertEquals("Friedrichstraße 2, Berlin", user.getAddress(), "写入后对象保持明文");
+
+        User reloaded = userService.findByUsername("anna");
+        assertEquals("Friedrichstraße 2, Berlin", reloaded.getAddress());
+        assertEquals("anna@example.com", reloaded.getEmail());
+        assertEquals(userService.findByEmail("anna@example.com").getId(), reloaded.getId());
+
+        encryptions.set(0);
+        userService.updateUser(reloaded);
+        assertEquals(0, encryptions.get(), "未修改时不应加密");
+    }
+
+    @Test
+    @DisplayName("测试删除账户清除可选PII列")
+    void testDeleteUserAccountClearsColumns() throws SQLException {
+        Long id = userService.findByUsername("anna").getId();
+        userService.deleteUserAccount(id);
+
+        Map<String, Object> after = loadRow();
+        assertNull(after.get("PHONE_NUMBER"));
+        assertNull(after.get("PHONE_HASH"));
+        assertNull(after.get("ADDRESS"));
+        assertNull(after.get("NATIONALITY"));
+        assertEquals(false, after.get("ENABLED"));
+        assertNull(userService.findByEmail("anna@example.com"));
+
+        User deleted = userService.getUserById(id);
+        assertEquals("已删除", deleted.getFirstName());
+        assertTrue(deleted.getEmail().endsWith("@deleted.example.com"));
+    }
+
+    private Map<String, Object> loadRow() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM user");
+             ResultSet resultSet = statement.executeQuery()) {
+            assertTrue(resultSet.next());
+            Map<String, Object> row = new HashMap<>();
+            for (int i = 1; i <= resultSet.getMetaData().getColumnCount(); i++) {
+                row.put(resultSet.getMetaData().getColumnName(i), resultSet.getObject(i));
+            }
+            return row;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.hotelbooking.hotel_reservation_eu.statistics;
+
+import com.hotelbooking.hotel_reservation_eu.model.AnonymizedReservation;
+import com.hotelbooking.hotel_reservation_eu.model.Reservation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DailyStatisticsAggregate 聚合引擎测试类
+ */
+@DisplayName("每日统计聚合引擎测试")
+class DailyStatisticsAggregateTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 1, 15);
+
+    @Test
+    @DisplayName("测试单次遍历累加收入、趋势和分店统计")
+    void testSinglePassTotals() {
+        DailyStatisticsAggregate aggregate = DailyStatisticsAggregate.singlePass(DATE);
+        aggregate.add(reservation(1L, 10L, 100L, "120.50", "CONFIRMED", "PAID"));
+        aggregate.add(reservation(2L, 10L, 200L, "80.25", "CONFIRMED", "PAID"));
+        aggregate.add(reservation(3L, 20L, 100L, "99.99", "CANCELLED", "REFUNDED"));
+        aggregate.add(reservation(4L, 20L, 100L, null, "PENDING", "PAID"));
+
+        assertEquals(4, aggregate.getTotalReservations());
+        assertEquals(new BigDecimal("200.75"), aggregate.getTotalIncome());
+        assertEquals(2, aggregate.getConfirmedReservations());
+        assertEquals(1, aggregate.getCancelledReservations());
+
+        List<DailyStatisticsAggregate.GroupStats> branches = aggregate.branchStats();
+        assertEquals(2, branches.size());
+        assertEquals(new DailyStatisticsAggregate.GroupStats(100L, 2, new BigDecimal("120.50")), branches.get(0));
+        assertEquals(new DailyStatisticsAggregate.GroupStats(200L, 1, new BigDecimal("80.25")), branches.get(1));
+    }
+
+    @Test
+    @DisplayName("测试Top N按预订数降序，预订数相同时房型ID小的优先")
+    void testTopRoomTypesOrdering() {
+        DailyStatisticsAggregate aggregate = DailyStatisticsAggregate.singlePass(DATE);
+        long id = 1;
+        // 房型k有k条已支付预订（k=1..8），另加一个与房型8同为8条的房型3
+        for (long roomTypeId = 1; roomTypeId <= 8; roomTypeId++) {
+            for (int i = 0; i < roomTypeId; i++) {
+                aggregate.add(reservation(id++, roomTypeId, 1L, "10.00", "CONFIRMED", "PAID"));
+            }
+        }
+        for (int i = 0; i < 5; i++) {
+            aggregate.add(reservation(id++, 3L, 1L, "10.00", "CONFIRMED", "PAID"));
+        }
+
+        List<DailyStatisticsAggregate.GroupStats> top = aggregate.topRoomTypes(5);
+        assertEquals(List.of(3L, 8L, 7L, 6L, 5L), top.stream().map(DailyStatisticsAggregate.GroupStats::id).toList());
+        assertEquals(8, top.get(0).count());
+        assertEquals(new BigDecimal("80.00"), top.get(0).revenue());
+        assertTrue(DailyStatisticsAggregate.singlePass(DATE).topRoomTypes(5).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试同一预订再次变更时撤销旧贡献")
+    void testApplyRetractsPreviousContribution() {
+        DailyStatisticsAggregate aggregate = new DailyStatisticsAggregate(DATE);
+        assertTrue(aggregate.apply(reservation(1L, 10L, 100L, "150.00", "CONFIRMED", "PAID")));
+        assertTrue(aggregate.apply(reservation(1L, 10L, 100L, "150.00", "CANCELLED", "REFUNDED")));
+
+        Reservation otherDay = reservation(2L, 10L, 100L, "50.00", "CONFIRMED", "PAID");
+        otherDay.setCreatedAt(DATE.plusDays(1).atStartOfDay());
+        assertFalse(aggregate.apply(otherDay));
+
+        assertEquals(1, aggregate.getTotalReservations());
+        assertEquals(0, aggregate.getTotalIncome().signum());
+        assertEquals(0, aggregate.getConfirmedReservations());
+        assertEquals(1, aggregate.getCancelledReservations());
+        assertTrue(aggregate.topRoomTypes(5).isEmpty());
+        assertTrue(aggregate.branchStats().isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试并行聚合与顺序聚合结果一致")
+    void testParallelAggregateMatchesSequential() {
+        String[] statuses = {"PENDING", "CONFIRMED", "CANCELLED"};
+        String[] paymentStatuses = {"PENDING", "PAID", "REFUNDED"};
+        Random random = new Random(7);
+        LocalDateTime createdAt = DATE.atTime(9, 0);
+        int rows = DailyStatisticsAggregate.PARALLEL_THRESHOLD * 3;
+        List<AnonymizedReservation> reservations = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            reservations.add(new AnonymizedReservation(id, 1L + random.nextInt(50), 1L + random.nextInt(200),
+                    1000L + random.nextInt(100000), statuses[random.nextInt(3)], paymentStatuses[random.nextInt(3)],
+                    createdAt, createdAt));
+        }
+
+        DailyStatisticsAggregate sequential = DailyStatisticsAggregate.singlePass(DATE);
+        reservations.forEach(sequential::apply);
+        DailyStatisticsAggregate parallel = DailyStatisticsAggregate.aggregate(DATE, reservations);
+
+        assertEquals(sequential.getTotalReservations(), parallel.getTotalReservations());
+        assertEquals(sequential.getTotalIncome(), parallel.getTotalIncome());
+        assertEquals(sequential.getConfirmedReservations(), parallel.getConfirmedReservations());
+        assertEquals(sequential.getCancelledReservations(), parallel.getCancelledReservations());
+        assertEquals(sequential.topRoomTypes(5), parallel.topRoomTypes(5));
+        assertEquals(sequential.branchStats(), parallel.branchStats());
+    }
+
+    private Reservation reservation(Long id, Long roomTypeId, Long branchId, String totalPrice,
+                                    String status, String paymentStatus) {
+        return Reservation.builder()
+                .id(id)
+                .roomTypeId(roomTypeId)
+                .branchId(branchId)
+                .totalPrice(totalPrice != null ? new BigDecimal(totalPrice) : null)
+                .status(status)
+                .paymentStatus(paymentStatus)
+                .createdAt(DATE.atTime(12, 0))
+                .build();
+    }
+}
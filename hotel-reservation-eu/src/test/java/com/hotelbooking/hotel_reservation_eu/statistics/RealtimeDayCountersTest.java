@@ -0,0 +1,114 @@
+package com.hotelbooking.hotel_reservation_eu.statistics;
+
+import com.hotelbooking.hotel_reservation_eu.model.AnonymizedReservation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RealtimeDayCounters 实时计数器测试类
+ */
+@DisplayName("实时统计计数器测试")
+class RealtimeDayCountersTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 1, 15);
+    private static final LocalDateTime CREATED_AT = DATE.atTime(10, 0);
+
+    @Test
+    @DisplayName("测试种子与事件任意交错时不丢失也不重复计数")
+    void testSeedAndEventInterleaving() {
+        AnonymizedReservation pending = reservation(1L, "PENDING", "PENDING", CREATED_AT);
+        AnonymizedReservation paid = reservation(1L, "CONFIRMED", "PAID", CREATED_AT.plusMinutes(5));
+
+        // 种子先读到旧状态，事件随后覆盖
+        RealtimeDayCounters seedFirst = new RealtimeDayCounters(DATE);
+        assertTrue(seedFirst.applySeed(pending));
+        assertTrue(seedFirst.applyEvent(paid));
+
+        // 事件先到达，扫描读到的旧状态被忽略
+        RealtimeDayCounters eventFirst = new RealtimeDayCounters(DATE);
+        assertTrue(eventFirst.applyEvent(paid));
+        assertFalse(eventFirst.applySeed(pending));
+
+        for (RealtimeDayCounters counters : List.of(seedFirst, eventFirst)) {
+            DailyStatisticsAggregate snapshot = counters.snapshot();
+            assertEquals(1, snapshot.getTotalReservations());
+            assertEquals(1, snapshot.getConfirmedReservations());
+            assertEquals(new BigDecimal("100.00"), snapshot.getTotalIncome());
+            assertEquals(List.of(new DailyStatisticsAggregate.GroupStats(100L, 1, new BigDecimal("100.00"))),
+                    snapshot.branchStats());
+        }
+    }
+
+    @Test
+    @DisplayName("测试乱序到达的旧事件不覆盖新状态，取消后撤销收入")
+    void testOutOfOrderEvents() {
+        RealtimeDayCounters counters = new RealtimeDayCounters(DATE);
+        AnonymizedReservation paid = reservation(1L, "CONFIRMED", "PAID", CREATED_AT.plusMinutes(5));
+        AnonymizedReservation cancelled = reservation(1L, "CANCELLED", "PENDING", CREATED_AT.plusMinutes(10));
+
+        assertTrue(counters.applyEvent(cancelled));
+        assertFalse(counters.applyEvent(paid));
+        AnonymizedReservation previousDay = new AnonymizedReservation(2L, 10L, 100L, 10000L, "PENDING", "PENDING",
+                CREATED_AT.minusDays(1), CREATED_AT.minusDays(1));
+        assertFalse(counters.applyEvent(previousDay));
+
+        DailyStatisticsAggregate snapshot = counters.snapshot();
+        assertEquals(1, snapshot.getTotalReservations());
+        assertEquals(0, snapshot.getConfirmedReservations());
+        assertEquals(1, snapshot.getCancelledReservations());
+        assertEquals(new BigDecimal("0.00"), snapshot.getTotalIncome());
+        assertTrue(snapshot.topRoomTypes(5).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试多线程并发折叠事件后计数准确")
+    void testConcurrentEvents() throws Exception {
+        RealtimeDayCounters counters = new RealtimeDayCounters(DATE);
+        int threads = 8;
+        int perThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long base = (long) t * perThread;
+                futures.add(executor.submit(() -> {
+                    for (long id = base + 1; id <= base + perThread; id++) {
+                        counters.applyEvent(reservation(id, "PENDING", "PENDING", CREATED_AT));
+                        counters.applyEvent(reservation(id, "CONFIRMED", "PAID", CREATED_AT.plusMinutes(1)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        DailyStatisticsAggregate snapshot = counters.snapshot();
+        int total = threads * perThread;
+        assertEquals(total, snapshot.getTotalReservations());
+        assertEquals(total, snapshot.getConfirmedReservations());
+        assertEquals(BigDecimal.valueOf(total * 10000L, 2), snapshot.getTotalIncome());
+        assertEquals(total, snapshot.topRoomTypes(1).get(0).count());
+        assertTrue(counters.clearDirty());
+        assertFalse(counters.isDirty());
+    }
+
+    private static AnonymizedReservation reservation(long id, String status, String paymentStatus,
+                                                     LocalDateTime updatedAt) {
+        return new AnonymizedReservation(id, 10L, 100L, 10000L, status, paymentStatus, CREATED_AT, updatedAt);
+    }
+}
@@ -0,0 +1,51 @@
+package com.hotelbooking.hotel_reservation_eu.statistics;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.hotelbooking.hotel_reservation_eu.dto.StatisticsReportDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StatisticsReportCodec 编解码测试类
+ */
+@DisplayName("综合统计报告编解码测试")
+class StatisticsReportCodecTest {
+
+    private final StatisticsReportDto report = new StatisticsReportDto(
+            LocalDate.of(2025, 1, 15),
+            "comprehensive-report-from-anonymized-data",
+            "EU",
+            LocalDateTime.of(2025, 1, 15, 10, 30, 0),
+            3,
+            new StatisticsReportDto.DailyTotalIncome(new BigDecimal("300.50"), 3, new BigDecimal("100.17"), "EUR"),
+            List.of(new StatisticsReportDto.RoomTypeRanking(1, 10L, 2, new BigDecimal("200.50"))),
+            List.of(new StatisticsReportDto.BranchPerformance(100L, 2, new BigDecimal("200.50"))),
+            new StatisticsReportDto.ReservationTrends(3, 2, 1, new BigDecimal("66.6700")));
+
+    @Test
+    @DisplayName("测试JSON结果可被解析且嵌套结构完整")
+    void testJsonIsParseable() {
+        String json = StatisticsReportCodec.toJson(report);
+
+        JSONObject parsed = JSON.parseObject(json);
+        assertEquals("2025-01-15", parsed.getString("reportDate"));
+        assertEquals(3, parsed.getIntValue("dataCount"));
+        assertEquals(new BigDecimal("300.50"), parsed.getJSONObject("dailyTotalIncome").getBigDecimal("totalIncome"));
+        assertEquals(10L, parsed.getJSONArray("popularRoomTypesTop5").getJSONObject(0).getLongValue("roomTypeId"));
+        assertEquals(1, parsed.getJSONObject("reservationTrends").getLongValue("cancelledReservations"));
+    }
+
+    @Test
+    @DisplayName("测试JSON往返还原")
+    void testRoundTrip() {
+        assertEquals(report, StatisticsReportCodec.fromJson(StatisticsReportCodec.toJson(report)));
+    }
+}